@@ -0,0 +1,108 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.Provenance;
+import de.fraunhofer.scai.bio.util.AnnotationMerger;
+
+/**
+ * Merging the annotations of a second annotator into a document, and of eight annotators pairwise and in one
+ * {@link AnnotationMerger#mergeAll(Document, List)}. The base document is changed by the merge, so a fresh copy is
+ * made before every invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnnotationMergerBenchmark {
+
+    @Param({ "a.json", "testAnnotatedDocument.json", BenchmarkDocuments.SYNTHETIC })
+    public String document;
+
+    private Document original;
+    private Document extension;
+    private List<Document> layers;
+    private List<Document> layerCopies;
+    private Document base;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+        original = BenchmarkDocuments.load(document);
+
+        extension = BenchmarkDocuments.copy(original);
+        Provenance provenance = new Provenance();
+        provenance.setSource("second annotator");
+        BenchmarkDocuments.annotate(extension, new Random(42), provenance);
+
+        layers = new ArrayList<Document>();
+        for (int i = 0; i < 8; i++) {
+            Document layer = BenchmarkDocuments.copy(original);
+            Provenance annotator = new Provenance();
+            annotator.setSource("annotator " + i);
+            BenchmarkDocuments.annotate(layer, new Random(i), annotator);
+            layers.add(layer);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        base = BenchmarkDocuments.copy(original);
+        // the pairwise merge shares annotation sets of a layer with the base document and grows them later on
+        layerCopies = new ArrayList<Document>();
+        for (Document layer : layers) {
+            layerCopies.add(BenchmarkDocuments.copy(layer));
+        }
+    }
+
+    @Benchmark
+    public Document mergeAnnotations() {
+        return AnnotationMerger.mergeAnnotations(base, extension);
+    }
+
+    @Benchmark
+    public Document mergeEightPairwise() {
+        for (Document layer : layerCopies) {
+            AnnotationMerger.mergeAnnotations(base, layer);
+        }
+        return base;
+    }
+
+    @Benchmark
+    public Document mergeEightAll() {
+        return AnnotationMerger.mergeAll(base, layerCopies);
+    }
+
+}
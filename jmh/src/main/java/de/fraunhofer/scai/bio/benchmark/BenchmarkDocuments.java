@@ -0,0 +1,225 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Random;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.Provenance;
+import de.fraunhofer.scai.bio.types.text.doc.container.Paragraph;
+import de.fraunhofer.scai.bio.types.text.doc.container.Section;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Annotation;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Date;
+import de.fraunhofer.scai.bio.types.text.doc.structure.TextElement;
+import de.fraunhofer.scai.bio.util.DocumentBuilder;
+import de.fraunhofer.scai.bio.util.DocumentCodec;
+import de.fraunhofer.scai.bio.util.DocumentWalker;
+
+/**
+ * Documents the benchmarks run on: the JSON files of the unit tests and synthetic documents of configurable size.
+ */
+public final class BenchmarkDocuments {
+
+    /** parameter value for a synthetic document, see {@link #synthetic(int, long)} */
+    public static final String SYNTHETIC = "synthetic";
+
+    private static final String[] WORDS = { "the", "protein", "binds", "to", "receptor", "in", "patients", "with",
+        "severe", "disease", "and", "was", "observed", "after", "treatment", "SARS-CoV-2", "expression", "of", "cells",
+        "increased", "significantly", "compared", "control", "group", "kinase", "inhibitor", "response" };
+
+    private static final String[] ANNOTATION_TYPES = { "GENE", "DISEASE", "DRUG", "SPECIES", "CELL" };
+
+    private static final ObjectMapper MAPPER = createMapper();
+
+    private BenchmarkDocuments() {
+    }
+
+    /**
+     * @return {@link ObjectMapper} that also reads the older documents which store dates as epoch milliseconds
+     */
+    public static ObjectMapper createMapper() {
+        SimpleModule legacyDates = new SimpleModule("legacy-dates");
+        legacyDates.addDeserializer(Date.class, new LegacyDateDeserializer());
+
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(legacyDates);
+        mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        return mapper;
+    }
+
+    /**
+     * @param name
+     *        a.json, b.json, testAnnotatedDocument.json or {@link #SYNTHETIC}
+     * @return the document
+     * @throws IOException
+     *         if the resource can't be read
+     */
+    public static Document load(String name) throws IOException {
+        if (SYNTHETIC.equals(name)) {
+            return synthetic(200, 4711);
+        }
+
+        String resource = name.startsWith("test") ? "/positiveIn/" + name : "/" + name;
+        try (InputStream in = BenchmarkDocuments.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("no benchmark document " + resource);
+            }
+            return MAPPER.readValue(in, Document.class);
+        }
+    }
+
+    /**
+     * @param document
+     *        {@link Document} to copy
+     * @return deep copy, made through {@link DocumentCodec}
+     */
+    public static Document copy(Document document) {
+        return DocumentCodec.decode(DocumentCodec.encode(document));
+    }
+
+    /**
+     * A document with sections of annotated paragraphs, built the way importers build them.
+     *
+     * @param paragraphs
+     *        number of paragraphs, grouped into sections of ten
+     * @param seed
+     *        seed for the random text and annotations
+     * @return the document
+     */
+    public static Document synthetic(int paragraphs, long seed) {
+        Random random = new Random(seed);
+        DocumentBuilder builder = new DocumentBuilder();
+
+        Document document = new Document();
+        builder.setTitle(document, sentence(random, 12), null);
+        builder.setAbstract(document, paragraph(random, 8));
+
+        Section section = null;
+        for (int i = 0; i < paragraphs; i++) {
+            if (i % 10 == 0) {
+                section = builder.createSection("Section " + (i / 10 + 1));
+                builder.getBodyMatter(document).addSection(section);
+            }
+            Paragraph paragraph = builder.createParagraph(paragraph(random, 6), true);
+            section.addParagraph(paragraph);
+        }
+
+        Provenance provenance = new Provenance();
+        provenance.setSource("synthetic");
+        provenance.setCollection("benchmark");
+        annotate(document, random, provenance);
+
+        return document;
+    }
+
+    /**
+     * add up to three random annotations to every text element
+     *
+     * @param document
+     *        {@link Document} to annotate
+     * @param random
+     *        {@link Random}
+     * @param provenance
+     *        provenance of the annotations
+     */
+    public static void annotate(Document document, Random random, Provenance provenance) {
+        DocumentWalker.walk(document, (textElement, role, depth) -> annotate(textElement, random, provenance));
+    }
+
+    private static void annotate(TextElement textElement, Random random, Provenance provenance) {
+        String text = textElement.getText();
+        if (text == null || text.length() < 2) {
+            return;
+        }
+        int count = random.nextInt(4);
+        for (int i = 0; i < count; i++) {
+            int start = random.nextInt(text.length() - 1);
+            int end = Math.min(text.length(), start + 1 + random.nextInt(20));
+
+            Annotation annotation = new Annotation();
+            annotation.setStartOffset(start);
+            annotation.setEndOffset(end);
+            annotation.setAnnotationType(ANNOTATION_TYPES[random.nextInt(ANNOTATION_TYPES.length)]);
+            annotation.setAnnotationText(text.substring(start, end));
+            annotation.setProvenance(provenance);
+            textElement.addAnnotation(annotation);
+        }
+    }
+
+    /**
+     * @return text of several sentences
+     */
+    public static String paragraph(Random random, int sentences) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < sentences; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(sentence(random, 8 + random.nextInt(20)));
+        }
+        return sb.toString();
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            if (i == 0) {
+                sb.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+            } else {
+                sb.append(' ').append(word);
+            }
+        }
+        return sb.append('.').toString();
+    }
+
+    /**
+     * reads {@link Date} objects as well as epoch milliseconds
+     */
+    private static final class LegacyDateDeserializer extends StdDeserializer<Date> {
+
+        private static final long serialVersionUID = 1L;
+
+        LegacyDateDeserializer() {
+            super(Date.class);
+        }
+
+        @Override
+        public Date deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            Date date = new Date();
+            if (p.getCurrentToken().isNumeric()) {
+                LocalDate day = Instant.ofEpochMilli(p.getLongValue()).atZone(ZoneOffset.UTC).toLocalDate();
+                date.setDate(day.getDayOfMonth(), day.getMonthValue(), day.getYear());
+            } else {
+                JsonNode node = p.readValueAsTree();
+                date.setDate(node.path("day").asInt(), node.path("month").asInt(), node.path("year").asInt());
+            }
+            return date;
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.fraunhofer.scai.bio.types.text.doc.container.Paragraph;
+import de.fraunhofer.scai.bio.types.text.doc.container.Section;
+import de.fraunhofer.scai.bio.util.DocumentBuilder;
+import de.fraunhofer.scai.bio.util.SentenceDetector;
+
+/**
+ * One {@link DocumentBuilder} and {@link SentenceDetector} shared by all benchmark threads against one builder per
+ * thread. Runs on all cores by default, repeat it with <code>-t 1</code>, <code>-t 2</code>, ... to see how the
+ * throughput scales with the number of threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(Threads.MAX)
+@Fork(1)
+public class ConcurrentIngestionBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+
+        /** engine of the shared detector */
+        @Param({ "SCANNER", "REGEX" })
+        public SentenceDetector.Engine engine;
+
+        DocumentBuilder builder;
+        SentenceDetector detector;
+
+        @Setup
+        public void setup() {
+            builder = new DocumentBuilder();
+            detector = new SentenceDetector(0, engine);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class PerThread {
+
+        DocumentBuilder builder;
+        String text;
+
+        @Setup
+        public void setup() {
+            builder = new DocumentBuilder();
+            text = BenchmarkDocuments.paragraph(new Random(Thread.currentThread().getId()), 20);
+        }
+    }
+
+    @Benchmark
+    public Paragraph sharedBuilder(Shared shared, PerThread thread) {
+        return shared.builder.createParagraph(thread.text, true);
+    }
+
+    @Benchmark
+    public Paragraph builderPerThread(PerThread thread) {
+        return thread.builder.createParagraph(thread.text, true);
+    }
+
+    @Benchmark
+    public int[] sharedDetector(Shared shared, PerThread thread) {
+        return shared.detector.findSentenceEndOffsets(thread.text);
+    }
+
+    @Benchmark
+    public Section sharedLabels(Shared shared) {
+        return shared.builder.createSection("Abstract", "Abstract");
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.benchmark;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.fraunhofer.scai.bio.types.text.doc.container.Paragraph;
+import de.fraunhofer.scai.bio.util.DocumentBuilder;
+import de.fraunhofer.scai.bio.util.TextElementIdStrategy;
+
+/**
+ * Building a paragraph with sentences, the inner loop of every importer, and deriving text element ids with both
+ * {@link TextElementIdStrategy}s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentBuilderBenchmark {
+
+    /** sentences per paragraph */
+    @Param({ "5", "50" })
+    public int sentences;
+
+    @Param({ "MD5", "MURMUR3" })
+    public String idStrategy;
+
+    private DocumentBuilder builder;
+    private TextElementIdStrategy strategy;
+    private String text;
+
+    @Setup
+    public void setup() {
+        strategy = "MD5".equals(idStrategy) ? TextElementIdStrategy.MD5 : TextElementIdStrategy.MURMUR3;
+        builder = new DocumentBuilder(strategy);
+        text = BenchmarkDocuments.paragraph(new Random(4711), sentences);
+    }
+
+    @Benchmark
+    public Paragraph createParagraph() {
+        return builder.createParagraph(text, true);
+    }
+
+    @Benchmark
+    public UUID createId() {
+        return strategy.createId(text);
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.util.DocumentStore;
+
+/**
+ * Point lookups of random ids in a {@link DocumentStore}, with and without decoding the document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentStoreBenchmark {
+
+    @Param({ "100000" })
+    public int documents;
+
+    private File directory;
+    private DocumentStore store;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("document-store").toFile();
+        store = new DocumentStore(directory);
+        for (int i = 0; i < documents; i++) {
+            store.put(Integer.toString(i), BenchmarkDocuments.synthetic(3, i));
+        }
+        store.flush();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        store.close();
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public Document get() {
+        return store.get(Integer.toString(ThreadLocalRandom.current().nextInt(documents)));
+    }
+
+    @Benchmark
+    public ByteBuffer getEncoded() {
+        return store.getEncoded(Integer.toString(ThreadLocalRandom.current().nextInt(documents)));
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.util.DocumentCodec;
+import de.fraunhofer.scai.bio.util.DocumentView;
+
+/**
+ * Filtering by doc type and title: a {@link DocumentView} decoding only the front matter vs. decoding the whole
+ * document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentViewBenchmark {
+
+    @Param({ "10", "100" })
+    public int paragraphs;
+
+    private byte[] encoded;
+
+    @Setup
+    public void setup() {
+        encoded = DocumentCodec.encode(BenchmarkDocuments.synthetic(paragraphs, 42));
+    }
+
+    @Benchmark
+    public String view() {
+        DocumentView view = new DocumentView(encoded);
+        return view.getDocType() + view.getFrontMatter().getTitleText().getText();
+    }
+
+    @Benchmark
+    public String decode() {
+        Document document = DocumentCodec.decode(encoded);
+        return document.getDocType()
+            + document.getDocumentElement().getFrontMatter().getTitleText().getText();
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXException;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.util.ElsevierDocumentReader;
+
+/**
+ * Import of the Elsevier test article with {@link ElsevierDocumentReader}, next to the bare DOM parse of the same
+ * (repaired) XML, which a DOM based importer would still have to walk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ElsevierReaderBenchmark {
+
+    private final ElsevierDocumentReader reader = new ElsevierDocumentReader();
+    private DocumentBuilderFactory domFactory;
+    private byte[] xml;
+    private byte[] repaired;
+
+    @Setup
+    public void setup() throws IOException {
+        try (InputStream in = ElsevierReaderBenchmark.class.getResourceAsStream("/elsevier.xml")) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1 << 16];
+            for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+                out.write(buffer, 0, n);
+            }
+            xml = out.toByteArray();
+        }
+        // the DOM parser doesn't accept the stray < and & of the test article
+        repaired = new String(xml, StandardCharsets.UTF_8)
+            .replaceAll("&(?![#A-Za-z])", "&amp;")
+            .replaceAll("<(?![/!?A-Za-z_:])", "&lt;")
+            .getBytes(StandardCharsets.UTF_8);
+        domFactory = DocumentBuilderFactory.newInstance();
+        domFactory.setNamespaceAware(false);
+    }
+
+    @Benchmark
+    public Document staxImport() throws IOException {
+        return reader.read(new ByteArrayInputStream(xml));
+    }
+
+    @Benchmark
+    public org.w3c.dom.Document domParse() throws IOException, ParserConfigurationException, SAXException {
+        return domFactory.newDocumentBuilder().parse(new ByteArrayInputStream(repaired));
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.benchmark;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.types.text.doc.structure.TextElement;
+import de.fraunhofer.scai.bio.util.DocumentHTMLRenderer;
+import de.fraunhofer.scai.bio.util.DocumentRenderer;
+
+/**
+ * HTML and plain text rendering and the text element traversal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderingBenchmark {
+
+    @Param({ "a.json", "b.json", "testAnnotatedDocument.json", BenchmarkDocuments.SYNTHETIC })
+    public String document;
+
+    private Document doc;
+
+    @Setup
+    public void setup() throws IOException {
+        doc = BenchmarkDocuments.load(document);
+    }
+
+    @Benchmark
+    public String renderHTML() {
+        return DocumentHTMLRenderer.renderHTML(doc);
+    }
+
+    @Benchmark
+    public Map<String, TextElement> getDocumentTextElements() {
+        return DocumentRenderer.getDocumentTextElements(doc);
+    }
+
+    @Benchmark
+    public String renderTextContents() {
+        return DocumentRenderer.renderTextContents(doc);
+    }
+
+}
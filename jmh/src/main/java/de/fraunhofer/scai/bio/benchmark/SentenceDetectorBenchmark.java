@@ -0,0 +1,84 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.util.DocumentRenderer;
+import de.fraunhofer.scai.bio.util.IntList;
+import de.fraunhofer.scai.bio.util.SentenceDetector;
+
+/**
+ * Sentence splitting of the plain text content of a document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SentenceDetectorBenchmark {
+
+    @Param({ "a.json", "b.json", "testAnnotatedDocument.json", BenchmarkDocuments.SYNTHETIC })
+    public String document;
+
+    @Param({ "SCANNER", "REGEX" })
+    public SentenceDetector.Engine engine;
+
+    private SentenceDetector detector;
+    private String text;
+    private List<Integer> ends;
+    private final IntList endBuffer = new IntList();
+    private final IntList offsetBuffer = new IntList();
+
+    @Setup
+    public void setup() throws IOException {
+        Document doc = BenchmarkDocuments.load(document);
+        detector = new SentenceDetector(0, engine);
+        text = DocumentRenderer.renderTextContents(doc);
+        ends = detector.findSentencesEndPositions(text);
+    }
+
+    @Benchmark
+    public List<Integer> findSentencesEndPositions() {
+        return detector.findSentencesEndPositions(text);
+    }
+
+    @Benchmark
+    public List<String> getSentences() {
+        return detector.getSentences(ends, text, 5);
+    }
+
+    @Benchmark
+    public void findSentenceOffsets(Blackhole blackhole) {
+        blackhole.consume(detector.findSentenceOffsets(text, 5, endBuffer, offsetBuffer));
+    }
+
+}
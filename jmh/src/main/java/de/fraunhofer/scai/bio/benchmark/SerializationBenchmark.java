@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.util.DocumentCodec;
+
+/**
+ * Jackson (de)serialization of a document, next to the binary {@link DocumentCodec}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({ "a.json", "b.json", "testAnnotatedDocument.json", BenchmarkDocuments.SYNTHETIC })
+    public String document;
+
+    private Document doc;
+    private ObjectReader reader;
+    private ObjectWriter writer;
+    private byte[] json;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws IOException {
+        doc = BenchmarkDocuments.load(document);
+
+        ObjectMapper mapper = new ObjectMapper();
+        reader = mapper.readerFor(Document.class);
+        writer = mapper.writerFor(Document.class);
+        json = writer.writeValueAsBytes(doc);
+        encoded = DocumentCodec.encode(doc);
+    }
+
+    @Benchmark
+    public byte[] jacksonSerialize() throws IOException {
+        return writer.writeValueAsBytes(doc);
+    }
+
+    @Benchmark
+    public Document jacksonDeserialize() throws IOException {
+        return reader.readValue(json);
+    }
+
+    @Benchmark
+    public byte[] codecEncode() {
+        return DocumentCodec.encode(doc);
+    }
+
+    @Benchmark
+    public Document codecDecode() {
+        return DocumentCodec.decode(encoded);
+    }
+
+}
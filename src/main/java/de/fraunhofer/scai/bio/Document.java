@@ -35,6 +35,8 @@ import lombok.Data;
     public static final int ABSTRACT_LENGTH = 250;
     public static final String PUBMED_ABSTRACT = "PUBMED_ABSTRACT";
     public static final String PMC_FULLTEXT = "PMC_FULLTEXT";
+    public static final String ELSEVIER_FULLTEXT = "ELSEVIER_FULLTEXT";
+    public static final String FREEMIND_MAP = "FREEMIND_MAP";
     /**
      * serial version id.
      */
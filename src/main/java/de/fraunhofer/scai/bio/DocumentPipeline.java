@@ -0,0 +1,525 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import de.fraunhofer.scai.bio.util.DocumentBuilder;
+import de.fraunhofer.scai.bio.util.DocumentCorpusWriter;
+import de.fraunhofer.scai.bio.util.SentenceDetector;
+
+/**
+ * Runs records through a chain of stages, each with its own worker threads, connected by bounded queues.
+ * <p>
+ * A full queue blocks the stage in front of it, so a slow stage throttles the whole pipeline instead of piling up
+ * documents on the heap: at most <code>queueCapacity</code> items wait in front of each stage. A typical import:
+ *
+ * <pre>
+ * DocumentBuilder builder = new DocumentBuilder();
+ * DocumentPipeline&lt;File, Document&gt; pipeline = DocumentPipeline.&lt;File&gt; builder()
+ *     .stage("parse", 2, file -&gt; parser.parse(file))
+ *     .stage("build", 4, record -&gt; importer.build(record, builder))
+ *     .peek("enrich", 8, document -&gt; annotator.annotate(document))
+ *     .build();
+ * pipeline.run(files.iterator(), writer::write);
+ * </pre>
+ *
+ * {@link DocumentBuilder} and {@link SentenceDetector} can be shared by all workers, the sink runs on the calling
+ * thread, so a {@link DocumentCorpusWriter} can be used directly.
+ * <p>
+ * Workers take items in parallel, so the sink sees them in no particular order. A stage returning
+ * <code>null</code> drops the item. The first failure stops the pipeline: the source isn't read any further, the
+ * items still queued are discarded, and {@link #run(Iterator, Sink)} throws the failure once all threads are done.
+ *
+ * @param <I>
+ *        records read from the source
+ * @param <O>
+ *        items handed to the sink
+ */
+public class DocumentPipeline<I, O> {
+
+    /** default number of items waiting in front of each stage */
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+    /** marks the end of the items in a queue, once per worker of the receiving stage */
+    private static final Object END = new Object();
+
+    private final List<StageDefinition> stages;
+    private final int queueCapacity;
+
+    private volatile List<Stage> running = Collections.emptyList();
+
+    private DocumentPipeline(List<StageDefinition> stages, int queueCapacity) {
+        this.stages = stages;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * @param <I>
+     *        records read from the source
+     * @return {@link Builder} without stages
+     */
+    public static <I> Builder<I, I> builder() {
+        return new Builder<I, I>();
+    }
+
+    /**
+     * receives the items behind the last stage
+     *
+     * @param <T>
+     *        items
+     */
+    @FunctionalInterface
+    public interface Sink<T> {
+
+        /**
+         * @param item
+         *        output of the last stage
+         * @throws IOException
+         *         if the item can't be stored, stops the pipeline
+         */
+        void accept(T item) throws IOException;
+    }
+
+    /**
+     * Reads all records of <code>source</code>, one pipeline run at a time.
+     *
+     * @param source
+     *        records, read by a dedicated thread
+     * @param sink
+     *        receives the items behind the last stage on the calling thread
+     * @return number of items handed to the sink
+     * @throws IOException
+     *         if the sink failed
+     * @throws InterruptedException
+     *         if the calling thread was interrupted, all workers are interrupted as well
+     * @throws IllegalStateException
+     *         if the source, a stage or the sink failed with an unchecked exception, with the failure as cause
+     */
+    public synchronized long run(Iterator<? extends I> source, Sink<? super O> sink)
+        throws IOException, InterruptedException {
+        List<BlockingQueue<Object>> queues = new ArrayList<BlockingQueue<Object>>();
+        for (int i = 0; i <= stages.size(); i++) {
+            queues.add(new ArrayBlockingQueue<Object>(queueCapacity));
+        }
+
+        Failure failure = new Failure();
+        List<Stage> started = new ArrayList<Stage>();
+        for (int i = 0; i < stages.size(); i++) {
+            int consumers = i + 1 < stages.size() ? stages.get(i + 1).threads : 1;
+            started.add(new Stage(stages.get(i), queues.get(i), queues.get(i + 1), consumers, failure));
+        }
+        Stage sinkStage = new Stage(new StageDefinition("sink", 1, null), queues.get(stages.size()), null, 0, failure);
+        started.add(sinkStage);
+        running = Collections.unmodifiableList(started);
+
+        int sourceConsumers = stages.isEmpty() ? 1 : stages.get(0).threads;
+        Thread feeder = new Thread(() -> feed(source, queues.get(0), sourceConsumers, failure), "pipeline-source");
+        feeder.setDaemon(true);
+
+        long consumed = 0;
+        try {
+            feeder.start();
+            for (Stage stage : started.subList(0, stages.size())) {
+                stage.start();
+            }
+
+            BlockingQueue<Object> in = queues.get(stages.size());
+            for (Object item = in.take(); item != END; item = in.take()) {
+                if (failure.get() != null) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                try {
+                    @SuppressWarnings("unchecked")
+                    O output = (O) item;
+                    sink.accept(output);
+                    consumed++;
+                } catch (IOException | RuntimeException | Error e) {
+                    failure.set("sink", e);
+                }
+                sinkStage.count(start);
+            }
+            feeder.join();
+            for (Stage stage : started) {
+                stage.shutdown();
+            }
+
+        } catch (InterruptedException e) {
+            failure.set("sink", e);
+            feeder.interrupt();
+            for (Stage stage : started) {
+                stage.shutdownNow();
+            }
+            throw e;
+        }
+
+        failure.rethrow();
+        return consumed;
+    }
+
+    private static <I> void feed(Iterator<? extends I> source, BlockingQueue<Object> out, int consumers,
+        Failure failure) {
+        try {
+            while (failure.get() == null && source.hasNext()) {
+                I record = source.next();
+                if (record != null) {
+                    out.put(record);
+                }
+            }
+        } catch (InterruptedException e) {
+            return;
+        } catch (RuntimeException | Error e) {
+            failure.set("source", e);
+        }
+        end(out, consumers);
+    }
+
+    /**
+     * put an end marker per consumer into <code>queue</code>
+     */
+    private static void end(BlockingQueue<Object> queue, int consumers) {
+        try {
+            for (int i = 0; i < consumers; i++) {
+                queue.put(END);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return statistics of each stage and of the sink for the current or last run, empty before the first run
+     */
+    public List<StageStatistics> getStatistics() {
+        List<StageStatistics> statistics = new ArrayList<StageStatistics>();
+        for (Stage stage : running) {
+            statistics.add(stage.statistics());
+        }
+        return statistics;
+    }
+
+    /**
+     * configuration of one stage
+     */
+    private static final class StageDefinition {
+
+        final String name;
+        final int threads;
+        final Function<Object, Object> function;
+
+        StageDefinition(String name, int threads, Function<Object, Object> function) {
+            this.name = name;
+            this.threads = threads;
+            this.function = function;
+        }
+    }
+
+    /**
+     * assembles the stages of a {@link DocumentPipeline}
+     *
+     * @param <I>
+     *        records read from the source
+     * @param <T>
+     *        output of the last stage so far
+     */
+    public static final class Builder<I, T> {
+
+        private final List<StageDefinition> stages = new ArrayList<StageDefinition>();
+        private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+        private Builder() {
+        }
+
+        /**
+         * @param queueCapacity
+         *        number of items waiting in front of each stage, {@link #DEFAULT_QUEUE_CAPACITY} by default
+         * @return this builder
+         */
+        public Builder<I, T> queueCapacity(int queueCapacity) {
+            if (queueCapacity < 1) {
+                throw new IllegalArgumentException("queue capacity must be positive: " + queueCapacity);
+            }
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * @param name
+         *        name of the stage, used for its threads and statistics
+         * @param threads
+         *        number of workers
+         * @param function
+         *        transforms an item, must be thread safe; <code>null</code> results are dropped
+         * @param <R>
+         *        output of the stage
+         * @return this builder
+         */
+        @SuppressWarnings("unchecked")
+        public <R> Builder<I, R> stage(String name, int threads, Function<? super T, ? extends R> function) {
+            if (threads < 1) {
+                throw new IllegalArgumentException("stage " + name + " needs at least one thread: " + threads);
+            }
+            stages.add(new StageDefinition(name, threads, (Function<Object, Object>) function));
+            return (Builder<I, R>) this;
+        }
+
+        /**
+         * a stage that changes the items in place, like an annotator
+         *
+         * @param name
+         *        name of the stage, used for its threads and statistics
+         * @param threads
+         *        number of workers
+         * @param action
+         *        applied to each item, must be thread safe
+         * @return this builder
+         */
+        public Builder<I, T> peek(String name, int threads, Consumer<? super T> action) {
+            return stage(name, threads, (T item) -> {
+                action.accept(item);
+                return item;
+            });
+        }
+
+        /**
+         * @return the pipeline, may be run several times
+         */
+        public DocumentPipeline<I, T> build() {
+            return new DocumentPipeline<I, T>(new ArrayList<StageDefinition>(stages), queueCapacity);
+        }
+    }
+
+    /**
+     * throughput of a stage, taken while or after the pipeline runs
+     */
+    public static final class StageStatistics {
+
+        private final String name;
+        private final int threads;
+        private final long processed;
+        private final long busyNanos;
+        private final long elapsedNanos;
+        private final int queued;
+
+        StageStatistics(String name, int threads, long processed, long busyNanos, long elapsedNanos, int queued) {
+            this.name = name;
+            this.threads = threads;
+            this.processed = processed;
+            this.busyNanos = busyNanos;
+            this.elapsedNanos = elapsedNanos;
+            this.queued = queued;
+        }
+
+        /**
+         * @return name of the stage, <code>sink</code> for the sink
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return number of workers
+         */
+        public int getThreads() {
+            return threads;
+        }
+
+        /**
+         * @return number of items the stage took from its queue and processed
+         */
+        public long getProcessed() {
+            return processed;
+        }
+
+        /**
+         * @return time the workers spent processing, summed over all workers
+         */
+        public long getBusyNanos() {
+            return busyNanos;
+        }
+
+        /**
+         * @return time since the pipeline started, up to its end once it is done
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return number of items waiting in front of the stage
+         */
+        public int getQueued() {
+            return queued;
+        }
+
+        /**
+         * @return processed items per second since the pipeline started
+         */
+        public double getThroughput() {
+            return elapsedNanos > 0 ? processed * 1e9 / elapsedNanos : 0;
+        }
+
+        /**
+         * @return share of the time the workers were busy, close to 1 for the stage limiting the pipeline
+         */
+        public double getUtilization() {
+            return elapsedNanos > 0 ? (double) busyNanos / elapsedNanos / threads : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d items, %.1f/s, %d threads %.0f%% busy, %d queued", name, processed,
+                getThroughput(), threads, 100 * getUtilization(), queued);
+        }
+    }
+
+    /**
+     * first failure of a run
+     */
+    private static final class Failure extends AtomicReference<Throwable> {
+
+        private static final long serialVersionUID = 1L;
+
+        private volatile String stage;
+
+        void set(String stage, Throwable throwable) {
+            if (compareAndSet(null, throwable)) {
+                this.stage = stage;
+            }
+        }
+
+        void rethrow() throws IOException {
+            Throwable throwable = get();
+            if (throwable == null) {
+                return;
+            }
+            if (throwable instanceof IOException) {
+                throw (IOException) throwable;
+            }
+            if (throwable instanceof Error) {
+                throw (Error) throwable;
+            }
+            throw new IllegalStateException("pipeline " + stage + " failed", throwable);
+        }
+    }
+
+    /**
+     * the workers of one stage
+     */
+    private static final class Stage {
+
+        private final StageDefinition definition;
+        private final BlockingQueue<Object> in;
+        private final BlockingQueue<Object> out;
+        private final int consumers;
+        private final Failure failure;
+        private final ExecutorService workers;
+        private final AtomicInteger active;
+        private final long started = System.nanoTime();
+        private volatile long finished;
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder busyNanos = new LongAdder();
+
+        Stage(StageDefinition definition, BlockingQueue<Object> in, BlockingQueue<Object> out, int consumers,
+            Failure failure) {
+            this.definition = definition;
+            this.in = in;
+            this.out = out;
+            this.consumers = consumers;
+            this.failure = failure;
+            this.active = new AtomicInteger(definition.threads);
+
+            AtomicInteger number = new AtomicInteger();
+            this.workers = out == null ? null : Executors.newFixedThreadPool(definition.threads, runnable -> {
+                Thread thread = new Thread(runnable, "pipeline-" + definition.name + "-" + number.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        void start() {
+            for (int i = 0; i < definition.threads; i++) {
+                workers.execute(this::work);
+            }
+        }
+
+        private void work() {
+            try {
+                for (Object item = in.take(); item != END; item = in.take()) {
+                    // after a failure the queue is only drained, so nobody upstream blocks
+                    if (failure.get() != null) {
+                        continue;
+                    }
+                    long start = System.nanoTime();
+                    Object result;
+                    try {
+                        result = definition.function.apply(item);
+                    } catch (RuntimeException | Error e) {
+                        failure.set("stage " + definition.name, e);
+                        continue;
+                    } finally {
+                        count(start);
+                    }
+                    if (result != null) {
+                        out.put(result);
+                    }
+                }
+                if (active.decrementAndGet() == 0) {
+                    end(out, consumers);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void count(long start) {
+            busyNanos.add(System.nanoTime() - start);
+            processed.increment();
+        }
+
+        void shutdown() {
+            finished = System.nanoTime();
+            if (workers != null) {
+                workers.shutdown();
+            }
+        }
+
+        void shutdownNow() {
+            finished = System.nanoTime();
+            if (workers != null) {
+                workers.shutdownNow();
+            }
+        }
+
+        StageStatistics statistics() {
+            return new StageStatistics(definition.name, definition.threads, processed.sum(), busyNanos.sum(),
+                (finished != 0 ? finished : System.nanoTime()) - started, in.size());
+        }
+    }
+
+}
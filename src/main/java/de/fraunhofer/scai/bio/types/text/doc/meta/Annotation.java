@@ -16,14 +16,26 @@
 package de.fraunhofer.scai.bio.types.text.doc.meta;
 
 import java.io.Serializable;
+import java.util.Objects;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import de.fraunhofer.scai.bio.Provenance;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 /**
  * @author klein
+ * <p>
+ * Equality covers offsets, type, text and provenance. The hash code is taken from a cached 64 bit fingerprint of
+ * offsets, type and text, so hashing never reaches into the {@link Provenance}. Provenances shared through
+ * <code>de.fraunhofer.scai.bio.util.AnnotationInterner</code> are compared by identity.
  */
+@JsonIgnoreProperties({"fingerprint"})
 @Data public class Annotation implements Serializable {
 
     /**
@@ -37,4 +49,101 @@ import lombok.Data;
 
     private Provenance provenance;
 
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient long fingerprint;
+
+    /**
+     * @param startOffset the start offset to set
+     */
+    public void setStartOffset(int startOffset) {
+        this.startOffset = startOffset;
+        this.fingerprint = 0;
+    }
+
+    /**
+     * @param endOffset the end offset to set
+     */
+    public void setEndOffset(int endOffset) {
+        this.endOffset = endOffset;
+        this.fingerprint = 0;
+    }
+
+    /**
+     * @param annotationType the annotation type to set
+     */
+    public void setAnnotationType(String annotationType) {
+        this.annotationType = annotationType;
+        this.fingerprint = 0;
+    }
+
+    /**
+     * @param annotationText the annotation text to set
+     */
+    public void setAnnotationText(String annotationText) {
+        this.annotationText = annotationText;
+        this.fingerprint = 0;
+    }
+
+    /**
+     * 64 bit hash of offsets, type and text, computed once and kept until one of them is set
+     *
+     * @return fingerprint, never 0
+     */
+    public long getFingerprint() {
+        long f = fingerprint;
+        if (f == 0) {
+            f = hash(hash(mix(0x9E3779B97F4A7C15L ^ ((long) startOffset << 32 | endOffset & 0xFFFFFFFFL)),
+                annotationType), annotationText);
+            f = mix(f);
+            if (f == 0) {
+                f = 1;
+            }
+            fingerprint = f;
+        }
+        return f;
+    }
+
+    /** FNV-1a over the characters, <code>null</code> hashes differently from the empty string */
+    private static long hash(long h, String s) {
+        if (s == null) {
+            return (h ^ 0xFF) * 0x100000001B3L;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            h = (h ^ s.charAt(i)) * 0x100000001B3L;
+        }
+        return (h ^ s.length()) * 0x100000001B3L;
+    }
+
+    /** murmur3 finalizer */
+    private static long mix(long h) {
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof Annotation)) {
+            return false;
+        }
+        Annotation other = (Annotation) o;
+        return getFingerprint() == other.getFingerprint()
+            && startOffset == other.startOffset
+            && endOffset == other.endOffset
+            && Objects.equals(annotationType, other.annotationType)
+            && Objects.equals(annotationText, other.annotationText)
+            && (provenance == other.provenance || provenance != null && provenance.equals(other.provenance));
+    }
+
+    @Override
+    public int hashCode() {
+        long f = getFingerprint();
+        return (int) (f ^ (f >>> 32));
+    }
+
 }
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.types.text.doc.structure;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import de.fraunhofer.scai.bio.types.text.doc.meta.Annotation;
+
+/**
+ * Immutable offset index over the annotations of a {@link TextElement}, see
+ * {@link TextElement#getAnnotationIndex()}.
+ * <p>
+ * The annotations are sorted by start and end offset and their offsets kept in primitive arrays. The sorted array
+ * is searched as an implicit balanced search tree whose nodes know the largest end offset below them, so overlap,
+ * covering and point queries take <i>O(log n + k)</i> for <i>k</i> results. All results are sorted by start and end
+ * offset. Offsets are taken when the index is built, annotations changed afterwards aren't reflected.
+ */
+public class AnnotationIndex {
+
+    private static final Annotation[] EMPTY = new Annotation[0];
+
+    private final Annotation[] annotations;
+    private final int[] starts;
+    private final int[] ends;
+    /** largest end offset of the subtree below each node */
+    private final int[] maxEnds;
+
+    /**
+     * @param annotations
+     *        annotations to index, <code>null</code> elements are skipped
+     */
+    public AnnotationIndex(Collection<Annotation> annotations) {
+        List<Annotation> sorted = new ArrayList<Annotation>(annotations.size());
+        for (Annotation annotation : annotations) {
+            if (annotation != null) {
+                sorted.add(annotation);
+            }
+        }
+        this.annotations = sorted.toArray(EMPTY);
+        // same order as de.fraunhofer.scai.bio.util.AnnotationComparator, which the model doesn't depend on
+        Arrays.sort(this.annotations, (a, b) -> a.getStartOffset() != b.getStartOffset()
+            ? Integer.compare(a.getStartOffset(), b.getStartOffset())
+            : Integer.compare(a.getEndOffset(), b.getEndOffset()));
+
+        int n = this.annotations.length;
+        starts = new int[n];
+        ends = new int[n];
+        maxEnds = new int[n];
+        for (int i = 0; i < n; i++) {
+            starts[i] = this.annotations[i].getStartOffset();
+            ends[i] = this.annotations[i].getEndOffset();
+        }
+        buildMaxEnds(0, n);
+    }
+
+    private int buildMaxEnds(int from, int to) {
+        if (from >= to) {
+            return Integer.MIN_VALUE;
+        }
+        int mid = (from + to) >>> 1;
+        maxEnds[mid] = Math.max(ends[mid], Math.max(buildMaxEnds(from, mid), buildMaxEnds(mid + 1, to)));
+        return maxEnds[mid];
+    }
+
+    /**
+     * @return number of indexed annotations
+     */
+    public int size() {
+        return annotations.length;
+    }
+
+    /**
+     * @return all annotations, sorted by start and end offset
+     */
+    public List<Annotation> getAnnotations() {
+        return Collections.unmodifiableList(Arrays.asList(annotations));
+    }
+
+    /**
+     * @param start
+     *        first offset of the range
+     * @param end
+     *        offset behind the range
+     * @return annotations sharing at least one offset with <code>[start, end)</code>
+     */
+    public List<Annotation> getOverlapping(int start, int end) {
+        List<Annotation> result = new ArrayList<Annotation>();
+        overlapping(0, annotations.length, start, end, result);
+        return result;
+    }
+
+    private void overlapping(int from, int to, int start, int end, List<Annotation> result) {
+        if (from >= to) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        if (maxEnds[mid] <= start) {
+            return;
+        }
+        overlapping(from, mid, start, end, result);
+        if (starts[mid] < end) {
+            if (ends[mid] > start) {
+                result.add(annotations[mid]);
+            }
+            overlapping(mid + 1, to, start, end, result);
+        }
+    }
+
+    /**
+     * @param offset
+     *        offset in the text
+     * @return annotations covering the character at <code>offset</code>
+     */
+    public List<Annotation> getCovering(int offset) {
+        return getOverlapping(offset, offset + 1);
+    }
+
+    /**
+     * @param start
+     *        first offset of the range
+     * @param end
+     *        offset behind the range
+     * @return annotations containing all of <code>[start, end)</code>
+     */
+    public List<Annotation> getCovering(int start, int end) {
+        List<Annotation> result = new ArrayList<Annotation>();
+        covering(0, annotations.length, start, end, result);
+        return result;
+    }
+
+    private void covering(int from, int to, int start, int end, List<Annotation> result) {
+        if (from >= to) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        if (maxEnds[mid] < end) {
+            return;
+        }
+        covering(from, mid, start, end, result);
+        if (starts[mid] <= start) {
+            if (ends[mid] >= end) {
+                result.add(annotations[mid]);
+            }
+            covering(mid + 1, to, start, end, result);
+        }
+    }
+
+    /**
+     * Takes <i>O(log n + m)</i> for the <i>m</i> annotations starting in the range.
+     *
+     * @param start
+     *        first offset of the range
+     * @param end
+     *        offset behind the range
+     * @return annotations lying completely within <code>[start, end)</code>
+     */
+    public List<Annotation> getContained(int start, int end) {
+        List<Annotation> result = new ArrayList<Annotation>();
+        for (int i = firstStartingAt(start); i < starts.length && starts[i] < end; i++) {
+            if (ends[i] <= end) {
+                result.add(annotations[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return index of the first annotation starting at or behind <code>offset</code>
+     */
+    private int firstStartingAt(int offset) {
+        int low = 0;
+        int high = starts.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+}
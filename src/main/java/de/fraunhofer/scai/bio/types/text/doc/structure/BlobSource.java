@@ -0,0 +1,36 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fraunhofer.scai.bio.types.text.doc.structure;
+
+import java.io.IOException;
+
+/**
+ * Source of the bytes an {@link ImageContent} refers to by {@link ImageContent#getDigest()}, e.g. a
+ * <code>de.fraunhofer.scai.bio.util.BlobStore</code>.
+ */
+@FunctionalInterface
+public interface BlobSource {
+
+    /**
+     * @param digest
+     *        digest of the bytes
+     * @return the bytes or <code>null</code> if there are none
+     * @throws IOException
+     *         if the bytes can't be read
+     */
+    byte[] get(String digest) throws IOException;
+
+}
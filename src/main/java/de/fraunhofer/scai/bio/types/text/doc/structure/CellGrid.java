@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fraunhofer.scai.bio.types.text.doc.structure;
+
+/**
+ * Dense grid from logical (row, column) coordinates to the index of the cell covering them.
+ * <p>
+ * A cell covers the rows <code>rowStart</code> up to, not including, <code>rowEnd</code> and likewise the columns; an
+ * end not after its start covers the single row or column of the start, so both 1x1 conventions work. The grid is as
+ * large as the last row and column covered. Where cells overlap, the first one wins.
+ */
+final class CellGrid {
+
+    private final int rows;
+    private final int columns;
+    /** index of the covering cell plus one by <code>row * columns + column</code>, <code>0</code> if uncovered */
+    private final int[] owners;
+
+    /**
+     * @param spans
+     *        <code>rowStart, colStart, rowEnd, colEnd</code> of each cell, <code>-1</code> starts for cells to leave
+     *        out
+     * @param size
+     *        number of cells
+     * @throws IllegalArgumentException
+     *         if the grid would exceed the size of an array
+     */
+    CellGrid(int[] spans, int size) {
+        int rows = 0;
+        int columns = 0;
+        for (int i = 0; i < size; i++) {
+            if (spans[4 * i] >= 0 && spans[4 * i + 1] >= 0) {
+                rows = Math.max(rows, end(spans[4 * i], spans[4 * i + 2]));
+                columns = Math.max(columns, end(spans[4 * i + 1], spans[4 * i + 3]));
+            }
+        }
+        if ((long) rows * columns > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("table of " + rows + " x " + columns + " cells is too large");
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.owners = new int[rows * columns];
+
+        for (int i = 0; i < size; i++) {
+            int rowStart = spans[4 * i];
+            int colStart = spans[4 * i + 1];
+            if (rowStart < 0 || colStart < 0) {
+                continue;
+            }
+            int rowEnd = end(rowStart, spans[4 * i + 2]);
+            int colEnd = end(colStart, spans[4 * i + 3]);
+            for (int row = rowStart; row < rowEnd; row++) {
+                int offset = row * columns;
+                for (int column = colStart; column < colEnd; column++) {
+                    if (owners[offset + column] == 0) {
+                        owners[offset + column] = i + 1;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return exclusive end of a span
+     */
+    static int end(int start, int end) {
+        return end > start ? end : start + 1;
+    }
+
+    int getRowCount() {
+        return rows;
+    }
+
+    int getColumnCount() {
+        return columns;
+    }
+
+    /**
+     * @return index of the cell covering the coordinate, <code>-1</code> if none does or it is outside the grid
+     */
+    int cellAt(int row, int column) {
+        if (row < 0 || row >= rows || column < 0 || column >= columns) {
+            return -1;
+        }
+        return owners[row * columns + column] - 1;
+    }
+
+}
@@ -0,0 +1,436 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fraunhofer.scai.bio.types.text.doc.structure;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact, column oriented form of a {@link PMCTable} or {@link Table} for large tables.
+ * <p>
+ * The spans of all cells are kept in one <code>int</code> array and their types in a <code>byte</code> array, the
+ * cell texts are indices into a pool of distinct strings. {@link Cell}s and {@link TextElement}s are only created when
+ * asked for, and carry the text without UUID or annotations. A grid from (row, column) to the covering cell is built
+ * on first lookup, so {@link #getText(int, int)} and the row and column views take constant time per position. Spans
+ * are read as in {@link CellGrid}: ends are exclusive, an end not after its start covers a single row or column.
+ * <p>
+ * Tables are immutable, build them with a {@link Builder} or convert them with {@link #of(PMCTable)} and
+ * {@link #of(Table)}.
+ */
+public final class ColumnarTable implements Serializable {
+
+    private static final long serialVersionUID = 4217853301470932614L;
+
+    private static final CellType[] TYPES = CellType.values();
+
+    /** <code>rowStart, colStart, rowEnd, colEnd</code> of each cell */
+    private final int[] spans;
+    /** {@link CellType} ordinal of each cell, <code>-1</code> for <code>null</code> */
+    private final byte[] types;
+    /** index of the text of each cell in {@link #pool}, <code>-1</code> for <code>null</code> */
+    private final int[] texts;
+    private final String[] pool;
+    private final TextElement caption;
+    private final TextElement label;
+
+    private transient CellGrid grid;
+
+    private ColumnarTable(Builder builder) {
+        this.spans = Arrays.copyOf(builder.spans, 4 * builder.size);
+        this.types = Arrays.copyOf(builder.types, builder.size);
+        this.texts = Arrays.copyOf(builder.texts, builder.size);
+        this.pool = builder.pool.toArray(new String[builder.pool.size()]);
+        this.caption = builder.caption;
+        this.label = builder.label;
+    }
+
+    /**
+     * @param table
+     *        {@link PMCTable}
+     * @return the cells, caption and label of the table, <code>null</code> cells are left out
+     */
+    public static ColumnarTable of(PMCTable table) {
+        Builder builder = new Builder();
+        if (table.getCells() != null) {
+            for (Cell cell : table.getCells()) {
+                if (cell != null) {
+                    builder.addCell(cell.getRowStart(), cell.getColStart(), cell.getRowEnd(), cell.getColEnd(),
+                        cell.getType(), cell.getContent() != null ? cell.getContent().getText() : null);
+                }
+            }
+        }
+        return builder.setCaption(table.getCaption()).setLabel(table.getLabel()).build();
+    }
+
+    /**
+     * the column names become a {@link CellType#HEADER} row, followed by a {@link CellType#BODY} row per row map
+     *
+     * @param table
+     *        {@link Table} with rows
+     * @return the rows and caption of the table, columns in order of first occurrence in the rows
+     */
+    public static ColumnarTable of(Table table) {
+        Map<String, Integer> columns = new LinkedHashMap<String, Integer>();
+        List<Map<String, String>> rows = table.getRows() != null ? table.getRows()
+            : new ArrayList<Map<String, String>>();
+        for (Map<String, String> row : rows) {
+            if (row != null) {
+                for (String column : row.keySet()) {
+                    if (!columns.containsKey(column)) {
+                        columns.put(column, columns.size());
+                    }
+                }
+            }
+        }
+
+        Builder builder = new Builder();
+        for (Map.Entry<String, Integer> column : columns.entrySet()) {
+            builder.addCell(0, column.getValue(), 1, column.getValue() + 1, CellType.HEADER, column.getKey());
+        }
+        for (int r = 0; r < rows.size(); r++) {
+            if (rows.get(r) != null) {
+                for (Map.Entry<String, String> value : rows.get(r).entrySet()) {
+                    int c = columns.get(value.getKey());
+                    builder.addCell(r + 1, c, r + 2, c + 1, CellType.BODY, value.getValue());
+                }
+            }
+        }
+        return builder.setCaption(table.getCaption()).build();
+    }
+
+    /**
+     * @return a {@link PMCTable} with a {@link Cell} per cell
+     */
+    public PMCTable toPMCTable() {
+        List<Cell> cells = new ArrayList<Cell>(size());
+        for (int i = 0; i < size(); i++) {
+            cells.add(getCell(i));
+        }
+        PMCTable table = new PMCTable();
+        table.setCells(cells);
+        table.setCaption(caption);
+        table.setLabel(label);
+        return table;
+    }
+
+    /**
+     * the texts of the {@link CellType#HEADER} cells of the first row name the columns, unnamed columns are called
+     * <code>column1</code>, <code>column2</code>, ...
+     *
+     * @return a {@link Table} with a row map per following row, positions covered by no cell are left out
+     */
+    public Table toTable() {
+        int start = 0;
+        String[] names = new String[getColumnCount()];
+        for (int c = 0; c < names.length; c++) {
+            int cell = cellAt(0, c);
+            if (cell >= 0 && getType(cell) == CellType.HEADER) {
+                names[c] = getText(cell);
+                start = 1;
+            }
+        }
+        for (int c = 0; c < names.length; c++) {
+            if (names[c] == null) {
+                names[c] = "column" + (c + 1);
+            }
+        }
+
+        List<Map<String, String>> rows = new ArrayList<Map<String, String>>();
+        for (int r = start; r < getRowCount(); r++) {
+            Map<String, String> row = new LinkedHashMap<String, String>();
+            for (int c = 0; c < names.length; c++) {
+                int cell = cellAt(r, c);
+                if (cell >= 0) {
+                    row.put(names[c], getText(cell));
+                }
+            }
+            rows.add(row);
+        }
+        Table table = new Table();
+        table.setRows(rows);
+        table.setCaption(caption);
+        return table;
+    }
+
+    /**
+     * @return number of cells
+     */
+    public int size() {
+        return texts.length;
+    }
+
+    /**
+     * @return number of rows of the grid, up to the last row covered by a cell
+     */
+    public int getRowCount() {
+        return grid().getRowCount();
+    }
+
+    /**
+     * @return number of columns of the grid, up to the last column covered by a cell
+     */
+    public int getColumnCount() {
+        return grid().getColumnCount();
+    }
+
+    /**
+     * @return index of the cell covering the position, <code>-1</code> if there is none
+     */
+    public int cellAt(int row, int column) {
+        return grid().cellAt(row, column);
+    }
+
+    /**
+     * @return text of the cell covering the position, <code>null</code> if there is none
+     */
+    public String getText(int row, int column) {
+        int cell = cellAt(row, column);
+        return cell >= 0 ? getText(cell) : null;
+    }
+
+    /**
+     * @param cell
+     *        index of the cell, in order of addition
+     * @return its text
+     */
+    public String getText(int cell) {
+        int text = texts[cell];
+        return text >= 0 ? pool[text] : null;
+    }
+
+    /**
+     * @param cell
+     *        index of the cell
+     * @return its type
+     */
+    public CellType getType(int cell) {
+        return types[cell] >= 0 ? TYPES[types[cell]] : null;
+    }
+
+    public int getRowStart(int cell) {
+        return spans[4 * cell];
+    }
+
+    public int getColStart(int cell) {
+        return spans[4 * cell + 1];
+    }
+
+    public int getRowEnd(int cell) {
+        return spans[4 * cell + 2];
+    }
+
+    public int getColEnd(int cell) {
+        return spans[4 * cell + 3];
+    }
+
+    /**
+     * @param cell
+     *        index of the cell
+     * @return a new {@link Cell} with the span, type and text of the cell
+     */
+    public Cell getCell(int cell) {
+        Cell result = new Cell();
+        result.setRowStart(getRowStart(cell));
+        result.setColStart(getColStart(cell));
+        result.setRowEnd(getRowEnd(cell));
+        result.setColEnd(getColEnd(cell));
+        result.setType(getType(cell));
+        String text = getText(cell);
+        if (text != null) {
+            TextElement content = new TextElement();
+            content.setText(text);
+            result.setContent(content);
+        }
+        return result;
+    }
+
+    /**
+     * @return a new {@link Cell} for the cell covering the position, <code>null</code> if there is none
+     */
+    public Cell getCell(int row, int column) {
+        int cell = cellAt(row, column);
+        return cell >= 0 ? getCell(cell) : null;
+    }
+
+    /**
+     * @param column
+     *        column index
+     * @return view of the texts down the column, a spanning cell's text at each position it covers
+     */
+    public List<String> getColumn(final int column) {
+        checkIndex(column, getColumnCount());
+        return new AbstractList<String>() {
+
+            @Override
+            public String get(int row) {
+                checkIndex(row, getRowCount());
+                return getText(row, column);
+            }
+
+            @Override
+            public int size() {
+                return getRowCount();
+            }
+        };
+    }
+
+    /**
+     * @param row
+     *        row index
+     * @return view of the texts along the row, a spanning cell's text at each position it covers
+     */
+    public List<String> getRow(final int row) {
+        checkIndex(row, getRowCount());
+        return new AbstractList<String>() {
+
+            @Override
+            public String get(int column) {
+                checkIndex(column, getColumnCount());
+                return getText(row, column);
+            }
+
+            @Override
+            public int size() {
+                return getColumnCount();
+            }
+        };
+    }
+
+    /**
+     * @return number of distinct cell texts
+     */
+    public int getPoolSize() {
+        return pool.length;
+    }
+
+    public TextElement getCaption() {
+        return caption;
+    }
+
+    public TextElement getLabel() {
+        return label;
+    }
+
+    private CellGrid grid() {
+        CellGrid g = grid;
+        if (g == null) {
+            g = new CellGrid(spans, size());
+            grid = g;
+        }
+        return g;
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index + " of " + size);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof ColumnarTable)) {
+            return false;
+        }
+        ColumnarTable other = (ColumnarTable) o;
+        if (size() != other.size() || !Arrays.equals(spans, other.spans) || !Arrays.equals(types, other.types)) {
+            return false;
+        }
+        for (int i = 0; i < size(); i++) {
+            String text = getText(i);
+            if (text == null ? other.getText(i) != null : !text.equals(other.getText(i))) {
+                return false;
+            }
+        }
+        return (caption == null ? other.caption == null : caption.equals(other.caption))
+            && (label == null ? other.label == null : label.equals(other.label));
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = Arrays.hashCode(spans) * 31 + Arrays.hashCode(types);
+        for (int i = 0; i < size(); i++) {
+            String text = getText(i);
+            hash = hash * 31 + (text != null ? text.hashCode() : 0);
+        }
+        return hash;
+    }
+
+    /**
+     * Collects the cells of a {@link ColumnarTable}, equal texts are stored once.
+     */
+    public static final class Builder {
+
+        private int[] spans = new int[64];
+        private byte[] types = new byte[16];
+        private int[] texts = new int[16];
+        /** number of cells added */
+        private int size;
+        private final List<String> pool = new ArrayList<String>();
+        private final Map<String, Integer> poolIndex = new HashMap<String, Integer>();
+        private TextElement caption;
+        private TextElement label;
+
+        /**
+         * @return this builder
+         */
+        public Builder addCell(int rowStart, int colStart, int rowEnd, int colEnd, CellType type, String text) {
+            if (size == texts.length) {
+                spans = Arrays.copyOf(spans, 8 * size);
+                types = Arrays.copyOf(types, 2 * size);
+                texts = Arrays.copyOf(texts, 2 * size);
+            }
+            spans[4 * size] = rowStart;
+            spans[4 * size + 1] = colStart;
+            spans[4 * size + 2] = rowEnd;
+            spans[4 * size + 3] = colEnd;
+            types[size] = (byte) (type != null ? type.ordinal() : -1);
+            if (text == null) {
+                texts[size] = -1;
+            } else {
+                Integer index = poolIndex.get(text);
+                if (index == null) {
+                    index = pool.size();
+                    poolIndex.put(text, index);
+                    pool.add(text);
+                }
+                texts[size] = index;
+            }
+            size++;
+            return this;
+        }
+
+        public Builder setCaption(TextElement caption) {
+            this.caption = caption;
+            return this;
+        }
+
+        public Builder setLabel(TextElement label) {
+            this.label = label;
+            return this;
+        }
+
+        public ColumnarTable build() {
+            return new ColumnarTable(this);
+        }
+    }
+
+}
@@ -1,9 +1,15 @@
 /* First created by JCasGen Mon Jul 16 13:21:36 CEST 2012 */
 package de.fraunhofer.scai.bio.types.text.doc.structure;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 /**
  *
@@ -20,6 +26,46 @@ import lombok.Data;
     private float compressionLevel;
     private int bitDepth;
     private String colorModel;
+    /**
+     * The image bytes, <code>null</code> if they were moved to a {@link BlobSource}.
+     */
     private byte[] content;
+    /**
+     * Hex SHA-256 digest of the image bytes in a {@link BlobSource}, see
+     * <code>de.fraunhofer.scai.bio.util.BlobStore#externalize</code>.
+     */
+    private String digest;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient BlobSource blobSource;
+
+    /**
+     * @param source
+     *        {@link BlobSource} holding the bytes of {@link #getDigest()}, used by {@link #loadContent()}
+     */
+    public void attach(BlobSource source) {
+        this.blobSource = source;
+    }
+
+    /**
+     * the image bytes, loaded from the attached {@link BlobSource} on every call if they aren't inline
+     *
+     * @return {@link #getContent()} or the bytes of {@link #getDigest()}, <code>null</code> if there are none or no
+     *         store is attached
+     * @throws UncheckedIOException
+     *         if the blob can't be read
+     */
+    public byte[] loadContent() {
+        if (content != null || digest == null || blobSource == null) {
+            return content;
+        }
+        try {
+            return blobSource.get(digest);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
 }
@@ -16,9 +16,18 @@
 package de.fraunhofer.scai.bio.types.text.doc.structure;
 
 import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 /**
  * @author tadams
@@ -32,4 +41,139 @@ public class PMCTable implements Serializable {
     TextElement caption;
     TextElement label;
 
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient CellGrid grid;
+
+    /**
+     * @param cells the cells to set
+     */
+    public void setCells(List<Cell> cells) {
+        this.cells = cells;
+        invalidateGrid();
+    }
+
+    /**
+     * the cell covering a logical position, spanning cells cover all positions of their span, see {@link CellGrid}
+     * for how spans are read; constant time after the grid was built on first use
+     *
+     * @param row
+     *        row index
+     * @param column
+     *        column index
+     * @return the covering {@link Cell} or <code>null</code>
+     */
+    public Cell getCell(int row, int column) {
+        int cell = grid().cellAt(row, column);
+        return cell >= 0 ? cells.get(cell) : null;
+    }
+
+    /**
+     * @return number of rows, up to the last row covered by a cell
+     */
+    @JsonIgnore
+    public int getRowCount() {
+        return grid().getRowCount();
+    }
+
+    /**
+     * @return number of columns, up to the last column covered by a cell
+     */
+    @JsonIgnore
+    public int getColumnCount() {
+        return grid().getColumnCount();
+    }
+
+    /**
+     * @param row
+     *        row index
+     * @return whether the row has cells and all of them are of type {@link CellType#HEADER}
+     */
+    public boolean isHeaderRow(int row) {
+        CellGrid g = grid();
+        boolean covered = false;
+        for (int column = 0; column < g.getColumnCount(); column++) {
+            int cell = g.cellAt(row, column);
+            if (cell >= 0) {
+                if (cells.get(cell).getType() != CellType.HEADER) {
+                    return false;
+                }
+                covered = true;
+            }
+        }
+        return covered;
+    }
+
+    /**
+     * @return the rows top down, each as a view of the covering cells by column, with <code>null</code> for
+     *         uncovered positions
+     */
+    public Iterator<List<Cell>> rowIterator() {
+        final CellGrid g = grid();
+        return new Iterator<List<Cell>>() {
+
+            private int row;
+
+            @Override
+            public boolean hasNext() {
+                return row < g.getRowCount();
+            }
+
+            @Override
+            public List<Cell> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final int r = row++;
+                return new AbstractList<Cell>() {
+
+                    @Override
+                    public Cell get(int column) {
+                        if (column < 0 || column >= g.getColumnCount()) {
+                            throw new IndexOutOfBoundsException(column + " of " + g.getColumnCount());
+                        }
+                        int cell = g.cellAt(r, column);
+                        return cell >= 0 ? cells.get(cell) : null;
+                    }
+
+                    @Override
+                    public int size() {
+                        return g.getColumnCount();
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * drop the grid index, must be called after the cells were changed other than through {@link #setCells(List)}
+     */
+    public void invalidateGrid() {
+        grid = null;
+    }
+
+    private CellGrid grid() {
+        CellGrid g = grid;
+        if (g == null) {
+            int size = cells != null ? cells.size() : 0;
+            int[] spans = new int[4 * size];
+            for (int i = 0; i < size; i++) {
+                Cell cell = cells.get(i);
+                if (cell == null) {
+                    spans[4 * i] = -1;
+                    spans[4 * i + 1] = -1;
+                } else {
+                    spans[4 * i] = cell.getRowStart();
+                    spans[4 * i + 1] = cell.getColStart();
+                    spans[4 * i + 2] = cell.getRowEnd();
+                    spans[4 * i + 3] = cell.getColEnd();
+                }
+            }
+            g = new CellGrid(spans, size);
+            grid = g;
+        }
+        return g;
+    }
+
 }
@@ -16,17 +16,25 @@
 package de.fraunhofer.scai.bio.types.text.doc.structure;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
 import de.fraunhofer.scai.bio.types.text.doc.meta.Annotation;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 /**
  *
  */
+@JsonIgnoreProperties({"annotationIndex"})
 @Data public class TextElement implements Serializable {
 
     /**
@@ -43,6 +51,19 @@ import lombok.Data;
 
     private Set<Annotation> annotations;
 
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient AnnotationIndex annotationIndex;
+
+    /**
+     * @param annotations the annotations to set
+     */
+    public void setAnnotations(Set<Annotation> annotations) {
+        this.annotations = annotations;
+        invalidateAnnotationIndex();
+    }
+
     /**
      * @param annotation the annotation to add
      */
@@ -51,6 +72,29 @@ import lombok.Data;
             this.annotations = new HashSet<>();
         }
         this.annotations.add(annotation);
+        invalidateAnnotationIndex();
+    }
+
+    /**
+     * lazily built offset index of the annotations, see {@link AnnotationIndex}
+     *
+     * @return {@link AnnotationIndex}
+     */
+    public AnnotationIndex getAnnotationIndex() {
+        AnnotationIndex index = annotationIndex;
+        if (index == null) {
+            index = new AnnotationIndex(annotations != null ? annotations : Collections.<Annotation>emptySet());
+            annotationIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * drop the {@link AnnotationIndex}, must be called after the annotations were changed other than through
+     * {@link #addAnnotation(Annotation)} or {@link #setAnnotations(Set)}
+     */
+    public void invalidateAnnotationIndex() {
+        annotationIndex = null;
     }
 
 }
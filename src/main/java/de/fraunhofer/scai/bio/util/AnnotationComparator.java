@@ -1,8 +1,10 @@
 package de.fraunhofer.scai.bio.util;
 
+import de.fraunhofer.scai.bio.Provenance;
 import de.fraunhofer.scai.bio.types.text.doc.meta.Annotation;
 
 import java.util.Comparator;
+import java.util.Objects;
 
 /**
  * Compares two Annotations based on Offsets.
@@ -39,4 +41,59 @@ public class AnnotationComparator implements Comparator<Annotation> {
         return 0;
     }
 
+    /**
+     * Orders two non-null annotations at the same location by type, text and provenance, so that sorting doesn't
+     * depend on the iteration order of a set.
+     *
+     * @param anno1 {@link Annotation}
+     * @param anno2 {@link Annotation}
+     * @return 0 only if type, text and all provenance fields are equal
+     */
+    static int compareContent(Annotation anno1, Annotation anno2) {
+        int c = compare(anno1.getAnnotationType(), anno2.getAnnotationType());
+        if (c == 0) {
+            c = compare(anno1.getAnnotationText(), anno2.getAnnotationText());
+        }
+        if (c == 0) {
+            c = compare(anno1.getProvenance(), anno2.getProvenance());
+        }
+        return c;
+    }
+
+    private static int compare(Provenance prov1, Provenance prov2) {
+        if (prov1 == prov2 || prov1 == null || prov2 == null) {
+            return prov1 == prov2 ? 0 : (prov1 == null ? -1 : 1);
+        }
+        int c = compare(prov1.getLicense(), prov2.getLicense());
+        if (c == 0) {
+            c = compare(prov1.getVersion(), prov2.getVersion());
+        }
+        if (c == 0) {
+            c = compare(prov1.getSource(), prov2.getSource());
+        }
+        if (c == 0) {
+            c = compare(prov1.getDate(), prov2.getDate());
+        }
+        if (c == 0) {
+            c = compare(prov1.getCollection(), prov2.getCollection());
+        }
+        if (c == 0) {
+            c = compare(prov1.getCrc(), prov2.getCrc());
+        }
+        if (c == 0) {
+            c = compare(prov1.getSourceLabel(), prov2.getSourceLabel());
+        }
+        if (c == 0 && !Objects.equals(prov1.getComments(), prov2.getComments())) {
+            c = compare(String.valueOf(prov1.getComments()), String.valueOf(prov2.getComments()));
+        }
+        return c;
+    }
+
+    private static <T extends Comparable<T>> int compare(T a, T b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        return a.compareTo(b);
+    }
+
 }
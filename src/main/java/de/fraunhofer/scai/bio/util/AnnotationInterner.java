@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.util;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.Provenance;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Annotation;
+import de.fraunhofer.scai.bio.types.text.doc.structure.TextElement;
+
+/**
+ * Replaces equal {@link Provenance}s of annotations by one shared instance, so {@link Annotation#equals(Object)}
+ * compares them by identity instead of walking their comments and dates. Documents read from JSON carry a
+ * provenance object per annotation, interning them hashes each of these objects once.
+ * <p>
+ * Interned provenances must not be changed afterwards. Not thread safe.
+ */
+public class AnnotationInterner {
+
+    private final Map<Provenance, Provenance> seen = new IdentityHashMap<Provenance, Provenance>();
+    private final Map<Provenance, Provenance> canonical = new HashMap<Provenance, Provenance>();
+
+    /**
+     * @param provenance
+     *        {@link Provenance}, may be <code>null</code>
+     * @return the first interned provenance equal to <code>provenance</code>
+     */
+    public Provenance intern(Provenance provenance) {
+        if (provenance == null) {
+            return null;
+        }
+        Provenance interned = seen.get(provenance);
+        if (interned == null) {
+            interned = canonical.putIfAbsent(provenance, provenance);
+            if (interned == null) {
+                interned = provenance;
+            }
+            seen.put(provenance, interned);
+        }
+        return interned;
+    }
+
+    /**
+     * @param annotation
+     *        {@link Annotation} whose provenance is interned, may be <code>null</code>
+     * @return <code>annotation</code>
+     */
+    public Annotation intern(Annotation annotation) {
+        if (annotation != null && annotation.getProvenance() != null) {
+            annotation.setProvenance(intern(annotation.getProvenance()));
+        }
+        return annotation;
+    }
+
+    /**
+     * @param annotations
+     *        annotations whose provenances are interned
+     */
+    public void intern(Collection<Annotation> annotations) {
+        for (Annotation annotation : annotations) {
+            intern(annotation);
+        }
+    }
+
+    /**
+     * @param document
+     *        {@link Document} whose annotation provenances are interned
+     */
+    public void intern(Document document) {
+        for (TextElement textElement : new TextElementIndex(document).getTextElements()) {
+            if (textElement.getAnnotations() != null) {
+                intern(textElement.getAnnotations());
+            }
+        }
+    }
+
+    /**
+     * @return number of distinct provenances
+     */
+    public int size() {
+        return canonical.size();
+    }
+
+}
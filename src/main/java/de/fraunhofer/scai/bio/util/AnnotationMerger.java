@@ -1,10 +1,15 @@
 package de.fraunhofer.scai.bio.util;
 
-import java.util.Map;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Annotation;
 import de.fraunhofer.scai.bio.types.text.doc.structure.TextElement;
 
 /**
@@ -13,26 +18,23 @@ import de.fraunhofer.scai.bio.types.text.doc.structure.TextElement;
 public class AnnotationMerger {
 
     public static Document mergeAnnotations(Document baseDocument, Document extensionDocument) {
-        Map<UUID, TextElement> textElementMapDocument1 = DocumentRenderer.getDocumentTextElements(baseDocument)
-            .values()
-            .stream()
-            .collect(Collectors.toMap(p -> p.getUuid(), p -> p,(a,b)->a));
-
-        Map<UUID, TextElement> textElementMapDocument2 = DocumentRenderer.getDocumentTextElements(extensionDocument)
-            .values()
-            .stream()
-            .collect(Collectors.toMap(p -> p.getUuid(), p -> p,(a,b)->a));
-
-        textElementMapDocument1.values().stream().forEach(s -> {
-            TextElement other = textElementMapDocument2.get(s.getUuid());
-            if (other != null) {
+        TextElementIndex extensionIndex = new TextElementIndex(extensionDocument);
+        // shared provenances turn the equals of duplicate annotations into identity checks
+        AnnotationInterner interner = new AnnotationInterner();
+
+        DocumentWalker.walk(baseDocument, (s, role, depth) -> {
+            TextElement other = s.getUuid() != null ? extensionIndex.get(s.getUuid()) : null;
+            if (other != null && other != s) {
                 if (s.getAnnotations() == null) {
                     if (other.getAnnotations() != null) {
                         s.setAnnotations(other.getAnnotations());
                     }
                 } else {
                     if (other.getAnnotations() != null) {
+                        interner.intern(s.getAnnotations());
+                        interner.intern(other.getAnnotations());
                         s.getAnnotations().addAll(other.getAnnotations());
+                        s.invalidateAnnotationIndex();
                     }
                 }
             }
@@ -40,4 +42,60 @@ public class AnnotationMerger {
         return baseDocument;
 
     }
+
+    /**
+     * Merges the annotations of all layers into the base document, like {@link #mergeAnnotations(Document, Document)}
+     * for each layer, but with a single pass over the base document. The text elements are merged in parallel, equal
+     * annotations of different layers end up once in the merged set. The annotation sets of the layers are never
+     * changed or shared with the base document. Text elements of the base document sharing a set, as
+     * {@link #mergeAnnotations(Document, Document)} leaves them, get a copy each first.
+     *
+     * @param baseDocument
+     *        {@link Document} the annotations are added to
+     * @param layers
+     *        documents with the same text elements, e.g. the outputs of several annotators
+     * @return <code>baseDocument</code>
+     */
+    public static Document mergeAll(Document baseDocument, List<Document> layers) {
+        List<TextElementIndex> layerIndexes = layers.parallelStream()
+            .map(TextElementIndex::new)
+            .collect(Collectors.toList());
+
+        // the same text element object or annotation set may occur more than once, but must only be merged by one
+        // thread
+        Set<TextElement> distinct = Collections.newSetFromMap(new IdentityHashMap<TextElement, Boolean>());
+        Set<Set<Annotation>> distinctSets = Collections.newSetFromMap(new IdentityHashMap<Set<Annotation>, Boolean>());
+        List<TextElement> elements = new ArrayList<TextElement>();
+        DocumentWalker.walk(baseDocument, (s, role, depth) -> {
+            if (s.getUuid() != null && distinct.add(s)) {
+                if (s.getAnnotations() != null && !distinctSets.add(s.getAnnotations())) {
+                    s.setAnnotations(new HashSet<Annotation>(s.getAnnotations()));
+                }
+                elements.add(s);
+            }
+        });
+
+        elements.parallelStream().forEach(s -> merge(s, layerIndexes));
+
+        return baseDocument;
+    }
+
+    private static void merge(TextElement s, List<TextElementIndex> layerIndexes) {
+        Set<Annotation> merged = s.getAnnotations();
+        for (TextElementIndex layerIndex : layerIndexes) {
+            TextElement other = layerIndex.get(s.getUuid());
+            if (other != null && other != s && other.getAnnotations() != null) {
+                if (merged == null) {
+                    merged = new HashSet<Annotation>(other.getAnnotations());
+                } else {
+                    merged.addAll(other.getAnnotations());
+                }
+            }
+        }
+        if (merged != s.getAnnotations()) {
+            s.setAnnotations(merged);
+        } else {
+            s.invalidateAnnotationIndex();
+        }
+    }
 }
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.types.text.doc.container.Paragraph;
+import de.fraunhofer.scai.bio.types.text.doc.container.StructureElement;
+import de.fraunhofer.scai.bio.types.text.doc.structure.BlobSource;
+import de.fraunhofer.scai.bio.types.text.doc.structure.ImageContent;
+
+/**
+ * Content addressed store of binary blobs in a directory, used to keep the bytes of {@link ImageContent}s out of the
+ * documents.
+ * <p>
+ * A blob is stored once under the hex SHA-256 digest of its bytes, in a file <code>ab/cdef...</code> below the
+ * directory, so equal images of many documents share one file. {@link #externalize(Document)} moves the image bytes
+ * of a document into the store and leaves the digest in {@link ImageContent#getDigest()}, after which JSON, the
+ * {@link DocumentCodec}, merging and rendering no longer carry the bytes. {@link ImageContent#loadContent()} reads
+ * them back on demand once the store is attached, e.g. with {@link #attach(Document)} after reading a document.
+ * <p>
+ * Blobs are written to a temporary file and moved into place, so concurrent writers and readers, also of other
+ * processes, never see a partial blob. Blobs are never deleted.
+ *
+ * <pre>
+ * BlobStore blobs = new BlobStore(new File("blobs"));
+ * blobs.externalize(document);
+ * // ... store, reload the document ...
+ * blobs.attach(document);
+ * byte[] png = figure.getImage().loadContent();
+ * </pre>
+ */
+public class BlobStore implements BlobSource {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path directory;
+
+    /**
+     * @param directory
+     *        directory of the blobs, created if missing
+     * @throws IOException
+     *         if the directory can't be created
+     */
+    public BlobStore(File directory) throws IOException {
+        this.directory = Files.createDirectories(directory.toPath());
+    }
+
+    /**
+     * @param content
+     *        bytes
+     * @return hex SHA-256 digest of the bytes
+     */
+    public static String digest(byte[] content) {
+        byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[2 * i] = HEX[hash[i] >> 4 & 0xf];
+            hex[2 * i + 1] = HEX[hash[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * @param content
+     *        bytes to store, written only if no blob with their digest exists
+     * @return digest of the bytes
+     * @throws IOException
+     *         if the blob can't be written
+     */
+    public String put(byte[] content) throws IOException {
+        String digest = digest(content);
+        Path path = path(digest);
+        if (!Files.exists(path)) {
+            Files.createDirectories(path.getParent());
+            Path tmp = Files.createTempFile(path.getParent(), digest, ".tmp");
+            try {
+                Files.write(tmp, content);
+                Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // stored concurrently, the bytes are the same
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+        return digest;
+    }
+
+    /**
+     * @param digest
+     *        digest returned by {@link #put(byte[])}
+     * @return the bytes or <code>null</code> if there is no such blob
+     * @throws IOException
+     *         if the blob can't be read
+     * @throws IllegalArgumentException
+     *         if the digest isn't a hex SHA-256 digest
+     */
+    @Override
+    public byte[] get(String digest) throws IOException {
+        try {
+            return Files.readAllBytes(path(digest));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param digest
+     *        digest returned by {@link #put(byte[])}
+     * @return whether the blob exists
+     * @throws IllegalArgumentException
+     *         if the digest isn't a hex SHA-256 digest
+     */
+    public boolean contains(String digest) {
+        return Files.exists(path(digest));
+    }
+
+    /**
+     * move the bytes of all images of the document into the store, images are replaced by their digest and attached
+     * to the store
+     *
+     * @param document
+     *        {@link Document}
+     * @return number of images moved
+     * @throws IOException
+     *         if a blob can't be written, the images moved so far stay moved
+     */
+    public int externalize(Document document) throws IOException {
+        int count = 0;
+        for (ImageContent image : images(document)) {
+            if (image.getContent() != null) {
+                image.setDigest(put(image.getContent()));
+                image.setContent(null);
+                count++;
+            }
+            image.attach(this);
+        }
+        return count;
+    }
+
+    /**
+     * attach the store to all images of the document, so {@link ImageContent#loadContent()} reads their bytes from it
+     *
+     * @param document
+     *        {@link Document}
+     */
+    public void attach(Document document) {
+        for (ImageContent image : images(document)) {
+            image.attach(this);
+        }
+    }
+
+    /**
+     * copy the bytes of all externalized images back into the document, e.g. before handing it to a consumer without
+     * access to the store
+     *
+     * @param document
+     *        {@link Document}
+     * @throws IOException
+     *         if a blob is missing or can't be read
+     */
+    public void inline(Document document) throws IOException {
+        for (ImageContent image : images(document)) {
+            if (image.getContent() == null && image.getDigest() != null) {
+                byte[] content = get(image.getDigest());
+                if (content == null) {
+                    throw new IOException("missing blob " + image.getDigest());
+                }
+                image.setContent(content);
+            }
+        }
+    }
+
+    private Path path(String digest) {
+        if (digest == null || digest.length() != 64 || !digest.chars().allMatch(c -> Character.digit(c, 16) >= 0)) {
+            throw new IllegalArgumentException("not a SHA-256 digest: " + digest);
+        }
+        return directory.resolve(digest.substring(0, 2)).resolve(digest.substring(2));
+    }
+
+    /**
+     * @return images of the structure elements and figures in all sections of the document, see
+     *         {@link DocumentWalker#forEachSection(Document, java.util.function.Consumer)}
+     */
+    private static List<ImageContent> images(Document document) {
+        List<ImageContent> images = new ArrayList<ImageContent>();
+        DocumentWalker.forEachSection(document, section -> {
+            if (section.getParagraphs() == null) {
+                return;
+            }
+            for (Paragraph paragraph : section.getParagraphs()) {
+                if (paragraph == null || paragraph.getStructureElements() == null) {
+                    continue;
+                }
+                for (StructureElement se : paragraph.getStructureElements()) {
+                    if (se == null) {
+                        continue;
+                    }
+                    if (se.getImageContent() != null) {
+                        images.add(se.getImageContent());
+                    }
+                    if (se.getFigure() != null && se.getFigure().getImage() != null) {
+                        images.add(se.getFigure().getImage());
+                    }
+                }
+            }
+        });
+        return images;
+    }
+
+}
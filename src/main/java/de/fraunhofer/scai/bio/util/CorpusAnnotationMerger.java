@@ -0,0 +1,484 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Concept;
+
+/**
+ * Merges the annotations of a layer corpus into a base corpus, both stored as JSON lines (see
+ * {@link DocumentCorpusReader}), without loading either corpus into memory.
+ * <p>
+ * Documents are joined on a document id, by default the identifier of the document {@link Concept} or, if there is
+ * none, the crc of the document {@link de.fraunhofer.scai.bio.Provenance}. Both corpora are sorted by that id with an
+ * external merge sort: runs of up to <code>runSize</code> documents are sorted in memory and, if the corpus doesn't
+ * fit into a single run, spilled to temporary files encoded with {@link DocumentCodec}. At most
+ * {@link #MERGE_FAN_IN} runs are merged at once, more runs are first merged in passes into fewer, larger runs. The
+ * sorted corpora are then read in lockstep and the annotations of all layer documents with the id of a base document
+ * are merged into it with {@link AnnotationMerger#mergeAll(Document, List)}.
+ * <p>
+ * The merged corpus is written sorted by document id, base documents without id come first in input order. Layer
+ * documents without id or without base document are skipped. Memory is bounded by <code>runSize</code> documents
+ * per corpus while sorting and by one document per merged run while merging, so by {@link #MERGE_FAN_IN} documents
+ * and open files per corpus.
+ */
+public class CorpusAnnotationMerger {
+
+    /** default number of documents sorted in memory */
+    public static final int DEFAULT_RUN_SIZE = 1000;
+
+    /** maximum number of runs merged at once */
+    public static final int MERGE_FAN_IN = 64;
+
+    private static final Comparator<Keyed> BY_KEY = Comparator.comparing(keyed -> keyed.key);
+
+    private final Function<Document, String> documentId;
+    private final int runSize;
+    private final File tempDirectory;
+
+    private long mergedCount;
+    private long unmatchedBaseCount;
+    private long unmatchedLayerCount;
+
+    /**
+     * join on {@link #getDocumentId(Document)} with {@link #DEFAULT_RUN_SIZE} and the default temporary directory
+     */
+    public CorpusAnnotationMerger() {
+        this(CorpusAnnotationMerger::getDocumentId, DEFAULT_RUN_SIZE, null);
+    }
+
+    /**
+     * @param documentId
+     *        join key of a document, <code>null</code> if it has none
+     * @param runSize
+     *        number of documents sorted in memory
+     * @param tempDirectory
+     *        directory for the sorted runs, <code>null</code> for the default temporary directory
+     */
+    public CorpusAnnotationMerger(Function<Document, String> documentId, int runSize, File tempDirectory) {
+        if (runSize < 1) {
+            throw new IllegalArgumentException("run size must be positive: " + runSize);
+        }
+        this.documentId = documentId;
+        this.runSize = runSize;
+        this.tempDirectory = tempDirectory;
+    }
+
+    /**
+     * @param document
+     *        {@link Document}
+     * @return identifier of the document {@link Concept}, else the provenance crc, else <code>null</code>
+     */
+    public static String getDocumentId(Document document) {
+        String id = DocumentBuilder.getConceptIdentifier(document);
+        return id != null ? id : getProvenanceCrc(document);
+    }
+
+    /**
+     * @param document
+     *        {@link Document}
+     * @return crc of the document provenance or <code>null</code>
+     */
+    public static String getProvenanceCrc(Document document) {
+        return document.getProvenance() != null && document.getProvenance().getCrc() != null
+            ? document.getProvenance().getCrc().toString()
+            : null;
+    }
+
+    /**
+     * @param base
+     *        base corpus
+     * @param layer
+     *        corpus with the annotations to add
+     * @param out
+     *        merged corpus, gzipped if the name ends with <code>.gz</code>
+     * @return number of written documents
+     * @throws IOException
+     *         if a corpus or a temporary file can't be read or written
+     */
+    public long merge(File base, File layer, File out) throws IOException {
+        try (DocumentCorpusReader baseReader = new DocumentCorpusReader(base);
+            DocumentCorpusReader layerReader = new DocumentCorpusReader(layer);
+            DocumentCorpusWriter writer = new DocumentCorpusWriter(out)) {
+            return merge(baseReader, layerReader, writer);
+        }
+    }
+
+    /**
+     * @param base
+     *        base corpus
+     * @param layer
+     *        corpus with the annotations to add
+     * @param out
+     *        {@link DocumentCorpusWriter} for the merged corpus, not closed
+     * @return number of written documents
+     * @throws IOException
+     *         if a corpus or a temporary file can't be read or written
+     */
+    public long merge(DocumentCorpusReader base, DocumentCorpusReader layer, DocumentCorpusWriter out)
+        throws IOException {
+        mergedCount = 0;
+        unmatchedBaseCount = 0;
+        unmatchedLayerCount = 0;
+        long written = 0;
+
+        try (SortedCorpus sortedBase = new SortedCorpus(); SortedCorpus sortedLayer = new SortedCorpus()) {
+            for (Document document = base.read(); document != null; document = base.read()) {
+                String id = documentId.apply(document);
+                if (id == null) {
+                    out.write(document);
+                    written++;
+                    unmatchedBaseCount++;
+                } else {
+                    sortedBase.add(id, document);
+                }
+            }
+            for (Document document = layer.read(); document != null; document = layer.read()) {
+                String id = documentId.apply(document);
+                if (id == null) {
+                    unmatchedLayerCount++;
+                } else {
+                    sortedLayer.add(id, document);
+                }
+            }
+
+            Iterator<Keyed> bases = sortedBase.iterator();
+            Iterator<Keyed> layers = sortedLayer.iterator();
+            Keyed b = next(bases);
+            Keyed l = next(layers);
+            List<Document> group = new ArrayList<Document>();
+
+            while (b != null) {
+                String id = b.key;
+                while (l != null && l.key.compareTo(id) < 0) {
+                    unmatchedLayerCount++;
+                    l = next(layers);
+                }
+                group.clear();
+                while (l != null && l.key.equals(id)) {
+                    group.add(l.document);
+                    l = next(layers);
+                }
+
+                while (b != null && b.key.equals(id)) {
+                    if (group.isEmpty()) {
+                        unmatchedBaseCount++;
+                    } else {
+                        AnnotationMerger.mergeAll(b.document, group);
+                        mergedCount++;
+                    }
+                    out.write(b.document);
+                    written++;
+                    b = next(bases);
+                }
+            }
+            while (l != null) {
+                unmatchedLayerCount++;
+                l = next(layers);
+            }
+        }
+        return written;
+    }
+
+    private static Keyed next(Iterator<Keyed> iterator) {
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    /**
+     * @return number of base documents the last merge added layer annotations to
+     */
+    public long getMergedCount() {
+        return mergedCount;
+    }
+
+    /**
+     * @return number of base documents the last merge found no layer document for
+     */
+    public long getUnmatchedBaseCount() {
+        return unmatchedBaseCount;
+    }
+
+    /**
+     * @return number of layer documents the last merge skipped
+     */
+    public long getUnmatchedLayerCount() {
+        return unmatchedLayerCount;
+    }
+
+    /**
+     * document with its join key
+     */
+    private static final class Keyed {
+
+        final String key;
+        final Document document;
+        /** encoded document of a run that is copied into a larger run, <code>null</code> once decoded */
+        final byte[] encoded;
+        /** run the document was read from, keeps the merge of the runs stable */
+        final int run;
+
+        Keyed(String key, Document document, int run) {
+            this(key, document, null, run);
+        }
+
+        Keyed(String key, Document document, byte[] encoded, int run) {
+            this.key = key;
+            this.document = document;
+            this.encoded = encoded;
+            this.run = run;
+        }
+    }
+
+    /**
+     * external merge sort of a corpus by document id
+     */
+    private final class SortedCorpus implements Closeable {
+
+        private final List<Keyed> buffer = new ArrayList<Keyed>();
+        private final List<File> runFiles = new ArrayList<File>();
+        private final List<Integer> runCounts = new ArrayList<Integer>();
+        private final List<DataInputStream> openRuns = new ArrayList<DataInputStream>();
+
+        void add(String key, Document document) throws IOException {
+            buffer.add(new Keyed(key, document, 0));
+            if (buffer.size() >= runSize) {
+                spill();
+            }
+        }
+
+        private void spill() throws IOException {
+            Collections.sort(buffer, BY_KEY);
+
+            File file = File.createTempFile("annotation-merge", ".run", tempDirectory);
+            runFiles.add(file);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+                for (Keyed keyed : buffer) {
+                    write(out, keyed.key, DocumentCodec.encode(keyed.document));
+                }
+            }
+            runCounts.add(buffer.size());
+            buffer.clear();
+        }
+
+        /**
+         * merge every {@link #MERGE_FAN_IN} consecutive runs into one, consecutive runs keep equal ids in input order
+         */
+        private void mergePass() throws IOException {
+            List<File> files = new ArrayList<File>();
+            List<Integer> counts = new ArrayList<Integer>();
+            for (int from = 0; from < runFiles.size(); from += MERGE_FAN_IN) {
+                int to = Math.min(from + MERGE_FAN_IN, runFiles.size());
+                if (to - from == 1) {
+                    files.add(runFiles.get(from));
+                    counts.add(runCounts.get(from));
+                    continue;
+                }
+
+                File file = File.createTempFile("annotation-merge", ".run", tempDirectory);
+                files.add(file);
+                int count = 0;
+                try (DataOutputStream out =
+                    new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+                    // the documents are copied as encoded, only the final pass decodes them
+                    MergingIterator merging = new MergingIterator(open(from, to), false);
+                    while (merging.hasNext()) {
+                        Keyed keyed = merging.next();
+                        write(out, keyed.key, keyed.encoded);
+                        count++;
+                    }
+                } catch (IOException | UncheckedIOException e) {
+                    runFiles.add(file);
+                    throw e;
+                } finally {
+                    closeRuns();
+                }
+                counts.add(count);
+                for (int i = from; i < to; i++) {
+                    delete(runFiles.get(i));
+                }
+            }
+            runFiles.clear();
+            runFiles.addAll(files);
+            runCounts.clear();
+            runCounts.addAll(counts);
+        }
+
+        private List<RunReader> open(int from, int to) throws IOException {
+            List<RunReader> runs = new ArrayList<RunReader>();
+            for (int i = from; i < to; i++) {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(runFiles.get(i))));
+                openRuns.add(in);
+                runs.add(new RunReader(in, runCounts.get(i), i - from));
+            }
+            return runs;
+        }
+
+        /**
+         * @return the documents sorted by id, documents with equal ids in input order
+         */
+        Iterator<Keyed> iterator() throws IOException {
+            if (runFiles.isEmpty()) {
+                // the whole corpus fits into one run
+                Collections.sort(buffer, BY_KEY);
+                return buffer.iterator();
+            }
+            if (!buffer.isEmpty()) {
+                spill();
+            }
+            while (runFiles.size() > MERGE_FAN_IN) {
+                mergePass();
+            }
+            return new MergingIterator(open(0, runFiles.size()), true);
+        }
+
+        private void closeRuns() throws IOException {
+            IOException failure = null;
+            for (DataInputStream in : openRuns) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            openRuns.clear();
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException failure = null;
+            try {
+                closeRuns();
+            } catch (IOException e) {
+                failure = e;
+            }
+            for (File file : runFiles) {
+                try {
+                    delete(file);
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            buffer.clear();
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    private static void write(DataOutputStream out, String key, byte[] encoded) throws IOException {
+        out.writeUTF(key);
+        out.writeInt(encoded.length);
+        out.write(encoded);
+    }
+
+    private static void delete(File file) throws IOException {
+        if (!file.delete() && file.exists()) {
+            throw new IOException("can't delete " + file);
+        }
+    }
+
+    /**
+     * reads the documents of one spilled run
+     */
+    private static final class RunReader {
+
+        private final DataInputStream in;
+        private final int run;
+        private int remaining;
+
+        RunReader(DataInputStream in, int count, int run) {
+            this.in = in;
+            this.remaining = count;
+            this.run = run;
+        }
+
+        /**
+         * @param decode
+         *        whether to decode the document or to keep it encoded
+         */
+        Keyed read(boolean decode) throws IOException {
+            if (remaining == 0) {
+                return null;
+            }
+            remaining--;
+            String key = in.readUTF();
+            byte[] encoded = new byte[in.readInt()];
+            in.readFully(encoded);
+            return decode ? new Keyed(key, DocumentCodec.decode(encoded), run) : new Keyed(key, null, encoded, run);
+        }
+    }
+
+    /**
+     * k-way merge of the sorted runs
+     */
+    private static final class MergingIterator implements Iterator<Keyed> {
+
+        private final List<RunReader> runs;
+        private final boolean decode;
+        private final PriorityQueue<Keyed> heads =
+            new PriorityQueue<Keyed>(BY_KEY.thenComparingInt(keyed -> keyed.run));
+
+        MergingIterator(List<RunReader> runs, boolean decode) throws IOException {
+            this.runs = runs;
+            this.decode = decode;
+            for (RunReader run : runs) {
+                Keyed head = run.read(decode);
+                if (head != null) {
+                    heads.add(head);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Keyed next() {
+            Keyed next = heads.remove();
+            try {
+                Keyed head = runs.get(next.run).read(decode);
+                if (head != null) {
+                    heads.add(head);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return next;
+        }
+    }
+
+}
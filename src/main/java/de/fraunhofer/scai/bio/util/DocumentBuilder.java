@@ -59,6 +59,9 @@ import lombok.extern.slf4j.Slf4j;
  * @author marc
  */
 /**
+ * A builder holds no per document state, one instance can be shared by all threads of an ingestion pool as long as
+ * each {@link Document} is built by a single thread at a time.
+ *
  * @author marc
  *
  */
@@ -66,13 +69,69 @@ import lombok.extern.slf4j.Slf4j;
 public class DocumentBuilder {
 
 
-    private SentenceDetector sentenceDetector;
+    private final SentenceDetector sentenceDetector;
+
+    /** sentence end and offset buffers of {@link #createParagraph(String, boolean, int)}, one pair per thread */
+    private final ThreadLocal<IntList[]> sentenceBuffers = ThreadLocal
+        .withInitial(() -> new IntList[] { new IntList(), new IntList() });
+
+    /** default number of labels cached by {@link #createLabel(String)} */
+    public static final int DEFAULT_LABEL_CACHE_SIZE = 1024;
+
+    private volatile TextElementIdStrategy textElementIdStrategy = TextElementIdStrategy.MD5;
+
+    private volatile int labelCacheSize = DEFAULT_LABEL_CACHE_SIZE;
+    private volatile LabelCache labelCache = new LabelCache(labelCacheSize, textElementIdStrategy);
 
     public DocumentBuilder() {
 
         sentenceDetector = new SentenceDetector(0);
     }
 
+    /**
+     * @param textElementIdStrategy derives the ids of the created {@link TextElement}s
+     */
+    public DocumentBuilder(TextElementIdStrategy textElementIdStrategy) {
+        this();
+        setTextElementIdStrategy(textElementIdStrategy);
+    }
+
+    /**
+     * @return {@link TextElementIdStrategy}, {@link TextElementIdStrategy#MD5} by default
+     */
+    public TextElementIdStrategy getTextElementIdStrategy() {
+        return textElementIdStrategy;
+    }
+
+    /**
+     * @param textElementIdStrategy derives the ids of the created {@link TextElement}s
+     */
+    public void setTextElementIdStrategy(TextElementIdStrategy textElementIdStrategy) {
+        if (textElementIdStrategy == null) {
+            throw new IllegalArgumentException("text element id strategy must not be null");
+        }
+        this.textElementIdStrategy = textElementIdStrategy;
+        this.labelCache = labelCacheSize > 0 ? new LabelCache(labelCacheSize, textElementIdStrategy) : null;
+    }
+
+    /**
+     * @return number of labels cached by {@link #createLabel(String)}
+     */
+    public int getLabelCacheSize() {
+        return labelCacheSize;
+    }
+
+    /**
+     * @param labelCacheSize number of labels cached by {@link #createLabel(String)}, <code>0</code> disables the cache
+     */
+    public void setLabelCacheSize(int labelCacheSize) {
+        if (labelCacheSize < 0) {
+            throw new IllegalArgumentException("label cache size must not be negative: " + labelCacheSize);
+        }
+        this.labelCacheSize = labelCacheSize;
+        this.labelCache = labelCacheSize > 0 ? new LabelCache(labelCacheSize, textElementIdStrategy) : null;
+    }
+
     public Author createAuthor(String forename, String surname) {
     	  TextElement forenameTE = createTextElement(forename);
     	  TextElement surnameTE = createTextElement(surname);
@@ -114,7 +173,12 @@ public class DocumentBuilder {
      * @return
      */
     public Section createSection(String text) {
-        return createSection(text, text);
+        // the title doubles as rhetorical, so both are free text
+        Section dSection = new Section();
+        dSection.setRhetorical(createTextElement(text));
+        dSection.setTitle(createTextElement(text));
+
+        return dSection;
     }
 
     /**
@@ -128,7 +192,7 @@ public class DocumentBuilder {
     public Section createSimpleSection(String text, String rhetorical, String title) {
 
         Section dSection = new Section();
-        TextElement rhetoricalElement = createTextElement(rhetorical);
+        TextElement rhetoricalElement = createLabel(rhetorical);
         dSection.setRhetorical(rhetoricalElement);
         TextElement titleElement = createTextElement(title);
         dSection.setTitle(titleElement);
@@ -151,7 +215,7 @@ public class DocumentBuilder {
     public Section createSection(String rhetorical, String title) {
 
         Section dSection = new Section();
-        TextElement rhetoricalElement = createTextElement(rhetorical);
+        TextElement rhetoricalElement = createLabel(rhetorical);
         dSection.setRhetorical(rhetoricalElement);
         TextElement titleElement = createTextElement(title);
         dSection.setTitle(titleElement);
@@ -186,24 +250,25 @@ public class DocumentBuilder {
 
         if (text != null && !text.isEmpty()) {
             if (createSentences) {
-                List<Integer> eos = sentenceDetector.findSentencesEndPositions(text);
-
-                List<String> sentences = sentenceDetector.getSentences(eos, text, 5);
+                // both buffers are cleared by the detector, the offsets are only read in this call
+                IntList[] buffers = sentenceBuffers.get();
+                IntList offsets = buffers[1];
+                int sentences = sentenceDetector.findSentenceOffsets(text, 5, buffers[0], offsets);
                 String note = null;
                 
                 // all of them
-                if( sentence_limit<0 || (sentence_limit+10<sentences.size()) ) {
-                	sentence_limit = sentences.size();
+                if( sentence_limit<0 || (sentence_limit+10<sentences) ) {
+                	sentence_limit = sentences;
                 } else {
-                	note = String.format(" >> Note: skipped %d sentences due to size limit of %d.", sentence_limit-sentences.size(), sentence_limit);                	
+                	note = String.format(" >> Note: skipped %d sentences due to size limit of %d.", sentence_limit-sentences, sentence_limit);                	
                 }
                 
-                if (!sentences.isEmpty()) {
+                if (sentences > 0) {
                     dParagraph = new Paragraph();
                     for (int i = 0; i < sentence_limit; i++) {
-                        if (i < sentences.size()) {
+                        if (i < sentences) {
                             StructureElement sentence = new StructureElement();
-                            sentence.setSentence(createSentence(sentences.get(i)));
+                            sentence.setSentence(createSentence(text.substring(offsets.get(2*i), offsets.get(2*i+1))));
 
                             dParagraph.addStructureElement(sentence);
                         }
@@ -220,7 +285,7 @@ public class DocumentBuilder {
                     }
                 }
 
-                log.debug("Created " + sentences.size() + " sentence(s).");
+                log.debug("Created " + sentences + " sentence(s).");
 
             } else {
                 dParagraph = new Paragraph();
@@ -271,13 +336,9 @@ public class DocumentBuilder {
 
         if (text != null && !text.isEmpty()) {
 
-            List<Integer> eos = sentenceDetector.findSentencesEndPositions(text);
-
-            List<String> sentences = sentenceDetector.getSentences(eos, text, 5);
-            if (!sentences.isEmpty()) {
-                for (int i = 0; i < sentences.size(); i++) {
-                    dSentences.add(createSentence(sentences.get(i)));
-                }
+            int[] offsets = sentenceDetector.findSentenceOffsets(text, 5);
+            for (int i = 0; i < offsets.length; i += 2) {
+                dSentences.add(createSentence(text.substring(offsets[i], offsets[i+1])));
             }
         }
 
@@ -285,10 +346,28 @@ public class DocumentBuilder {
     }
 
 
+    /**
+     * Creates a {@link TextElement} for a value recurring in many documents, like rhetorical roles, languages,
+     * publication types or the "unspecified" placeholders, not for titles, citations or other free text, which would
+     * only churn the cache. Equal labels share their text <code>String</code> and
+     * {@link UUID}, which are cached for up to {@link #getLabelCacheSize()} labels. The text element itself is new,
+     * so annotations added to it stay with it.
+     *
+     * @param text Content of the {@link TextElement} to create
+     * @return the created {@link TextElement}, equal to the one {@link #createTextElement(String)} creates
+     */
+    public TextElement createLabel(String text) {
+        LabelCache cache = labelCache;
+        if (cache == null || text == null || text.isEmpty()) {
+            return createTextElement(text);
+        }
+        return cache.create(text);
+    }
+
     /**
      * Creates a {@link TextElement} for a given String.
-     * The {@link UUID} for the {@link TextElement} is generated from the values of the given String.
-     * see UUID.nameUUIDFromBytes(String)
+     * The {@link UUID} for the {@link TextElement} is generated from the values of the given String
+     * by the {@link TextElementIdStrategy}, see {@link #setTextElementIdStrategy(TextElementIdStrategy)}.
      * @param text Content of the {@link TextElement} to create
      * @return the created {@link TextElement}
      */
@@ -301,7 +380,7 @@ public class DocumentBuilder {
         	textElement.setText("");
         }
         if (text != null && !text.isEmpty()) {
-            textElement.setUuid(UUID.nameUUIDFromBytes(text.getBytes()));
+            textElement.setUuid(textElementIdStrategy.createId(text));
         } else {
             textElement.setUuid(UUID.randomUUID());
         }
@@ -327,7 +406,7 @@ public class DocumentBuilder {
         Figure figure = new Figure();
 
         if (rhetorical != null) {
-            TextElement textElement = createTextElement(rhetorical);
+            TextElement textElement = createLabel(rhetorical);
             figure.setRhetorical(textElement);
         }
 
@@ -362,7 +441,7 @@ public class DocumentBuilder {
             new de.fraunhofer.scai.bio.types.text.doc.structure.Table();
 
         if (rhetorical != null) {
-            TextElement textElement = createTextElement(rhetorical);
+            TextElement textElement = createLabel(rhetorical);
             dTable.setRhetorical(textElement);
         }
 
@@ -451,9 +530,9 @@ public class DocumentBuilder {
             }
             TextElement rhetoricalElement;
             if (rhetorical != null && !rhetorical.isEmpty()) {
-                rhetoricalElement = createTextElement(rhetorical);
+                rhetoricalElement = createLabel(rhetorical);
             } else {
-                rhetoricalElement = createTextElement("keywords");
+                rhetoricalElement = createLabel("keywords");
             }
             keywordList.setRhetorical(rhetoricalElement);
             return keywordList;
@@ -520,7 +599,7 @@ public class DocumentBuilder {
             language = "unspecified";
         }
 
-        getBibliographic(document).setLanguage(createTextElement(language));
+        getBibliographic(document).setLanguage(createLabel(language));
     }
 
     public void setAbstract(Document document, String dAbstract) {
@@ -535,6 +614,10 @@ public class DocumentBuilder {
         getBibliographic(document).setDocumentAbstract(documentAbstract);
     }
 
+    /**
+     * @param document {@link Document}
+     * @return the {@link DocumentElement}, created if missing
+     */
     public DocumentElement getDocumentElement(Document document) {
         DocumentElement docElem = document.getDocumentElement();
 
@@ -585,7 +668,7 @@ public class DocumentBuilder {
         }
         //reference.setLanguage(language);
         if (publicationType != null) {
-            reference.setPublicationType(createTextElement(publicationType));
+            reference.setPublicationType(createLabel(publicationType));
         }
         if (referenceSource != null) {
             reference.setReferenceSource(createTextElement(referenceSource));
@@ -674,7 +757,7 @@ public class DocumentBuilder {
 
     public void setSource(Document document, String source) {
       if (source == null || source.length() <= 0) source = "unspecified";
-      getBibliographic(document).setSource(createTextElement(source));      
+      getBibliographic(document).setSource(createPlaceholderOrText(source));
     }
     
     public Concept setDocumentId(Document document, String source, String id, String altlabel) {
@@ -684,14 +767,34 @@ public class DocumentBuilder {
         if (id == null || id.length() <= 0) id = "unspecified";
         if (altlabel == null || altlabel.length() <= 0) altlabel = "unspecified";
 
-        concept.setIdentifierSource(createTextElement(source));
-        concept.setIdentifier(createTextElement(id));
+        concept.setIdentifierSource(createPlaceholderOrText(source));
+        concept.setIdentifier(createPlaceholderOrText(id));
         concept.setPrefLabel(createTextElement(source + ":" + id));
-        concept.setAltLabel(createTextElement(altlabel));
+        concept.setAltLabel(createPlaceholderOrText(altlabel));
 
         return concept;
     }
 
+    /**
+     * the "unspecified" placeholder recurs in every document and is cached, any other value is free text
+     */
+    private TextElement createPlaceholderOrText(String text) {
+        return "unspecified".equals(text) ? createLabel(text) : createTextElement(text);
+    }
+
+    /**
+     * @param document {@link Document}
+     * @return text of the identifier of the document {@link Concept}, see
+     *         {@link #setDocumentId(Document, String, String, String)}, or <code>null</code>
+     */
+    public static String getConceptIdentifier(Document document) {
+        if (document.getDocumentElement() == null || document.getDocumentElement().getMetaElement() == null) {
+            return null;
+        }
+        Concept concept = document.getDocumentElement().getMetaElement().getConcept();
+        return concept != null && concept.getIdentifier() != null ? concept.getIdentifier().getText() : null;
+    }
+
     public Concept setDocumentIdasHash(Document document, String content, String altlabel) {
 
         String id = DigestUtils.sha512Hex(content);
@@ -775,8 +878,8 @@ public class DocumentBuilder {
 
 	public void addPublicationType(Document document, String id, String type) {
         PublicationType publicationType = new PublicationType();
-        publicationType.setIdentifier(createTextElement(id));
-        publicationType.setPublicationType(createTextElement(type));
+        publicationType.setIdentifier(createLabel(id));
+        publicationType.setPublicationType(createLabel(type));
         getBibliographic(document).addPublicationType(publicationType);		
 	}
 
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.util;
+
+import java.nio.ByteBuffer;
+
+import de.fraunhofer.scai.bio.Document;
+
+/**
+ * Compact binary encoding of a {@link Document}, a lossless and much smaller alternative to the Jackson JSON
+ * serialization for storage and transport.
+ * <p>
+ * Layout of an encoded document:
+ * <ul>
+ * <li>header: the magic bytes <code>DOCB</code> and a format version byte</li>
+ * <li>string dictionary: annotation types and texts, provenance strings, affiliations, document type and similar
+ * label like values, each stored once and referenced by index</li>
+ * <li>provenance table: each distinct {@link de.fraunhofer.scai.bio.Provenance} stored once and referenced by
+ * index</li>
+ * <li>the document tree: integers as varints, {@link java.util.UUID}s as two longs, annotations sorted by start
+ * offset with delta encoded offsets, other strings as length prefixed UTF-8</li>
+ * </ul>
+ * The meta, front, body and back matter as well as every section are prefixed with their encoded length, so readers
+ * can skip them without decoding.
+ * <p>
+ * Decoded documents are equal to the encoded ones. Equal {@link de.fraunhofer.scai.bio.Provenance}s are shared by
+ * the decoded annotations. All methods are thread safe.
+ */
+public final class DocumentCodec {
+
+    static final byte[] MAGIC = { 'D', 'O', 'C', 'B' };
+    static final int VERSION = 1;
+
+    private DocumentCodec() {
+    }
+
+    /**
+     * @param document
+     *        {@link Document} to encode
+     * @return encoded document
+     */
+    public static byte[] encode(Document document) {
+        return new DocumentEncoder().encode(document);
+    }
+
+    /**
+     * @param data
+     *        encoded document
+     * @return decoded {@link Document}
+     * @throws IllegalArgumentException
+     *         if the data isn't an encoded document of a supported version
+     */
+    public static Document decode(byte[] data) {
+        return decode(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * @param buffer
+     *        encoded document between position and limit, the position is not changed
+     * @return decoded {@link Document}
+     * @throws IllegalArgumentException
+     *         if the data isn't an encoded document of a supported version
+     */
+    public static Document decode(ByteBuffer buffer) {
+        return new DocumentDecoder(buffer).decode();
+    }
+
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.util;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import de.fraunhofer.scai.bio.Document;
+
+/**
+ * Reads a corpus stored as one Jackson serialized {@link Document} per line (JSON lines), gzipped or plain.
+ * <p>
+ * Documents are parsed one at a time while iterating, so memory stays bounded by the largest document, not by the
+ * corpus. The reader can be iterated once; use {@link #stream()} or {@link #spliterator()} to process the corpus with
+ * (parallel) streams.
+ *
+ * <pre>
+ * try (DocumentCorpusReader reader = new DocumentCorpusReader(new File("corpus.jsonl.gz"))) {
+ *     reader.stream().parallel().forEach(document -&gt; ...);
+ * }
+ * </pre>
+ */
+public class DocumentCorpusReader implements Iterable<Document>, Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** shared reader, {@link ObjectReader}s are immutable and thread safe */
+    private static final ObjectReader DEFAULT_READER = createReader(new ObjectMapper());
+
+    private final InputStream in;
+    private final MappingIterator<Document> documents;
+    private boolean iterated;
+
+    /**
+     * @param file
+     *        JSON lines file, gzip is detected from the content
+     * @throws IOException
+     *         if the file can't be opened
+     */
+    public DocumentCorpusReader(File file) throws IOException {
+        this(new FileInputStream(file));
+    }
+
+    /**
+     * @param in
+     *        JSON lines stream, gzip is detected from the content; closed with this reader
+     * @throws IOException
+     *         if the stream can't be read
+     */
+    public DocumentCorpusReader(InputStream in) throws IOException {
+        this(in, DEFAULT_READER);
+    }
+
+    /**
+     * @param in
+     *        JSON lines stream, gzip is detected from the content; closed with this reader
+     * @param mapper
+     *        {@link ObjectMapper} with custom configuration, unknown properties are always ignored
+     * @throws IOException
+     *         if the stream can't be read
+     */
+    public DocumentCorpusReader(InputStream in, ObjectMapper mapper) throws IOException {
+        this(in, createReader(mapper));
+    }
+
+    private DocumentCorpusReader(InputStream in, ObjectReader reader) throws IOException {
+        try {
+            this.in = decompress(in);
+            this.documents = reader.readValues(this.in);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private static ObjectReader createReader(ObjectMapper mapper) {
+        return mapper.readerFor(Document.class).without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * @return buffered stream, gunzipped if it starts with the gzip magic
+     */
+    static InputStream decompress(InputStream in) throws IOException {
+        InputStream buffered = new BufferedInputStream(in, BUFFER_SIZE);
+
+        buffered.mark(2);
+        int b1 = buffered.read();
+        int b2 = buffered.read();
+        buffered.reset();
+
+        if (b1 == (GZIPInputStream.GZIP_MAGIC & 0xff) && b2 == (GZIPInputStream.GZIP_MAGIC >>> 8)) {
+            return new GZIPInputStream(buffered, BUFFER_SIZE);
+        }
+        return buffered;
+    }
+
+    /**
+     * @return the next {@link Document} or <code>null</code> at the end of the corpus
+     * @throws IOException
+     *         if the corpus can't be read or parsed
+     */
+    public Document read() throws IOException {
+        return documents.hasNextValue() ? documents.nextValue() : null;
+    }
+
+    /**
+     * The documents of the corpus, can only be called once. Parse errors are thrown as
+     * {@link com.fasterxml.jackson.databind.RuntimeJsonMappingException} and I/O errors as
+     * {@link UncheckedIOException}.
+     *
+     * @return {@link Iterator} over the remaining documents
+     */
+    @Override
+    public Iterator<Document> iterator() {
+        if (iterated) {
+            throw new IllegalStateException("corpus can only be iterated once");
+        }
+        iterated = true;
+
+        return new Iterator<Document>() {
+
+            private Document next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    try {
+                        next = read();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public Document next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Document document = next;
+                next = null;
+                return document;
+            }
+        };
+    }
+
+    /**
+     * Parallel streams split off batches of already parsed documents, parsing itself stays sequential.
+     *
+     * @return {@link Spliterator} of unknown size over the remaining documents
+     */
+    @Override
+    public Spliterator<Document> spliterator() {
+        return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
+    /**
+     * @return sequential {@link Stream} over the remaining documents, closing the stream closes this reader
+     */
+    public Stream<Document> stream() {
+        return StreamSupport.stream(spliterator(), false).onClose(() -> {
+            try {
+                close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        documents.close();
+        in.close();
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.util;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import de.fraunhofer.scai.bio.Document;
+
+/**
+ * Writes {@link Document}s as JSON lines, one Jackson serialized document per line, readable by
+ * {@link DocumentCorpusReader}.
+ * <p>
+ * Not thread safe, {@link #write(Document)} must not be called concurrently.
+ */
+public class DocumentCorpusWriter implements Closeable, Flushable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** shared writer, {@link ObjectWriter}s are immutable and thread safe */
+    private static final ObjectWriter DEFAULT_WRITER = createWriter(new ObjectMapper());
+
+    private final ObjectWriter writer;
+    private final JsonGenerator generator;
+    private long count;
+
+    /**
+     * @param file
+     *        target file, gzipped if the name ends with <code>.gz</code>
+     * @throws IOException
+     *         if the file can't be created
+     */
+    public DocumentCorpusWriter(File file) throws IOException {
+        this(new FileOutputStream(file), file.getName().endsWith(".gz"));
+    }
+
+    /**
+     * @param out
+     *        target stream, closed with this writer
+     * @param gzip
+     *        compress the output
+     * @throws IOException
+     *         if the stream can't be written
+     */
+    public DocumentCorpusWriter(OutputStream out, boolean gzip) throws IOException {
+        this(out, gzip, DEFAULT_WRITER);
+    }
+
+    /**
+     * @param out
+     *        target stream, closed with this writer
+     * @param gzip
+     *        compress the output
+     * @param mapper
+     *        {@link ObjectMapper} with custom configuration, indentation is always disabled
+     * @throws IOException
+     *         if the stream can't be written
+     */
+    public DocumentCorpusWriter(OutputStream out, boolean gzip, ObjectMapper mapper) throws IOException {
+        this(out, gzip, createWriter(mapper));
+    }
+
+    private DocumentCorpusWriter(OutputStream out, boolean gzip, ObjectWriter writer) throws IOException {
+        try {
+            OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : new BufferedOutputStream(out,
+                BUFFER_SIZE);
+            this.writer = writer;
+            this.generator = writer.getFactory().createGenerator(target, JsonEncoding.UTF8);
+            // lines are terminated in write(), no separator in front of the next document
+            this.generator.setRootValueSeparator(null);
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    private static ObjectWriter createWriter(ObjectMapper mapper) {
+        return mapper.writerFor(Document.class).without(SerializationFeature.INDENT_OUTPUT)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * @param document
+     *        {@link Document} to append as one line
+     * @throws IOException
+     *         if the document can't be written
+     */
+    public void write(Document document) throws IOException {
+        writer.writeValue(generator, document);
+        generator.writeRaw('\n');
+        count++;
+    }
+
+    /**
+     * @return number of documents written so far
+     */
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+
+}
@@ -0,0 +1,1192 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.util;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.Provenance;
+import de.fraunhofer.scai.bio.types.text.doc.DocumentElement;
+import de.fraunhofer.scai.bio.types.text.doc.container.BackMatter;
+import de.fraunhofer.scai.bio.types.text.doc.container.BodyMatter;
+import de.fraunhofer.scai.bio.types.text.doc.container.Chapter;
+import de.fraunhofer.scai.bio.types.text.doc.container.FrontMatter;
+import de.fraunhofer.scai.bio.types.text.doc.container.Paragraph;
+import de.fraunhofer.scai.bio.types.text.doc.container.Section;
+import de.fraunhofer.scai.bio.types.text.doc.container.StructureElement;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Abstract;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Affiliation;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Annotation;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Author;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Bibliographic;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Bibliography;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Concept;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Date;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Keywords;
+import de.fraunhofer.scai.bio.types.text.doc.meta.License;
+import de.fraunhofer.scai.bio.types.text.doc.meta.MetaElement;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Person;
+import de.fraunhofer.scai.bio.types.text.doc.meta.PublicationType;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Reference;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Title;
+import de.fraunhofer.scai.bio.types.text.doc.structure.CaptionedBox;
+import de.fraunhofer.scai.bio.types.text.doc.structure.Cell;
+import de.fraunhofer.scai.bio.types.text.doc.structure.CellType;
+import de.fraunhofer.scai.bio.types.text.doc.structure.Code;
+import de.fraunhofer.scai.bio.types.text.doc.structure.DataTable;
+import de.fraunhofer.scai.bio.types.text.doc.structure.Figure;
+import de.fraunhofer.scai.bio.types.text.doc.structure.Formula;
+import de.fraunhofer.scai.bio.types.text.doc.structure.ImageContent;
+import de.fraunhofer.scai.bio.types.text.doc.structure.Outline;
+import de.fraunhofer.scai.bio.types.text.doc.structure.PMCTable;
+import de.fraunhofer.scai.bio.types.text.doc.structure.Quotation;
+import de.fraunhofer.scai.bio.types.text.doc.structure.Sentence;
+import de.fraunhofer.scai.bio.types.text.doc.structure.Table;
+import de.fraunhofer.scai.bio.types.text.doc.structure.TextElement;
+
+/**
+ * Reads the {@link DocumentCodec} format written by {@link DocumentEncoder}, one instance per document.
+ */
+final class DocumentDecoder {
+
+    private interface ElementReader<T> {
+        T read();
+    }
+
+    private static final CellType[] CELL_TYPES = CellType.values();
+
+    /** positions are set through {@link Buffer}, whose methods also exist on Java 8 */
+    private final ByteBuffer in;
+    /** the dictionary and provenance table are decoded on first use */
+    private int[] symbolOffsets;
+    private String[] symbols;
+    private int[] provenanceOffsets;
+    private Provenance[] provenances;
+    /** offsets of the skipped annotations by text element, <code>null</code> to decode annotations */
+    private Map<TextElement, Integer> deferredAnnotations;
+    private byte[] scratch = new byte[256];
+    private char[] chars = new char[256];
+
+    /**
+     * @param buffer
+     *        encoded document between position and limit
+     */
+    DocumentDecoder(ByteBuffer buffer) {
+        this.in = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+    }
+
+    Document decode() {
+        readHeader();
+        return readDocument();
+    }
+
+    /**
+     * check the magic bytes and version, index string dictionary and provenance table
+     */
+    void readHeader() {
+        if (in.remaining() < DocumentCodec.MAGIC.length + 1) {
+            throw new IllegalArgumentException("not an encoded document");
+        }
+        for (byte magic : DocumentCodec.MAGIC) {
+            if (in.get() != magic) {
+                throw new IllegalArgumentException("not an encoded document");
+            }
+        }
+        int version = in.get();
+        if (version != DocumentCodec.VERSION) {
+            throw new IllegalArgumentException("unsupported document encoding version " + version);
+        }
+
+        symbolOffsets = new int[readVarint() + 1];
+        symbols = new String[symbolOffsets.length];
+        for (int i = 1; i < symbolOffsets.length; i++) {
+            symbolOffsets[i] = in.position();
+            skip(readVarint() - 1);
+        }
+
+        provenanceOffsets = new int[readVarint() + 1];
+        provenances = new Provenance[provenanceOffsets.length];
+        for (int i = 1; i < provenanceOffsets.length; i++) {
+            provenanceOffsets[i] = in.position();
+            skipProvenance();
+        }
+    }
+
+    private String symbol(int index) {
+        if (index == 0 || symbols[index] != null) {
+            return symbols[index];
+        }
+        int position = in.position();
+        ((Buffer) in).position(symbolOffsets[index]);
+        symbols[index] = readString();
+        ((Buffer) in).position(position);
+        return symbols[index];
+    }
+
+    private Provenance provenance(int index) {
+        if (index == 0 || provenances[index] != null) {
+            return provenances[index];
+        }
+        int position = in.position();
+        ((Buffer) in).position(provenanceOffsets[index]);
+        provenances[index] = readProvenance();
+        ((Buffer) in).position(position);
+        return provenances[index];
+    }
+
+    private void skipProvenance() {
+        int flags = in.get();
+        for (int i = 0; i < 5; i++) {
+            readVarint();
+        }
+        if ((flags & 1) != 0) {
+            readSignedVarlong();
+        }
+        if ((flags & 2) != 0) {
+            readSignedVarlong();
+        }
+        for (int size = readVarint() - 1; size > 0; size--) {
+            readVarint();
+        }
+    }
+
+    // ---- random access for DocumentView, positions are relative to the start of the encoded document
+
+    int position() {
+        return in.position();
+    }
+
+    void position(int position) {
+        ((Buffer) in).position(position);
+    }
+
+    /**
+     * @param deferred
+     *        receives the offsets of the annotations of the decoded text elements, which are left out, or -1 if they
+     *        have none; <code>null</code> to decode annotations
+     */
+    void deferAnnotations(Map<TextElement, Integer> deferred) {
+        this.deferredAnnotations = deferred;
+    }
+
+    Provenance readDocumentProvenance() {
+        return provenance(readVarint());
+    }
+
+    int readMask() {
+        return readVarint();
+    }
+
+    /**
+     * skips a length prefixed block (meta, front, body and back matter, section) at the position
+     */
+    void skipBlock() {
+        if (readVarint() != 0) {
+            skip(in.getInt());
+        }
+    }
+
+    /**
+     * skips the chapters of the body matter, whose sections are blocks
+     */
+    void skipChapters() {
+        for (int size = readVarint() - 1; size > 0; size--) {
+            int mask = readVarint();
+            if ((mask & 2) != 0) {
+                for (int sections = readVarint() - 1; sections > 0; sections--) {
+                    skipBlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the size of a list, -1 for <code>null</code>
+     */
+    int readListSize() {
+        return readVarint() - 1;
+    }
+
+    /**
+     * position at the fields of a block: skips mask and length
+     *
+     * @return the mask of the block
+     */
+    int enterBlock() {
+        int mask = readVarint();
+        if (mask != 0) {
+            in.getInt();
+        }
+        return mask;
+    }
+
+    Set<Annotation> readAnnotationsAt(int position) {
+        int current = in.position();
+        ((Buffer) in).position(position);
+        Set<Annotation> annotations = readAnnotations();
+        ((Buffer) in).position(current);
+        return annotations;
+    }
+
+    private void skipAnnotations() {
+        for (int size = readVarint(); size > 0; size--) {
+            if (readVarint() != 0) {
+                readVarint();
+                readVarint();
+                readVarint();
+                readVarint();
+            }
+        }
+    }
+
+    private void skip(int bytes) {
+        ((Buffer) in).position(in.position() + bytes);
+    }
+
+    // ---- document tree
+
+    private Document readDocument() {
+        Document document = new Document();
+        document.setProvenance(provenance(readVarint()));
+        document.setDocType(symbol(readVarint()));
+        document.setOriginalMimeType(symbol(readVarint()));
+        document.setDocumentElement(readDocumentElement());
+        return document;
+    }
+
+    private DocumentElement readDocumentElement() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        DocumentElement element = new DocumentElement();
+        if ((mask & 2) != 0) {
+            element.setMetaElement(readMetaElement());
+        }
+        if ((mask & 4) != 0) {
+            element.setFrontMatter(readFrontMatter());
+        }
+        if ((mask & 8) != 0) {
+            element.setBodyMatter(readBodyMatter());
+        }
+        if ((mask & 16) != 0) {
+            element.setBackMatter(readBackMatter());
+        }
+        return element;
+    }
+
+    // the deprecated bibliography of the meta element is decoded like any other field
+    @SuppressWarnings("deprecation")
+    MetaElement readMetaElement() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        in.getInt();
+        MetaElement meta = new MetaElement();
+        if ((mask & 2) != 0) {
+            meta.setBibliographic(readBibliographic());
+        }
+        if ((mask & 4) != 0) {
+            meta.setBibliography(readBibliography());
+        }
+        if ((mask & 8) != 0) {
+            meta.setKeywords(readList(this::readKeywords));
+        }
+        if ((mask & 16) != 0) {
+            meta.setConcept(readConcept());
+        }
+        return meta;
+    }
+
+    FrontMatter readFrontMatter() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        in.getInt();
+        FrontMatter front = new FrontMatter();
+        if ((mask & 2) != 0) {
+            front.setTitleText(readTextElement());
+        }
+        if ((mask & 4) != 0) {
+            front.setDocumentAbstract(readAbstract());
+        }
+        return front;
+    }
+
+    // the deprecated body matter abstract is decoded like any other field
+    @SuppressWarnings("deprecation")
+    BodyMatter readBodyMatter() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        in.getInt();
+        BodyMatter body = new BodyMatter();
+        if ((mask & 2) != 0) {
+            body.setChapters(readList(this::readChapter));
+        }
+        if ((mask & 4) != 0) {
+            body.setSections(readList(this::readSection));
+        }
+        if ((mask & 8) != 0) {
+            body.setDocAbstract(readAbstract());
+        }
+        return body;
+    }
+
+    BackMatter readBackMatter() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        in.getInt();
+        BackMatter back = new BackMatter();
+        if ((mask & 2) != 0) {
+            back.setBibliography(readBibliography());
+        }
+        if ((mask & 4) != 0) {
+            back.setSections(readList(this::readSection));
+        }
+        return back;
+    }
+
+    private Chapter readChapter() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        Chapter chapter = new Chapter();
+        if ((mask & 2) != 0) {
+            chapter.setSections(readList(this::readSection));
+        }
+        return chapter;
+    }
+
+    Section readSection() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        in.getInt();
+        Section section = new Section();
+        section.setDepth(readSignedVarint());
+        if ((mask & 2) != 0) {
+            section.setSectionRhetorical(readTextElement());
+        }
+        if ((mask & 4) != 0) {
+            section.setSectionTitle(readTextElement());
+        }
+        if ((mask & 8) != 0) {
+            section.setParagraphs(readList(this::readParagraph));
+        }
+        return section;
+    }
+
+    // the deprecated sentences of a paragraph are decoded like any other field
+    @SuppressWarnings("deprecation")
+    private Paragraph readParagraph() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        Paragraph paragraph = new Paragraph();
+        if ((mask & 2) != 0) {
+            paragraph.setSentences(readList(this::readSentence));
+        }
+        if ((mask & 4) != 0) {
+            paragraph.setStructureElements(readList(this::readStructureElement));
+        }
+        return paragraph;
+    }
+
+    // the deprecated Table is decoded like any other structure element
+    @SuppressWarnings("deprecation")
+    private StructureElement readStructureElement() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        StructureElement se = new StructureElement();
+        if ((mask & 2) != 0) {
+            se.setCaptionedBox(readCaptionedBox());
+        }
+        if ((mask & 4) != 0) {
+            se.setCode(readCode());
+        }
+        if ((mask & 8) != 0) {
+            se.setDataTable(readDataTable());
+        }
+        if ((mask & 16) != 0) {
+            se.setFigure(readFigure());
+        }
+        if ((mask & 32) != 0) {
+            se.setFormula(readFormula());
+        }
+        if ((mask & 64) != 0) {
+            se.setImageContent(readImageContent());
+        }
+        if ((mask & 128) != 0) {
+            se.setOutline(readOutline());
+        }
+        if ((mask & 256) != 0) {
+            se.setQuotation(readQuotation());
+        }
+        if ((mask & 512) != 0) {
+            se.setTable(readTable());
+        }
+        if ((mask & 1024) != 0) {
+            se.setPmcTable(readPMCTable());
+        }
+        if ((mask & 2048) != 0) {
+            se.setTextElement(readTextElement());
+        }
+        if ((mask & 4096) != 0) {
+            se.setSentence(readSentence());
+        }
+        if ((mask & 8192) != 0) {
+            se.setList(readItemList());
+        }
+        return se;
+    }
+
+    private Sentence readSentence() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        Sentence sentence = new Sentence();
+        if ((mask & 2) != 0) {
+            sentence.setSentenceText(readTextElement());
+        }
+        return sentence;
+    }
+
+    // ---- meta
+
+    private Abstract readAbstract() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        Abstract docAbstract = new Abstract();
+        if ((mask & 2) != 0) {
+            docAbstract.setAbstractSections(readList(this::readSection));
+        }
+        return docAbstract;
+    }
+
+    private Affiliation readAffiliation() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        Affiliation affiliation = new Affiliation();
+        if ((mask & 2) != 0) {
+            affiliation.setOrganization(readTextElement());
+        }
+        if ((mask & 4) != 0) {
+            affiliation.setAffiliationInfos(readList(this::readSymbol));
+        }
+        return affiliation;
+    }
+
+    private Author readAuthor() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        Author author = new Author();
+        if ((mask & 2) != 0) {
+            author.setAuthor(readPerson());
+        }
+        if ((mask & 4) != 0) {
+            author.setOrganization(readAffiliation());
+        }
+        return author;
+    }
+
+    private Bibliographic readBibliographic() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        Bibliographic b = new Bibliographic();
+        if ((mask & 2) != 0) {
+            b.setDocumentAbstract(readAbstract());
+        }
+        if ((mask & 4) != 0) {
+            b.setAuthors(readList(this::readAuthor));
+        }
+        if ((mask & 8) != 0) {
+            b.setPubDate(readDate());
+        }
+        if ((mask & 16) != 0) {
+            b.setLicenses(readList(this::readLicense));
+        }
+        if ((mask & 32) != 0) {
+            b.setTitle(readTitle());
+        }
+        if ((mask & 64) != 0) {
+            b.setLanguage(readTextElement());
+        }
+        if ((mask & 128) != 0) {
+            b.setSource(readTextElement());
+        }
+        if ((mask & 256) != 0) {
+            b.setIssns(readList(this::readTextElement));
+        }
+        if ((mask & 512) != 0) {
+            b.setPublicationTypes(readList(this::readPublicationType));
+        }
+        return b;
+    }
+
+    private Bibliography readBibliography() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        Bibliography bibliography = new Bibliography();
+        if ((mask & 2) != 0) {
+            int size = readVarint();
+            Map<String, Reference> references = new LinkedHashMap<String, Reference>(mapCapacity(size));
+            for (int i = 0; i < size; i++) {
+                String key = readString();
+                references.put(key, readReference());
+            }
+            bibliography.setReferences(references);
+        }
+        if ((mask & 4) != 0) {
+            bibliography.setTitle(readTextElement());
+        }
+        return bibliography;
+    }
+
+    private Concept readConcept() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        Concept c = new Concept();
+        if ((mask & 2) != 0) {
+            c.setPreferredLabel(readTextElement());
+        }
+        if ((mask & 4) != 0) {
+            c.setAltLabel(readTextElement());
+        }
+        if ((mask & 8) != 0) {
+            c.setHiddenLabel(readTextElement());
+        }
+        if ((mask & 16) != 0) {
+            c.setIdentifier(readTextElement());
+        }
+        if ((mask & 32) != 0) {
+            c.setIdentifierSource(readTextElement());
+        }
+        if ((mask & 64) != 0) {
+            c.setAltLabels(readList(this::readTextElement));
+        }
+        if ((mask & 128) != 0) {
+            c.setHiddenLabels(readList(this::readTextElement));
+        }
+        if ((mask & 256) != 0) {
+            c.setIdentifierWithSource(readList(this::readTextElement).toArray(new TextElement[0]));
+        }
+        return c;
+    }
+
+    private Date readDate() {
+        if (readVarint() == 0) {
+            return null;
+        }
+        Date date = new Date();
+        date.setDay(readSignedVarint());
+        date.setMonth(readSignedVarint());
+        date.setYear(readSignedVarint());
+        return date;
+    }
+
+    private Keywords readKeywords() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        Keywords keywords = new Keywords();
+        if ((mask & 2) != 0) {
+            keywords.setRhetorical(readTextElement());
+        }
+        if ((mask & 4) != 0) {
+            keywords.setKeywordList(readList(this::readTextElement));
+        }
+        return keywords;
+    }
+
+    private License readLicense() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        License license = new License();
+        if ((mask & 2) != 0) {
+            license.setLicenseName(readTextElement());
+        }
+        if ((mask & 4) != 0) {
+            license.setLicenseURL(readTextElement());
+        }
+        if ((mask & 8) != 0) {
+            license.setValidUntil(readDate());
+        }
+        if ((mask & 16) != 0) {
+            license.setRightsHolder(readPerson());
+        }
+        return license;
+    }
+
+    private Person readPerson() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        Person person = new Person();
+        if ((mask & 2) != 0) {
+            person.setSurname(readTextElement());
+        }
+        if ((mask & 4) != 0) {
+            person.setForename(readTextElement());
+        }
+        if ((mask & 8) != 0) {
+            person.setAffiliation(readAffiliation());
+        }
+        if ((mask & 16) != 0) {
+            person.setDegree(readTextElement());
+        }
+        return person;
+    }
+
+    private PublicationType readPublicationType() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        PublicationType type = new PublicationType();
+        if ((mask & 2) != 0) {
+            type.setIdentifier(readTextElement());
+        }
+        if ((mask & 4) != 0) {
+            type.setPublicationType(readTextElement());
+        }
+        return type;
+    }
+
+    private Reference readReference() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        Reference r = new Reference();
+        if ((mask & 2) != 0) {
+            r.setAuthors(readList(this::readAuthor));
+        }
+        if ((mask & 4) != 0) {
+            r.setDate(readDate());
+        }
+        if ((mask & 8) != 0) {
+            r.setPublicationIds(readList(this::readTextElement));
+        }
+        if ((mask & 16) != 0) {
+            r.setReferenceTitle(readTitle());
+        }
+        if ((mask & 32) != 0) {
+            r.setLanguage(readTextElement());
+        }
+        if ((mask & 64) != 0) {
+            r.setReferenceSource(readTextElement());
+        }
+        if ((mask & 128) != 0) {
+            r.setPublicationType(readTextElement());
+        }
+        if ((mask & 256) != 0) {
+            r.setLink(readTextElement());
+        }
+        return r;
+    }
+
+    private Title readTitle() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        Title title = new Title();
+        if ((mask & 2) != 0) {
+            title.setTitleText(readTextElement());
+        }
+        if ((mask & 4) != 0) {
+            title.setSubTitleText(readTextElement());
+        }
+        return title;
+    }
+
+    // ---- structure
+
+    private CaptionedBox readCaptionedBox() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        CaptionedBox box = new CaptionedBox();
+        box.setNumbering(readSignedVarint());
+        if ((mask & 2) != 0) {
+            box.setTitle(readTextElement());
+        }
+        if ((mask & 4) != 0) {
+            box.setCaption(readTextElement());
+        }
+        return box;
+    }
+
+    private Cell readCell() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        Cell cell = new Cell();
+        cell.setRowStart(readSignedVarint());
+        cell.setColStart(readSignedVarint());
+        cell.setRowEnd(readSignedVarint());
+        cell.setColEnd(readSignedVarint());
+        if ((mask & 2) != 0) {
+            cell.setContent(readTextElement());
+        }
+        if ((mask & 4) != 0) {
+            cell.setType(CELL_TYPES[readVarint()]);
+        }
+        return cell;
+    }
+
+    private Code readCode() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        Code code = new Code();
+        if ((mask & 2) != 0) {
+            code.setCode(readTextElement());
+        }
+        return code;
+    }
+
+    private DataTable readDataTable() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        DataTable table = new DataTable();
+        if ((mask & 2) != 0) {
+            table.setIdentifier(readTextElement());
+        }
+        if ((mask & 4) != 0) {
+            table.setVersion(readTextElement());
+        }
+        if ((mask & 8) != 0) {
+            table.setContent(readTextElement());
+        }
+        return table;
+    }
+
+    private Figure readFigure() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        Figure figure = new Figure();
+        if ((mask & 2) != 0) {
+            figure.setRhetorical(readTextElement());
+        }
+        if ((mask & 4) != 0) {
+            figure.setTitle(readTextElement());
+        }
+        if ((mask & 8) != 0) {
+            figure.setCaption(readTextElement());
+        }
+        if ((mask & 16) != 0) {
+            figure.setImageContent(readImageContent());
+        }
+        return figure;
+    }
+
+    private Formula readFormula() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        Formula formula = new Formula();
+        if ((mask & 2) != 0) {
+            formula.setFormula(readTextElement());
+        }
+        return formula;
+    }
+
+    private ImageContent readImageContent() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        ImageContent image = new ImageContent();
+        image.setHeight(readSignedVarint());
+        image.setWidth(readSignedVarint());
+        image.setBitDepth(readSignedVarint());
+        image.setCompressionLevel(Float.intBitsToFloat(in.getInt()));
+        if ((mask & 2) != 0) {
+            image.setEncoding(symbol(readVarint()));
+        }
+        if ((mask & 4) != 0) {
+            image.setColorModel(symbol(readVarint()));
+        }
+        if ((mask & 8) != 0) {
+            byte[] content = new byte[readVarint()];
+            in.get(content);
+            image.setContent(content);
+        }
+        if ((mask & 16) != 0) {
+            image.setDigest(symbol(readVarint()));
+        }
+        return image;
+    }
+
+    private de.fraunhofer.scai.bio.types.text.doc.structure.List readItemList() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        de.fraunhofer.scai.bio.types.text.doc.structure.List list =
+            new de.fraunhofer.scai.bio.types.text.doc.structure.List();
+        list.setBullets(in.get() != 0);
+        if ((mask & 2) != 0) {
+            list.setTitle(readTextElement());
+        }
+        if ((mask & 4) != 0) {
+            list.setItems(readList(this::readTextElement));
+        }
+        return list;
+    }
+
+    private Outline readOutline() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        Outline outline = new Outline();
+        if ((mask & 2) != 0) {
+            outline.setTitleText(readTextElement());
+        }
+        if ((mask & 4) != 0) {
+            outline.setNumbering(readList(this::readSymbol));
+        }
+        if ((mask & 8) != 0) {
+            outline.setRhetorical(readTextElement());
+        }
+        if ((mask & 16) != 0) {
+            outline.setParts(readList(this::readSymbol));
+        }
+        if ((mask & 32) != 0) {
+            outline.setChapters(readStringListMap());
+        }
+        if ((mask & 64) != 0) {
+            outline.setSections(readStringListMap());
+        }
+        return outline;
+    }
+
+    private PMCTable readPMCTable() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        PMCTable table = new PMCTable();
+        if ((mask & 2) != 0) {
+            table.setCells(readList(this::readCell));
+        }
+        if ((mask & 4) != 0) {
+            table.setCaption(readTextElement());
+        }
+        if ((mask & 8) != 0) {
+            table.setLabel(readTextElement());
+        }
+        return table;
+    }
+
+    // the deprecated reference of a quotation is decoded like any other field
+    @SuppressWarnings("deprecation")
+    private Quotation readQuotation() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        Quotation quotation = new Quotation();
+        if ((mask & 2) != 0) {
+            quotation.setReference(readReference());
+        }
+        if ((mask & 4) != 0) {
+            quotation.setLabel(readTextElement());
+        }
+        if ((mask & 8) != 0) {
+            quotation.setReferenceId(readString());
+        }
+        return quotation;
+    }
+
+    private Table readTable() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        Table t = new Table();
+        if ((mask & 2) != 0) {
+            t.setCaption(readTextElement());
+        }
+        if ((mask & 4) != 0) {
+            t.setTitle(readTextElement());
+        }
+        if ((mask & 8) != 0) {
+            t.setText(readTextElement());
+        }
+        if ((mask & 16) != 0) {
+            t.setRhetorical(readTextElement());
+        }
+        if ((mask & 32) != 0) {
+            t.setHeaders(readList(this::readTextElement));
+        }
+        if ((mask & 64) != 0) {
+            t.setAnnotatedHeaders(readList(this::readSymbol));
+        }
+        if ((mask & 128) != 0) {
+            t.setColumns(readList(() -> readList(this::readTextElement)));
+        }
+        if ((mask & 256) != 0) {
+            t.setRows(readList(this::readRow));
+        }
+        if ((mask & 512) != 0) {
+            t.setTableId(readString());
+        }
+        if ((mask & 1024) != 0) {
+            t.setDocumentId(readTextElement());
+        }
+        return t;
+    }
+
+    private Map<String, String> readRow() {
+        int size = readVarint() - 1;
+        if (size < 0) {
+            return null;
+        }
+        Map<String, String> row = new LinkedHashMap<String, String>(mapCapacity(size));
+        for (int i = 0; i < size; i++) {
+            String key = symbol(readVarint());
+            row.put(key, readString());
+        }
+        return row;
+    }
+
+    private Map<String, List<String>> readStringListMap() {
+        int size = readVarint();
+        Map<String, List<String>> map = new LinkedHashMap<String, List<String>>(mapCapacity(size));
+        for (int i = 0; i < size; i++) {
+            String key = readString();
+            map.put(key, readList(this::readString));
+        }
+        return map;
+    }
+
+    private TextElement readTextElement() {
+        int mask = readVarint();
+        if (mask == 0) {
+            return null;
+        }
+        TextElement element = new TextElement();
+        if ((mask & 2) != 0) {
+            element.setText(readString());
+        }
+        if ((mask & 4) != 0) {
+            element.setUuid(new UUID(in.getLong(), in.getLong()));
+        }
+        if ((mask & 8) != 0) {
+            if (deferredAnnotations != null) {
+                deferredAnnotations.put(element, in.position());
+                skipAnnotations();
+            } else {
+                element.setAnnotations(readAnnotations());
+            }
+        } else if (deferredAnnotations != null) {
+            deferredAnnotations.put(element, -1);
+        }
+        return element;
+    }
+
+    private Set<Annotation> readAnnotations() {
+        int size = readVarint();
+        Set<Annotation> annotations = new HashSet<Annotation>(mapCapacity(size));
+
+        int start = 0;
+        for (int i = 0; i < size; i++) {
+            int provenance = readVarint();
+            if (provenance == 0) {
+                annotations.add(null);
+                continue;
+            }
+            Annotation annotation = new Annotation();
+            annotation.setProvenance(provenance(provenance >>> 1));
+            start += readSignedVarint();
+            annotation.setStartOffset(start);
+            annotation.setEndOffset(start + readSignedVarint());
+            annotation.setAnnotationType(symbol(readVarint()));
+            annotation.setAnnotationText(symbol(readVarint()));
+            annotations.add(annotation);
+        }
+        return annotations;
+    }
+
+    private Provenance readProvenance() {
+        int flags = in.get();
+        Provenance provenance = new Provenance();
+        provenance.setLicense(symbol(readVarint()));
+        provenance.setVersion(symbol(readVarint()));
+        provenance.setSource(symbol(readVarint()));
+        provenance.setCollection(symbol(readVarint()));
+        provenance.setSourceLabel(symbol(readVarint()));
+        if ((flags & 1) != 0) {
+            provenance.setDate(new java.util.Date(readSignedVarlong()));
+        }
+        if ((flags & 2) != 0) {
+            provenance.setCrc(readSignedVarlong());
+        }
+        provenance.setComments(readList(this::readSymbol));
+        return provenance;
+    }
+
+    String readSymbol() {
+        return symbol(readVarint());
+    }
+
+    // ---- containers
+
+    private <T> List<T> readList(ElementReader<T> reader) {
+        int size = readVarint() - 1;
+        if (size < 0) {
+            return null;
+        }
+        List<T> list = new ArrayList<T>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(reader.read());
+        }
+        return list;
+    }
+
+    private static int mapCapacity(int size) {
+        return size < 3 ? size + 1 : (int) (size / 0.75f) + 1;
+    }
+
+    // ---- bytes
+
+    private int readVarint() {
+        int b = in.get();
+        if (b >= 0) {
+            return b;
+        }
+        int value = b & 0x7f;
+        int shift = 7;
+        do {
+            b = in.get();
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private int readSignedVarint() {
+        int v = readVarint();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private long readSignedVarlong() {
+        long v = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.get();
+            v |= (long) (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private String readString() {
+        int length = readVarint() - 1;
+        if (length < 0) {
+            return null;
+        }
+
+        byte[] bytes;
+        int offset;
+        if (in.hasArray()) {
+            bytes = in.array();
+            offset = in.arrayOffset() + in.position();
+            ((Buffer) in).position(in.position() + length);
+        } else {
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length << 1)];
+            }
+            bytes = scratch;
+            offset = 0;
+            in.get(bytes, 0, length);
+        }
+
+        int end = offset + length;
+        int i = offset;
+        while (i < end && bytes[i] >= 0) {
+            i++;
+        }
+        if (i == end) {
+            return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+        }
+
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length << 1)];
+        }
+        int count = 0;
+        for (i = offset; i < end;) {
+            int b = bytes[i++];
+            if (b >= 0) {
+                chars[count++] = (char) b;
+            } else if ((b & 0xe0) == 0xc0) {
+                chars[count++] = (char) (((b & 0x1f) << 6) | (bytes[i++] & 0x3f));
+            } else {
+                chars[count++] = (char) (((b & 0x0f) << 12) | ((bytes[i++] & 0x3f) << 6) | (bytes[i++] & 0x3f));
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+}
@@ -0,0 +1,746 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.Provenance;
+import de.fraunhofer.scai.bio.types.text.doc.DocumentElement;
+import de.fraunhofer.scai.bio.types.text.doc.container.BackMatter;
+import de.fraunhofer.scai.bio.types.text.doc.container.BodyMatter;
+import de.fraunhofer.scai.bio.types.text.doc.container.Chapter;
+import de.fraunhofer.scai.bio.types.text.doc.container.FrontMatter;
+import de.fraunhofer.scai.bio.types.text.doc.container.Paragraph;
+import de.fraunhofer.scai.bio.types.text.doc.container.Section;
+import de.fraunhofer.scai.bio.types.text.doc.container.StructureElement;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Abstract;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Affiliation;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Annotation;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Author;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Bibliographic;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Bibliography;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Concept;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Date;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Keywords;
+import de.fraunhofer.scai.bio.types.text.doc.meta.License;
+import de.fraunhofer.scai.bio.types.text.doc.meta.MetaElement;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Person;
+import de.fraunhofer.scai.bio.types.text.doc.meta.PublicationType;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Reference;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Title;
+import de.fraunhofer.scai.bio.types.text.doc.structure.CaptionedBox;
+import de.fraunhofer.scai.bio.types.text.doc.structure.Cell;
+import de.fraunhofer.scai.bio.types.text.doc.structure.Code;
+import de.fraunhofer.scai.bio.types.text.doc.structure.DataTable;
+import de.fraunhofer.scai.bio.types.text.doc.structure.Figure;
+import de.fraunhofer.scai.bio.types.text.doc.structure.Formula;
+import de.fraunhofer.scai.bio.types.text.doc.structure.ImageContent;
+import de.fraunhofer.scai.bio.types.text.doc.structure.Outline;
+import de.fraunhofer.scai.bio.types.text.doc.structure.PMCTable;
+import de.fraunhofer.scai.bio.types.text.doc.structure.Quotation;
+import de.fraunhofer.scai.bio.types.text.doc.structure.Sentence;
+import de.fraunhofer.scai.bio.types.text.doc.structure.Table;
+import de.fraunhofer.scai.bio.types.text.doc.structure.TextElement;
+
+/**
+ * Writes the {@link DocumentCodec} format, one instance per document.
+ * <p>
+ * Every object starts with a varint header, the bit mask of its non-null fields shifted left by one with the lowest
+ * bit set. Primitive fields follow the header, then the non-null fields in the order of the mask. Matters and
+ * sections put the byte length of their content behind the header. Lists start with their size plus one.
+ * <p>
+ * Where no header mask covers a value, i.e. list elements, map values and the document element, <code>null</code>
+ * is written as a single <code>0</code>, all other values start with a non-zero varint.
+ */
+final class DocumentEncoder {
+
+    private interface ElementWriter<T> {
+        void write(T value);
+    }
+
+    private byte[] buf = new byte[1 << 13];
+    private int pos;
+
+    private final Map<String, Integer> symbols = new HashMap<String, Integer>();
+    private final List<String> symbolList = new ArrayList<String>();
+    private final Map<Provenance, Integer> provenanceIds = new IdentityHashMap<Provenance, Integer>();
+    private final Map<Provenance, Integer> provenanceIndex = new HashMap<Provenance, Integer>();
+    private final List<Provenance> provenanceList = new ArrayList<Provenance>();
+
+    byte[] encode(Document document) {
+        writeDocument(document);
+        byte[] tree = buf;
+        int treeLength = pos;
+
+        // the provenance table adds to the dictionary, so it is written before the dictionary
+        buf = new byte[1 << 10];
+        pos = 0;
+        writeVarint(provenanceList.size());
+        for (Provenance provenance : provenanceList) {
+            writeProvenance(provenance);
+        }
+        byte[] table = buf;
+        int tableLength = pos;
+
+        buf = new byte[treeLength + tableLength + 64];
+        pos = 0;
+        writeBytes(DocumentCodec.MAGIC, 0, DocumentCodec.MAGIC.length);
+        writeByte(DocumentCodec.VERSION);
+        writeVarint(symbolList.size());
+        for (String symbol : symbolList) {
+            writeString(symbol);
+        }
+        writeBytes(table, 0, tableLength);
+        writeBytes(tree, 0, treeLength);
+
+        return Arrays.copyOf(buf, pos);
+    }
+
+    // ---- document tree
+
+    private void writeDocument(Document document) {
+        writeVarint(provenance(document.getProvenance()));
+        writeVarint(symbol(document.getDocType()));
+        writeVarint(symbol(document.getOriginalMimeType()));
+
+        writeElement(document.getDocumentElement(), this::writeDocumentElement);
+    }
+
+    private void writeDocumentElement(DocumentElement element) {
+        header(element.getMetaElement(), element.getFrontMatter(), element.getBodyMatter(),
+            element.getBackMatter());
+        writeField(element.getMetaElement(), this::writeMetaElement);
+        writeField(element.getFrontMatter(), this::writeFrontMatter);
+        writeField(element.getBodyMatter(), this::writeBodyMatter);
+        writeField(element.getBackMatter(), this::writeBackMatter);
+    }
+
+    // the deprecated bibliography is written too, a decoded document must equal the original
+    @SuppressWarnings("deprecation")
+    private void writeMetaElement(MetaElement meta) {
+        header(meta.getBibliographic(), meta.getBibliography(), meta.getKeywords(), meta.getConcept());
+        int block = beginBlock();
+        writeField(meta.getBibliographic(), this::writeBibliographic);
+        writeField(meta.getBibliography(), this::writeBibliography);
+        writeListField(meta.getKeywords(), this::writeKeywords);
+        writeField(meta.getConcept(), this::writeConcept);
+        endBlock(block);
+    }
+
+    private void writeFrontMatter(FrontMatter front) {
+        header(front.getTitleText(), front.getDocumentAbstract());
+        int block = beginBlock();
+        writeField(front.getTitleText(), this::writeTextElement);
+        writeField(front.getDocumentAbstract(), this::writeAbstract);
+        endBlock(block);
+    }
+
+    // the deprecated abstract is written too, a decoded document must equal the original
+    @SuppressWarnings("deprecation")
+    private void writeBodyMatter(BodyMatter body) {
+        header(body.getChapters(), body.getSections(), body.getDocAbstract());
+        int block = beginBlock();
+        writeListField(body.getChapters(), this::writeChapter);
+        writeListField(body.getSections(), this::writeSection);
+        writeField(body.getDocAbstract(), this::writeAbstract);
+        endBlock(block);
+    }
+
+    private void writeBackMatter(BackMatter back) {
+        header(back.getBibliography(), back.getSections());
+        int block = beginBlock();
+        writeField(back.getBibliography(), this::writeBibliography);
+        writeListField(back.getSections(), this::writeSection);
+        endBlock(block);
+    }
+
+    private void writeChapter(Chapter chapter) {
+        header(chapter.getSections());
+        writeListField(chapter.getSections(), this::writeSection);
+    }
+
+    private void writeSection(Section section) {
+        header(section.getSectionRhetorical(), section.getSectionTitle(), section.getParagraphs());
+        int block = beginBlock();
+        writeSignedVarint(section.getDepth());
+        writeField(section.getSectionRhetorical(), this::writeTextElement);
+        writeField(section.getSectionTitle(), this::writeTextElement);
+        writeListField(section.getParagraphs(), this::writeParagraph);
+        endBlock(block);
+    }
+
+    // the deprecated sentences are written too, a decoded document must equal the original
+    @SuppressWarnings("deprecation")
+    private void writeParagraph(Paragraph paragraph) {
+        header(paragraph.getSentences(), paragraph.getStructureElements());
+        writeListField(paragraph.getSentences(), this::writeSentence);
+        writeListField(paragraph.getStructureElements(), this::writeStructureElement);
+    }
+
+    // the deprecated Table is written too, a decoded document must equal the original
+    @SuppressWarnings("deprecation")
+    private void writeStructureElement(StructureElement se) {
+        header(se.getCaptionedBox(), se.getCode(), se.getDataTable(), se.getFigure(), se.getFormula(),
+            se.getImageContent(), se.getOutline(), se.getQuotation(), se.getTable(), se.getPmcTable(),
+            se.getTextElement(), se.getSentence(), se.getList());
+        writeField(se.getCaptionedBox(), this::writeCaptionedBox);
+        writeField(se.getCode(), this::writeCode);
+        writeField(se.getDataTable(), this::writeDataTable);
+        writeField(se.getFigure(), this::writeFigure);
+        writeField(se.getFormula(), this::writeFormula);
+        writeField(se.getImageContent(), this::writeImageContent);
+        writeField(se.getOutline(), this::writeOutline);
+        writeField(se.getQuotation(), this::writeQuotation);
+        writeField(se.getTable(), this::writeTable);
+        writeField(se.getPmcTable(), this::writePMCTable);
+        writeField(se.getTextElement(), this::writeTextElement);
+        writeField(se.getSentence(), this::writeSentence);
+        writeField(se.getList(), this::writeItemList);
+    }
+
+    private void writeSentence(Sentence sentence) {
+        header(sentence.getSentenceText());
+        writeField(sentence.getSentenceText(), this::writeTextElement);
+    }
+
+    // ---- meta
+
+    private void writeAbstract(Abstract docAbstract) {
+        header(docAbstract.getAbstractSections());
+        writeListField(docAbstract.getAbstractSections(), this::writeSection);
+    }
+
+    private void writeAffiliation(Affiliation affiliation) {
+        header(affiliation.getOrganization(), affiliation.getAffiliationInfos());
+        writeField(affiliation.getOrganization(), this::writeTextElement);
+        writeListField(affiliation.getAffiliationInfos(), this::writeSymbol);
+    }
+
+    private void writeAuthor(Author author) {
+        header(author.getAuthor(), author.getOrganization());
+        writeField(author.getAuthor(), this::writePerson);
+        writeField(author.getOrganization(), this::writeAffiliation);
+    }
+
+    private void writeBibliographic(Bibliographic b) {
+        header(b.getDocumentAbstract(), b.getAuthors(), b.getPubDate(), b.getLicenses(), b.getTitle(),
+            b.getLanguage(), b.getSource(), b.getIssns(), b.getPublicationTypes());
+        writeField(b.getDocumentAbstract(), this::writeAbstract);
+        writeListField(b.getAuthors(), this::writeAuthor);
+        writeField(b.getPubDate(), this::writeDate);
+        writeListField(b.getLicenses(), this::writeLicense);
+        writeField(b.getTitle(), this::writeTitle);
+        writeField(b.getLanguage(), this::writeTextElement);
+        writeField(b.getSource(), this::writeTextElement);
+        writeListField(b.getIssns(), this::writeTextElement);
+        writeListField(b.getPublicationTypes(), this::writePublicationType);
+    }
+
+    private void writeBibliography(Bibliography bibliography) {
+        header(bibliography.getReferences(), bibliography.getTitle());
+        Map<String, Reference> references = bibliography.getReferences();
+        if (references != null) {
+            writeVarint(references.size());
+            for (Map.Entry<String, Reference> entry : references.entrySet()) {
+                writeString(entry.getKey());
+                writeElement(entry.getValue(), this::writeReference);
+            }
+        }
+        writeField(bibliography.getTitle(), this::writeTextElement);
+    }
+
+    private void writeConcept(Concept c) {
+        header(c.getPreferredLabel(), c.getAltLabel(), c.getHiddenLabel(), c.getIdentifier(),
+            c.getIdentifierSource(), c.getAltLabels(), c.getHiddenLabels(), c.getIdentifierWithSource());
+        writeField(c.getPreferredLabel(), this::writeTextElement);
+        writeField(c.getAltLabel(), this::writeTextElement);
+        writeField(c.getHiddenLabel(), this::writeTextElement);
+        writeField(c.getIdentifier(), this::writeTextElement);
+        writeField(c.getIdentifierSource(), this::writeTextElement);
+        writeListField(c.getAltLabels(), this::writeTextElement);
+        writeListField(c.getHiddenLabels(), this::writeTextElement);
+        if (c.getIdentifierWithSource() != null) {
+            writeList(Arrays.asList(c.getIdentifierWithSource()), this::writeTextElement);
+        }
+    }
+
+    private void writeDate(Date date) {
+        header();
+        writeSignedVarint(date.getDay());
+        writeSignedVarint(date.getMonth());
+        writeSignedVarint(date.getYear());
+    }
+
+    private void writeKeywords(Keywords keywords) {
+        header(keywords.getRhetorical(), keywords.getKeywordList());
+        writeField(keywords.getRhetorical(), this::writeTextElement);
+        writeListField(keywords.getKeywordList(), this::writeTextElement);
+    }
+
+    private void writeLicense(License license) {
+        header(license.getLicenseName(), license.getLicenseURL(), license.getValidUntil(),
+            license.getRightsHolder());
+        writeField(license.getLicenseName(), this::writeTextElement);
+        writeField(license.getLicenseURL(), this::writeTextElement);
+        writeField(license.getValidUntil(), this::writeDate);
+        writeField(license.getRightsHolder(), this::writePerson);
+    }
+
+    private void writePerson(Person person) {
+        header(person.getSurname(), person.getForename(), person.getAffiliation(), person.getDegree());
+        writeField(person.getSurname(), this::writeTextElement);
+        writeField(person.getForename(), this::writeTextElement);
+        writeField(person.getAffiliation(), this::writeAffiliation);
+        writeField(person.getDegree(), this::writeTextElement);
+    }
+
+    private void writePublicationType(PublicationType type) {
+        header(type.getIdentifier(), type.getPublicationType());
+        writeField(type.getIdentifier(), this::writeTextElement);
+        writeField(type.getPublicationType(), this::writeTextElement);
+    }
+
+    private void writeReference(Reference r) {
+        header(r.getAuthors(), r.getDate(), r.getPublicationIds(), r.getReferenceTitle(), r.getLanguage(),
+            r.getReferenceSource(), r.getPublicationType(), r.getLink());
+        writeListField(r.getAuthors(), this::writeAuthor);
+        writeField(r.getDate(), this::writeDate);
+        writeListField(r.getPublicationIds(), this::writeTextElement);
+        writeField(r.getReferenceTitle(), this::writeTitle);
+        writeField(r.getLanguage(), this::writeTextElement);
+        writeField(r.getReferenceSource(), this::writeTextElement);
+        writeField(r.getPublicationType(), this::writeTextElement);
+        writeField(r.getLink(), this::writeTextElement);
+    }
+
+    private void writeTitle(Title title) {
+        header(title.getTitleText(), title.getSubTitleText());
+        writeField(title.getTitleText(), this::writeTextElement);
+        writeField(title.getSubTitleText(), this::writeTextElement);
+    }
+
+    // ---- structure
+
+    private void writeCaptionedBox(CaptionedBox box) {
+        header(box.getTitle(), box.getCaption());
+        writeSignedVarint(box.getNumbering());
+        writeField(box.getTitle(), this::writeTextElement);
+        writeField(box.getCaption(), this::writeTextElement);
+    }
+
+    private void writeCell(Cell cell) {
+        header(cell.getContent(), cell.getType());
+        writeSignedVarint(cell.getRowStart());
+        writeSignedVarint(cell.getColStart());
+        writeSignedVarint(cell.getRowEnd());
+        writeSignedVarint(cell.getColEnd());
+        writeField(cell.getContent(), this::writeTextElement);
+        if (cell.getType() != null) {
+            writeVarint(cell.getType().ordinal());
+        }
+    }
+
+    private void writeCode(Code code) {
+        header(code.getCode());
+        writeField(code.getCode(), this::writeTextElement);
+    }
+
+    private void writeDataTable(DataTable table) {
+        header(table.getIdentifier(), table.getVersion(), table.getContent());
+        writeField(table.getIdentifier(), this::writeTextElement);
+        writeField(table.getVersion(), this::writeTextElement);
+        writeField(table.getContent(), this::writeTextElement);
+    }
+
+    private void writeFigure(Figure figure) {
+        header(figure.getRhetorical(), figure.getTitle(), figure.getCaption(),
+            figure.getImageContent());
+        writeField(figure.getRhetorical(), this::writeTextElement);
+        writeField(figure.getTitle(), this::writeTextElement);
+        writeField(figure.getCaption(), this::writeTextElement);
+        writeField(figure.getImageContent(), this::writeImageContent);
+    }
+
+    private void writeFormula(Formula formula) {
+        header(formula.getFormula());
+        writeField(formula.getFormula(), this::writeTextElement);
+    }
+
+    private void writeImageContent(ImageContent image) {
+        header(image.getEncoding(), image.getColorModel(), image.getContent(), image.getDigest());
+        writeSignedVarint(image.getHeight());
+        writeSignedVarint(image.getWidth());
+        writeSignedVarint(image.getBitDepth());
+        writeInt(Float.floatToRawIntBits(image.getCompressionLevel()));
+        if (image.getEncoding() != null) {
+            writeVarint(symbol(image.getEncoding()));
+        }
+        if (image.getColorModel() != null) {
+            writeVarint(symbol(image.getColorModel()));
+        }
+        if (image.getContent() != null) {
+            writeVarint(image.getContent().length);
+            writeBytes(image.getContent(), 0, image.getContent().length);
+        }
+        if (image.getDigest() != null) {
+            writeVarint(symbol(image.getDigest()));
+        }
+    }
+
+    private void writeItemList(de.fraunhofer.scai.bio.types.text.doc.structure.List list) {
+        header(list.getTitle(), list.getItems());
+        writeByte(list.isBullets() ? 1 : 0);
+        writeField(list.getTitle(), this::writeTextElement);
+        writeListField(list.getItems(), this::writeTextElement);
+    }
+
+    private void writeOutline(Outline outline) {
+        header(outline.getTitleText(), outline.getNumbering(), outline.getRhetorical(),
+            outline.getParts(), outline.getChapters(), outline.getSections());
+        writeField(outline.getTitleText(), this::writeTextElement);
+        writeListField(outline.getNumbering(), this::writeSymbol);
+        writeField(outline.getRhetorical(), this::writeTextElement);
+        writeListField(outline.getParts(), this::writeSymbol);
+        writeField(outline.getChapters(), this::writeStringListMap);
+        writeField(outline.getSections(), this::writeStringListMap);
+    }
+
+    private void writePMCTable(PMCTable table) {
+        header(table.getCells(), table.getCaption(), table.getLabel());
+        writeListField(table.getCells(), this::writeCell);
+        writeField(table.getCaption(), this::writeTextElement);
+        writeField(table.getLabel(), this::writeTextElement);
+    }
+
+    // the deprecated reference is written too, a decoded document must equal the original
+    @SuppressWarnings("deprecation")
+    private void writeQuotation(Quotation quotation) {
+        header(quotation.getReference(), quotation.getLabel(), quotation.getReferenceId());
+        writeField(quotation.getReference(), this::writeReference);
+        writeField(quotation.getLabel(), this::writeTextElement);
+        writeField(quotation.getReferenceId(), this::writeString);
+    }
+
+    private void writeTable(Table t) {
+        header(t.getCaption(), t.getTitle(), t.getText(), t.getRhetorical(), t.getHeaders(),
+            t.getAnnotatedHeaders(), t.getColumns(), t.getRows(), t.getTableId(), t.getDocumentId());
+        writeField(t.getCaption(), this::writeTextElement);
+        writeField(t.getTitle(), this::writeTextElement);
+        writeField(t.getText(), this::writeTextElement);
+        writeField(t.getRhetorical(), this::writeTextElement);
+        writeListField(t.getHeaders(), this::writeTextElement);
+        writeListField(t.getAnnotatedHeaders(), this::writeSymbol);
+        writeListField(t.getColumns(), column -> writeList(column, this::writeTextElement));
+        writeListField(t.getRows(), this::writeRow);
+        writeField(t.getTableId(), this::writeString);
+        writeField(t.getDocumentId(), this::writeTextElement);
+    }
+
+    private void writeRow(Map<String, String> row) {
+        writeVarint(row.size() + 1);
+        for (Map.Entry<String, String> entry : row.entrySet()) {
+            writeVarint(symbol(entry.getKey()));
+            writeString(entry.getValue());
+        }
+    }
+
+    private void writeStringListMap(Map<String, List<String>> map) {
+        writeVarint(map.size());
+        for (Map.Entry<String, List<String>> entry : map.entrySet()) {
+            writeString(entry.getKey());
+            writeList(entry.getValue(), this::writeString);
+        }
+    }
+
+    private void writeTextElement(TextElement element) {
+        header(element.getText(), element.getUuid(), element.getAnnotations());
+        if (element.getText() != null) {
+            writeString(element.getText());
+        }
+        if (element.getUuid() != null) {
+            writeLong(element.getUuid().getMostSignificantBits());
+            writeLong(element.getUuid().getLeastSignificantBits());
+        }
+        if (element.getAnnotations() != null) {
+            writeAnnotations(element.getAnnotations());
+        }
+    }
+
+    private void writeAnnotations(Set<Annotation> annotations) {
+        Annotation[] sorted = annotations.toArray(new Annotation[annotations.size()]);
+        // a total order keeps the encoding independent of the set iteration order
+        Arrays.sort(sorted, (a, b) -> {
+            if (a == null || b == null) {
+                return a == null ? (b == null ? 0 : -1) : 1;
+            }
+            int c = Integer.compare(a.getStartOffset(), b.getStartOffset());
+            if (c == 0) {
+                c = Integer.compare(a.getEndOffset(), b.getEndOffset());
+            }
+            // symbol and provenance ids are assigned while writing and must not depend on the iteration order
+            return c != 0 ? c : AnnotationComparator.compareContent(a, b);
+        });
+
+        writeVarint(sorted.length);
+        int previousStart = 0;
+        for (Annotation annotation : sorted) {
+            if (annotation == null) {
+                writeVarint(0);
+                continue;
+            }
+            // provenance reference and presence in one varint
+            writeVarint(provenance(annotation.getProvenance()) << 1 | 1);
+            writeSignedVarint(annotation.getStartOffset() - previousStart);
+            writeSignedVarint(annotation.getEndOffset() - annotation.getStartOffset());
+            writeVarint(symbol(annotation.getAnnotationType()));
+            writeVarint(symbol(annotation.getAnnotationText()));
+            previousStart = annotation.getStartOffset();
+        }
+    }
+
+    private void writeProvenance(Provenance provenance) {
+        int flags = (provenance.getDate() != null ? 1 : 0) | (provenance.getCrc() != null ? 2 : 0);
+        writeByte(flags);
+        writeVarint(symbol(provenance.getLicense()));
+        writeVarint(symbol(provenance.getVersion()));
+        writeVarint(symbol(provenance.getSource()));
+        writeVarint(symbol(provenance.getCollection()));
+        writeVarint(symbol(provenance.getSourceLabel()));
+        if (provenance.getDate() != null) {
+            writeSignedVarlong(provenance.getDate().getTime());
+        }
+        if (provenance.getCrc() != null) {
+            writeSignedVarlong(provenance.getCrc());
+        }
+        writeList(provenance.getComments(), this::writeSymbol);
+    }
+
+    // ---- references
+
+    private void writeSymbol(String value) {
+        writeVarint(symbol(value));
+    }
+
+    /**
+     * @return index of the string in the dictionary plus one, <code>0</code> for <code>null</code>
+     */
+    private int symbol(String value) {
+        if (value == null) {
+            return 0;
+        }
+        Integer id = symbols.get(value);
+        if (id == null) {
+            id = symbolList.size() + 1;
+            symbols.put(value, id);
+            symbolList.add(value);
+        }
+        return id;
+    }
+
+    /**
+     * @return index of an equal provenance in the table plus one, <code>0</code> for <code>null</code>
+     */
+    private int provenance(Provenance provenance) {
+        if (provenance == null) {
+            return 0;
+        }
+        Integer id = provenanceIds.get(provenance);
+        if (id == null) {
+            id = provenanceIndex.get(provenance);
+            if (id == null) {
+                id = provenanceList.size() + 1;
+                provenanceIndex.put(provenance, id);
+                provenanceList.add(provenance);
+            }
+            provenanceIds.put(provenance, id);
+        }
+        return id;
+    }
+
+    // ---- containers
+
+    /**
+     * writes the header of a non-null object
+     *
+     * @param fields
+     *        the object fields, in the order they are written
+     */
+    private void header(Object... fields) {
+        int mask = 0;
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i] != null) {
+                mask |= 1 << i;
+            }
+        }
+        writeVarint(mask << 1 | 1);
+    }
+
+    /**
+     * write a field, nothing is written for <code>null</code> as the header mask covers it
+     */
+    private <T> void writeField(T value, ElementWriter<T> writer) {
+        if (value != null) {
+            writer.write(value);
+        }
+    }
+
+    /**
+     * write a list field, nothing is written for <code>null</code> as the header mask covers it
+     */
+    private <T> void writeListField(List<T> list, ElementWriter<T> writer) {
+        if (list != null) {
+            writeList(list, writer);
+        }
+    }
+
+    /**
+     * write a value that is not covered by a header mask, <code>0</code> stands for <code>null</code>
+     */
+    private <T> void writeElement(T value, ElementWriter<T> writer) {
+        if (value == null) {
+            writeVarint(0);
+        } else {
+            writer.write(value);
+        }
+    }
+
+    private <T> void writeList(List<T> list, ElementWriter<T> writer) {
+        if (list == null) {
+            writeVarint(0);
+            return;
+        }
+        writeVarint(list.size() + 1);
+        for (T element : list) {
+            writeElement(element, writer);
+        }
+    }
+
+    /**
+     * reserve space for the byte length of a block, which lets readers skip it
+     *
+     * @return start of the block
+     */
+    private int beginBlock() {
+        ensure(4);
+        int start = pos;
+        pos += 4;
+        return start;
+    }
+
+    private void endBlock(int start) {
+        putInt(start, pos - start - 4);
+    }
+
+    // ---- bytes
+
+    private void ensure(int bytes) {
+        if (pos + bytes > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length << 1, pos + bytes));
+        }
+    }
+
+    private void writeByte(int value) {
+        ensure(1);
+        buf[pos++] = (byte) value;
+    }
+
+    private void writeBytes(byte[] bytes, int offset, int length) {
+        ensure(length);
+        System.arraycopy(bytes, offset, buf, pos, length);
+        pos += length;
+    }
+
+    private void writeVarint(int value) {
+        ensure(5);
+        while ((value & ~0x7f) != 0) {
+            buf[pos++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        buf[pos++] = (byte) value;
+    }
+
+    private void writeSignedVarint(int value) {
+        writeVarint((value << 1) ^ (value >> 31));
+    }
+
+    private void writeSignedVarlong(long value) {
+        long v = (value << 1) ^ (value >> 63);
+        ensure(10);
+        while ((v & ~0x7fL) != 0) {
+            buf[pos++] = (byte) ((v & 0x7f) | 0x80);
+            v >>>= 7;
+        }
+        buf[pos++] = (byte) v;
+    }
+
+    private void writeInt(int value) {
+        ensure(4);
+        putInt(pos, value);
+        pos += 4;
+    }
+
+    private void putInt(int at, int value) {
+        buf[at] = (byte) (value >>> 24);
+        buf[at + 1] = (byte) (value >>> 16);
+        buf[at + 2] = (byte) (value >>> 8);
+        buf[at + 3] = (byte) value;
+    }
+
+    private void writeLong(long value) {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    /**
+     * length prefixed UTF-8, surrogates are encoded one by one so any Java string round trips
+     */
+    private void writeString(String value) {
+        if (value == null) {
+            writeVarint(0);
+            return;
+        }
+        int length = value.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                bytes += c < 0x800 ? 1 : 2;
+            }
+        }
+
+        writeVarint(bytes + 1);
+        ensure(bytes);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buf[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xc0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3f));
+            } else {
+                buf[pos++] = (byte) (0xe0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buf[pos++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+    }
+
+}
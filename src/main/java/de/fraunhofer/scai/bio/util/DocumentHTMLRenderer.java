@@ -15,17 +15,16 @@
  */
 package de.fraunhofer.scai.bio.util;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 import java.util.UUID;
 
-import org.apache.commons.lang.StringEscapeUtils;
-
 import de.fraunhofer.scai.bio.Document;
 import de.fraunhofer.scai.bio.types.text.doc.DocumentElement;
 import de.fraunhofer.scai.bio.types.text.doc.container.BackMatter;
@@ -49,6 +48,10 @@ import de.fraunhofer.scai.bio.types.text.doc.structure.TextElement;
 
 /**
  * Renders a {@link Document} to a HTML document
+ * <p>
+ * Every <code>render</code> method comes in two flavours: one returning the HTML as a <code>String</code> and one
+ * writing it to an {@link Appendable}. The latter streams the HTML, e.g. to a servlet or file {@link java.io.Writer},
+ * and only holds the HTML of a single {@link TextElement} in memory at a time.
  *
  * @author marc
  */
@@ -62,17 +65,25 @@ public class DocumentHTMLRenderer {
 	 * @return <code>String</code>
 	 */
 	public static String renderHTML(Document document) {
+		return render(out -> renderHTML(document, out));
+	}
 
-		StringBuilder sb = new StringBuilder();
-		List<Annotation> annotations = new ArrayList<Annotation>();
+	/**
+	 * converts the document text and all annotations into HTML
+	 *
+	 * @param document {@link Document}
+	 * @param out {@link Appendable} the HTML is written to, buffering and flushing is up to the caller
+	 * @throws IOException if <code>out</code> fails
+	 */
+	public static void renderHTML(Document document, Appendable out) throws IOException {
 
-		//sb.append("<!DOCTYPE html><html>");
+		List<Annotation> annotations = new ArrayList<Annotation>();
 
-		sb.append(renderDocumentElement(document, annotations));
+		//out.append("<!DOCTYPE html><html>");
 
-		//sb.append("</html>");
+		renderDocumentElement(document, annotations, out);
 
-		return sb.toString();
+		//out.append("</html>");
 	}
 
 	/**
@@ -81,29 +92,36 @@ public class DocumentHTMLRenderer {
 	 * @return
 	 */
 	public static String renderDocumentElement(Document document, List<Annotation> annotations) {
+		return render(out -> renderDocumentElement(document, annotations, out));
+	}
 
-		StringBuilder sb = new StringBuilder();
+	/**
+	 * @param document
+	 * @param annotations
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void renderDocumentElement(Document document, List<Annotation> annotations, Appendable out)
+			throws IOException {
 
 		if (document != null) {
 			DocumentElement documentElement = document.getDocumentElement();
 
 			if (documentElement != null) {
-				sb.append("<head>");
-				sb.append(renderMetaElement(document, documentElement.getMetaElement(), annotations));
-				sb.append("</head>");
+				out.append("<head>");
+				renderMetaElement(document, documentElement.getMetaElement(), annotations, out);
+				out.append("</head>");
 
-				sb.append("<body>");
-				sb.append(renderFrontMatter(documentElement.getFrontMatter(), annotations));
-				sb.append(renderBodyMatter(documentElement.getBodyMatter(), annotations));
-				sb.append(renderBackMatter(documentElement.getBackMatter(), annotations));
+				out.append("<body>");
+				renderFrontMatter(documentElement.getFrontMatter(), annotations, out);
+				renderBodyMatter(documentElement.getBodyMatter(), annotations, out);
+				renderBackMatter(documentElement.getBackMatter(), annotations, out);
 
-				//		sb.append(renderAnnotations(document, annotations));
+				//		renderAnnotations(document, annotations, out);
 
-				sb.append("</body>");
+				out.append("</body>");
 			}
 		}
-
-		return sb.toString();
 	}
 
 	/**
@@ -112,19 +130,27 @@ public class DocumentHTMLRenderer {
 	 * @return
 	 */
 	public static String renderBackMatter(BackMatter backMatter, List<Annotation> annotations) {
-		StringBuilder sb = new StringBuilder();
+		return render(out -> renderBackMatter(backMatter, annotations, out));
+	}
+
+	/**
+	 * @param backMatter
+	 * @param annotations
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void renderBackMatter(BackMatter backMatter, List<Annotation> annotations, Appendable out)
+			throws IOException {
 
 		if (backMatter != null) {
 			if (backMatter.getSections() != null && !backMatter.getSections().isEmpty()) {
-				sb.append(renderSections(backMatter.getSections(), annotations));
+				renderSections(backMatter.getSections(), annotations, out);
 			}
 
 			if (backMatter.getBibliography() != null) {
-				sb.append(renderBibliography(backMatter.getBibliography(), annotations));
+				renderBibliography(backMatter.getBibliography(), annotations, out);
 			}
 		}
-
-		return sb.toString();
 	}
 
 	/**
@@ -133,63 +159,75 @@ public class DocumentHTMLRenderer {
 	 * @return
 	 */
 	public static String renderBibliography(Bibliography bibliography, List<Annotation> annotations) {
-		StringBuilder sb = new StringBuilder();
+		return render(out -> renderBibliography(bibliography, annotations, out));
+	}
+
+	/**
+	 * @param bibliography
+	 * @param annotations
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void renderBibliography(Bibliography bibliography, List<Annotation> annotations, Appendable out)
+			throws IOException {
 
 		if (bibliography != null) {
 
-			sb.append(String.format("<div data-id=\"%s\" class=\"%s\">", UUID.randomUUID().toString(), "sec"));
+			openDiv("sec", out);
 
 			if (bibliography.getTitle() != null) {
-				sb.append(String.format("<h%d>%s</h%d>", 2, escapeHTML(bibliography.getTitle(), annotations), 2));
+				out.append("<h2>");
+				escapeHTML(bibliography.getTitle(), annotations, out);
+				out.append("</h2>");
 			} else {
-				sb.append(String.format("<h%d>References</h%d>", 2, 2));
+				out.append("<h2>References</h2>");
 			}
 
 			if (bibliography.getReferences() != null) {
-				for (String rid : bibliography.getReferences().keySet()) {
-					sb.append("[<a id=\"RID_" + rid + "\">" + rid + "</a>] ");
-					sb.append(renderReference(bibliography.getReferences().get(rid)));
-					sb.append("<br>");
+				for (Map.Entry<String, Reference> reference : bibliography.getReferences().entrySet()) {
+					out.append("[<a id=\"RID_").append(reference.getKey()).append("\">").append(reference.getKey())
+							.append("</a>] ");
+					renderReference(reference.getValue(), out);
+					out.append("<br>");
 				}
 			}
 
-			sb.append(String.format("</div>"));
+			out.append("</div>");
 		}
-
-		return sb.toString();
 	}
 
 	/**
 	 * @param reference
 	 */
 	public static String renderReference(Reference reference) {
+		return render(out -> renderReference(reference, out));
+	}
 
-		StringBuilder sb = new StringBuilder();
+	/**
+	 * @param reference
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void renderReference(Reference reference, Appendable out) throws IOException {
 
 		if (reference.getAuthors() != null) {
 			for (Author author : reference.getAuthors()) {
-				sb.append(renderAuthor(author));
-				sb.append(". ");
+				renderAuthor(author, out);
+				out.append(". ");
 			}
 		}
 
 		if (reference.getTitle() != null && reference.getTitle().getTitleText() != null) {
-			sb.append(reference.getTitle().getTitleText().getText());
-			sb.append(".");
+			out.append(reference.getTitle().getTitleText().getText());
+			out.append(".");
 		}
 
-		reference.getDate();
-
 		if (reference.getPublicationIds() != null) {
-			sb.append(" ");
+			out.append(" ");
 			for (TextElement pid : reference.getPublicationIds()) {
-				sb.append(pid.getText() + " ");
+				out.append(pid.getText()).append(" ");
 			}
 		}
-		reference.getPublicationIds();
-		reference.getReferenceSource();
-
-		return sb.toString();
 	}
 
 	/**
@@ -197,21 +235,27 @@ public class DocumentHTMLRenderer {
 	 * @return
 	 */
 	public static String renderAuthor(Author author) {
-		StringBuilder sb = new StringBuilder();
+		return render(out -> renderAuthor(author, out));
+	}
+
+	/**
+	 * @param author
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void renderAuthor(Author author, Appendable out) throws IOException {
 
 		if (author != null && author.getAuthor() != null) {
 			if (author.getAuthor().getDegree() != null) {
-				sb.append(author.getAuthor().getSurname() + " ");
+				out.append(String.valueOf(author.getAuthor().getSurname())).append(" ");
 			}
 			if (author.getAuthor().getForename() != null) {
-				sb.append(author.getAuthor().getForename() + " ");
+				out.append(String.valueOf(author.getAuthor().getForename())).append(" ");
 			}
 			if (author.getAuthor().getSurname() != null) {
-				sb.append(author.getAuthor().getSurname());
+				out.append(String.valueOf(author.getAuthor().getSurname()));
 			}
 		}
-
-		return sb.toString();
 	}
 
 	/**
@@ -220,19 +264,27 @@ public class DocumentHTMLRenderer {
 	 * @return
 	 */
 	public static String renderBodyMatter(BodyMatter bodyMatter, List<Annotation> annotations) {
-		StringBuilder sb = new StringBuilder();
+		return render(out -> renderBodyMatter(bodyMatter, annotations, out));
+	}
+
+	/**
+	 * @param bodyMatter
+	 * @param annotations
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void renderBodyMatter(BodyMatter bodyMatter, List<Annotation> annotations, Appendable out)
+			throws IOException {
 
 		if (bodyMatter != null) {
 			if (bodyMatter.getChapters() != null && bodyMatter.getChapters().isEmpty()) {
-				sb.append(renderChapters(bodyMatter.getChapters(), annotations));
+				renderChapters(bodyMatter.getChapters(), annotations, out);
 			}
 
 			if (bodyMatter.getSections() != null && !bodyMatter.getSections().isEmpty()) {
-				sb.append(renderSections(bodyMatter.getSections(), annotations));
+				renderSections(bodyMatter.getSections(), annotations, out);
 			}
 		}
-
-		return sb.toString();
 	}
 
 	/**
@@ -241,26 +293,41 @@ public class DocumentHTMLRenderer {
 	 * @return
 	 */
 	public static String renderChapters(List<Chapter> chapters, List<Annotation> annotations) {
+		return render(out -> renderChapters(chapters, annotations, out));
+	}
 
-		StringBuilder sb = new StringBuilder();
+	/**
+	 * @param chapters
+	 * @param annotations
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void renderChapters(List<Chapter> chapters, List<Annotation> annotations, Appendable out)
+			throws IOException {
 
 		if (chapters != null && !chapters.isEmpty()) {
 			for (Chapter chapter : chapters) {
-				sb.append(renderChapter(chapter, annotations));
+				renderChapter(chapter, annotations, out);
 			}
 		}
-
-		return sb.toString();
 	}
 
 	public static Object renderChapter(Chapter chapter, List<Annotation> annotations) {
-		StringBuilder sb = new StringBuilder();
+		return render(out -> renderChapter(chapter, annotations, out));
+	}
+
+	/**
+	 * @param chapter
+	 * @param annotations
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void renderChapter(Chapter chapter, List<Annotation> annotations, Appendable out)
+			throws IOException {
 
 		if (chapter != null) {
-			sb.append(renderSections(chapter.getSections(), annotations));
+			renderSections(chapter.getSections(), annotations, out);
 		}
-
-		return sb.toString();
 	}
 
 	/**
@@ -269,18 +336,26 @@ public class DocumentHTMLRenderer {
 	 * @return
 	 */
 	public static String renderFrontMatter(FrontMatter frontMatter, List<Annotation> annotations) {
-		StringBuilder sb = new StringBuilder();
+		return render(out -> renderFrontMatter(frontMatter, annotations, out));
+	}
+
+	/**
+	 * @param frontMatter
+	 * @param annotations
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void renderFrontMatter(FrontMatter frontMatter, List<Annotation> annotations, Appendable out)
+			throws IOException {
 
 		if (frontMatter != null) {
-			sb.append("<h1>");
+			out.append("<h1>");
 			if (frontMatter.getTitleText() != null) {
-				sb.append(escapeHTML(frontMatter.getTitleText(), annotations));
+				escapeHTML(frontMatter.getTitleText(), annotations, out);
 			}
-			sb.append("</h1>");
-			sb.append(renderAbstract(frontMatter.getDocumentAbstract(), annotations));
+			out.append("</h1>");
+			renderAbstract(frontMatter.getDocumentAbstract(), annotations, out);
 		}
-
-		return sb.toString();
 	}
 
 	/**
@@ -289,14 +364,21 @@ public class DocumentHTMLRenderer {
 	 * @return
 	 */
 	public static String renderAbstract(Abstract documentAbstract, List<Annotation> annotations) {
-		StringBuilder sb = new StringBuilder();
-
-		sb.append(String.format("<div data-id=\"%s\" class=\"%s\">", UUID.randomUUID().toString(), "sec"));
-		sb.append(renderSections(documentAbstract.getAbstractSections(), annotations));
+		return render(out -> renderAbstract(documentAbstract, annotations, out));
+	}
 
-		sb.append(String.format("</div>"));
+	/**
+	 * @param documentAbstract
+	 * @param annotations
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void renderAbstract(Abstract documentAbstract, List<Annotation> annotations, Appendable out)
+			throws IOException {
 
-		return sb.toString();
+		openDiv("sec", out);
+		renderSections(documentAbstract.getAbstractSections(), annotations, out);
+		out.append("</div>");
 	}
 
 	/**
@@ -305,15 +387,23 @@ public class DocumentHTMLRenderer {
 	 * @return
 	 */
 	public static String renderSections(List<Section> sections, List<Annotation> annotations) {
-		StringBuilder sb = new StringBuilder();
+		return render(out -> renderSections(sections, annotations, out));
+	}
+
+	/**
+	 * @param sections
+	 * @param annotations
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void renderSections(List<Section> sections, List<Annotation> annotations, Appendable out)
+			throws IOException {
 
 		if (sections != null) {
 			for (Section section : sections) {
-				sb.append(renderSection(section, annotations));
+				renderSection(section, annotations, out);
 			}
 		}
-
-		return sb.toString();
 	}
 
 	/**
@@ -322,20 +412,30 @@ public class DocumentHTMLRenderer {
 	 * @return
 	 */
 	public static String renderSection(Section section, List<Annotation> annotations) {
-		StringBuilder sb = new StringBuilder();
+		return render(out -> renderSection(section, annotations, out));
+	}
+
+	/**
+	 * @param section
+	 * @param annotations
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void renderSection(Section section, List<Annotation> annotations, Appendable out)
+			throws IOException {
 
-		sb.append(String.format("<div data-id=\"%s\" class=\"%s\">", UUID.randomUUID().toString(), "sec"));
+		openDiv("sec", out);
 
 		if (section.getTitle() != null) {
-			sb.append(String.format("<h%d>%s</h%d>", section.getDepth() + 2,
-					escapeHTML(section.getTitle(), annotations), section.getDepth() + 2));
+			int level = section.getDepth() + 2;
+			out.append("<h").append(Integer.toString(level)).append(">");
+			escapeHTML(section.getTitle(), annotations, out);
+			out.append("</h").append(Integer.toString(level)).append(">");
 		}
 
-		sb.append(renderParagraphs(section.getParagraphs(), annotations));
-
-		sb.append(String.format("</div>"));
+		renderParagraphs(section.getParagraphs(), annotations, out);
 
-		return sb.toString();
+		out.append("</div>");
 	}
 
 	/**
@@ -344,21 +444,30 @@ public class DocumentHTMLRenderer {
 	 * @return
 	 */
 	public static String renderParagraphs(List<Paragraph> paragraphs, List<Annotation> annotations) {
-		StringBuilder sb = new StringBuilder();
+		return render(out -> renderParagraphs(paragraphs, annotations, out));
+	}
+
+	/**
+	 * @param paragraphs
+	 * @param annotations
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void renderParagraphs(List<Paragraph> paragraphs, List<Annotation> annotations, Appendable out)
+			throws IOException {
 
 		if (paragraphs != null && !paragraphs.isEmpty()) {
 			for (Paragraph paragraph : paragraphs) {
 
-				sb.append(String.format("<p data-id=\"%s\" class=\"%s\">", UUID.randomUUID().toString(), "par"));
+				out.append("<p data-id=\"").append(UUID.randomUUID().toString()).append("\" class=\"par\">");
 
 				if (paragraph != null && paragraph.getStructureElements() != null) {
-					sb.append(renderStructureElements(paragraph.getStructureElements(), annotations));
+					renderStructureElements(paragraph.getStructureElements(), annotations, out);
 				}
 
-				sb.append(String.format("</p>"));
+				out.append("</p>");
 			}
 		}
-		return sb.toString();
 	}
 
 	/**
@@ -368,148 +477,152 @@ public class DocumentHTMLRenderer {
 	 */
 	public static String renderStructureElements(List<StructureElement> structureElements,
 			List<Annotation> annotations) {
-		StringBuilder sb = new StringBuilder();
+		return render(out -> renderStructureElements(structureElements, annotations, out));
+	}
+
+	/**
+	 * @param structureElements
+	 * @param annotations
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void renderStructureElements(List<StructureElement> structureElements,
+			List<Annotation> annotations, Appendable out) throws IOException {
 
 		if (structureElements != null) {
 			for (StructureElement structureElement : structureElements) {
 				if (structureElement.getCaptionedBox() != null) {
-					sb.append(escapeHTML(structureElement.getCaptionedBox().getTitle(), annotations));
-					sb.append("<br>");
-					sb.append(escapeHTML(structureElement.getCaptionedBox().getCaption(), annotations));
-					sb.append("<br>");
+					escapeHTML(structureElement.getCaptionedBox().getTitle(), annotations, out);
+					out.append("<br>");
+					escapeHTML(structureElement.getCaptionedBox().getCaption(), annotations, out);
+					out.append("<br>");
 
 				} else if (structureElement.getCode() != null) {
-					sb.append(escapeHTML(structureElement.getCode().getCode(), annotations));
-					sb.append("<br>");
+					escapeHTML(structureElement.getCode().getCode(), annotations, out);
+					out.append("<br>");
 
 				} else if (structureElement.getDataTable() != null) {
-					sb.append(escapeHTML(structureElement.getDataTable().getContent(), annotations));
-					sb.append("<br>");
+					escapeHTML(structureElement.getDataTable().getContent(), annotations, out);
+					out.append("<br>");
 
 				} else if (structureElement.getFigure() != null) {
-					sb.append(escapeHTML(structureElement.getFigure().getTitle(), annotations));
-					sb.append("<br>");
-					sb.append(escapeHTML(structureElement.getFigure().getCaption(), annotations));
-					sb.append("<br>");
+					escapeHTML(structureElement.getFigure().getTitle(), annotations, out);
+					out.append("<br>");
+					escapeHTML(structureElement.getFigure().getCaption(), annotations, out);
+					out.append("<br>");
 
 				} else if (structureElement.getFormula() != null) {
-					sb.append(escapeHTML(structureElement.getFormula().getFormula(), annotations));
+					escapeHTML(structureElement.getFormula().getFormula(), annotations, out);
 
 				} else if (structureElement.getOutline() != null) {
-					sb.append(escapeHTML(structureElement.getOutline().getTitleText(), annotations));
-					sb.append("<br>");
+					escapeHTML(structureElement.getOutline().getTitleText(), annotations, out);
+					out.append("<br>");
 
 				} else if (structureElement.getQuotation() != null) {
 
-					sb.append("(<a href=\"");
-					sb.append("#RID_" + structureElement.getQuotation().getReferenceId());
-					sb.append("\">");
-					sb.append(escapeHTML(structureElement.getQuotation().getLabel(), annotations));
-					sb.append("</a>)");
-					sb.append(renderReference(structureElement.getQuotation().getReference(), annotations));
+					out.append("(<a href=\"");
+					out.append("#RID_").append(structureElement.getQuotation().getReferenceId());
+					out.append("\">");
+					escapeHTML(structureElement.getQuotation().getLabel(), annotations, out);
+					out.append("</a>)");
+					renderReference(structureElement.getQuotation().getReference(), annotations, out);
 
 				} else if (structureElement.getTable() != null) {
 					if(structureElement.getTable().getTitle() != null) {
-						sb.append(escapeHTML(structureElement.getTable().getTitle(), annotations));
-						sb.append("<br>");
+						escapeHTML(structureElement.getTable().getTitle(), annotations, out);
+						out.append("<br>");
 					}
 
 					if(structureElement.getTable().getText() != null) {
-						sb.append(escapeHTML(structureElement.getTable().getText(), annotations));
-						sb.append("<br>");
+						escapeHTML(structureElement.getTable().getText(), annotations, out);
+						out.append("<br>");
 					}
-					
-					
-					sb.append("<style type=\"text/css\">");
-					sb.append(".tg  {border-collapse:collapse;border-spacing:0;border-color:#aabcfe;}");
-					sb.append(".tg td{font-family:Arial, sans-serif;font-size:14px;padding:10px 5px;border-style:solid;border-width:1px;overflow:hidden;word-break:normal;border-color:#aabcfe;color:#669;background-color:#e8edff;}");
-					sb.append(".tg th{font-family:Arial, sans-serif;font-size:14px;font-weight:normal;padding:10px 5px;border-style:solid;border-width:1px;overflow:hidden;word-break:normal;border-color:#aabcfe;color:#039;background-color:#b9c9fe;}");
-					sb.append(".tg .tg-hmp3{background-color:#D2E4FC;text-align:left;vertical-align:top}");
-					sb.append(".tg .tg-baqh{text-align:center;vertical-align:top}");
-					sb.append(".tg .tg-mb3i{background-color:#D2E4FC;text-align:right;vertical-align:top}");
-					sb.append(".tg .tg-lqy6{text-align:right;vertical-align:top}");
-					sb.append(".tg .tg-0lax{text-align:left;vertical-align:top}");
-				  sb.append("</style>");
-				  
+
+
+					out.append("<style type=\"text/css\">");
+					out.append(".tg  {border-collapse:collapse;border-spacing:0;border-color:#aabcfe;}");
+					out.append(".tg td{font-family:Arial, sans-serif;font-size:14px;padding:10px 5px;border-style:solid;border-width:1px;overflow:hidden;word-break:normal;border-color:#aabcfe;color:#669;background-color:#e8edff;}");
+					out.append(".tg th{font-family:Arial, sans-serif;font-size:14px;font-weight:normal;padding:10px 5px;border-style:solid;border-width:1px;overflow:hidden;word-break:normal;border-color:#aabcfe;color:#039;background-color:#b9c9fe;}");
+					out.append(".tg .tg-hmp3{background-color:#D2E4FC;text-align:left;vertical-align:top}");
+					out.append(".tg .tg-baqh{text-align:center;vertical-align:top}");
+					out.append(".tg .tg-mb3i{background-color:#D2E4FC;text-align:right;vertical-align:top}");
+					out.append(".tg .tg-lqy6{text-align:right;vertical-align:top}");
+					out.append(".tg .tg-0lax{text-align:left;vertical-align:top}");
+				  out.append("</style>");
+
 				  Map<Integer,String> cols = new HashMap<Integer, String>();
-				  
-					sb.append("<table class=\"tg\">");
+
+					out.append("<table class=\"tg\">");
 				  if(structureElement.getTable().getHeaders() != null) {
 					  int col =0;
-				  	sb.append("<tr>");
+				  	out.append("<tr>");
 						for(TextElement header : structureElement.getTable().getHeaders()) {
-							sb.append("<th class=\"tg-baqh\">");
-							sb.append(escapeHTML(header, annotations));
-							sb.append("</th>");
+							out.append("<th class=\"tg-baqh\">");
+							escapeHTML(header, annotations, out);
+							out.append("</th>");
 							cols.put(col, header.getText());
 							col++;
 						}
-				  	sb.append("</tr>");
+				  	out.append("</tr>");
 					}
-				  
+
 				  boolean switchColor = true;
 				  if(structureElement.getTable().getRows() != null) {
 				  	for(Map<String, String> row : structureElement.getTable().getRows()) {
-					  	sb.append("<tr>");
+					  	out.append("<tr>");
 					  	for(int col=0; col<cols.size(); col++) {
-					  		if(switchColor) sb.append("<td class=\"tg-hmp3\">"); 
-					  		else 						sb.append("<td class=\"tg-0lax\">"); 
-					  		sb.append(row.get(cols.get(col)));
-						  	sb.append("</td>");
+					  		if(switchColor) out.append("<td class=\"tg-hmp3\">");
+					  		else 						out.append("<td class=\"tg-0lax\">");
+					  		out.append(row.get(cols.get(col)));
+						  	out.append("</td>");
 					  	}
 					  	switchColor = !switchColor;
-					  	sb.append("</tr>");				  		
+					  	out.append("</tr>");
 				  	}
 				  }
-				  
-					sb.append("</table>");
-					
 
-					if(structureElement.getTable().getCaption() != null) { 
-						sb.append(escapeHTML(structureElement.getTable().getCaption(), annotations));
-						sb.append("<br>");
+					out.append("</table>");
+
+
+					if(structureElement.getTable().getCaption() != null) {
+						escapeHTML(structureElement.getTable().getCaption(), annotations, out);
+						out.append("<br>");
 					}
 
 				} else if (structureElement.getTextElement() != null) {
-					sb.append(escapeHTML(structureElement.getTextElement(), annotations));
-					sb.append(" ");
+					escapeHTML(structureElement.getTextElement(), annotations, out);
+					out.append(" ");
 
 				} else if (structureElement.getSentence() != null) {
-					sb.append(String.format("<span data-id=\"%s\" class=\"%s\">", UUID.randomUUID().toString(), "sent"));
-					sb.append("<u>");
-					sb.append(escapeHTML(structureElement.getSentence().getText(), annotations));
-					sb.append("</u>");
-					sb.append(String.format("</span>"));
-					sb.append(String.format(" "));
+					renderSentence(structureElement.getSentence(), annotations, out);
 
 				} else if (structureElement.getList() != null) {
 					if (structureElement.getList().getTitle() != null) {
-						sb.append(escapeHTML(structureElement.getList().getTitle(), annotations));
-						sb.append("<br>");
+						escapeHTML(structureElement.getList().getTitle(), annotations, out);
+						out.append("<br>");
 					}
 
 					if (structureElement.getList().isBullets()) {
-						sb.append("<ul>");
+						out.append("<ul>");
 					} else {
-						sb.append("<ol>");
+						out.append("<ol>");
 					}
 
 					for (TextElement element : structureElement.getList().getItems()) {
-						sb.append("<li>");
-						sb.append(element.getText());
-						sb.append("</li>");
+						out.append("<li>");
+						out.append(element.getText());
+						out.append("</li>");
 					}
 
 					if (structureElement.getList().isBullets()) {
-						sb.append("</ul>");
+						out.append("</ul>");
 					} else {
-						sb.append("</ol>");
+						out.append("</ol>");
 					}
-					sb.append("<br>");
+					out.append("<br>");
 				}
 			}
 		}
-		return sb.toString();
 	}
 
 	/**
@@ -518,8 +631,17 @@ public class DocumentHTMLRenderer {
 	 * @return
 	 */
 	public static String renderReference(Reference reference, List<Annotation> annotations) {
-		StringBuilder sb = new StringBuilder();
-		return sb.toString();
+		return render(out -> renderReference(reference, annotations, out));
+	}
+
+	/**
+	 * @param reference
+	 * @param annotations
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void renderReference(Reference reference, List<Annotation> annotations, Appendable out)
+			throws IOException {
 	}
 
 	/**
@@ -528,20 +650,34 @@ public class DocumentHTMLRenderer {
 	 * @return
 	 */
 	public static String renderSentences(List<Sentence> sentences, List<Annotation> annotations) {
-		StringBuilder sb = new StringBuilder();
+		return render(out -> renderSentences(sentences, annotations, out));
+	}
+
+	/**
+	 * @param sentences
+	 * @param annotations
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void renderSentences(List<Sentence> sentences, List<Annotation> annotations, Appendable out)
+			throws IOException {
 
 		if (sentences != null) {
 			for (Sentence sentence : sentences) {
-
-				sb.append(String.format("<span data-id=\"%s\" class=\"%s\">", UUID.randomUUID().toString(), "sent"));
-				sb.append("<u>");
-				sb.append(escapeHTML(sentence.getText(), annotations));
-				sb.append("</u>");
-				sb.append(String.format("</span>"));
-				sb.append(String.format(" "));
+				renderSentence(sentence, annotations, out);
 			}
 		}
-		return sb.toString();
+	}
+
+	private static void renderSentence(Sentence sentence, List<Annotation> annotations, Appendable out)
+			throws IOException {
+
+		out.append("<span data-id=\"").append(UUID.randomUUID().toString()).append("\" class=\"sent\">");
+		out.append("<u>");
+		escapeHTML(sentence.getText(), annotations, out);
+		out.append("</u>");
+		out.append("</span>");
+		out.append(" ");
 	}
 
 	/**
@@ -551,60 +687,73 @@ public class DocumentHTMLRenderer {
 	 * @return
 	 */
 	public static String renderMetaElement(Document document, MetaElement metaElement, List<Annotation> annotations) {
-		StringBuilder sb = new StringBuilder();
+		return render(out -> renderMetaElement(document, metaElement, annotations, out));
+	}
 
-		sb.append("<title>");
+	/**
+	 * @param document
+	 * @param metaElement
+	 * @param annotations
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void renderMetaElement(Document document, MetaElement metaElement, List<Annotation> annotations,
+			Appendable out) throws IOException {
+
+		out.append("<title>");
 		if (metaElement != null) {
 			if (metaElement.getBibliographic() != null) {
 				if (metaElement.getBibliographic().getTitle() != null) {
-					sb.append(escapeHTML(metaElement.getBibliographic().getTitle().getTitleText(), annotations));
+					escapeHTML(metaElement.getBibliographic().getTitle().getTitleText(), annotations, out);
 				}
 			}
 		}
-		sb.append("</title>");
+		out.append("</title>");
 
 
 		if (metaElement.getBibliographic().getPublicationTypes() != null) {
 			for (PublicationType pt : metaElement.getBibliographic().getPublicationTypes()) {
-				sb.append(String.format("%s (%s) <br>", pt.getPublicationType().getText(), pt.getIdentifier().getText()));
+				out.append(String.format("%s (%s) <br>", pt.getPublicationType().getText(), pt.getIdentifier().getText()));
 			}
 		}
 
 		String date = "unspecified";
 		if(metaElement != null && metaElement.getBibliographic() != null && metaElement.getBibliographic().getPubDate() != null) {
 		    Date d = metaElement.getBibliographic().getPubDate();
-			LocalDate ld = LocalDate.of(d.getYear(), d.getMonth() > 0 ? d.getMonth() : 1, 
+			LocalDate ld = LocalDate.of(d.getYear(), d.getMonth() > 0 ? d.getMonth() : 1,
 			        d.getDay() > 0 ? d.getDay() : 1);
 			date = ld.format(DateTimeFormatter.ofPattern("MMMM dd, yyyy"));
 		}
 
 		// identifiers
+		String identifiers = null;
 		try {
-		sb.append(String.format("%s, %s (%s) [lang:%s], %s<br>",
+		identifiers = String.format("%s, %s (%s) [lang:%s], %s<br>",
 				metaElement.getBibliographic().getSource().getText(), metaElement.getConcept().getAltLabel(), date,
-				metaElement.getBibliographic().getLanguage().getText(), document.getDocType()));
+				metaElement.getBibliographic().getLanguage().getText(), document.getDocType());
 		} catch (Exception e) {}
-		
+		if (identifiers != null) {
+			out.append(identifiers);
+		}
+
 		if (metaElement.getConcept() != null && metaElement.getConcept().getAltLabels() != null) {
-			for (TextElement alt : metaElement.getConcept().getAltLabels()) {
-				sb.append(String.format("%s, ", alt.getText()));
-			}
-			sb.delete(sb.lastIndexOf(", "), sb.length());
-			sb.append("<br>");
+			renderTexts(metaElement.getConcept().getAltLabels(), out);
+			out.append("<br>");
 		}
 
 		// authors
 		if (metaElement.getBibliographic().getAuthors() != null) {
 			for (Author author : metaElement.getBibliographic().getAuthors()) {
 				if (author.getAuthor() != null && author.getAuthor().getSurname() != null && author.getAuthor().getForename() != null) {
-					sb.append(String.format("%s, %s<br>", author.getAuthor().getSurname().getText(), author.getAuthor().getForename().getText()));
+					out.append(author.getAuthor().getSurname().getText()).append(", ")
+							.append(author.getAuthor().getForename().getText()).append("<br>");
 				}
 				if (author.getOrganization() != null) {
-					sb.append(String.format("%s<br>", author.getOrganization().getOrganization().getText()));
+					out.append(author.getOrganization().getOrganization().getText()).append("<br>");
 				}
 
 			}
-			sb.append("<br>");
+			out.append("<br>");
 		}
 
 		// keywords
@@ -612,16 +761,35 @@ public class DocumentHTMLRenderer {
 				&& document.getDocumentElement().getMetaElement() != null
 				&& document.getDocumentElement().getMetaElement().getKeywords() != null) {
 			for (Keywords kws : document.getDocumentElement().getMetaElement().getKeywords()) {
-				sb.append(String.format("%s: ", kws.getRhetorical()));
-				for (TextElement kw : kws.getKeywordList()) {
-					sb.append(String.format("%s, ", kw.getText()));
-				}
-				sb.delete(sb.lastIndexOf(", "), sb.length());
-				sb.append("<br>");
+				out.append(String.valueOf(kws.getRhetorical())).append(": ");
+				renderTexts(kws.getKeywordList(), out);
+				out.append("<br>");
 			}
 		}
+	}
 
-		return sb.toString();
+	/**
+	 * comma separated texts of the given elements
+	 */
+	private static void renderTexts(List<TextElement> textElements, Appendable out) throws IOException {
+		String separator = "";
+		for (TextElement textElement : textElements) {
+			out.append(separator).append(textElement.getText());
+			separator = ", ";
+		}
+	}
+
+	/**
+	 * convert a text element into proper HTML + insert all annotations
+	 *
+	 * @param textElement {@link TextElement}
+	 * @param annotations
+	 * @param out {@link Appendable} the HTML is written to
+	 * @throws IOException if <code>out</code> fails
+	 */
+	public static void escapeHTML(TextElement textElement, List<Annotation> annotations, Appendable out)
+			throws IOException {
+		HTMLEscaper.escape(textElement, annotations, out);
 	}
 
 	/**
@@ -632,63 +800,7 @@ public class DocumentHTMLRenderer {
 	 * @return {@link String}
 	 */
 	public static String escapeHTML(TextElement textElement, List<Annotation> annotations) {
-		String text = textElement.getText();
-		StringBuilder sb = new StringBuilder();
-		Map<Float, String> insertions = new TreeMap<Float, String>();
-
-		int lastChar = 0;
-		if (textElement.getAnnotations() != null) {
-
-			// order all spans tags to be inserted
-			for (Annotation anno : textElement.getAnnotations()) {
-
-				if (anno != null && anno.getEndOffset() > anno.getStartOffset()) {
-					annotations.add(anno);
-					int idx = annotations.size();
-
-					Float f = new Float(anno.getStartOffset());
-					while (insertions.containsKey(f)) {
-						f += 0.001f; // collision of indices
-					}
-					insertions.put(f, String.format("<span data-id=\"%s\" class=\"%s\">", anno.getAnnotationText(),
-							anno.getAnnotationType()));
-
-					f = new Float(anno.getEndOffset());
-					while (insertions.containsKey(f)) {
-						f += 0.001f;
-					}
-					insertions.put(f, String.format("</span> <sup><a href=\"#anno%d\" title=\"%s:%s\">[%d]</a></sup>",
-							idx, anno.getAnnotationType(), anno.getAnnotationText(), idx));
-				}
-			}
-
-			for (Float key : insertions.keySet()) {
-				int offset = (int) Math.floor(key);
-				sb.append(text.substring(lastChar, offset)); // text up to insertion
-				sb.append("$$$$" + key + "$$$$"); // insertion placeholder
-				lastChar = offset;
-			}
-		}
-
-		if(text != null && text.length()>lastChar) sb.append(text.substring(lastChar));
-
-		String html = sb.toString();
-		try {
-			html = StringEscapeUtils.escapeHtml(html.trim()).replaceAll("\\r\\n", "\n").replaceAll("\\r", "\n")
-					.replaceAll("\n", "<br>") // eol to BR
-					.replaceAll("\\s+", " "); // all white spaces to blank
-
-		} catch (Exception e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		}
-
-		// insertions
-		for (Float key : insertions.keySet()) {
-			html = html.replace("$$$$" + key + "$$$$", insertions.get(key));
-		}
-
-		return html;
+		return render(out -> escapeHTML(textElement, annotations, out));
 	}
 
 	/**
@@ -697,20 +809,51 @@ public class DocumentHTMLRenderer {
 	 * @return
 	 */
 	public static String renderAnnotations(Document document, List<Annotation> annotations) {
-		StringBuilder sb = new StringBuilder();
+		return render(out -> renderAnnotations(document, annotations, out));
+	}
 
-		sb.append("<hr>");
-		sb.append("<h2>Annotations</h2>");
-		sb.append("<ul style=\"list-style-type:none\">");
+	/**
+	 * @param document
+	 * @param annotations
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void renderAnnotations(Document document, List<Annotation> annotations, Appendable out)
+			throws IOException {
+
+		out.append("<hr>");
+		out.append("<h2>Annotations</h2>");
+		out.append("<ul style=\"list-style-type:none\">");
 		for (int i = 0; i < annotations.size(); i++) {
 			Annotation anno = annotations.get(i);
-			sb.append(String.format("<li id=\"anno%d\">[%d] <b>%s:%s</b> <i>%s@[%d,%d]</i></li>", i + 1, i + 1,
+			out.append(String.format("<li id=\"anno%d\">[%d] <b>%s:%s</b> <i>%s@[%d,%d]</i></li>", i + 1, i + 1,
 					anno.getAnnotationType(), anno.getAnnotationText(), anno.getProvenance().getSource(),
 					anno.getStartOffset(), anno.getEndOffset()));
 		}
-		sb.append("</ol>");
+		out.append("</ol>");
+	}
 
+	private static void openDiv(String cssClass, Appendable out) throws IOException {
+		out.append("<div data-id=\"").append(UUID.randomUUID().toString()).append("\" class=\"").append(cssClass)
+				.append("\">");
+	}
+
+	/**
+	 * renders into a {@link StringBuilder}, which never throws an {@link IOException}
+	 */
+	private static String render(Rendering rendering) {
+		StringBuilder sb = new StringBuilder();
+		try {
+			rendering.render(sb);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
 		return sb.toString();
 	}
 
+	@FunctionalInterface
+	private interface Rendering {
+		void render(Appendable out) throws IOException;
+	}
+
 }
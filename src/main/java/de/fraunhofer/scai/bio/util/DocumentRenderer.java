@@ -22,11 +22,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import de.fraunhofer.scai.bio.Document;
-import de.fraunhofer.scai.bio.types.text.doc.DocumentElement;
-import de.fraunhofer.scai.bio.types.text.doc.container.BackMatter;
-import de.fraunhofer.scai.bio.types.text.doc.container.BodyMatter;
 import de.fraunhofer.scai.bio.types.text.doc.container.Chapter;
-import de.fraunhofer.scai.bio.types.text.doc.container.FrontMatter;
 import de.fraunhofer.scai.bio.types.text.doc.container.Paragraph;
 import de.fraunhofer.scai.bio.types.text.doc.container.Section;
 import de.fraunhofer.scai.bio.types.text.doc.container.StructureElement;
@@ -34,7 +30,6 @@ import de.fraunhofer.scai.bio.types.text.doc.meta.Abstract;
 import de.fraunhofer.scai.bio.types.text.doc.meta.Annotation;
 import de.fraunhofer.scai.bio.types.text.doc.meta.Author;
 import de.fraunhofer.scai.bio.types.text.doc.meta.Bibliographic;
-import de.fraunhofer.scai.bio.types.text.doc.meta.Bibliography;
 import de.fraunhofer.scai.bio.types.text.doc.meta.Date;
 import de.fraunhofer.scai.bio.types.text.doc.meta.Person;
 import de.fraunhofer.scai.bio.types.text.doc.meta.Reference;
@@ -67,25 +62,27 @@ public class DocumentRenderer {
         HashSet<String> contents = new HashSet<String>();
 
         // TODO to be discussed what should be indexed
-        Map<String, TextElement> index = getFrontMatterTextElements(document);
-        index.putAll(getBodyMatterTextElements(document));
-
-        for (TextElement se : index.values()) {
-            if (se != null && se.getText() != null) {
+        DocumentVisitor collector = (se, role, depth) -> {
+            if (se.getText() != null) {
                 Matcher unwantedMatcher = PUNCTUATION.matcher(se.getText());
                 contents.add(unwantedMatcher.replaceAll(""));
             }
 
             // TODO if we want to index annotations
-            if (se != null && se.getAnnotations() != null) {
+            if (se.getAnnotations() != null) {
                 for (Annotation anot : se.getAnnotations()) {
                     contents.add(anot.getAnnotationText());
                 }
             }
+        };
+
+        if (document.getDocumentElement() != null) {
+            DocumentWalker.walkFrontMatter(document.getDocumentElement().getFrontMatter(), collector);
+            DocumentWalker.walkBodyMatter(document.getDocumentElement().getBodyMatter(), collector);
         }
 
         for (String word : contents) {
-            sb.append(word + " ");
+            sb.append(word).append(' ');
         }
         return sb.toString();
     }
@@ -221,7 +218,7 @@ public class DocumentRenderer {
     }
 
     /**
-     * collect all {@link Annotation}s from all {@link TextElement}s into a {@link List}
+     * collect all {@link Annotation}s from all {@link TextElement}s into a {@link List}, in document order
      *
      * @param document
      *        {@link Document}
@@ -231,15 +228,11 @@ public class DocumentRenderer {
 
         List<Annotation> annotations = new ArrayList<Annotation>();
 
-        Map<String, TextElement> elements = getDocumentTextElements(document);
-
-        if (elements != null) {
-            for (TextElement element : elements.values()) {
-                if (element != null && element.getAnnotations() != null) {
-                    annotations.addAll(element.getAnnotations());
-                }
+        DocumentWalker.walk(document, (element, role, depth) -> {
+            if (element.getAnnotations() != null) {
+                annotations.addAll(element.getAnnotations());
             }
-        }
+        });
 
         return annotations;
     }
@@ -254,11 +247,7 @@ public class DocumentRenderer {
     public static Map<String, TextElement> getDocumentTextElements(Document document) {
         Map<String, TextElement> elements = new TreeMap<String, TextElement>();
 
-        elements.putAll(getMetaElementTextElements(document));
-
-        elements.putAll(getFrontMatterTextElements(document));
-        elements.putAll(getBodyMatterTextElements(document));
-        elements.putAll(getBackMatterTextElements(document));
+        DocumentWalker.walk(document, collectInto(elements));
 
         return elements;
     }
@@ -278,19 +267,8 @@ public class DocumentRenderer {
     public static Map<String, TextElement> getFrontMatterTextElements(Document document) {
         Map<String, TextElement> elements = new TreeMap<String, TextElement>();
 
-        DocumentElement de = document.getDocumentElement();
-
-        if (de != null) {
-
-            FrontMatter fm = de.getFrontMatter();
-            if (fm != null) {
-                addTextElement(elements, fm.getTitleText(), "FrontMatterTitle");
-
-                Abstract abstr = fm.getDocumentAbstract();
-                if (abstr != null) {
-                    elements.putAll(getSectionsTextElements(abstr.getAbstractSections()));
-                }
-            }
+        if (document.getDocumentElement() != null) {
+            DocumentWalker.walkFrontMatter(document.getDocumentElement().getFrontMatter(), collectInto(elements));
         }
 
         return elements;
@@ -304,15 +282,8 @@ public class DocumentRenderer {
     public static Map<String, TextElement> getBodyMatterTextElements(Document document) {
         Map<String, TextElement> elements = new TreeMap<String, TextElement>();
 
-        DocumentElement de = document.getDocumentElement();
-
-        if (de != null) {
-
-            BodyMatter bom = de.getBodyMatter();
-            if (bom != null) {
-                elements.putAll(getChapterTextElements(bom.getChapters()));
-                elements.putAll(getSectionsTextElements(bom.getSections()));
-            }
+        if (document.getDocumentElement() != null) {
+            DocumentWalker.walkBodyMatter(document.getDocumentElement().getBodyMatter(), collectInto(elements));
         }
 
         return elements;
@@ -321,13 +292,7 @@ public class DocumentRenderer {
     public static Map<String, TextElement> getChapterTextElements(List<Chapter> chapters) {
         Map<String, TextElement> elements = new TreeMap<String, TextElement>();
 
-        if (chapters != null) {
-            for (Chapter chapter : chapters) {
-                if (chapter != null) {
-                    elements.putAll(getSectionsTextElements(chapter.getSections()));
-                }
-            }
-        }
+        DocumentWalker.walkChapters(chapters, collectInto(elements));
 
         return elements;
     }
@@ -335,18 +300,7 @@ public class DocumentRenderer {
     public static Map<String, TextElement> getSectionsTextElements(List<Section> sections) {
         Map<String, TextElement> elements = new TreeMap<String, TextElement>();
 
-        if (sections != null) {
-            for (Section sec : sections) {
-                if (sec != null) {
-                    if (sec.getTitle() != null) {
-                        addTextElement(elements, sec.getTitle(), "SectionTitle" + sec.getDepth());
-                    }
-                    if (sec.getParagraphs() != null) {
-                        elements.putAll(getParagraphsTextElements(sec.getParagraphs()));
-                    }
-                }
-            }
-        }
+        DocumentWalker.walkSections(sections, collectInto(elements));
 
         return elements;
     }
@@ -354,15 +308,7 @@ public class DocumentRenderer {
     public static Map<String, TextElement> getParagraphsTextElements(List<Paragraph> paragraphs) {
         Map<String, TextElement> elements = new TreeMap<String, TextElement>();
 
-        if (paragraphs != null) {
-            for (Paragraph par : paragraphs) {
-                if (par != null) {
-                    if (par.getStructureElements() != null) {
-                        elements.putAll(getStructureElementsTextElements(par.getStructureElements()));
-                    }
-                }
-            }
-        }
+        DocumentWalker.walkParagraphs(paragraphs, 0, collectInto(elements));
 
         return elements;
     }
@@ -370,13 +316,7 @@ public class DocumentRenderer {
     public static Map<String, TextElement> getSentencesTextElements(List<Sentence> sentences) {
         Map<String, TextElement> elements = new TreeMap<String, TextElement>();
 
-        if (sentences != null) {
-            for (Sentence sentence : sentences) {
-                if (sentence != null) {
-                    addTextElement(elements, sentence.getText(), "Sentence");
-                }
-            }
-        }
+        DocumentWalker.walkSentences(sentences, 0, collectInto(elements));
 
         return elements;
     }
@@ -384,66 +324,7 @@ public class DocumentRenderer {
     public static Map<String, TextElement> getStructureElementsTextElements(List<StructureElement> structureElements) {
         Map<String, TextElement> elements = new TreeMap<String, TextElement>();
 
-        if (structureElements != null) {
-            for (StructureElement sel : structureElements) {
-                if (sel != null) {
-                    if (sel.getCaptionedBox() != null) {
-                        addTextElement(elements, sel.getCaptionedBox().getTitle(), "CaptionedBoxTitle");
-                        addTextElement(elements, sel.getCaptionedBox().getCaption(), "CaptionedBoxCaption");
-
-                    } else if (sel.getCode() != null) {
-                        addTextElement(elements, sel.getCode().getCode(), "Code");
-
-                    } else if (sel.getDataTable() != null) {
-                        addTextElement(elements, sel.getDataTable().getContent(), "DataTableContent");
-
-                    } else if (sel.getFigure() != null) {
-                        addTextElement(elements, sel.getFigure().getTitle(), "FigureTitle");
-                        addTextElement(elements, sel.getFigure().getCaption(), "FigureCaption");
-
-                    } else if (sel.getFormula() != null) {
-                        addTextElement(elements, sel.getFormula().getFormula(), "Formula");
-
-                    } else if (sel.getOutline() != null) {
-                        addTextElement(elements, sel.getOutline().getTitleText(), "OutlineTitleText");
-
-                    } else if (sel.getQuotation() != null) {
-                        addTextElement(elements, sel.getQuotation().getLabel(), "Quotation");
-
-                    } else if (sel.getTable() != null) {
-                        addTextElement(elements, sel.getTable().getTitle(), "TableTitle");
-                        addTextElement(elements, sel.getTable().getText(), "TableText");
-                        addTextElement(elements, sel.getTable().getCaption(), "TableCaption");
-                        if (sel.getTable().getHeaders() != null) {
-                            for (TextElement header : sel.getTable().getHeaders()) {
-                                addTextElement(elements, header, "TableHeader");
-                            }
-                        }
-                    } else if (sel.getPmcTable() != null) {
-                        if (sel.getPmcTable().getCaption() != null) {
-                            addTextElement(elements, sel.getPmcTable().getCaption(), "PMCTableCaption");
-                        }
-                        if (sel.getPmcTable() != null && sel.getPmcTable().getCells() != null) {
-                            sel.getPmcTable().getCells().forEach(c -> {
-                                addTextElement(elements, c.getContent(), "PMCTableCellContent");
-                            });
-                        }
-                    } else if (sel.getSentence() != null) {
-                        addTextElement(elements, sel.getSentence().getText(), "Sentence");
-
-                    } else if (sel.getTextElement() != null) {
-                        addTextElement(elements, sel.getTextElement(), "TextElement");
-
-                    } else if (sel.getList() != null) {
-                        addTextElement(elements, sel.getList().getTitle(), "ListTitle");
-                        for (TextElement element : sel.getList().getItems()) {
-                            addTextElement(elements, element, "ListElement");
-                        }
-                    }
-
-                }
-            }
-        }
+        DocumentWalker.walkStructureElements(structureElements, 0, collectInto(elements));
 
         return elements;
     }
@@ -456,25 +337,8 @@ public class DocumentRenderer {
     public static Map<String, TextElement> getBackMatterTextElements(Document document) {
         Map<String, TextElement> elements = new TreeMap<String, TextElement>();
 
-        DocumentElement de = document.getDocumentElement();
-
-        if (de != null) {
-            BackMatter bam = de.getBackMatter();
-
-            if (bam != null) {
-                Bibliography bib = bam.getBibliography();
-
-                if (bib != null) {
-                    Map<String, Reference> refs = bib.getReferences();
-
-                    if (refs != null) {
-                        for (Reference ref : refs.values()) {
-                            elements.putAll(getReferenceTextElements(ref));
-                        }
-                    }
-
-                }
-            }
+        if (document.getDocumentElement() != null) {
+            DocumentWalker.walkBackMatter(document.getDocumentElement().getBackMatter(), collectInto(elements));
         }
 
         return elements;
@@ -487,55 +351,29 @@ public class DocumentRenderer {
     public static Map<String, TextElement> getReferenceTextElements(Reference reference) {
         Map<String, TextElement> elements = new TreeMap<String, TextElement>();
 
-        if (reference != null) {
-            if (reference.getTitle() != null) {
-                if (reference.getTitle().getTitleText() != null) {
-                    addTextElement(elements, reference.getTitle().getTitleText(), "TitleText");
-                }
-                if (reference.getTitle().getTitleText() != null) {
-                    addTextElement(elements, reference.getTitle().getSubTitleText(), "SubtitleText");
-                }
-            }
-            if (reference.getLanguage() != null) {
-                addTextElement(elements, reference.getLanguage(), "Language");
-            }
-            if (reference.getPublicationIds() != null) {
-                for (TextElement element : reference.getPublicationIds()) {
-                    addTextElement(elements, element, "PublicationId");
-                }
-            }
-            if (reference.getPublicationType() != null) {
-                addTextElement(elements, reference.getPublicationType(), "PublicationType");
-            }
-            if (reference.getReferenceSource() != null) {
-                addTextElement(elements, reference.getReferenceSource(), "ReferenceSource");
-            }
-
-            if (reference.getLink() != null) {
-                addTextElement(elements, reference.getLink(), "ReferenceLink");
-            }
-
-            // TODO
-            reference.getAuthors();
-        }
+        DocumentWalker.walkReference(reference, collectInto(elements));
 
         return elements;
     }
 
     /**
-     * create a nice key for each {@link TextElement} and place in {@link Map}
+     * create a nice key for each visited {@link TextElement} and place it in the {@link Map}
      *
      * @param elements
      *        Map<String, TextElement>
-     * @param textElement
-     *        {@link TextElement}
-     * @param title
-     *        of text element {@link String}
+     * @return {@link DocumentVisitor}
      */
-    private static void addTextElement(Map<String, TextElement> elements, TextElement textElement, String title) {
-        if (textElement != null && textElement.getUuid() != null) {
-            elements.put(String.format("%s\t*%s*", textElement.getUuid(), title.toUpperCase()), textElement);
-        }
+    private static DocumentVisitor collectInto(Map<String, TextElement> elements) {
+        return (textElement, role, depth) -> {
+            if (textElement.getUuid() != null) {
+                StringBuilder key = new StringBuilder(52);
+                key.append(textElement.getUuid()).append("\t*").append(role.getLabel());
+                if (role == TextElementRole.SECTION_TITLE) {
+                    key.append(depth);
+                }
+                elements.put(key.append('*').toString(), textElement);
+            }
+        };
     }
 
     /**
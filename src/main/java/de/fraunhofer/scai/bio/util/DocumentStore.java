@@ -0,0 +1,557 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Concept;
+
+/**
+ * Random access store of {@link Document}s in a directory, keyed by the identifier of the document {@link Concept}
+ * (see {@link DocumentBuilder#setDocumentId(Document, String, String, String)}).
+ * <p>
+ * Documents are encoded with {@link DocumentCodec} and appended to segment files of fixed size, which are memory
+ * mapped. A lookup goes through an on-disk, memory mapped hash index from id to segment and offset (open addressing
+ * with linear probing on a 64 bit hash of the id, the id itself is stored with the document) and decodes the document
+ * straight from a slice of the mapped segment, so neither the index nor the raw bytes are copied to the heap. A point
+ * lookup costs a few page accesses, independent of the number of documents.
+ * <p>
+ * Putting an id again replaces the document, the old record stays in its segment. Records are written through the
+ * mappings; {@link #flush()} forces them to disk, the operating system writes them back eventually anyway. Lookups
+ * may run concurrently, puts are exclusive. The mappings are released by the garbage collector after
+ * {@link #close()}.
+ *
+ * <pre>
+ * try (DocumentStore store = new DocumentStore(new File("store"))) {
+ *     store.put(document);
+ *     Document stored = store.get("32187464");
+ * }
+ * </pre>
+ */
+public class DocumentStore implements Closeable, Flushable {
+
+    /** default size of a segment file */
+    public static final int DEFAULT_SEGMENT_SIZE = 1 << 30;
+
+    private static final int SEGMENT_MAGIC = 0x44534547;
+    private static final int INDEX_MAGIC = 0x44494458;
+    private static final int VERSION = 1;
+
+    /** magic, version and the end of the records or the number of ids */
+    private static final int HEADER_SIZE = 16;
+    /** id length and document length */
+    private static final int RECORD_HEADER_SIZE = 8;
+    /** hash and location of an id */
+    private static final int SLOT_SIZE = 16;
+    private static final int INITIAL_CAPACITY = 1 << 12;
+    /** the index is mapped in chunks, a slot never crosses a chunk */
+    private static final int INDEX_CHUNK_BITS = 30;
+    private static final int INDEX_CHUNK_MASK = (1 << INDEX_CHUNK_BITS) - 1;
+
+    private static final String INDEX = "index";
+    private static final String SEGMENT = "segment-%05d";
+
+    private final File directory;
+    private final int segmentSize;
+    private final List<Segment> segments = new ArrayList<Segment>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index;
+    private boolean closed;
+
+    /**
+     * @param directory
+     *        directory of the store, created if missing
+     * @throws IOException
+     *         if the store can't be opened or created
+     */
+    public DocumentStore(File directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param directory
+     *        directory of the store, created if missing
+     * @param segmentSize
+     *        size of new segment files, the largest encoded document is slightly smaller
+     * @throws IOException
+     *         if the store can't be opened or created
+     */
+    public DocumentStore(File directory, int segmentSize) throws IOException {
+        if (segmentSize < 1024) {
+            throw new IllegalArgumentException("segment size too small: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("can't create " + directory);
+        }
+        try {
+            for (File file = segmentFile(0); file.exists(); file = segmentFile(segments.size())) {
+                segments.add(new Segment(file, segmentSize));
+            }
+            File indexFile = new File(directory, INDEX);
+            index = indexFile.exists() ? new Index(indexFile) : new Index(indexFile, INITIAL_CAPACITY);
+        } catch (IOException e) {
+            closeFiles();
+            throw e;
+        }
+    }
+
+    private File segmentFile(int segment) {
+        return new File(directory, String.format(SEGMENT, segment));
+    }
+
+    /**
+     * @param document
+     *        {@link Document} with a {@link Concept} identifier
+     * @return the identifier the document is stored under
+     * @throws IOException
+     *         if a new segment can't be created or the index can't be grown
+     */
+    public String put(Document document) throws IOException {
+        String id = DocumentBuilder.getConceptIdentifier(document);
+        if (id == null) {
+            throw new IllegalArgumentException("document without concept identifier");
+        }
+        put(id, document);
+        return id;
+    }
+
+    /**
+     * @param id
+     *        key of the document, replaces a document stored with the same key
+     * @param document
+     *        {@link Document}
+     * @throws IOException
+     *         if a new segment can't be created or the index can't be grown
+     */
+    public void put(String id, Document document) throws IOException {
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        byte[] encoded = DocumentCodec.encode(document);
+        long recordSize = (long) RECORD_HEADER_SIZE + key.length + encoded.length;
+        if (recordSize > segmentSize - HEADER_SIZE) {
+            throw new IllegalArgumentException(
+                "document " + id + " doesn't fit into a segment of " + segmentSize + " bytes: " + recordSize);
+        }
+
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (segment == null || segment.end + recordSize > segment.buffer.capacity()) {
+                segment = new Segment(segmentFile(segments.size()), segmentSize);
+                segments.add(segment);
+            }
+
+            int offset = segment.end;
+            ByteBuffer record = segment.buffer.duplicate();
+            ((Buffer) record).position(offset);
+            record.putInt(key.length).putInt(encoded.length).put(key).put(encoded);
+            segment.setEnd(offset + (int) recordSize);
+
+            if ((index.count + 1) * 2 > index.capacity) {
+                index = index.grow();
+            }
+            index.put(hash(id), key, (long) (segments.size() - 1) << 32 | offset);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param id
+     *        key of the document
+     * @return the decoded {@link Document} or <code>null</code> if there is none
+     */
+    public Document get(String id) {
+        lock.readLock().lock();
+        try {
+            ByteBuffer encoded = find(id);
+            return encoded != null ? DocumentCodec.decode(encoded) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param id
+     *        key of the document
+     * @return read only slice of the mapped segment with the encoded document (see {@link DocumentCodec}), valid
+     *         until the store is closed, or <code>null</code> if there is none
+     */
+    public ByteBuffer getEncoded(String id) {
+        lock.readLock().lock();
+        try {
+            ByteBuffer encoded = find(id);
+            return encoded != null ? encoded.slice().asReadOnlyBuffer() : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param id
+     *        key of the document
+     * @return lazy {@link DocumentView} over the mapped segment, valid until the store is closed, or
+     *         <code>null</code> if there is none
+     */
+    public DocumentView getView(String id) {
+        lock.readLock().lock();
+        try {
+            ByteBuffer encoded = find(id);
+            return encoded != null ? new DocumentView(encoded) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param id
+     *        key of the document
+     * @return whether a document is stored with the key
+     */
+    public boolean contains(String id) {
+        lock.readLock().lock();
+        try {
+            return find(id) != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of stored ids
+     */
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return index.count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private ByteBuffer find(String id) {
+        checkOpen();
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        long location = index.get(hash(id), key);
+        if (location < 0) {
+            return null;
+        }
+        Segment segment = segments.get((int) (location >>> 32));
+        int offset = (int) location;
+        int start = offset + RECORD_HEADER_SIZE + key.length;
+
+        ByteBuffer encoded = segment.buffer.duplicate();
+        ((Buffer) encoded).limit(start + segment.buffer.getInt(offset + 4));
+        ((Buffer) encoded).position(start);
+        return encoded;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("document store is closed");
+        }
+    }
+
+    /**
+     * @return 64 bit hash of the id, never 0
+     */
+    private static long hash(String id) {
+        // the variant bit is always set
+        return Murmur3.uuid(id).getLeastSignificantBits();
+    }
+
+    /**
+     * @return whether the record at <code>location</code> belongs to the id
+     */
+    private boolean matches(long location, byte[] key) {
+        MappedByteBuffer buffer = segments.get((int) (location >>> 32)).buffer;
+        int offset = (int) location;
+        if (buffer.getInt(offset) != key.length) {
+            return false;
+        }
+        offset += RECORD_HEADER_SIZE;
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(offset + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * forces the written documents and the index to disk
+     */
+    @Override
+    public void flush() {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            for (Segment segment : segments) {
+                segment.buffer.force();
+            }
+            index.force();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (!closed) {
+                flush();
+                closed = true;
+                closeFiles();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void closeFiles() throws IOException {
+        IOException failure = null;
+        for (Segment segment : segments) {
+            try {
+                segment.channel.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (index != null) {
+            try {
+                index.channel.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+    }
+
+    private static void checkHeader(MappedByteBuffer buffer, int magic, File file) throws IOException {
+        if (buffer.getInt(0) != magic || buffer.getInt(4) != VERSION) {
+            throw new IOException("not a document store file of version " + VERSION + ": " + file);
+        }
+    }
+
+    /**
+     * segment file: header with the end of the records, then records of id length, document length, UTF-8 id and
+     * encoded document
+     */
+    private static final class Segment {
+
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        int end;
+
+        Segment(File file, int size) throws IOException {
+            boolean created = !file.exists();
+            channel = new RandomAccessFile(file, "rw").getChannel();
+            try {
+                buffer = map(channel, 0, Math.max(channel.size(), size));
+                if (created) {
+                    buffer.putInt(0, SEGMENT_MAGIC);
+                    buffer.putInt(4, VERSION);
+                    setEnd(HEADER_SIZE);
+                } else {
+                    checkHeader(buffer, SEGMENT_MAGIC, file);
+                    end = (int) buffer.getLong(8);
+                }
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        void setEnd(int end) {
+            this.end = end;
+            buffer.putLong(8, end);
+        }
+    }
+
+    /**
+     * index file: header with the number of ids, then a power of two slots of hash and location (segment and offset)
+     */
+    private final class Index {
+
+        final File file;
+        final FileChannel channel;
+        final MappedByteBuffer[] chunks;
+        final long capacity;
+        long count;
+
+        /** opens an index */
+        Index(File file) throws IOException {
+            this.file = file;
+            this.channel = new RandomAccessFile(file, "rw").getChannel();
+            try {
+                this.capacity = (channel.size() - HEADER_SIZE) / SLOT_SIZE;
+                this.chunks = mapChunks(channel.size());
+                checkHeader(chunks[0], INDEX_MAGIC, file);
+                this.count = chunks[0].getLong(8);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /** creates an empty index, replacing the file */
+        Index(File file, long capacity) throws IOException {
+            this.file = file;
+            this.capacity = capacity;
+            Files.deleteIfExists(file.toPath());
+            this.channel = new RandomAccessFile(file, "rw").getChannel();
+            try {
+                this.chunks = mapChunks(HEADER_SIZE + capacity * SLOT_SIZE);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            chunks[0].putInt(0, INDEX_MAGIC);
+            chunks[0].putInt(4, VERSION);
+            chunks[0].putLong(8, 0);
+        }
+
+        private MappedByteBuffer[] mapChunks(long size) throws IOException {
+            int chunkSize = 1 << INDEX_CHUNK_BITS;
+            MappedByteBuffer[] mapped = new MappedByteBuffer[(int) ((size + chunkSize - 1) >>> INDEX_CHUNK_BITS)];
+            for (int i = 0; i < mapped.length; i++) {
+                long position = (long) i << INDEX_CHUNK_BITS;
+                mapped[i] = map(channel, position, Math.min(chunkSize, size - position));
+            }
+            return mapped;
+        }
+
+        private long getLong(long position) {
+            return chunks[(int) (position >>> INDEX_CHUNK_BITS)].getLong((int) (position & INDEX_CHUNK_MASK));
+        }
+
+        private void putLong(long position, long value) {
+            chunks[(int) (position >>> INDEX_CHUNK_BITS)].putLong((int) (position & INDEX_CHUNK_MASK), value);
+        }
+
+        private long slot(long hash) {
+            return hash & (capacity - 1);
+        }
+
+        private long position(long slot) {
+            return HEADER_SIZE + slot * SLOT_SIZE;
+        }
+
+        /**
+         * @return location of the id or -1
+         */
+        long get(long hash, byte[] key) {
+            for (long slot = slot(hash);; slot = slot(slot + 1)) {
+                long slotHash = getLong(position(slot));
+                if (slotHash == 0) {
+                    return -1;
+                }
+                if (slotHash == hash) {
+                    long location = getLong(position(slot) + 8);
+                    if (matches(location, key)) {
+                        return location;
+                    }
+                }
+            }
+        }
+
+        /**
+         * @param key
+         *        id to compare on equal hashes, <code>null</code> if the id isn't in the index
+         */
+        void put(long hash, byte[] key, long location) {
+            for (long slot = slot(hash);; slot = slot(slot + 1)) {
+                long position = position(slot);
+                long slotHash = getLong(position);
+                if (slotHash == 0) {
+                    putLong(position + 8, location);
+                    putLong(position, hash);
+                    count++;
+                    chunks[0].putLong(8, count);
+                    return;
+                }
+                if (slotHash == hash && key != null && matches(getLong(position + 8), key)) {
+                    putLong(position + 8, location);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * @return index of twice the capacity with the same ids, replacing this one
+         */
+        Index grow() throws IOException {
+            File grown = new File(file.getPath() + ".tmp");
+            Index index = new Index(grown, capacity * 2);
+            try {
+                for (long slot = 0; slot < capacity; slot++) {
+                    long hash = getLong(position(slot));
+                    if (hash != 0) {
+                        index.put(hash, null, getLong(position(slot) + 8));
+                    }
+                }
+                index.force();
+                Files.move(grown.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                index.channel.close();
+                throw e;
+            }
+            channel.close();
+            return new Index(file, index);
+        }
+
+        /** the grown index under the name of the replaced one */
+        private Index(File file, Index grown) {
+            this.file = file;
+            this.channel = grown.channel;
+            this.chunks = grown.chunks;
+            this.capacity = grown.capacity;
+            this.count = grown.count;
+        }
+
+        void force() {
+            for (MappedByteBuffer chunk : chunks) {
+                chunk.force();
+            }
+        }
+    }
+
+}
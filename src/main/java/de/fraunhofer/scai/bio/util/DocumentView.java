@@ -0,0 +1,271 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.util;
+
+import java.nio.ByteBuffer;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.Provenance;
+import de.fraunhofer.scai.bio.types.text.doc.container.BackMatter;
+import de.fraunhofer.scai.bio.types.text.doc.container.BodyMatter;
+import de.fraunhofer.scai.bio.types.text.doc.container.FrontMatter;
+import de.fraunhofer.scai.bio.types.text.doc.container.Section;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Annotation;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Concept;
+import de.fraunhofer.scai.bio.types.text.doc.meta.MetaElement;
+import de.fraunhofer.scai.bio.types.text.doc.structure.TextElement;
+
+/**
+ * Lazy view of a {@link Document} encoded with {@link DocumentCodec}, which decodes single branches on demand instead
+ * of the whole document.
+ * <p>
+ * Creating a view only indexes the string dictionary and the provenance table and locates the meta, front, body and
+ * back matter, the bytes are neither copied nor decoded. The matters and the body sections are length prefixed in the
+ * encoding, so each of them is decoded without touching the others, and dictionary strings and provenances are
+ * decoded when a branch refers to them. The annotations of the text elements in the decoded branches are left out,
+ * {@link #getAnnotations(TextElement)} decodes them for a single element of the branch decoded last.
+ * {@link #toDocument()} decodes everything.
+ * <p>
+ * Typical use is filtering or faceting a corpus by a few fields, e.g. over the mapped buffers of a
+ * {@link DocumentStore}:
+ *
+ * <pre>
+ * DocumentView view = store.getView(id);
+ * if ("PUBMED_ABSTRACT".equals(view.getDocType())) {
+ *     Section first = view.getSection(0);
+ * }
+ * </pre>
+ *
+ * Each call decodes the branch again. The buffer must not change while the view is used; a view is not thread safe.
+ */
+public class DocumentView {
+
+    private static final int META = 0;
+    private static final int FRONT = 1;
+    private static final int BODY = 2;
+    private static final int BACK = 3;
+
+    private final ByteBuffer encoded;
+    private final DocumentDecoder decoder;
+    /** annotation offsets of the text elements of the branch decoded last, by identity */
+    private final Map<TextElement, Integer> annotations = new IdentityHashMap<TextElement, Integer>();
+
+    private final Provenance provenance;
+    private final String docType;
+    private final String originalMimeType;
+    private final boolean hasDocumentElement;
+    /** positions of meta, front, body and back matter, -1 if missing */
+    private final int[] matters = { -1, -1, -1, -1 };
+    /** positions of the body sections, located on first use */
+    private int[] sections;
+
+    /**
+     * @param encoded
+     *        encoded document
+     * @throws IllegalArgumentException
+     *         if the data isn't an encoded document of a supported version
+     */
+    public DocumentView(byte[] encoded) {
+        this(ByteBuffer.wrap(encoded));
+    }
+
+    /**
+     * @param encoded
+     *        encoded document between position and limit, the position is not changed
+     * @throws IllegalArgumentException
+     *         if the data isn't an encoded document of a supported version
+     */
+    public DocumentView(ByteBuffer encoded) {
+        this.encoded = encoded.slice();
+        this.decoder = new DocumentDecoder(this.encoded);
+        decoder.readHeader();
+        provenance = decoder.readDocumentProvenance();
+        docType = decoder.readSymbol();
+        originalMimeType = decoder.readSymbol();
+
+        int mask = decoder.readMask();
+        hasDocumentElement = mask != 0;
+        for (int matter = META; matter <= BACK; matter++) {
+            if ((mask & 2 << matter) != 0) {
+                matters[matter] = decoder.position();
+                decoder.skipBlock();
+            }
+        }
+        decoder.deferAnnotations(annotations);
+    }
+
+    /**
+     * @return {@link Document#getDocType()}
+     */
+    public String getDocType() {
+        return docType;
+    }
+
+    /**
+     * @return {@link Document#getOriginalMimeType()}
+     */
+    public String getOriginalMimeType() {
+        return originalMimeType;
+    }
+
+    /**
+     * @return {@link Document#getProvenance()}
+     */
+    public Provenance getProvenance() {
+        return provenance;
+    }
+
+    /**
+     * @return whether the document has a {@link de.fraunhofer.scai.bio.types.text.doc.DocumentElement}
+     */
+    public boolean hasDocumentElement() {
+        return hasDocumentElement;
+    }
+
+    /**
+     * @return the decoded {@link MetaElement} without annotations or <code>null</code>
+     */
+    public MetaElement getMetaElement() {
+        if (matters[META] < 0) {
+            return null;
+        }
+        seek(matters[META]);
+        return decoder.readMetaElement();
+    }
+
+    /**
+     * @return text of the identifier of the document {@link Concept} or <code>null</code>, see
+     *         {@link DocumentBuilder#getConceptIdentifier(Document)}
+     */
+    public String getConceptIdentifier() {
+        MetaElement meta = getMetaElement();
+        Concept concept = meta != null ? meta.getConcept() : null;
+        return concept != null && concept.getIdentifier() != null ? concept.getIdentifier().getText() : null;
+    }
+
+    /**
+     * @return the decoded {@link FrontMatter} without annotations or <code>null</code>
+     */
+    public FrontMatter getFrontMatter() {
+        if (matters[FRONT] < 0) {
+            return null;
+        }
+        seek(matters[FRONT]);
+        return decoder.readFrontMatter();
+    }
+
+    /**
+     * @return the decoded {@link BodyMatter} without annotations or <code>null</code>
+     */
+    public BodyMatter getBodyMatter() {
+        if (matters[BODY] < 0) {
+            return null;
+        }
+        seek(matters[BODY]);
+        return decoder.readBodyMatter();
+    }
+
+    /**
+     * @return the decoded {@link BackMatter} without annotations or <code>null</code>
+     */
+    public BackMatter getBackMatter() {
+        if (matters[BACK] < 0) {
+            return null;
+        }
+        seek(matters[BACK]);
+        return decoder.readBackMatter();
+    }
+
+    /**
+     * @return number of sections of the body matter, without the sections of its chapters
+     */
+    public int getSectionCount() {
+        return sections().length;
+    }
+
+    /**
+     * @param index
+     *        index of the section in {@link BodyMatter#getSections()}
+     * @return the decoded {@link Section} without annotations, <code>null</code> if the list holds <code>null</code>
+     * @throws IndexOutOfBoundsException
+     *         if there is no such section
+     */
+    public Section getSection(int index) {
+        int[] positions = sections();
+        if (index < 0 || index >= positions.length) {
+            throw new IndexOutOfBoundsException("section " + index + " of " + positions.length);
+        }
+        seek(positions[index]);
+        return decoder.readSection();
+    }
+
+    /**
+     * position the decoder at a branch, the annotation offsets of the branch decoded before are dropped
+     */
+    private void seek(int position) {
+        annotations.clear();
+        decoder.position(position);
+    }
+
+    private int[] sections() {
+        if (sections == null) {
+            sections = new int[0];
+            if (matters[BODY] >= 0) {
+                decoder.position(matters[BODY]);
+                int mask = decoder.enterBlock();
+                if ((mask & 2) != 0) {
+                    decoder.skipChapters();
+                }
+                int size = (mask & 4) != 0 ? decoder.readListSize() : -1;
+                if (size > 0) {
+                    sections = new int[size];
+                    for (int i = 0; i < size; i++) {
+                        sections[i] = decoder.position();
+                        decoder.skipBlock();
+                    }
+                }
+            }
+        }
+        return sections;
+    }
+
+    /**
+     * Only the branch returned last keeps its annotations, decoding another branch (including
+     * {@link #getConceptIdentifier()}) drops those of the one before.
+     *
+     * @param textElement
+     *        text element of the branch decoded last by this view
+     * @return its decoded annotations, <code>null</code> if it has none
+     * @throws IllegalStateException
+     *         if the element isn't part of the branch decoded last, e.g. because another branch was decoded since
+     */
+    public Set<Annotation> getAnnotations(TextElement textElement) {
+        Integer position = annotations.get(textElement);
+        if (position == null) {
+            throw new IllegalStateException("text element isn't part of the branch decoded last");
+        }
+        return position >= 0 ? decoder.readAnnotationsAt(position) : null;
+    }
+
+    /**
+     * @return the whole decoded {@link Document}, equal to {@link DocumentCodec#decode(ByteBuffer)}
+     */
+    public Document toDocument() {
+        return DocumentCodec.decode(encoded);
+    }
+
+}
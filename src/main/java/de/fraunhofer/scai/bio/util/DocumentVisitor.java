@@ -0,0 +1,34 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.util;
+
+import de.fraunhofer.scai.bio.types.text.doc.structure.TextElement;
+
+/**
+ * Callback for {@link DocumentWalker}, receives the {@link TextElement}s of a document in document order.
+ */
+@FunctionalInterface
+public interface DocumentVisitor {
+
+    /**
+     * @param textElement
+     *        {@link TextElement}, never <code>null</code>
+     * @param role
+     *        {@link TextElementRole} of the element at this place
+     * @param depth
+     *        depth of the enclosing section, 0 outside of sections
+     */
+    void visit(TextElement textElement, TextElementRole role, int depth);
+
+}
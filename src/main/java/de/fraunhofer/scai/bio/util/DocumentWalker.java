@@ -0,0 +1,335 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.util;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.types.text.doc.DocumentElement;
+import de.fraunhofer.scai.bio.types.text.doc.container.BackMatter;
+import de.fraunhofer.scai.bio.types.text.doc.container.BodyMatter;
+import de.fraunhofer.scai.bio.types.text.doc.container.Chapter;
+import de.fraunhofer.scai.bio.types.text.doc.container.FrontMatter;
+import de.fraunhofer.scai.bio.types.text.doc.container.Paragraph;
+import de.fraunhofer.scai.bio.types.text.doc.container.Section;
+import de.fraunhofer.scai.bio.types.text.doc.container.StructureElement;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Abstract;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Bibliography;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Reference;
+import de.fraunhofer.scai.bio.types.text.doc.structure.Cell;
+import de.fraunhofer.scai.bio.types.text.doc.structure.PMCTable;
+import de.fraunhofer.scai.bio.types.text.doc.structure.Sentence;
+import de.fraunhofer.scai.bio.types.text.doc.structure.Table;
+import de.fraunhofer.scai.bio.types.text.doc.structure.TextElement;
+
+/**
+ * Walks the text carrying parts of a {@link Document} in document order and hands every {@link TextElement} to a
+ * {@link DocumentVisitor}: the title and abstract of the {@link FrontMatter}, chapters and sections of the
+ * {@link BodyMatter} and the references of the {@link BackMatter} bibliography. This is the same set of elements
+ * {@link DocumentRenderer#getDocumentTextElements(Document)} collects, but no intermediate maps are built.
+ * <p>
+ * Elements are visited once per place they occur, the walker does not deduplicate by {@link java.util.UUID}.
+ */
+public class DocumentWalker {
+
+    private DocumentWalker() {
+    }
+
+    /**
+     * visit all {@link TextElement}s of the document
+     *
+     * @param document
+     *        {@link Document}
+     * @param visitor
+     *        {@link DocumentVisitor}
+     */
+    public static void walk(Document document, DocumentVisitor visitor) {
+        if (document == null) {
+            return;
+        }
+
+        DocumentElement de = document.getDocumentElement();
+        if (de != null) {
+            walkFrontMatter(de.getFrontMatter(), visitor);
+            walkBodyMatter(de.getBodyMatter(), visitor);
+            walkBackMatter(de.getBackMatter(), visitor);
+        }
+    }
+
+    /**
+     * hand every {@link Section} of the document to the action in document order: the abstract of the
+     * {@link FrontMatter}, the abstract, chapters and sections of the {@link BodyMatter} and the sections of the
+     * {@link BackMatter}. Unlike {@link #walk(Document, DocumentVisitor)} this covers all section containers, use it
+     * for work on the content of sections rather than on their text.
+     *
+     * @param document
+     *        {@link Document}
+     * @param action
+     *        called with each non-<code>null</code> {@link Section}
+     */
+    // older documents still keep sections in the deprecated body matter abstract
+    @SuppressWarnings("deprecation")
+    public static void forEachSection(Document document, Consumer<Section> action) {
+        DocumentElement de = document != null ? document.getDocumentElement() : null;
+        if (de == null) {
+            return;
+        }
+
+        if (de.getFrontMatter() != null) {
+            forEachSection(de.getFrontMatter().getDocumentAbstract(), action);
+        }
+        BodyMatter bodyMatter = de.getBodyMatter();
+        if (bodyMatter != null) {
+            forEachSection(bodyMatter.getDocAbstract(), action);
+            if (bodyMatter.getChapters() != null) {
+                for (Chapter chapter : bodyMatter.getChapters()) {
+                    if (chapter != null) {
+                        forEachSection(chapter.getSections(), action);
+                    }
+                }
+            }
+            forEachSection(bodyMatter.getSections(), action);
+        }
+        if (de.getBackMatter() != null) {
+            forEachSection(de.getBackMatter().getSections(), action);
+        }
+    }
+
+    private static void forEachSection(Abstract docAbstract, Consumer<Section> action) {
+        if (docAbstract != null) {
+            forEachSection(docAbstract.getAbstractSections(), action);
+        }
+    }
+
+    private static void forEachSection(List<Section> sections, Consumer<Section> action) {
+        if (sections != null) {
+            for (Section section : sections) {
+                if (section != null) {
+                    action.accept(section);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param frontMatter
+     *        {@link FrontMatter}
+     * @param visitor
+     *        {@link DocumentVisitor}
+     */
+    public static void walkFrontMatter(FrontMatter frontMatter, DocumentVisitor visitor) {
+        if (frontMatter != null) {
+            visit(visitor, frontMatter.getTitleText(), TextElementRole.FRONT_MATTER_TITLE, 0);
+
+            if (frontMatter.getDocumentAbstract() != null) {
+                walkSections(frontMatter.getDocumentAbstract().getAbstractSections(), visitor);
+            }
+        }
+    }
+
+    /**
+     * @param bodyMatter
+     *        {@link BodyMatter}
+     * @param visitor
+     *        {@link DocumentVisitor}
+     */
+    public static void walkBodyMatter(BodyMatter bodyMatter, DocumentVisitor visitor) {
+        if (bodyMatter != null) {
+            walkChapters(bodyMatter.getChapters(), visitor);
+            walkSections(bodyMatter.getSections(), visitor);
+        }
+    }
+
+    /**
+     * only the bibliography is visited, in the order of its references
+     *
+     * @param backMatter
+     *        {@link BackMatter}
+     * @param visitor
+     *        {@link DocumentVisitor}
+     */
+    public static void walkBackMatter(BackMatter backMatter, DocumentVisitor visitor) {
+        if (backMatter != null) {
+            Bibliography bib = backMatter.getBibliography();
+
+            if (bib != null && bib.getReferences() != null) {
+                for (Map.Entry<String, Reference> ref : bib.getReferences().entrySet()) {
+                    walkReference(ref.getValue(), visitor);
+                }
+            }
+        }
+    }
+
+    public static void walkChapters(List<Chapter> chapters, DocumentVisitor visitor) {
+        if (chapters != null) {
+            for (Chapter chapter : chapters) {
+                if (chapter != null) {
+                    walkSections(chapter.getSections(), visitor);
+                }
+            }
+        }
+    }
+
+    public static void walkSections(List<Section> sections, DocumentVisitor visitor) {
+        if (sections != null) {
+            for (Section sec : sections) {
+                if (sec != null) {
+                    visit(visitor, sec.getTitle(), TextElementRole.SECTION_TITLE, sec.getDepth());
+                    walkParagraphs(sec.getParagraphs(), sec.getDepth(), visitor);
+                }
+            }
+        }
+    }
+
+    public static void walkParagraphs(List<Paragraph> paragraphs, int depth, DocumentVisitor visitor) {
+        if (paragraphs != null) {
+            for (Paragraph par : paragraphs) {
+                if (par != null) {
+                    walkStructureElements(par.getStructureElements(), depth, visitor);
+                }
+            }
+        }
+    }
+
+    public static void walkSentences(List<Sentence> sentences, int depth, DocumentVisitor visitor) {
+        if (sentences != null) {
+            for (Sentence sentence : sentences) {
+                if (sentence != null) {
+                    visit(visitor, sentence.getText(), TextElementRole.SENTENCE, depth);
+                }
+            }
+        }
+    }
+
+    /**
+     * only the first non-empty field of a {@link StructureElement} is visited, like
+     * {@link DocumentRenderer#getStructureElementsTextElements(List)} does
+     *
+     * @param structureElements
+     *        <code>List</code> of {@link StructureElement}
+     * @param depth
+     *        depth of the enclosing section
+     * @param visitor
+     *        {@link DocumentVisitor}
+     */
+    // older documents and the Elsevier reader still carry text in the deprecated Table
+    @SuppressWarnings("deprecation")
+    public static void walkStructureElements(List<StructureElement> structureElements, int depth,
+            DocumentVisitor visitor) {
+        if (structureElements == null) {
+            return;
+        }
+
+        for (StructureElement sel : structureElements) {
+            if (sel == null) {
+                continue;
+            }
+
+            if (sel.getCaptionedBox() != null) {
+                visit(visitor, sel.getCaptionedBox().getTitle(), TextElementRole.CAPTIONED_BOX_TITLE, depth);
+                visit(visitor, sel.getCaptionedBox().getCaption(), TextElementRole.CAPTIONED_BOX_CAPTION, depth);
+
+            } else if (sel.getCode() != null) {
+                visit(visitor, sel.getCode().getCode(), TextElementRole.CODE, depth);
+
+            } else if (sel.getDataTable() != null) {
+                visit(visitor, sel.getDataTable().getContent(), TextElementRole.DATA_TABLE_CONTENT, depth);
+
+            } else if (sel.getFigure() != null) {
+                visit(visitor, sel.getFigure().getTitle(), TextElementRole.FIGURE_TITLE, depth);
+                visit(visitor, sel.getFigure().getCaption(), TextElementRole.FIGURE_CAPTION, depth);
+
+            } else if (sel.getFormula() != null) {
+                visit(visitor, sel.getFormula().getFormula(), TextElementRole.FORMULA, depth);
+
+            } else if (sel.getOutline() != null) {
+                visit(visitor, sel.getOutline().getTitleText(), TextElementRole.OUTLINE_TITLE_TEXT, depth);
+
+            } else if (sel.getQuotation() != null) {
+                visit(visitor, sel.getQuotation().getLabel(), TextElementRole.QUOTATION, depth);
+
+            } else if (sel.getTable() != null) {
+                Table table = sel.getTable();
+                visit(visitor, table.getTitle(), TextElementRole.TABLE_TITLE, depth);
+                visit(visitor, table.getText(), TextElementRole.TABLE_TEXT, depth);
+                visit(visitor, table.getCaption(), TextElementRole.TABLE_CAPTION, depth);
+                if (table.getHeaders() != null) {
+                    for (TextElement header : table.getHeaders()) {
+                        visit(visitor, header, TextElementRole.TABLE_HEADER, depth);
+                    }
+                }
+
+            } else if (sel.getPmcTable() != null) {
+                PMCTable table = sel.getPmcTable();
+                visit(visitor, table.getCaption(), TextElementRole.PMC_TABLE_CAPTION, depth);
+                if (table.getCells() != null) {
+                    for (Cell cell : table.getCells()) {
+                        if (cell != null) {
+                            visit(visitor, cell.getContent(), TextElementRole.PMC_TABLE_CELL, depth);
+                        }
+                    }
+                }
+
+            } else if (sel.getSentence() != null) {
+                visit(visitor, sel.getSentence().getText(), TextElementRole.SENTENCE, depth);
+
+            } else if (sel.getTextElement() != null) {
+                visit(visitor, sel.getTextElement(), TextElementRole.TEXT_ELEMENT, depth);
+
+            } else if (sel.getList() != null) {
+                visit(visitor, sel.getList().getTitle(), TextElementRole.LIST_TITLE, depth);
+                if (sel.getList().getItems() != null) {
+                    for (TextElement element : sel.getList().getItems()) {
+                        visit(visitor, element, TextElementRole.LIST_ELEMENT, depth);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param reference
+     *        {@link Reference}
+     * @param visitor
+     *        {@link DocumentVisitor}
+     */
+    public static void walkReference(Reference reference, DocumentVisitor visitor) {
+        if (reference == null) {
+            return;
+        }
+
+        if (reference.getTitle() != null) {
+            visit(visitor, reference.getTitle().getTitleText(), TextElementRole.REFERENCE_TITLE, 0);
+            visit(visitor, reference.getTitle().getSubTitleText(), TextElementRole.REFERENCE_SUBTITLE, 0);
+        }
+        visit(visitor, reference.getLanguage(), TextElementRole.REFERENCE_LANGUAGE, 0);
+        if (reference.getPublicationIds() != null) {
+            for (TextElement element : reference.getPublicationIds()) {
+                visit(visitor, element, TextElementRole.REFERENCE_PUBLICATION_ID, 0);
+            }
+        }
+        visit(visitor, reference.getPublicationType(), TextElementRole.REFERENCE_PUBLICATION_TYPE, 0);
+        visit(visitor, reference.getReferenceSource(), TextElementRole.REFERENCE_SOURCE, 0);
+        visit(visitor, reference.getLink(), TextElementRole.REFERENCE_LINK, 0);
+    }
+
+    private static void visit(DocumentVisitor visitor, TextElement textElement, TextElementRole role, int depth) {
+        if (textElement != null) {
+            visitor.visit(textElement, role, depth);
+        }
+    }
+
+}
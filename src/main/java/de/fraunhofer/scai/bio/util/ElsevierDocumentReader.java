@@ -0,0 +1,894 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.types.text.doc.container.Paragraph;
+import de.fraunhofer.scai.bio.types.text.doc.container.Section;
+import de.fraunhofer.scai.bio.types.text.doc.container.StructureElement;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Abstract;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Affiliation;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Author;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Date;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Reference;
+import de.fraunhofer.scai.bio.types.text.doc.structure.Table;
+import de.fraunhofer.scai.bio.types.text.doc.structure.TextElement;
+
+/**
+ * Imports an Elsevier full text retrieval response (the XML of the Elsevier article API) into a {@link Document}.
+ * <p>
+ * The XML is read with StAX in one pass and every element is handed to the {@link DocumentBuilder} as soon as it is
+ * complete, so only the text of the current paragraph and the figures and tables waiting for their anchor are
+ * buffered. Mapped are:
+ * <ul>
+ * <li>coredata: title, DOI, PII, journal, cover date, ISSN and copyright, the PubMed id</li>
+ * <li>head: authors with affiliations, the author abstract and the keywords</li>
+ * <li>body: the (nested) sections and their paragraphs split into sentences, the acknowledgment goes into the back
+ * matter</li>
+ * <li>floats: figures and tables, placed behind the paragraph anchoring them</li>
+ * <li>tail: the bibliography and appendices</li>
+ * </ul>
+ * Element names are matched with their usual prefixes (<code>ce:</code>, <code>sb:</code>, ...), the input is parsed
+ * without namespaces since dumps often lack the declarations, and stray <code>&lt;</code> and <code>&amp;</code> in
+ * the text are tolerated. The reader is thread safe if its {@link DocumentBuilder} is.
+ */
+public class ElsevierDocumentReader {
+
+    /** identifier source of the imported documents, the identifier is the DOI */
+    public static final String DOI_SOURCE = "https://doi.org/";
+
+    private static final XMLInputFactory FACTORY = XMLStreamSupport.createFactory();
+
+    private final DocumentBuilder builder;
+
+    /**
+     * reader with its own {@link DocumentBuilder}
+     */
+    public ElsevierDocumentReader() {
+        this(new DocumentBuilder());
+    }
+
+    /**
+     * @param builder
+     *        {@link DocumentBuilder} creating the document elements
+     */
+    public ElsevierDocumentReader(DocumentBuilder builder) {
+        this.builder = builder;
+    }
+
+    /**
+     * @param file
+     *        UTF-8 encoded XML
+     * @return the {@link Document}, with the file as provenance source
+     * @throws IOException
+     *         if the file can't be read or isn't Elsevier XML
+     */
+    public Document read(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            Document document = read(in);
+            document.getProvenance().setSource(file.toURI().toString());
+            return document;
+        }
+    }
+
+    /**
+     * @param in
+     *        UTF-8 encoded XML, not closed
+     * @return the {@link Document}
+     * @throws IOException
+     *         if the stream can't be read or isn't Elsevier XML
+     */
+    public Document read(InputStream in) throws IOException {
+        return read(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16));
+    }
+
+    /**
+     * @param reader
+     *        XML, not closed
+     * @return the {@link Document}
+     * @throws IOException
+     *         if the reader fails or the XML isn't Elsevier XML
+     */
+    public Document read(Reader reader) throws IOException {
+        XMLStreamReader xml = null;
+        try {
+            xml = FACTORY.createXMLStreamReader(new LenientXMLReader(reader));
+            return new Import(xml).run();
+        } catch (XMLStreamException e) {
+            throw new IOException("invalid Elsevier XML: " + e.getMessage(), e);
+        } finally {
+            if (xml != null) {
+                try {
+                    xml.close();
+                } catch (XMLStreamException e) {
+                    // nothing left to read
+                }
+            }
+        }
+    }
+
+    /**
+     * the state of one import
+     */
+    private final class Import {
+
+        private final XMLStreamReader xml;
+        private final Document document = new Document();
+
+        private String title;
+        private String doi;
+        private String pii;
+        private String pubmedId;
+        private String journal;
+        private String volume;
+        private String pages;
+        private String coverDate;
+        private String issn;
+        private String copyright;
+        private String description;
+        private String language;
+        private final List<String> creators = new ArrayList<String>();
+        private boolean hasAuthors;
+        private boolean hasAbstract;
+
+        /** sections after the begin of the tail go to the back matter */
+        private boolean back;
+
+        /** figures and tables by id, until they are anchored */
+        private final Map<String, StructureElement> floats = new LinkedHashMap<String, StructureElement>();
+        private final List<Paragraph> anchoringParagraphs = new ArrayList<Paragraph>();
+        private final List<List<String>> anchors = new ArrayList<List<String>>();
+
+        Import(XMLStreamReader xml) {
+            this.xml = xml;
+        }
+
+        Document run() throws XMLStreamException {
+            while (xml.hasNext()) {
+                if (xml.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                switch (name()) {
+                case "coredata":
+                    coredata();
+                    break;
+                case "pubmed-id":
+                    pubmedId = text();
+                    break;
+                case "article":
+                    language = attribute("xml:lang");
+                    break;
+                case "ce:title":
+                    if (title == null) {
+                        title = text();
+                    }
+                    break;
+                case "ce:floats":
+                    floats();
+                    break;
+                case "ce:author-group":
+                    authors();
+                    break;
+                case "ce:abstract":
+                    documentAbstract();
+                    break;
+                case "ce:keywords":
+                    keywords();
+                    break;
+                case "ce:section":
+                    section(0);
+                    break;
+                case "ce:acknowledgment":
+                    back = true;
+                    section(0);
+                    break;
+                case "tail":
+                    back = true;
+                    break;
+                case "ce:bib-reference":
+                    reference();
+                    break;
+                case "xocs:meta":
+                case "objects":
+                    skip();
+                    break;
+                default:
+                    break;
+                }
+            }
+            finish();
+            return document;
+        }
+
+        private void coredata() throws XMLStreamException {
+            while (nextChild()) {
+                switch (name()) {
+                case "dc:title":
+                    title = text();
+                    break;
+                case "prism:doi":
+                    doi = text();
+                    break;
+                case "pii":
+                    pii = text();
+                    break;
+                case "prism:publicationName":
+                    journal = text();
+                    break;
+                case "prism:volume":
+                    volume = text();
+                    break;
+                case "prism:pageRange":
+                    pages = text();
+                    break;
+                case "prism:coverDate":
+                    coverDate = text();
+                    break;
+                case "prism:issn":
+                    issn = text();
+                    break;
+                case "prism:copyright":
+                    copyright = text();
+                    break;
+                case "dc:creator":
+                    creators.add(text());
+                    break;
+                case "dc:description":
+                    description = text();
+                    break;
+                default:
+                    skip();
+                }
+            }
+        }
+
+        private void floats() throws XMLStreamException {
+            while (nextChild()) {
+                String id = attribute("id");
+                switch (name()) {
+                case "ce:figure":
+                    figure(id);
+                    break;
+                case "ce:table":
+                    table(id);
+                    break;
+                default:
+                    skip();
+                }
+            }
+        }
+
+        private void figure(String id) throws XMLStreamException {
+            String label = null;
+            String caption = null;
+            while (nextChild()) {
+                switch (name()) {
+                case "ce:label":
+                    label = text();
+                    break;
+                case "ce:caption":
+                    caption = text();
+                    break;
+                default:
+                    skip();
+                }
+            }
+
+            StructureElement structureElement = new StructureElement();
+            structureElement.setFigure(builder.createFigure("figure", caption, label, null));
+            floats.put(id, structureElement);
+        }
+
+        // only the deprecated Table keeps a header per column, which the row maps of ce:table need
+        @SuppressWarnings("deprecation")
+        private void table(String id) throws XMLStreamException {
+            String label = null;
+            String caption = null;
+            StringBuilder footnotes = new StringBuilder();
+            List<String> headers = new ArrayList<String>();
+            List<Map<String, String>> rows = new ArrayList<Map<String, String>>();
+
+            while (nextChild()) {
+                switch (name()) {
+                case "ce:label":
+                    label = text();
+                    break;
+                case "ce:caption":
+                    caption = text();
+                    break;
+                case "ce:legend":
+                case "ce:table-footnote":
+                    append(footnotes, text());
+                    break;
+                case "tgroup":
+                    tableGroup(headers, rows);
+                    break;
+                default:
+                    skip();
+                }
+            }
+
+            // rows of one tgroup have no cells in the columns of the others
+            for (int i = 0; i < rows.size(); i++) {
+                if (rows.get(i).size() < headers.size()) {
+                    Map<String, String> row = new LinkedHashMap<String, String>();
+                    for (String header : headers) {
+                        String cell = rows.get(i).get(header);
+                        row.put(header, cell != null ? cell : "");
+                    }
+                    rows.set(i, row);
+                }
+            }
+
+            Table table = builder.createTable("table", caption, label);
+            table.setTableId(id);
+            List<TextElement> headerElements = new ArrayList<TextElement>();
+            for (String header : headers) {
+                headerElements.add(builder.createTextElement(header));
+            }
+            table.setHeaders(headerElements);
+            table.setRows(rows);
+            if (footnotes.length() > 0) {
+                table.setText(builder.createTextElement(footnotes.toString()));
+            }
+
+            StructureElement structureElement = new StructureElement();
+            structureElement.setTable(table);
+            floats.put(id, structureElement);
+        }
+
+        /**
+         * the header is made of the head rows, the rows map the header of each column to the cell text; the columns
+         * of a tgroup are appended to those of the tgroups before
+         */
+        private void tableGroup(List<String> headers, List<Map<String, String>> rows) throws XMLStreamException {
+            Map<String, Integer> columns = new HashMap<String, Integer>();
+            List<List<String>> head = new ArrayList<List<String>>();
+            List<List<String>> body = new ArrayList<List<String>>();
+
+            while (nextChild()) {
+                switch (name()) {
+                case "colspec":
+                    columns.put(attribute("colname"), columns.size());
+                    skip();
+                    break;
+                case "thead":
+                    tableRows(columns, head);
+                    break;
+                case "tbody":
+                    tableRows(columns, body);
+                    break;
+                default:
+                    skip();
+                }
+            }
+
+            int width = columns.size();
+            for (List<String> row : head) {
+                width = Math.max(width, row.size());
+            }
+            for (List<String> row : body) {
+                width = Math.max(width, row.size());
+            }
+
+            int offset = headers.size();
+            for (int column = 0; column < width; column++) {
+                StringBuilder header = new StringBuilder();
+                for (List<String> row : head) {
+                    append(header, column < row.size() ? row.get(column) : null);
+                }
+                String name = header.length() > 0 ? header.toString() : "column " + (column + 1);
+                while (headers.contains(name)) {
+                    name = name + " (" + (column + 1) + ")";
+                }
+                headers.add(name);
+            }
+
+            for (List<String> cells : body) {
+                Map<String, String> row = new LinkedHashMap<String, String>();
+                for (int column = 0; column < width; column++) {
+                    String cell = column < cells.size() ? cells.get(column) : null;
+                    row.put(headers.get(offset + column), cell != null ? cell : "");
+                }
+                rows.add(row);
+            }
+        }
+
+        private void tableRows(Map<String, Integer> columns, List<List<String>> rows) throws XMLStreamException {
+            while (nextChild()) {
+                if (!"row".equals(name())) {
+                    skip();
+                    continue;
+                }
+                List<String> cells = new ArrayList<String>();
+                while (nextChild()) {
+                    if (!"entry".equals(name())) {
+                        skip();
+                        continue;
+                    }
+                    String colname = attribute("colname");
+                    if (colname == null) {
+                        colname = attribute("namest");
+                    }
+                    Integer column = columns.get(colname);
+                    int index = column != null ? column : cells.size();
+                    while (cells.size() <= index) {
+                        cells.add(null);
+                    }
+                    cells.set(index, text());
+                }
+                rows.add(cells);
+            }
+        }
+
+        private void authors() throws XMLStreamException {
+            List<String[]> names = new ArrayList<String[]>();
+            List<List<String>> references = new ArrayList<List<String>>();
+            Map<String, String> affiliations = new LinkedHashMap<String, String>();
+
+            while (nextChild()) {
+                switch (name()) {
+                case "ce:author":
+                    List<String> refids = new ArrayList<String>();
+                    names.add(person(refids));
+                    references.add(refids);
+                    break;
+                case "ce:affiliation":
+                    String id = attribute("id");
+                    String affiliation = null;
+                    while (nextChild()) {
+                        if ("ce:textfn".equals(name())) {
+                            affiliation = text();
+                        } else {
+                            skip();
+                        }
+                    }
+                    if (affiliation != null) {
+                        affiliations.put(id, affiliation);
+                    }
+                    break;
+                default:
+                    skip();
+                }
+            }
+
+            for (int i = 0; i < names.size(); i++) {
+                Author author = builder.createAuthor(names.get(i)[0], names.get(i)[1]);
+                Affiliation affiliation = new Affiliation();
+                for (String refid : references.get(i)) {
+                    if (affiliations.containsKey(refid)) {
+                        affiliation.addAffiliationInfo(affiliations.get(refid));
+                    }
+                }
+                // without references a single affiliation is everybody's
+                if (affiliation.getAffiliationInfos() == null && affiliations.size() == 1) {
+                    affiliation.addAffiliationInfo(affiliations.values().iterator().next());
+                }
+                if (affiliation.getAffiliationInfos() != null) {
+                    author.setOrganization(affiliation);
+                }
+                builder.getBibliographic(document).addAuthor(author);
+                hasAuthors = true;
+            }
+        }
+
+        /**
+         * @param refids
+         *        receives the cross reference ids, <code>null</code> to ignore them
+         * @return given name and surname
+         */
+        private String[] person(List<String> refids) throws XMLStreamException {
+            String[] name = new String[2];
+            while (nextChild()) {
+                switch (name()) {
+                case "ce:given-name":
+                    name[0] = text();
+                    break;
+                case "ce:surname":
+                    name[1] = text();
+                    break;
+                case "ce:cross-ref":
+                case "ce:cross-refs":
+                    if (refids != null && attribute("refid") != null) {
+                        for (String refid : attribute("refid").split("\\s+")) {
+                            refids.add(refid);
+                        }
+                    }
+                    skip();
+                    break;
+                default:
+                    skip();
+                }
+            }
+            return name;
+        }
+
+        private void documentAbstract() throws XMLStreamException {
+            String type = attribute("class");
+            if (hasAbstract || type != null && !"author".equals(type)) {
+                // graphical abstracts and highlights
+                skip();
+                return;
+            }
+
+            Abstract documentAbstract = new Abstract();
+            String abstractTitle = "Abstract";
+            Section section = null;
+            while (nextChild()) {
+                switch (name()) {
+                case "ce:section-title":
+                    abstractTitle = text();
+                    break;
+                case "ce:abstract-sec":
+                    section = null;
+                    while (nextChild()) {
+                        if ("ce:section-title".equals(name())) {
+                            section = builder.createSection("Abstract", text());
+                            documentAbstract.addAbstractSection(section);
+                        } else if ("ce:simple-para".equals(name()) || "ce:para".equals(name())) {
+                            if (section == null) {
+                                section = builder.createSection("Abstract", abstractTitle);
+                                documentAbstract.addAbstractSection(section);
+                            }
+                            addParagraph(section, text());
+                        } else {
+                            skip();
+                        }
+                    }
+                    section = null;
+                    break;
+                case "ce:simple-para":
+                case "ce:para":
+                    if (section == null) {
+                        section = builder.createSection("Abstract", abstractTitle);
+                        documentAbstract.addAbstractSection(section);
+                    }
+                    addParagraph(section, text());
+                    break;
+                default:
+                    skip();
+                }
+            }
+
+            if (documentAbstract.getAbstractSections() != null) {
+                builder.getFrontMatter(document).setDocumentAbstract(documentAbstract);
+                builder.getBibliographic(document).setDocumentAbstract(documentAbstract);
+                hasAbstract = true;
+            }
+        }
+
+        private void keywords() throws XMLStreamException {
+            String rhetorical = "Keywords";
+            List<String> keywords = new ArrayList<String>();
+            while (nextChild()) {
+                switch (name()) {
+                case "ce:section-title":
+                    rhetorical = text();
+                    break;
+                case "ce:keyword":
+                    keywords.add(text());
+                    break;
+                default:
+                    skip();
+                }
+            }
+            if (!keywords.isEmpty()) {
+                builder.getMetaElement(document).addKeywords(builder.createKeywords(keywords, rhetorical, false));
+            }
+        }
+
+        /**
+         * adds the section in front of its subsections
+         */
+        private void section(int depth) throws XMLStreamException {
+            String role = attribute("role");
+            Section section = new Section();
+            section.setDepth(depth);
+            section.setRhetorical(builder.createLabel(role != null ? role : "section"));
+            if (back) {
+                builder.getBackMatter(document).addSection(section);
+            } else {
+                builder.getBodyMatter(document).addSection(section);
+            }
+
+            String label = null;
+            while (nextChild()) {
+                switch (name()) {
+                case "ce:label":
+                    label = text();
+                    break;
+                case "ce:section-title":
+                    String sectionTitle = text();
+                    section.setTitle(
+                        builder.createTextElement(label != null ? label + " " + sectionTitle : sectionTitle));
+                    if (role == null) {
+                        section.setRhetorical(builder.createTextElement(sectionTitle));
+                    }
+                    break;
+                case "ce:para":
+                    // the compact view repeats the extended one
+                    if ("compact-standard".equals(attribute("view"))) {
+                        skip();
+                    } else {
+                        List<String> paragraphAnchors = new ArrayList<String>();
+                        Paragraph paragraph = addParagraph(section, text(paragraphAnchors));
+                        if (!paragraphAnchors.isEmpty()) {
+                            if (paragraph == null) {
+                                paragraph = new Paragraph();
+                                section.addParagraph(paragraph);
+                            }
+                            anchoringParagraphs.add(paragraph);
+                            anchors.add(paragraphAnchors);
+                        }
+                    }
+                    break;
+                case "ce:section":
+                    section(depth + 1);
+                    break;
+                default:
+                    skip();
+                }
+            }
+        }
+
+        private Paragraph addParagraph(Section section, String text) {
+            Paragraph paragraph = builder.createParagraph(text, true);
+            if (paragraph != null) {
+                section.addParagraph(paragraph);
+            }
+            return paragraph;
+        }
+
+        private void reference() throws XMLStreamException {
+            String id = attribute("id");
+            String referenceTitle = null;
+            String source = null;
+            String publicationId = null;
+            String publicationType = null;
+            String year = null;
+            String textReference = null;
+            List<Author> authors = new ArrayList<Author>();
+
+            boolean host = false;
+            int depth = 1;
+            while (depth > 0) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                    if ("sb:host".equals(name())) {
+                        host = false;
+                    }
+                    continue;
+                }
+                if (event != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                switch (name()) {
+                case "sb:host":
+                    host = true;
+                    depth++;
+                    break;
+                case "sb:issue":
+                    publicationType = "article";
+                    depth++;
+                    break;
+                case "sb:book":
+                case "sb:edited-book":
+                    publicationType = "book";
+                    depth++;
+                    break;
+                case "sb:maintitle":
+                    String maintitle = text();
+                    if (host && source == null) {
+                        source = maintitle;
+                    } else if (!host && referenceTitle == null) {
+                        referenceTitle = maintitle;
+                    }
+                    break;
+                case "sb:author":
+                    String[] name = person(null);
+                    authors.add(builder.createAuthor(name[0], name[1]));
+                    break;
+                case "sb:date":
+                    year = text();
+                    break;
+                case "ce:doi":
+                    publicationId = text();
+                    break;
+                case "ce:textref":
+                    textReference = text();
+                    break;
+                case "ce:label":
+                    skip();
+                    break;
+                default:
+                    depth++;
+                }
+            }
+
+            builder.addReference(document, id, source, publicationId, publicationType,
+                referenceTitle != null ? referenceTitle : textReference, authors, null);
+            if (year != null && year.matches("\\d{4}")) {
+                Date date = new Date();
+                date.setYear(Integer.parseInt(year));
+                Reference reference = builder.getBibliography(document).getReferences().get(id);
+                reference.setDate(date);
+            }
+        }
+
+        private void finish() {
+            builder.setDocType(document, Document.ELSEVIER_FULLTEXT);
+            builder.setTitle(document, title, null);
+            builder.setLanguage(document, language);
+
+            StringBuilder source = new StringBuilder(journal != null ? journal : "Elsevier");
+            if (coverDate != null && coverDate.length() >= 4) {
+                source.append(", ").append(coverDate, 0, 4);
+            }
+            if (volume != null) {
+                source.append("; ").append(volume);
+            }
+            if (pages != null) {
+                source.append(':').append(pages);
+            }
+            if (doi != null) {
+                source.append(". doi: ").append(doi);
+            }
+            builder.setSource(document, source.toString());
+
+            builder.setDocumentId(document, DOI_SOURCE, doi, pii != null ? "PII:" + pii : null);
+            if (pubmedId != null) {
+                builder.addOtherDocumentId(document, "PMID:" + pubmedId);
+            }
+
+            if (coverDate != null) {
+                try {
+                    LocalDate date = LocalDate.parse(coverDate);
+                    builder.setPublicationDate(document, date.getDayOfMonth(), date.getMonthValue(), date.getYear());
+                } catch (DateTimeParseException e) {
+                    // no full date
+                }
+            }
+            if (issn != null) {
+                String formatted = issn.length() == 8 ? issn.substring(0, 4) + "-" + issn.substring(4) : issn;
+                builder.getBibliographic(document).addIssn(builder.createTextElement(formatted));
+            }
+            if (copyright != null) {
+                builder.getBibliographic(document).setLicenses(builder.createLicense(copyright));
+            }
+
+            if (!hasAuthors) {
+                for (String creator : creators) {
+                    int comma = creator.indexOf(',');
+                    builder.addPerson(document, comma < 0 ? null : creator.substring(comma + 1).trim(),
+                        comma < 0 ? creator : creator.substring(0, comma).trim());
+                }
+            }
+            if (!hasAbstract && description != null) {
+                builder.setAbstract(document, description);
+            }
+
+            // figures and tables behind their anchors, the others in a section of their own
+            for (int i = 0; i < anchoringParagraphs.size(); i++) {
+                for (String anchor : anchors.get(i)) {
+                    StructureElement structureElement = floats.remove(anchor);
+                    if (structureElement != null) {
+                        anchoringParagraphs.get(i).addStructureElement(structureElement);
+                    }
+                }
+            }
+            if (!floats.isEmpty()) {
+                Section section = builder.createSection("floats", "Figures and Tables");
+                Paragraph paragraph = new Paragraph();
+                for (StructureElement structureElement : floats.values()) {
+                    paragraph.addStructureElement(structureElement);
+                }
+                section.addParagraph(paragraph);
+                builder.getBodyMatter(document).addSection(section);
+            }
+        }
+
+        private String name() {
+            return XMLStreamSupport.name(xml);
+        }
+
+        private String attribute(String name) {
+            return XMLStreamSupport.attribute(xml, name);
+        }
+
+        private boolean nextChild() throws XMLStreamException {
+            return XMLStreamSupport.nextChild(xml);
+        }
+
+        private void skip() throws XMLStreamException {
+            XMLStreamSupport.skip(xml);
+        }
+
+        private String text() throws XMLStreamException {
+            return text(null);
+        }
+
+        /**
+         * reads the text up to the end of the current element, whitespace runs become a single blank
+         *
+         * @param floatAnchors
+         *        receives the ids of the anchored floats, <code>null</code> to ignore them
+         * @return the text
+         */
+        private String text(List<String> floatAnchors) throws XMLStreamException {
+            StringBuilder text = new StringBuilder();
+            int depth = 1;
+            while (depth > 0) {
+                switch (xml.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    String name = name();
+                    if ("ce:float-anchor".equals(name)) {
+                        if (floatAnchors != null) {
+                            floatAnchors.add(attribute("refid"));
+                        }
+                        skip();
+                    } else if ("ce:display".equals(name) || "ce:alt-text".equals(name)) {
+                        skip();
+                    } else {
+                        depth++;
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                case XMLStreamConstants.END_DOCUMENT:
+                    depth--;
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    XMLStreamSupport.appendCollapsed(text, xml);
+                    break;
+                default:
+                    break;
+                }
+            }
+            return XMLStreamSupport.trim(text);
+        }
+    }
+
+    private static void append(StringBuilder text, String part) {
+        if (part != null && !part.isEmpty()) {
+            if (text.length() > 0) {
+                text.append(' ');
+            }
+            text.append(part);
+        }
+    }
+
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.types.text.doc.container.Paragraph;
+import de.fraunhofer.scai.bio.types.text.doc.container.Section;
+import de.fraunhofer.scai.bio.types.text.doc.container.StructureElement;
+import de.fraunhofer.scai.bio.types.text.doc.structure.List;
+
+/**
+ * Imports a FreeMind mind map (<code>.mm</code>) into a {@link Document} of type {@link Document#FREEMIND_MAP}.
+ * <p>
+ * Every node with child nodes or a note becomes a {@link Section} titled with the node text, its depth is the depth
+ * of the node in the map, and sections follow the map in document order (a node before its children). Notes become
+ * paragraphs split into sentences, the leaf nodes below a node become the bulleted items of a {@link List} in a
+ * paragraph of its section. The root node is also the document title.
+ * <p>
+ * The map is read with StAX and the open nodes are kept on an explicit stack, so neither the depth nor the size of the
+ * map is limited by the call stack, and a section is handed to the {@link DocumentBuilder} as soon as its node has a
+ * child. Icons, edges, fonts, arrow links and attributes are ignored.
+ */
+public class FreeMindDocumentReader {
+
+    /** mime type of FreeMind maps, the original mime type of the imported documents */
+    public static final String MIME_TYPE = "application/x-freemind";
+
+    private static final XMLInputFactory FACTORY = XMLStreamSupport.createFactory();
+
+    private final DocumentBuilder builder;
+
+    /**
+     * reader with its own {@link DocumentBuilder}
+     */
+    public FreeMindDocumentReader() {
+        this(new DocumentBuilder());
+    }
+
+    /**
+     * @param builder
+     *        {@link DocumentBuilder} creating the document elements
+     */
+    public FreeMindDocumentReader(DocumentBuilder builder) {
+        this.builder = builder;
+    }
+
+    /**
+     * @param file
+     *        mind map, UTF-8 unless declared otherwise
+     * @return the {@link Document}, with the file as provenance source
+     * @throws IOException
+     *         if the file can't be read or isn't a mind map
+     */
+    public Document read(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            Document document = read(in);
+            document.getProvenance().setSource(file.toURI().toString());
+            return document;
+        }
+    }
+
+    /**
+     * @param in
+     *        mind map, UTF-8 unless declared otherwise; not closed
+     * @return the {@link Document}
+     * @throws IOException
+     *         if the stream can't be read or isn't a mind map
+     */
+    public Document read(InputStream in) throws IOException {
+        return read(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16));
+    }
+
+    /**
+     * @param reader
+     *        mind map, not closed
+     * @return the {@link Document}
+     * @throws IOException
+     *         if the reader fails or the XML isn't a mind map
+     */
+    public Document read(Reader reader) throws IOException {
+        XMLStreamReader xml = null;
+        try {
+            xml = FACTORY.createXMLStreamReader(reader);
+            return read(xml);
+        } catch (XMLStreamException e) {
+            throw new IOException("invalid FreeMind map: " + e.getMessage(), e);
+        } finally {
+            if (xml != null) {
+                try {
+                    xml.close();
+                } catch (XMLStreamException e) {
+                    // nothing left to read
+                }
+            }
+        }
+    }
+
+    private Document read(XMLStreamReader xml) throws XMLStreamException {
+        Document document = new Document();
+        Deque<Node> path = new ArrayDeque<Node>();
+        Node root = null;
+
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                switch (xml.getLocalName()) {
+                case "map":
+                    break;
+                case "node":
+                    Node parent = path.peek();
+                    if (parent != null) {
+                        section(document, parent);
+                    }
+                    Node node = new Node(XMLStreamSupport.attribute(xml, "TEXT"), path.size());
+                    if (root == null) {
+                        root = node;
+                    }
+                    path.push(node);
+                    break;
+                case "richcontent":
+                    if (path.isEmpty()) {
+                        XMLStreamSupport.skip(xml);
+                    } else {
+                        richContent(document, path.peek(), XMLStreamSupport.attribute(xml, "TYPE"),
+                            XMLStreamSupport.text(xml));
+                    }
+                    break;
+                default:
+                    XMLStreamSupport.skip(xml);
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT && "node".equals(xml.getLocalName())) {
+                Node node = path.pop();
+                Node parent = path.peek();
+                if (node.section == null && parent != null) {
+                    item(parent, node.text);
+                } else if (node.section == null) {
+                    section(document, node);
+                }
+            }
+        }
+
+        builder.setDocType(document, Document.FREEMIND_MAP);
+        document.setOriginalMimeType(MIME_TYPE);
+        builder.setTitle(document, root != null ? root.text : null, null);
+        return document;
+    }
+
+    private void richContent(Document document, Node node, String type, String text) {
+        if ("NODE".equals(type)) {
+            // HTML formatted node text instead of the TEXT attribute
+            node.text = text;
+            if (node.section != null) {
+                node.section.setTitle(builder.createTextElement(text));
+            }
+        } else if ("NOTE".equals(type)) {
+            Paragraph paragraph = builder.createParagraph(text, true);
+            if (paragraph != null) {
+                section(document, node).addParagraph(paragraph);
+            }
+        }
+    }
+
+    /**
+     * @return the section of the node, added to the body matter on the first call
+     */
+    private Section section(Document document, Node node) {
+        if (node.section == null) {
+            node.section = new Section();
+            node.section.setRhetorical(builder.createLabel("node"));
+            node.section.setTitle(builder.createTextElement(node.text));
+            node.section.setDepth(node.depth);
+            builder.getBodyMatter(document).addSection(node.section);
+        }
+        return node.section;
+    }
+
+    /**
+     * adds a leaf to the list of its parent, whose section exists since the leaf started
+     */
+    private void item(Node parent, String text) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        if (parent.items == null) {
+            parent.items = new List();
+            parent.items.setBullets(true);
+            StructureElement structureElement = new StructureElement();
+            structureElement.setList(parent.items);
+            Paragraph paragraph = new Paragraph();
+            paragraph.addStructureElement(structureElement);
+            parent.section.addParagraph(paragraph);
+        }
+        parent.items.addItem(builder.createTextElement(text));
+    }
+
+    /**
+     * an open node of the map
+     */
+    private static final class Node {
+
+        String text;
+        final int depth;
+        Section section;
+        List items;
+
+        Node(String text, int depth) {
+            this.text = text != null ? text.trim() : null;
+            this.depth = depth;
+        }
+    }
+
+}
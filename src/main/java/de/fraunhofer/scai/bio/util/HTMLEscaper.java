@@ -0,0 +1,226 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fraunhofer.scai.bio.util;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.commons.lang.StringEscapeUtils;
+
+import de.fraunhofer.scai.bio.types.text.doc.meta.Annotation;
+import de.fraunhofer.scai.bio.types.text.doc.structure.TextElement;
+
+/**
+ * converts the text of a {@link TextElement} into HTML with a <code>span</code> per annotation, in one left to
+ * right pass over the characters
+ * <p>
+ * The output is the same as trimming the text, escaping it with {@link StringEscapeUtils#escapeHtml(String)},
+ * turning line breaks into <code>&lt;br&gt;</code> and collapsing whitespace runs into a single blank, with the
+ * annotation tags as boundaries the trimming and collapsing don't cross:
+ * <ul>
+ * <li>start and end tags are ordered by offset, tags at the same offset in the order of the annotations by
+ * {@link AnnotationComparator}, then by type, text and provenance</li>
+ * <li>leading whitespace is only trimmed in front of the first tag, trailing whitespace only behind the last</li>
+ * <li>offsets outside of the text are clamped to it</li>
+ * </ul>
+ */
+final class HTMLEscaper {
+
+	/** highest character with a named HTML 4.0 entity (diams) */
+	private static final char LAST_ENTITY = '\u2666';
+
+	/** named entity of each character up to {@link #LAST_ENTITY}, <code>null</code> for numeric ones */
+	private static final String[] ENTITIES = entities();
+
+	/** order of the spans, the sequence of the tags at the same offset follows it */
+	private static final Comparator<Annotation> ORDER = new AnnotationComparator()
+			.thenComparing(AnnotationComparator::compareContent);
+
+	private HTMLEscaper() {
+	}
+
+	/**
+	 * @param textElement {@link TextElement}
+	 * @param annotations rendered annotations, the annotations of the text element are added to it
+	 * @param out {@link Appendable}
+	 * @throws IOException if <code>out</code> fails
+	 */
+	static void escape(TextElement textElement, List<Annotation> annotations, Appendable out) throws IOException {
+		String text = textElement.getText() != null ? textElement.getText() : "";
+		int length = text.length();
+
+		// boundary events as offset << 32 | sequence, the sequence is 2 * annotation (+ 1 for the end)
+		Annotation[] spans = new Annotation[0];
+		long[] events = new long[0];
+		int count = 0;
+		int firstIndex = annotations.size() + 1;
+		if (textElement.getAnnotations() != null) {
+			spans = new Annotation[textElement.getAnnotations().size()];
+			events = new long[2 * spans.length];
+			for (Annotation anno : textElement.getAnnotations()) {
+				if (anno != null && anno.getEndOffset() > anno.getStartOffset()) {
+					spans[count++] = anno;
+				}
+			}
+			// the set iteration order depends on the hash codes, ties are broken on the content instead
+			Arrays.sort(spans, 0, count, ORDER);
+			for (int i = 0; i < count; i++) {
+				Annotation anno = spans[i];
+				annotations.add(anno);
+				events[2 * i] = event(anno.getStartOffset(), length, 2 * i);
+				events[2 * i + 1] = event(anno.getEndOffset(), length, 2 * i + 1);
+			}
+			Arrays.sort(events, 0, 2 * count);
+		}
+
+		int first = count > 0 ? offset(events[0]) : length;
+		int last = count > 0 ? offset(events[2 * count - 1]) : 0;
+
+		int begin = 0;
+		while (begin < first && text.charAt(begin) <= ' ') {
+			begin++;
+		}
+		int end = length;
+		while (end > Math.max(begin, last) && text.charAt(end - 1) <= ' ') {
+			end--;
+		}
+
+		int pos = begin;
+		for (int i = 0; i < 2 * count; i++) {
+			int offset = offset(events[i]);
+			appendText(text, pos, offset, out);
+			pos = offset;
+
+			int sequence = (int) events[i];
+			Annotation anno = spans[sequence >> 1];
+			String type = String.valueOf(anno.getAnnotationType());
+			String annotationText = String.valueOf(anno.getAnnotationText());
+			if ((sequence & 1) == 0) {
+				out.append("<span data-id=\"").append(annotationText).append("\" class=\"").append(type)
+						.append("\">");
+			} else {
+				String index = Integer.toString(firstIndex + (sequence >> 1));
+				out.append("</span> <sup><a href=\"#anno").append(index).append("\" title=\"").append(type)
+						.append(':').append(annotationText).append("\">[").append(index).append("]</a></sup>");
+			}
+		}
+		appendText(text, pos, end, out);
+	}
+
+	private static long event(int offset, int length, int sequence) {
+		return (long) Math.max(0, Math.min(offset, length)) << 32 | sequence;
+	}
+
+	private static int offset(long event) {
+		return (int) (event >>> 32);
+	}
+
+	/**
+	 * escape the characters from <code>from</code> to <code>to</code> and collapse their whitespace
+	 */
+	private static void appendText(String text, int from, int to, Appendable out) throws IOException {
+		boolean space = false;
+		int plain = from;
+
+		for (int i = from; i < to; i++) {
+			char c = text.charAt(i);
+			String replacement;
+			switch (c) {
+			case ' ':
+			case '\t':
+			case '\u000B':
+			case '\f':
+				out.append(text, plain, i);
+				space = true;
+				plain = i + 1;
+				continue;
+			case '\r':
+				if (i + 1 < to && text.charAt(i + 1) == '\n') {
+					out.append(text, plain, i);
+					plain = ++i;
+				}
+				replacement = "<br>";
+				break;
+			case '\n':
+				replacement = "<br>";
+				break;
+			case '"':
+				replacement = "&quot;";
+				break;
+			case '&':
+				replacement = "&amp;";
+				break;
+			case '<':
+				replacement = "&lt;";
+				break;
+			case '>':
+				replacement = "&gt;";
+				break;
+			default:
+				if (c < 0x80) {
+					if (space) {
+						out.append(' ');
+						space = false;
+					}
+					continue;
+				}
+				replacement = c <= LAST_ENTITY ? ENTITIES[c] : null;
+			}
+
+			out.append(text, plain, i);
+			if (space) {
+				out.append(' ');
+				space = false;
+			}
+			if (replacement != null) {
+				out.append(replacement);
+			} else {
+				out.append("&#").append(Integer.toString(c)).append(';');
+			}
+			plain = i + 1;
+		}
+
+		out.append(text, plain, to);
+		if (space) {
+			out.append(' ');
+		}
+	}
+
+	/**
+	 * the named entities, taken from {@link StringEscapeUtils} to stay in line with it
+	 */
+	private static String[] entities() {
+		StringBuilder chars = new StringBuilder();
+		for (char c = 0x80; c <= LAST_ENTITY; c++) {
+			chars.append(c);
+		}
+		String escaped = StringEscapeUtils.escapeHtml(chars.toString());
+
+		String[] entities = new String[LAST_ENTITY + 1];
+		int from = 0;
+		for (char c = 0x80; c <= LAST_ENTITY; c++) {
+			int to = escaped.indexOf(';', from) + 1;
+			if (escaped.charAt(from + 1) != '#') {
+				entities[c] = escaped.substring(from, to);
+			}
+			from = to;
+		}
+		return entities;
+	}
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fraunhofer.scai.bio.util;
+
+import java.util.Arrays;
+
+/**
+ * growable buffer of primitive <code>int</code>s, meant to be cleared and reused
+ */
+public final class IntList {
+
+	private int[] data;
+	private int size;
+
+	public IntList() {
+		this(16);
+	}
+
+	public IntList(int capacity) {
+		data = new int[Math.max(capacity, 1)];
+	}
+
+	public void add(int value) {
+		if (size == data.length) {
+			data = Arrays.copyOf(data, data.length << 1);
+		}
+		data[size++] = value;
+	}
+
+	public int get(int index) {
+		if (index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		return data[index];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * forget all values, keeps the allocated array
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * sort ascending and drop duplicate values
+	 */
+	public void sortUnique() {
+		if (size < 2) {
+			return;
+		}
+		Arrays.sort(data, 0, size);
+
+		int last = 0;
+		for (int i = 1; i < size; i++) {
+			if (data[i] != data[last]) {
+				data[++last] = data[i];
+			}
+		}
+		size = last + 1;
+	}
+
+	/**
+	 * @return copy of the values
+	 */
+	public int[] toArray() {
+		return Arrays.copyOf(data, size);
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.util;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.fraunhofer.scai.bio.types.text.doc.structure.TextElement;
+
+/**
+ * bounded cache of the text and id of label like {@link TextElement}s, see
+ * {@link DocumentBuilder#createLabel(String)}; thread safe without locking
+ * <p>
+ * A full cache is cleared instead of evicting single labels, the recurring labels are back after a few documents.
+ */
+final class LabelCache {
+
+    private final Map<String, Label> labels = new ConcurrentHashMap<String, Label>();
+    private final int maxSize;
+    private final TextElementIdStrategy idStrategy;
+
+    /**
+     * @param maxSize
+     *        number of cached labels
+     * @param idStrategy
+     *        derives the ids of the labels
+     */
+    LabelCache(int maxSize, TextElementIdStrategy idStrategy) {
+        this.maxSize = maxSize;
+        this.idStrategy = idStrategy;
+    }
+
+    /**
+     * @param text
+     *        non empty label
+     * @return new {@link TextElement} sharing text and id with the other ones of this label
+     */
+    TextElement create(String text) {
+        Label label = labels.get(text);
+        if (label == null) {
+            if (labels.size() >= maxSize) {
+                labels.clear();
+            }
+            // a concurrent miss just computes the same label twice
+            label = new Label(text, idStrategy.createId(text));
+            Label cached = labels.putIfAbsent(text, label);
+            if (cached != null) {
+                label = cached;
+            }
+        }
+
+        TextElement textElement = new TextElement();
+        textElement.setText(label.text);
+        textElement.setUuid(label.uuid);
+        return textElement;
+    }
+
+    /**
+     * @return number of cached labels
+     */
+    int size() {
+        return labels.size();
+    }
+
+    private static final class Label {
+
+        final String text;
+        final UUID uuid;
+
+        Label(String text, UUID uuid) {
+            this.text = text;
+            this.uuid = uuid;
+        }
+    }
+
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.util;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Escapes the <code>&lt;</code> and <code>&amp;</code> characters that can't start markup or a reference, while
+ * the XML is read.
+ * <p>
+ * Publisher dumps that went through pretty printers or HTML tools often contain text like <code>( &lt; 5%)</code>
+ * or <code>Chapman &amp; Hall</code> unescaped, which no XML parser accepts. Comments, CDATA sections and
+ * processing instructions are passed through unchanged, well-formed XML isn't changed at all.
+ */
+final class LenientXMLReader extends Reader {
+
+    private static final int BUFFER_SIZE = 1 << 13;
+
+    /** longest character or entity reference recognized */
+    private static final int MAX_REFERENCE = 32;
+
+    private static final String[] RAW_SECTIONS = { "<!--", "-->", "<![CDATA[", "]]>", "<?", "?>" };
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE + MAX_REFERENCE];
+    private int pos;
+    private int limit;
+    private boolean eof;
+
+    /** escape being emitted */
+    private String pending;
+    private int pendingPos;
+
+    /** end of the raw section being copied, <code>null</code> in normal text */
+    private String rawEnd;
+
+    /**
+     * @param in
+     *        XML, closed with this reader
+     */
+    LenientXMLReader(Reader in) {
+        this.in = in;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        int n = 0;
+        while (n < len) {
+            if (pending != null) {
+                int count = Math.min(len - n, pending.length() - pendingPos);
+                pending.getChars(pendingPos, pendingPos + count, cbuf, off + n);
+                n += count;
+                pendingPos += count;
+                if (pendingPos == pending.length()) {
+                    pending = null;
+                }
+                continue;
+            }
+            if (!fill(1)) {
+                break;
+            }
+
+            if (rawEnd != null) {
+                n += copyRaw(cbuf, off + n, len - n);
+                continue;
+            }
+
+            char c = buffer[pos];
+            if (c == '<') {
+                fill(9);
+                String end = rawSectionEnd();
+                if (end != null) {
+                    rawEnd = end;
+                    continue;
+                }
+                if (pos + 1 >= limit || !isMarkupStart(buffer[pos + 1])) {
+                    escape("&lt;");
+                    continue;
+                }
+            } else if (c == '&') {
+                fill(MAX_REFERENCE);
+                if (!isReference()) {
+                    escape("&amp;");
+                    continue;
+                }
+            }
+
+            // copy up to the next character that needs a look
+            int end = pos + 1;
+            int max = Math.min(limit, pos + len - n);
+            while (end < max && buffer[end] != '<' && buffer[end] != '&') {
+                end++;
+            }
+            System.arraycopy(buffer, pos, cbuf, off + n, end - pos);
+            n += end - pos;
+            pos = end;
+        }
+        return n == 0 && len > 0 ? -1 : n;
+    }
+
+    private void escape(String replacement) {
+        pending = replacement;
+        pendingPos = 0;
+        pos++;
+    }
+
+    /**
+     * copy the raw section, its end is emitted like an escape
+     */
+    private int copyRaw(char[] cbuf, int off, int len) throws IOException {
+        int n = 0;
+        while (n < len && fill(rawEnd.length())) {
+            if (startsWith(rawEnd)) {
+                pending = rawEnd;
+                pendingPos = 0;
+                pos += rawEnd.length();
+                rawEnd = null;
+                break;
+            }
+            cbuf[off + n++] = buffer[pos++];
+        }
+        return n;
+    }
+
+    private String rawSectionEnd() {
+        for (int i = 0; i < RAW_SECTIONS.length; i += 2) {
+            if (startsWith(RAW_SECTIONS[i])) {
+                return RAW_SECTIONS[i + 1];
+            }
+        }
+        return null;
+    }
+
+    private boolean startsWith(String prefix) {
+        if (limit - pos < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (buffer[pos + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isMarkupStart(char c) {
+        return c == '/' || c == '!' || c == '?' || c == '_' || c == ':' || Character.isLetter(c);
+    }
+
+    /**
+     * @return whether the <code>&amp;</code> at <code>pos</code> starts a character or entity reference
+     */
+    private boolean isReference() {
+        int i = pos + 1;
+        int end = Math.min(limit, pos + MAX_REFERENCE);
+        if (i < end && buffer[i] == '#') {
+            i++;
+            boolean hex = i < end && buffer[i] == 'x';
+            if (hex) {
+                i++;
+            }
+            int digits = i;
+            while (i < end && (hex ? Character.digit(buffer[i], 16) >= 0 : buffer[i] >= '0' && buffer[i] <= '9')) {
+                i++;
+            }
+            return i > digits && i < end && buffer[i] == ';';
+        }
+        if (i >= end || !(Character.isLetter(buffer[i]) || buffer[i] == '_' || buffer[i] == ':')) {
+            return false;
+        }
+        while (i < end && (Character.isLetterOrDigit(buffer[i]) || buffer[i] == '_' || buffer[i] == ':'
+            || buffer[i] == '-' || buffer[i] == '.')) {
+            i++;
+        }
+        return i < end && buffer[i] == ';';
+    }
+
+    /**
+     * @return whether at least <code>count</code> characters are buffered, or as many as are left
+     */
+    private boolean fill(int count) throws IOException {
+        if (limit - pos >= count || eof) {
+            return pos < limit;
+        }
+        if (pos > 0) {
+            System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        while (limit < count) {
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                eof = true;
+                break;
+            }
+            limit += read;
+        }
+        return pos < limit;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+}
@@ -0,0 +1,628 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.types.text.doc.container.Paragraph;
+import de.fraunhofer.scai.bio.types.text.doc.container.Section;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Abstract;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Affiliation;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Author;
+
+/**
+ * Reads the citations of a PubMed/Medline XML file (baseline or update, <code>PubmedArticleSet</code>), gzipped or
+ * plain, as {@link Document}s of type {@link Document#PUBMED_ABSTRACT}.
+ * <p>
+ * The file is parsed with StAX while iterating, one <code>PubmedArticle</code> at a time, so memory stays bounded by
+ * the largest citation, not by the file. Deleted citations and book articles are skipped. Each document gets
+ * <ul>
+ * <li>the PMID as document id, DOI and PMC id as further ids</li>
+ * <li>title, journal source, ISSN, language, publication date and types, copyright and authors with affiliations</li>
+ * <li>the abstract, a section per labeled abstract text, split into sentences</li>
+ * <li>the MeSH descriptors (with qualifiers), the substances and the author keywords as keywords</li>
+ * </ul>
+ * Like {@link DocumentCorpusReader} the reader can be iterated once.
+ *
+ * <pre>
+ * try (MedlineCitationReader reader = new MedlineCitationReader(new File("pubmed20n0001.xml.gz"))) {
+ *     reader.stream().forEach(document -&gt; ...);
+ * }
+ * </pre>
+ */
+public class MedlineCitationReader implements Iterable<Document>, Closeable {
+
+    /** identifier source of the documents, the identifier is the PMID */
+    public static final String PUBMED_SOURCE = "http://www.ncbi.nlm.nih.gov/pubmed/";
+
+    private static final XMLInputFactory FACTORY = XMLStreamSupport.createFactory();
+
+    private static final String[] MONTHS = { "jan", "feb", "mar", "apr", "may", "jun", "jul", "aug", "sep", "oct",
+        "nov", "dec" };
+
+    private final InputStream in;
+    private final XMLStreamReader xml;
+    private final DocumentBuilder builder;
+    private final String source;
+    private boolean iterated;
+
+    /**
+     * @param file
+     *        Medline XML file, gzip is detected from the content; the file is the provenance source of the documents
+     * @throws IOException
+     *         if the file can't be opened
+     */
+    public MedlineCitationReader(File file) throws IOException {
+        this(new FileInputStream(file), new DocumentBuilder(), file.toURI().toString());
+    }
+
+    /**
+     * @param in
+     *        Medline XML, gzip is detected from the content; closed with this reader
+     * @throws IOException
+     *         if the stream can't be read
+     */
+    public MedlineCitationReader(InputStream in) throws IOException {
+        this(in, new DocumentBuilder(), null);
+    }
+
+    /**
+     * @param in
+     *        Medline XML, gzip is detected from the content; closed with this reader
+     * @param builder
+     *        {@link DocumentBuilder} creating the document elements
+     * @param source
+     *        provenance source of the documents, <code>null</code> for none
+     * @throws IOException
+     *         if the stream can't be read
+     */
+    public MedlineCitationReader(InputStream in, DocumentBuilder builder, String source) throws IOException {
+        try {
+            this.in = DocumentCorpusReader.decompress(in);
+            this.xml = FACTORY.createXMLStreamReader(this.in);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        } catch (XMLStreamException e) {
+            in.close();
+            throw new IOException("invalid Medline XML: " + e.getMessage(), e);
+        }
+        this.builder = builder;
+        this.source = source;
+    }
+
+    /**
+     * @return the next citation or <code>null</code> at the end of the file
+     * @throws IOException
+     *         if the file can't be read or parsed
+     */
+    public Document read() throws IOException {
+        try {
+            while (xml.hasNext()) {
+                if (xml.next() == XMLStreamConstants.START_ELEMENT) {
+                    String name = xml.getLocalName();
+                    if ("PubmedArticle".equals(name)) {
+                        return new Citation().read();
+                    }
+                    if (!"PubmedArticleSet".equals(name)) {
+                        // DeleteCitation, PubmedBookArticle
+                        XMLStreamSupport.skip(xml);
+                    }
+                }
+            }
+            return null;
+        } catch (XMLStreamException e) {
+            throw new IOException("invalid Medline XML: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The citations of the file, can only be called once. I/O and parse errors are thrown as
+     * {@link UncheckedIOException}.
+     *
+     * @return {@link Iterator} over the remaining citations
+     */
+    @Override
+    public Iterator<Document> iterator() {
+        if (iterated) {
+            throw new IllegalStateException("citations can only be iterated once");
+        }
+        iterated = true;
+
+        return new Iterator<Document>() {
+
+            private Document next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    try {
+                        next = read();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public Document next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Document document = next;
+                next = null;
+                return document;
+            }
+        };
+    }
+
+    /**
+     * Parallel streams split off batches of already read citations, parsing itself stays sequential.
+     *
+     * @return {@link Spliterator} of unknown size over the remaining citations
+     */
+    @Override
+    public Spliterator<Document> spliterator() {
+        return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
+    /**
+     * @return sequential {@link Stream} over the remaining citations, closing the stream closes this reader
+     */
+    public Stream<Document> stream() {
+        return StreamSupport.stream(spliterator(), false).onClose(() -> {
+            try {
+                close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            xml.close();
+        } catch (XMLStreamException e) {
+            // the stream is closed below
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * @return month of <code>Jan</code>, <code>01</code> or <code>1</code>, 0 if unknown
+     */
+    static int parseMonth(String month) {
+        if (month == null || month.isEmpty()) {
+            return 0;
+        }
+        if (Character.isDigit(month.charAt(0))) {
+            return parseInt(month);
+        }
+        String prefix = month.length() >= 3 ? month.substring(0, 3).toLowerCase() : month.toLowerCase();
+        for (int i = 0; i < MONTHS.length; i++) {
+            if (MONTHS[i].equals(prefix)) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return the leading digits as number, 0 if there are none
+     */
+    private static int parseInt(String value) {
+        int number = 0;
+        for (int i = 0; i < value.length() && i < 9 && Character.isDigit(value.charAt(i)); i++) {
+            number = number * 10 + value.charAt(i) - '0';
+        }
+        return number;
+    }
+
+    /**
+     * the state of one <code>PubmedArticle</code>
+     */
+    private final class Citation {
+
+        private final Document document = new Document();
+
+        private String pmid;
+        private String doi;
+        private String pmc;
+        private String title;
+        private String journal;
+        private String volume;
+        private String issue;
+        private String pages;
+        private String language;
+        private String issn;
+        private int year;
+        private int month;
+        private int day;
+        private final Abstract documentAbstract = new Abstract();
+
+        Document read() throws XMLStreamException {
+            while (nextChild()) {
+                switch (name()) {
+                case "MedlineCitation":
+                    medlineCitation();
+                    break;
+                case "PubmedData":
+                    pubmedData();
+                    break;
+                default:
+                    skip();
+                }
+            }
+            finish();
+            return document;
+        }
+
+        private void medlineCitation() throws XMLStreamException {
+            List<String> meshTerms = new ArrayList<String>();
+            List<String> substances = new ArrayList<String>();
+            List<String> keywords = new ArrayList<String>();
+
+            while (nextChild()) {
+                switch (name()) {
+                case "PMID":
+                    pmid = text();
+                    break;
+                case "Article":
+                    article();
+                    break;
+                case "ChemicalList":
+                    while (nextChild()) {
+                        while (nextChild()) {
+                            if ("NameOfSubstance".equals(name()) && attribute("UI") != null) {
+                                substances.add(attribute("UI"));
+                            }
+                            skip();
+                        }
+                    }
+                    break;
+                case "MeshHeadingList":
+                    while (nextChild()) {
+                        meshHeading(meshTerms);
+                    }
+                    break;
+                case "KeywordList":
+                    while (nextChild()) {
+                        keywords.add(text());
+                    }
+                    break;
+                default:
+                    skip();
+                }
+            }
+
+            if (!meshTerms.isEmpty()) {
+                builder.getMetaElement(document).addKeywords(builder.createKeywords(meshTerms, "MeSH Terms", false));
+            }
+            if (!substances.isEmpty()) {
+                builder.getMetaElement(document).addKeywords(builder.createKeywords(substances, "Substances", false));
+            }
+            if (!keywords.isEmpty()) {
+                builder.getMetaElement(document).addKeywords(builder.createKeywords(keywords, "Keywords", false));
+            }
+        }
+
+        /**
+         * the descriptor followed by descriptor/qualifier for each qualifier
+         */
+        private void meshHeading(List<String> meshTerms) throws XMLStreamException {
+            String descriptor = null;
+            while (nextChild()) {
+                String ui = attribute("UI");
+                if ("DescriptorName".equals(name()) && ui != null) {
+                    descriptor = ui;
+                    meshTerms.add(descriptor);
+                } else if ("QualifierName".equals(name()) && ui != null && descriptor != null) {
+                    meshTerms.add(descriptor + "/" + ui);
+                }
+                skip();
+            }
+        }
+
+        private void article() throws XMLStreamException {
+            while (nextChild()) {
+                switch (name()) {
+                case "Journal":
+                    journal();
+                    break;
+                case "ArticleTitle":
+                    title = text();
+                    break;
+                case "Pagination":
+                    while (nextChild()) {
+                        if ("MedlinePgn".equals(name())) {
+                            pages = text();
+                        } else {
+                            skip();
+                        }
+                    }
+                    break;
+                case "ELocationID":
+                    if ("doi".equals(attribute("EIdType")) && doi == null) {
+                        doi = text();
+                    } else {
+                        skip();
+                    }
+                    break;
+                case "Abstract":
+                    documentAbstract();
+                    break;
+                case "AuthorList":
+                    while (nextChild()) {
+                        author();
+                    }
+                    break;
+                case "Language":
+                    if (language == null) {
+                        language = text();
+                    } else {
+                        skip();
+                    }
+                    break;
+                case "PublicationTypeList":
+                    while (nextChild()) {
+                        String ui = attribute("UI");
+                        builder.addPublicationType(document, ui, text());
+                    }
+                    break;
+                default:
+                    skip();
+                }
+            }
+        }
+
+        private void journal() throws XMLStreamException {
+            while (nextChild()) {
+                switch (name()) {
+                case "ISSN":
+                    issn = text();
+                    break;
+                case "Title":
+                    journal = text();
+                    break;
+                case "JournalIssue":
+                    while (nextChild()) {
+                        switch (name()) {
+                        case "Volume":
+                            volume = text();
+                            break;
+                        case "Issue":
+                            issue = text();
+                            break;
+                        case "PubDate":
+                            pubDate();
+                            break;
+                        default:
+                            skip();
+                        }
+                    }
+                    break;
+                default:
+                    skip();
+                }
+            }
+        }
+
+        private void pubDate() throws XMLStreamException {
+            while (nextChild()) {
+                switch (name()) {
+                case "Year":
+                    year = parseInt(text());
+                    break;
+                case "Month":
+                    month = parseMonth(text());
+                    break;
+                case "Day":
+                    day = parseInt(text());
+                    break;
+                case "MedlineDate":
+                    // e.g. 1998 Dec-1999 Jan
+                    year = parseInt(text());
+                    break;
+                default:
+                    skip();
+                }
+            }
+        }
+
+        private void documentAbstract() throws XMLStreamException {
+            while (nextChild()) {
+                switch (name()) {
+                case "AbstractText":
+                    String label = attribute("Label");
+                    String category = attribute("NlmCategory");
+                    String text = text();
+                    Paragraph paragraph = builder.createParagraph(text, true);
+                    if (paragraph != null) {
+                        Section section = builder.createSection(category != null ? category : "Abstract",
+                            label != null ? label : "Abstract");
+                        section.addParagraph(paragraph);
+                        documentAbstract.addAbstractSection(section);
+                    }
+                    break;
+                case "CopyrightInformation":
+                    builder.getBibliographic(document).setLicenses(builder.createLicense(text()));
+                    break;
+                default:
+                    skip();
+                }
+            }
+        }
+
+        private void author() throws XMLStreamException {
+            String lastName = null;
+            String foreName = null;
+            String collectiveName = null;
+            Affiliation affiliation = null;
+            while (nextChild()) {
+                switch (name()) {
+                case "LastName":
+                    lastName = text();
+                    break;
+                case "ForeName":
+                    foreName = text();
+                    break;
+                case "CollectiveName":
+                    collectiveName = text();
+                    break;
+                case "AffiliationInfo":
+                    while (nextChild()) {
+                        if ("Affiliation".equals(name())) {
+                            if (affiliation == null) {
+                                affiliation = new Affiliation();
+                            }
+                            affiliation.addAffiliationInfo(text());
+                        } else {
+                            skip();
+                        }
+                    }
+                    break;
+                default:
+                    skip();
+                }
+            }
+
+            Author author;
+            if (lastName != null) {
+                author = builder.createAuthor(foreName, lastName);
+                author.getAuthor().setAffiliation(affiliation);
+            } else if (collectiveName != null) {
+                Affiliation organization = affiliation != null ? affiliation : new Affiliation();
+                organization.setOrganization(builder.createTextElement(collectiveName));
+                author = new Author();
+                author.setOrganization(organization);
+            } else {
+                return;
+            }
+            builder.getBibliographic(document).addAuthor(author);
+        }
+
+        private void pubmedData() throws XMLStreamException {
+            while (nextChild()) {
+                if (!"ArticleIdList".equals(name())) {
+                    skip();
+                    continue;
+                }
+                while (nextChild()) {
+                    String type = attribute("IdType");
+                    String id = text();
+                    if ("doi".equals(type)) {
+                        doi = id;
+                    } else if ("pmc".equals(type)) {
+                        pmc = id;
+                    }
+                }
+            }
+        }
+
+        private void finish() {
+            builder.setDocType(document, Document.PUBMED_ABSTRACT);
+            document.setOriginalMimeType("text/xml");
+            if (source != null) {
+                document.getProvenance().setSource(source);
+            }
+
+            builder.setDocumentId(document, PUBMED_SOURCE, pmid, pmid != null ? "PMID:" + pmid : null);
+            if (doi != null) {
+                builder.addOtherDocumentId(document, "DOI:" + doi);
+            }
+            if (pmc != null) {
+                builder.addOtherDocumentId(document, "PMC:" + pmc);
+            }
+
+            builder.setTitle(document, title, null);
+            builder.setLanguage(document, language);
+            if (issn != null) {
+                builder.getBibliographic(document).addIssn(builder.createTextElement(issn));
+            }
+            if (year > 0) {
+                builder.setPublicationDate(document, day, month, year);
+            }
+
+            // Journal. year; volume(issue):pages. doi: doi
+            StringBuilder citation = new StringBuilder(journal != null ? journal : "unspecified").append('.');
+            if (year > 0) {
+                citation.append(' ').append(year).append(';');
+            }
+            if (volume != null) {
+                citation.append(' ').append(volume);
+            }
+            if (issue != null) {
+                citation.append('(').append(issue).append(')');
+            }
+            if (pages != null) {
+                citation.append(':').append(pages);
+            }
+            if (volume != null || issue != null || pages != null) {
+                citation.append('.');
+            }
+            if (doi != null) {
+                citation.append(" doi: ").append(doi);
+            }
+            builder.setSource(document, citation.toString());
+
+            if (documentAbstract.getAbstractSections() != null) {
+                builder.getFrontMatter(document).setDocumentAbstract(documentAbstract);
+                builder.getBibliographic(document).setDocumentAbstract(documentAbstract);
+            }
+        }
+
+        private String name() {
+            return XMLStreamSupport.name(xml);
+        }
+
+        private String attribute(String name) {
+            return XMLStreamSupport.attribute(xml, name);
+        }
+
+        private boolean nextChild() throws XMLStreamException {
+            return XMLStreamSupport.nextChild(xml);
+        }
+
+        private void skip() throws XMLStreamException {
+            XMLStreamSupport.skip(xml);
+        }
+
+        private String text() throws XMLStreamException {
+            return XMLStreamSupport.text(xml);
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.util;
+
+import java.util.UUID;
+
+/**
+ * MurmurHash3 x64 128 bit over the chars of a string, the same as hashing its UTF-16LE bytes
+ */
+final class Murmur3 {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private Murmur3() {
+    }
+
+    /**
+     * @param text
+     *        <code>CharSequence</code>
+     * @return the hash as version 8 UUID with IETF variant
+     */
+    static UUID uuid(CharSequence text) {
+        long h1 = 0;
+        long h2 = 0;
+        int length = text.length();
+
+        // blocks of 16 bytes = 8 chars
+        int end = length & ~7;
+        for (int i = 0; i < end; i += 8) {
+            long k1 = chars(text, i, 4);
+            long k2 = chars(text, i + 4, 4);
+
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        int tail = length - end;
+        if (tail > 4) {
+            h2 ^= mixK2(chars(text, end + 4, tail - 4));
+        }
+        if (tail > 0) {
+            h1 ^= mixK1(chars(text, end, Math.min(tail, 4)));
+        }
+
+        long bytes = 2L * length;
+        h1 ^= bytes;
+        h2 ^= bytes;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+
+        return new UUID(h1 & ~0xF000L | 0x8000L, h2 & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L);
+    }
+
+    /** up to four chars, little endian */
+    private static long chars(CharSequence text, int from, int count) {
+        long k = 0;
+        for (int j = count - 1; j >= 0; j--) {
+            k = k << 16 | text.charAt(from + j);
+        }
+        return k;
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        return k1 * C2;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        return k2 * C1;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+}
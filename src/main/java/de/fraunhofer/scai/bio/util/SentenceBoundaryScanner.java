@@ -0,0 +1,196 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fraunhofer.scai.bio.util;
+
+/**
+ * finds the end of sentence positions of {@link SentenceDetector#getDefaultPatterns()} and the short lines in one
+ * left to right scan over the characters, without regular expressions
+ * <p>
+ * Each boundary kind reproduces exactly what <code>Matcher.find()</code> resp. <code>Scanner.nextLine()</code>
+ * report for it:
+ * <ul>
+ * <li>colon in front of Capital letter: <code>:</code>, whitespace, first non whitespace is A-Z</li>
+ * <li>full stop in front of Capital letter: <code>.!?</code>, whitespace, first non whitespace (if any) is not
+ * a-z0-9</li>
+ * <li>words followed by empty lines: the lazy second group of <code>(\S+\s*\n)([^\n\r]*?)(\s*\n){2,}</code></li>
+ * <li>short lines: the (miscounted for \r\n) line index of <code>Scanner</code></li>
+ * </ul>
+ */
+final class SentenceBoundaryScanner {
+
+	private SentenceBoundaryScanner() {
+	}
+
+	/**
+	 * add all boundaries to <code>out</code>, unsorted and possibly duplicated
+	 *
+	 * @param text <code>String</code>
+	 * @param shortLine lines shorter than this end a sentence, 0 to disable
+	 * @param out <code>IntList</code>
+	 */
+	static void scan(String text, int shortLine, IntList out) {
+		int n = text.length();
+
+		// short lines
+		int lineStart = 0;
+		int lineIndex = 0;
+		boolean skipLineFeed = false;
+
+		// first non whitespace at or after the last queried position
+		int nonWhitespace = -1;
+
+		// where Matcher.find() of the empty lines pattern continues
+		int emptyLinesFrom = 0;
+
+		for (int i = 0; i < n; i++) {
+			char c = text.charAt(i);
+
+			if (shortLine > 0 && isLineTerminator(c)) {
+				if (skipLineFeed) {
+					skipLineFeed = false;
+				} else {
+					int len = i - lineStart;
+					lineIndex += len;
+					if (len < shortLine) out.add(lineIndex);
+					lineIndex++;
+
+					if (c == '\r' && i + 1 < n && text.charAt(i + 1) == '\n') {
+						skipLineFeed = true;
+						lineStart = i + 2;
+					} else {
+						lineStart = i + 1;
+					}
+				}
+			}
+
+			if ((c == ':' || c == '.' || c == '!' || c == '?') && i + 1 < n && isWhitespace(text.charAt(i + 1))) {
+				if (nonWhitespace < i + 2) {
+					nonWhitespace = skipWhitespace(text, i + 2);
+				}
+				if (c == ':') {
+					if (nonWhitespace < n) {
+						char next = text.charAt(nonWhitespace);
+						if (next >= 'A' && next <= 'Z') out.add(i + 1);
+					}
+				} else {
+					if (nonWhitespace == n) {
+						out.add(i + 1);
+					} else {
+						char next = text.charAt(nonWhitespace);
+						if (!((next >= 'a' && next <= 'z') || (next >= '0' && next <= '9'))) out.add(i + 1);
+					}
+				}
+			}
+
+			if (i >= emptyLinesFrom && !isWhitespace(c)) {
+				emptyLinesFrom = matchEmptyLines(text, i, out);
+			}
+		}
+
+		if (shortLine > 0 && lineStart < n) {
+			int len = n - lineStart;
+			lineIndex += len;
+			if (len < shortLine) out.add(lineIndex);
+		}
+	}
+
+	/**
+	 * try the empty lines pattern at a word start
+	 *
+	 * @return position to continue searching from
+	 */
+	private static int matchEmptyLines(String text, int begin, IntList out) {
+		int n = text.length();
+
+		int wordEnd = begin;
+		while (wordEnd < n && !isWhitespace(text.charAt(wordEnd))) wordEnd++;
+		int next = skipWhitespace(text, wordEnd);
+
+		// \s*\n backtracks from the last line feed in front of the next word
+		for (int lf = next - 1; lf >= wordEnd; lf--) {
+			if (text.charAt(lf) != '\n') continue;
+
+			int end = lazyLineRest(text, lf + 1);
+			if (end >= 0) {
+				out.add(end);
+
+				// the greedy (\s*\n){2,} ends behind the last line feed
+				int last = end;
+				for (int k = end; k < n && isWhitespace(text.charAt(k)); k++) {
+					if (text.charAt(k) == '\n') last = k;
+				}
+				return last + 1;
+			}
+		}
+
+		return next;
+	}
+
+	/**
+	 * smallest end of <code>[^\n\r]*?</code> starting at <code>from</code> which is followed by two line feeds
+	 *
+	 * @return end of the group or -1
+	 */
+	private static int lazyLineRest(String text, int from) {
+		int n = text.length();
+		int h = from;
+
+		while (h < n) {
+			if (isWhitespace(text.charAt(h))) {
+				int runEnd = h;
+				int lineFeeds = 0;
+				boolean lineBreak = false;
+				while (runEnd < n && isWhitespace(text.charAt(runEnd))) {
+					char c = text.charAt(runEnd);
+					if (c == '\n') lineFeeds++;
+					if (c == '\n' || c == '\r') lineBreak = true;
+					runEnd++;
+				}
+				if (lineFeeds >= 2) return h;
+
+				// later starts in this run see fewer line feeds, and the group can't pass a line break
+				if (lineBreak) return -1;
+				h = runEnd;
+			} else {
+				h++;
+			}
+		}
+
+		return -1;
+	}
+
+	private static int skipWhitespace(String text, int from) {
+		int n = text.length();
+		int i = from;
+		while (i < n && isWhitespace(text.charAt(i))) i++;
+		return i;
+	}
+
+	/**
+	 * @return true for <code>\s</code> of <code>java.util.regex.Pattern</code>
+	 */
+	static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
+
+	/**
+	 * @return true for the line terminators <code>java.util.Scanner</code> splits lines at
+	 */
+	private static boolean isLineTerminator(char c) {
+		return c == '\n' || c == '\r' || c == '\u0085' || c == 0x2028 || c == 0x2029;
+	}
+
+}
@@ -16,7 +16,6 @@
 package de.fraunhofer.scai.bio.util;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -25,19 +24,41 @@ import java.util.TreeMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import org.apache.commons.lang.CharUtils;
-import org.apache.commons.lang.StringUtils;
-
 /**
  * uses a list of regular expressions for sentence end positions
+ * <p>
+ * The default patterns are found by {@link SentenceBoundaryScanner} in a single pass over the text
+ * ({@link Engine#SCANNER}), custom patterns are matched one after the other ({@link Engine#REGEX}). Both produce
+ * the same positions for the default patterns.
+ * <p>
+ * A detector is immutable and can be shared between threads, each thread reuses its own {@link Matcher}s.
  * 
  * @author marc
  */
 public class SentenceDetector {
 
-	private TreeMap<String, Pattern> regularExpressions;
+	/**
+	 * how the end of sentence positions are searched
+	 */
+	public enum Engine {
+		/** each regular expression in turn, works for any pattern */
+		REGEX,
+		/** one character scan, only for the default patterns */
+		SCANNER
+	}
+
+	/** compiled patterns, ordered by name */
+	private final Pattern[] patterns;
+
+	/** group of each pattern whose end is the end of sentence */
+	private final int[] endGroups;
+
+	/** one reusable matcher per pattern and thread */
+	private final ThreadLocal<Matcher[]> matchers;
 
-	private int shortLine = 50;
+	private final int shortLine;
+
+	private final Engine engine;
 	
 	/**
 	 * default constructor 
@@ -49,6 +70,16 @@ public class SentenceDetector {
 	public SentenceDetector(int tooShortLine) {
 		this(tooShortLine, getDefaultPatterns());
 	}
+
+	/**
+	 * constructor for the default patterns with a fixed engine
+	 * 
+	 * @param tooShortLine 
+	 * @param engine {@link Engine}
+	 */
+	public SentenceDetector(int tooShortLine, Engine engine) {
+		this(tooShortLine, getDefaultPatterns(), engine);
+	}
 	
 	/**
 	 * constructor - compiles regular patterns
@@ -57,24 +88,48 @@ public class SentenceDetector {
 	 * @param endOfSentencePatterns 
 	 */
 	public SentenceDetector(int tooShortLine, Map<String, String> endOfSentencePatterns) {
+		// the scanner only knows the default patterns
+		this(tooShortLine, endOfSentencePatterns,
+				getDefaultPatterns().equals(endOfSentencePatterns) ? Engine.SCANNER : Engine.REGEX);
+	}
 
-		// for each type keep a HashMap with the regex
-		regularExpressions = new TreeMap<String, Pattern>();
+	private SentenceDetector(int tooShortLine, Map<String, String> endOfSentencePatterns, Engine engine) {
 
 		shortLine  = tooShortLine;
-		
+		this.engine = engine;
+
+		// order the patterns by name
+		TreeMap<String, String> sorted = new TreeMap<String, String>(endOfSentencePatterns);
+		patterns = new Pattern[sorted.size()];
+		endGroups = new int[sorted.size()];
+
 		// for each regular expression in that section
-		for(Entry<String, String> expr : endOfSentencePatterns.entrySet()) {
+		int i = 0;
+		for(Entry<String, String> expr : sorted.entrySet()) {
 
 			try {
-				Pattern pattern = Pattern.compile( expr.getValue() );
-				regularExpressions.put(expr.getKey(), pattern);
+				patterns[i] = Pattern.compile( expr.getValue() );
+				endGroups[i] = extractEnd(expr.getKey());
+				i++;
 
 			} catch (Exception e) {
 				throw new IllegalArgumentException("Couldn't compile pattern " + expr.getKey() + ": " + expr.getValue());
 			}
 
 		}
+
+		matchers = ThreadLocal.withInitial(() -> {
+			Matcher[] threadMatchers = new Matcher[patterns.length];
+			for(int p=0; p<patterns.length; p++) threadMatchers[p] = patterns[p].matcher("");
+			return threadMatchers;
+		});
+	}
+
+	/**
+	 * @return the {@link Engine} used by this detector
+	 */
+	public Engine getEngine() {
+		return engine;
 	}
 
 	/**
@@ -99,68 +154,97 @@ public class SentenceDetector {
 	 */
 	public List<Integer> findSentencesEndPositions(String docText) throws IllegalArgumentException {
 		
-		int docLen = docText.length();
+		int[] ends = findSentenceEndOffsets(docText);
+
+		List<Integer> stoplist = new ArrayList<Integer>(ends.length + 1);
+		for(int end : ends) stoplist.add(end);
+
+		return stoplist;
+	}
+
+	/**
+	 * like {@link #findSentencesEndPositions(String)} but without boxing
+	 * 
+	 * @param docText <code>String</code>
+	 * @return ascending end positions, the last one is the length of the text
+	 * @throws IllegalArgumentException
+	 */
+	public int[] findSentenceEndOffsets(String docText) throws IllegalArgumentException {
+		IntList stoplist = new IntList();
+		findSentenceEndOffsets(docText, stoplist);
+		return stoplist.toArray();
+	}
+
+	/**
+	 * like {@link #findSentencesEndPositions(String)} but writes into a reusable buffer
+	 * 
+	 * @param docText <code>String</code>
+	 * @param stoplist cleared and filled with the ascending end positions
+	 * @throws IllegalArgumentException
+	 */
+	public void findSentenceEndOffsets(String docText, IntList stoplist) throws IllegalArgumentException {
 
 		// check for correct input to your annotator, if not throw an exception
 		if( docText == null || docText.isEmpty() ) {
 			throw new IllegalArgumentException("document text is empty");			
 		}
-		
+
+		int docLen = docText.length();
+
 		// list of positions where sentences can end
-		List<Integer> stoplist = new ArrayList<Integer>();
+		stoplist.clear();
 
-		// find short lines via a scanner
-		if(shortLine>0) {			
-		    findShortLines(stoplist, docText);
+		if(engine == Engine.SCANNER) {
+			SentenceBoundaryScanner.scan(docText, shortLine, stoplist);
+
+		} else {
+			// find short lines via a scanner
+			if(shortLine>0) {			
+			    findShortLines(stoplist, docText);
+			}
+			
+			// find stop positions via regex
+			findStopPatterns(stoplist, docText);
 		}
 		
-		// find stop positions via regex
-		findStopPatterns(stoplist, docText);		
-		
-		// close document with sentence
-		if(!stoplist.contains(docLen)) stoplist.add(docLen);
-		
 		// order the different findings
-		Collections.sort(stoplist);
+		stoplist.sortUnique();
 
-		return stoplist;
+		// close document with sentence
+		if(stoplist.isEmpty() || stoplist.get(stoplist.size()-1) != docLen) stoplist.add(docLen);
 	}
 	
 	/**
 	 * pattern matcher for stop positions
      * add stop tokens to the list
 	 * 
-	 * @param stoplist <code>Map of Integer, String</code>
+	 * @param stoplist <code>IntList</code>
 	 * @param docText 
 	 */
-	private void findStopPatterns(List<Integer> stoplist, String docText) {
+	private void findStopPatterns(IntList stoplist, String docText) {
 		
-		if(regularExpressions != null) {
-			for(String regexName : regularExpressions.keySet()) {
-
-				Pattern pattern = regularExpressions.get(regexName);					
-				Matcher matcher = pattern.matcher( docText );
+		Matcher[] threadMatchers = matchers.get();
+		for(int i=0; i<threadMatchers.length; i++) {
 
-				// which part of the matched pattern should be annotated
-				int end = extractEnd(regexName);
+			Matcher matcher = threadMatchers[i].reset( docText );
 
-				// find all matches and add end of sentence to list
-				while(matcher.find()) {
-					if(!stoplist.contains(matcher.end(end))) {
-						stoplist.add(matcher.end(end));
-					}
-				}			
+			// find all matches and add end of sentence to list
+			while(matcher.find()) {
+				stoplist.add(matcher.end(endGroups[i]));
 			}
+
+			// don't keep the text reachable from the thread
+			matcher.reset("");
 		}
 	}
 
 	/**
 	 * search for short lines and add stop tokens to the list
 	 * 
-	 * @param stoplist <code>Map of Integer, String</code>
+	 * @param stoplist <code>IntList</code>
 	 * @param docText 
 	 */
-	private void findShortLines(List<Integer> stoplist, String docText) {
+	private void findShortLines(IntList stoplist, String docText) {
 		int index = 0;
 
 		Scanner scanner = new Scanner( docText );
@@ -182,7 +266,7 @@ public class SentenceDetector {
 	 * @param regexName
 	 * @return <code>int</code> number of group
 	 */
-	private int extractEnd(String regexName) {
+	private static int extractEnd(String regexName) {
 		String idx = "";
 		
 		if(regexName.indexOf("$")>=0) idx = regexName.substring(regexName.indexOf("[")+1);
@@ -255,42 +339,109 @@ public class SentenceDetector {
 		
 		if(!stoplist.contains(docLen)) stoplist.add(docLen);
 		
-		// create sentences for each stop position
-		int begin = 0;
+		int[] ends = new int[stoplist.size()];
+		for(int i=0; i<ends.length; i++) ends[i] = stoplist.get(i);
+
+		IntList offsets = new IntList(ends.length * 2);
+		getSentenceOffsets(ends, ends.length, text, shortSentence, offsets);
 		
-		for(int end : stoplist) {
+		for(int i=0; i<offsets.size(); i+=2) {
+			tuples.add(new Tuple(offsets.get(i), offsets.get(i+1)));
+		}
+		
+		return tuples;
+	}
 
-			end = Math.min(end, docLen);
-			
-			boolean lastStop = (end==docLen);
-
-			// trim begin of sentence
-			while( begin < docLen && 
-					StringUtils.isWhitespace(				
-							CharUtils.toString(text.charAt(begin))
-					)
-				) { begin++; }
-
-			// trim end of sentence
-			while( end>0 && StringUtils.isWhitespace(				
-					CharUtils.toString(text.charAt(end-1))
-					)
-				) { end--; }
-
-			// don't create too short sentences
-			if(!lastStop && (end-begin) <= shortSentence) continue;
-			
-			// proper length check
-			if (begin+1 < end) {
+	/**
+	 * sentence offsets without boxing, see {@link #findSentenceOffsets(String, int, IntList, IntList)}
+	 * 
+	 * @param text
+	 * @param shortSentence
+	 * @return packed begin/end pairs: <code>[begin0, end0, begin1, end1, ...]</code>
+	 */
+	public int[] findSentenceOffsets(String text, int shortSentence) {
+		IntList offsets = new IntList();
+		findSentenceOffsets(text, shortSentence, new IntList(), offsets);
+		return offsets.toArray();
+	}
 
-				tuples.add(new Tuple(begin, end));
-				
-				begin = Math.min(end+1, docLen);
-				
-			}
+	/**
+	 * find end positions and turn them into trimmed sentence offsets, both buffers are cleared first and can be
+	 * reused for the next text
+	 * 
+	 * @param text
+	 * @param shortSentence sentences up to this length are joined with the next one
+	 * @param ends buffer for the end positions
+	 * @param offsets receives packed begin/end pairs: <code>[begin0, end0, begin1, end1, ...]</code>
+	 * @return number of sentences
+	 */
+	public int findSentenceOffsets(String text, int shortSentence, IntList ends, IntList offsets) {
+		findSentenceEndOffsets(text, ends);
+
+		offsets.clear();
+		for(int i=0; i<ends.size(); i++) {
+			addSentenceOffsets(ends.get(i), text, shortSentence, offsets);
 		}
 		
-		return tuples;
+		return offsets.size() / 2;
+	}
+
+	/**
+	 * turn end positions into trimmed sentence offsets, the text length is added as end position if missing
+	 * 
+	 * @param ends end positions
+	 * @param count number of valid entries in <code>ends</code>
+	 * @param text
+	 * @param shortSentence sentences up to this length are joined with the next one
+	 * @param offsets cleared and filled with packed begin/end pairs: <code>[begin0, end0, begin1, end1, ...]</code>
+	 * @return number of sentences
+	 */
+	public int getSentenceOffsets(int[] ends, int count, String text, int shortSentence, IntList offsets) {
+		int docLen = text.length();
+		boolean closed = false;
+
+		offsets.clear();
+		for(int i=0; i<count; i++) {
+			addSentenceOffsets(ends[i], text, shortSentence, offsets);
+			closed |= ends[i] == docLen;
+		}
+		if(!closed) addSentenceOffsets(docLen, text, shortSentence, offsets);
+
+		return offsets.size() / 2;
+	}
+
+	/**
+	 * trim the text between the previous sentence and <code>end</code>, add it if it is long enough
+	 * 
+	 * @param end
+	 * @param text
+	 * @param shortSentence
+	 * @param offsets
+	 */
+	private void addSentenceOffsets(int end, String text, int shortSentence, IntList offsets) {
+		int docLen = text.length();
+
+		// the next sentence starts behind the last one
+		int begin = offsets.isEmpty() ? 0 : Math.min(offsets.get(offsets.size()-1)+1, docLen);
+
+		end = Math.min(end, docLen);
+		
+		boolean lastStop = (end==docLen);
+
+		// trim begin of sentence
+		while( begin < docLen && Character.isWhitespace(text.charAt(begin)) ) { begin++; }
+
+		// trim end of sentence
+		while( end>0 && Character.isWhitespace(text.charAt(end-1)) ) { end--; }
+
+		// don't create too short sentences
+		if(!lastStop && (end-begin) <= shortSentence) return;
+		
+		// proper length check
+		if (begin+1 < end) {
+			offsets.add(begin);
+			offsets.add(end);
+		}
 	}
 	
 	/**
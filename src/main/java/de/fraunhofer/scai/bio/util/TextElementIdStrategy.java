@@ -0,0 +1,46 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.util;
+
+import java.util.UUID;
+
+import de.fraunhofer.scai.bio.types.text.doc.structure.TextElement;
+
+/**
+ * Derives the {@link UUID} of a {@link TextElement} from its text, see
+ * {@link DocumentBuilder#setTextElementIdStrategy(TextElementIdStrategy)}. Implementations must be thread safe.
+ */
+@FunctionalInterface
+public interface TextElementIdStrategy {
+
+    /**
+     * name based (version 3) UUID from the MD5 of the text in the platform charset, as
+     * {@link UUID#nameUUIDFromBytes(byte[])}; the ids of existing documents were made this way
+     */
+    TextElementIdStrategy MD5 = text -> UUID.nameUUIDFromBytes(text.getBytes());
+
+    /**
+     * 128 bit MurmurHash3 of the UTF-16 code units of the text, hashed without copying them, as version 8 UUID; much
+     * faster than {@link #MD5} but yields different ids
+     */
+    TextElementIdStrategy MURMUR3 = Murmur3::uuid;
+
+    /**
+     * @param text
+     *        non empty text of a {@link TextElement}
+     * @return id of the text, equal texts get equal ids
+     */
+    UUID createId(String text);
+
+}
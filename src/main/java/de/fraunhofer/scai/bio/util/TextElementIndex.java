@@ -0,0 +1,160 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Annotation;
+import de.fraunhofer.scai.bio.types.text.doc.structure.TextElement;
+
+/**
+ * Index over the {@link TextElement}s a {@link DocumentWalker} finds in a {@link Document}.
+ * <p>
+ * The index is a snapshot of the document structure when it was built, the caller decides how long to keep it. Text
+ * elements added or removed afterwards are not seen, build a new index after changing the document. The annotation
+ * count is taken when the index is built, annotations added to a {@link TextElement} afterwards are only reflected by
+ * {@link #getAllAnnotations()}.
+ */
+public class TextElementIndex {
+
+    private final List<TextElement> elements = new ArrayList<TextElement>();
+    private final Map<UUID, TextElement> byUuid = new HashMap<UUID, TextElement>();
+    private final Map<UUID, List<TextElement>> duplicates = new HashMap<UUID, List<TextElement>>();
+    private final Map<TextElementRole, List<TextElement>> byRole =
+        new EnumMap<TextElementRole, List<TextElement>>(TextElementRole.class);
+    private final int contentEnd;
+    private int annotationCount;
+
+    /**
+     * @param document
+     *        {@link Document} to index
+     */
+    public TextElementIndex(Document document) {
+        DocumentVisitor indexer = this::add;
+
+        if (document.getDocumentElement() != null) {
+            DocumentWalker.walkFrontMatter(document.getDocumentElement().getFrontMatter(), indexer);
+            DocumentWalker.walkBodyMatter(document.getDocumentElement().getBodyMatter(), indexer);
+            contentEnd = elements.size();
+            DocumentWalker.walkBackMatter(document.getDocumentElement().getBackMatter(), indexer);
+        } else {
+            contentEnd = 0;
+        }
+    }
+
+    private void add(TextElement textElement, TextElementRole role, int depth) {
+        elements.add(textElement);
+        byRole.computeIfAbsent(role, r -> new ArrayList<TextElement>()).add(textElement);
+
+        if (textElement.getUuid() != null) {
+            TextElement first = byUuid.putIfAbsent(textElement.getUuid(), textElement);
+            if (first != null) {
+                duplicates.computeIfAbsent(textElement.getUuid(), u -> {
+                    List<TextElement> all = new ArrayList<TextElement>(2);
+                    all.add(first);
+                    return all;
+                }).add(textElement);
+            }
+        }
+
+        if (textElement.getAnnotations() != null) {
+            annotationCount += textElement.getAnnotations().size();
+        }
+    }
+
+    /**
+     * @param uuid
+     *        {@link UUID}
+     * @return the first {@link TextElement} in document order with this id or <code>null</code>
+     */
+    public TextElement get(UUID uuid) {
+        return byUuid.get(uuid);
+    }
+
+    /**
+     * @param uuid
+     *        {@link UUID}
+     * @return all {@link TextElement}s with this id in document order, an empty list if there are none
+     */
+    public List<TextElement> getAll(UUID uuid) {
+        List<TextElement> all = duplicates.get(uuid);
+        if (all != null) {
+            return Collections.unmodifiableList(all);
+        }
+        TextElement first = byUuid.get(uuid);
+        return first != null ? Collections.singletonList(first) : Collections.<TextElement>emptyList();
+    }
+
+    /**
+     * @return the ids of all indexed {@link TextElement}s
+     */
+    public Set<UUID> getUuids() {
+        return Collections.unmodifiableSet(byUuid.keySet());
+    }
+
+    /**
+     * @param role
+     *        {@link TextElementRole}
+     * @return the {@link TextElement}s found in this role, in document order
+     */
+    public List<TextElement> getTextElements(TextElementRole role) {
+        List<TextElement> list = byRole.get(role);
+        return list != null ? Collections.unmodifiableList(list) : Collections.<TextElement>emptyList();
+    }
+
+    /**
+     * @return all {@link TextElement}s in document order
+     */
+    public List<TextElement> getTextElements() {
+        return Collections.unmodifiableList(elements);
+    }
+
+    /**
+     * @return the {@link TextElement}s of front and body matter, which make up the content of the document
+     */
+    public List<TextElement> getContentTextElements() {
+        return Collections.unmodifiableList(elements.subList(0, contentEnd));
+    }
+
+    /**
+     * @return number of annotations when the index was built
+     */
+    public int getAnnotationCount() {
+        return annotationCount;
+    }
+
+    /**
+     * @return all {@link Annotation}s of the indexed {@link TextElement}s in document order
+     */
+    public List<Annotation> getAllAnnotations() {
+        List<Annotation> annotations = new ArrayList<Annotation>(annotationCount);
+
+        for (TextElement element : elements) {
+            if (element.getAnnotations() != null) {
+                annotations.addAll(element.getAnnotations());
+            }
+        }
+
+        return annotations;
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.util;
+
+import de.fraunhofer.scai.bio.types.text.doc.structure.TextElement;
+
+/**
+ * The role a {@link TextElement} plays at the place where the {@link DocumentWalker} found it.
+ * <p>
+ * The label of a role is the key suffix used by {@link DocumentRenderer#getDocumentTextElements}.
+ */
+public enum TextElementRole {
+
+    FRONT_MATTER_TITLE("FRONTMATTERTITLE"),
+    SECTION_TITLE("SECTIONTITLE"),
+    CAPTIONED_BOX_TITLE("CAPTIONEDBOXTITLE"),
+    CAPTIONED_BOX_CAPTION("CAPTIONEDBOXCAPTION"),
+    CODE("CODE"),
+    DATA_TABLE_CONTENT("DATATABLECONTENT"),
+    FIGURE_TITLE("FIGURETITLE"),
+    FIGURE_CAPTION("FIGURECAPTION"),
+    FORMULA("FORMULA"),
+    OUTLINE_TITLE_TEXT("OUTLINETITLETEXT"),
+    QUOTATION("QUOTATION"),
+    TABLE_TITLE("TABLETITLE"),
+    TABLE_TEXT("TABLETEXT"),
+    TABLE_CAPTION("TABLECAPTION"),
+    TABLE_HEADER("TABLEHEADER"),
+    PMC_TABLE_CAPTION("PMCTABLECAPTION"),
+    PMC_TABLE_CELL("PMCTABLECELLCONTENT"),
+    SENTENCE("SENTENCE"),
+    TEXT_ELEMENT("TEXTELEMENT"),
+    LIST_TITLE("LISTTITLE"),
+    LIST_ELEMENT("LISTELEMENT"),
+    REFERENCE_TITLE("TITLETEXT"),
+    REFERENCE_SUBTITLE("SUBTITLETEXT"),
+    REFERENCE_LANGUAGE("LANGUAGE"),
+    REFERENCE_PUBLICATION_ID("PUBLICATIONID"),
+    REFERENCE_PUBLICATION_TYPE("PUBLICATIONTYPE"),
+    REFERENCE_SOURCE("REFERENCESOURCE"),
+    REFERENCE_LINK("REFERENCELINK");
+
+    private final String label;
+
+    TextElementRole(String label) {
+        this.label = label;
+    }
+
+    /**
+     * @return the upper case label of this role, section titles get their depth appended
+     */
+    public String getLabel() {
+        return label;
+    }
+
+}
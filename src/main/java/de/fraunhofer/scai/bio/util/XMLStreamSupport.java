@@ -0,0 +1,157 @@
+/*
+ * Copyright 2018 Fraunhofer Institute SCAI, St. Augustin, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package de.fraunhofer.scai.bio.util;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Navigation of an {@link XMLStreamReader} positioned on a start element, shared by the StAX importers.
+ */
+final class XMLStreamSupport {
+
+    private XMLStreamSupport() {
+    }
+
+    /**
+     * @return factory for non namespace aware readers that coalesce text and neither read DTDs nor external entities
+     */
+    static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    /**
+     * @return qualified name of the current element, prefix and local name separated by a colon
+     */
+    static String name(XMLStreamReader xml) {
+        String prefix = xml.getPrefix();
+        String localName = xml.getLocalName();
+        return prefix == null || prefix.isEmpty() || localName.indexOf(':') >= 0 ? localName
+            : prefix + ":" + localName;
+    }
+
+    /**
+     * @return value of the attribute with the qualified <code>name</code> or <code>null</code>
+     */
+    static String attribute(XMLStreamReader xml, String name) {
+        for (int i = 0; i < xml.getAttributeCount(); i++) {
+            String prefix = xml.getAttributePrefix(i);
+            String localName = xml.getAttributeLocalName(i);
+            String qualified = prefix == null || prefix.isEmpty() || localName.indexOf(':') >= 0 ? localName
+                : prefix + ":" + localName;
+            if (name.equals(qualified)) {
+                return xml.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * moves to the next child element of the current element
+     *
+     * @return <code>false</code> at the end of the current element
+     */
+    static boolean nextChild(XMLStreamReader xml) throws XMLStreamException {
+        while (true) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            }
+            if (event == XMLStreamConstants.END_ELEMENT || event == XMLStreamConstants.END_DOCUMENT) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * moves to the end of the current element
+     */
+    static void skip(XMLStreamReader xml) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT || event == XMLStreamConstants.END_DOCUMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * reads the text up to the end of the current element, including the text of inline markup
+     *
+     * @return the text, whitespace runs collapsed to a single blank and trimmed
+     */
+    static String text(XMLStreamReader xml) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+        while (depth > 0) {
+            switch (xml.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                depth++;
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+            case XMLStreamConstants.END_DOCUMENT:
+                depth--;
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+                appendCollapsed(text, xml);
+                break;
+            default:
+                break;
+            }
+        }
+        return trim(text);
+    }
+
+    /**
+     * appends the current text event, whitespace runs become a single blank and leading whitespace is dropped
+     */
+    static void appendCollapsed(StringBuilder text, XMLStreamReader xml) {
+        char[] chars = xml.getTextCharacters();
+        int end = xml.getTextStart() + xml.getTextLength();
+        for (int i = xml.getTextStart(); i < end; i++) {
+            char c = chars[i];
+            if (Character.isWhitespace(c)) {
+                if (text.length() > 0 && text.charAt(text.length() - 1) != ' ') {
+                    text.append(' ');
+                }
+            } else {
+                text.append(c);
+            }
+        }
+    }
+
+    /**
+     * @return the collapsed text without the trailing blank
+     */
+    static String trim(StringBuilder text) {
+        int length = text.length();
+        if (length > 0 && text.charAt(length - 1) == ' ') {
+            text.setLength(length - 1);
+        }
+        return text.toString();
+    }
+
+}
@@ -0,0 +1,124 @@
+package de.fraunhofer.scai.bio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import de.fraunhofer.scai.bio.types.text.doc.container.Paragraph;
+import de.fraunhofer.scai.bio.util.DocumentBuilder;
+
+public class DocumentPipelineTest {
+
+    @Test
+    public void testStages() throws Exception {
+        DocumentBuilder builder = new DocumentBuilder();
+        List<String> records = IntStream.range(0, 500)
+            .mapToObj(i -> "Record " + i + " has two sentences. This is the second one of " + i + ".")
+            .collect(Collectors.toList());
+
+        DocumentPipeline<String, Integer> pipeline = DocumentPipeline.<String> builder()
+            .queueCapacity(4)
+            .stage("parse", 2, record -> record.trim())
+            .stage("build", 3, text -> builder.createParagraph(text, true))
+            .stage("count", 2, (Paragraph paragraph) -> paragraph.getStructureElements().size())
+            .stage("filter", 1, (Integer count) -> count == 2 ? count : null)
+            .build();
+
+        List<Integer> counts = new ArrayList<Integer>();
+        assertEquals(500, pipeline.run(records.iterator(), counts::add));
+        assertEquals(Collections.nCopies(500, 2), counts);
+
+        List<DocumentPipeline.StageStatistics> statistics = pipeline.getStatistics();
+        assertEquals(5, statistics.size());
+        assertEquals("build", statistics.get(1).getName());
+        assertEquals(3, statistics.get(1).getThreads());
+        assertEquals(500, statistics.get(1).getProcessed());
+        assertEquals(0, statistics.get(1).getQueued());
+        assertEquals("sink", statistics.get(4).getName());
+        assertEquals(500, statistics.get(4).getProcessed());
+
+        // the pipeline can be run again
+        counts.clear();
+        assertEquals(2, pipeline.run(records.subList(0, 2).iterator(), counts::add));
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        AtomicInteger read = new AtomicInteger();
+        Iterator<Integer> source = new Iterator<Integer>() {
+
+            @Override
+            public boolean hasNext() {
+                return read.get() < 1000;
+            }
+
+            @Override
+            public Integer next() {
+                return read.incrementAndGet();
+            }
+        };
+
+        CountDownLatch slow = new CountDownLatch(1);
+        DocumentPipeline<Integer, Integer> pipeline = DocumentPipeline.<Integer> builder()
+            .queueCapacity(2)
+            .peek("slow", 1, item -> {
+                try {
+                    slow.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            })
+            .build();
+
+        AtomicInteger readWhileBlocked = new AtomicInteger();
+        Thread release = new Thread(() -> {
+            try {
+                Thread.sleep(200);
+                readWhileBlocked.set(read.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                slow.countDown();
+            }
+        });
+        release.start();
+        assertEquals(1000, pipeline.run(source, item -> { }));
+        release.join();
+        // queue + the item in the stage + the item the source is trying to put
+        assertTrue(String.valueOf(readWhileBlocked.get()), readWhileBlocked.get() <= 4);
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        RuntimeException failure = new RuntimeException("broken record");
+        DocumentPipeline<Integer, Integer> pipeline = DocumentPipeline.<Integer> builder()
+            .queueCapacity(1)
+            .stage("check", 4, (Integer item) -> {
+                if (item == 50) {
+                    throw failure;
+                }
+                return item;
+            })
+            .build();
+
+        try {
+            pipeline.run(IntStream.range(0, 100000).boxed().iterator(), item -> { });
+            fail();
+        } catch (IllegalStateException e) {
+            assertSame(failure, e.getCause());
+            assertEquals("pipeline stage check failed", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package de.fraunhofer.scai.bio.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.fraunhofer.scai.bio.types.text.doc.meta.Annotation;
+import de.fraunhofer.scai.bio.types.text.doc.structure.AnnotationIndex;
+import de.fraunhofer.scai.bio.types.text.doc.structure.TextElement;
+
+public class AnnotationIndexTest {
+
+    @Test
+    public void testQueriesMatchLinearScan() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            TextElement textElement = new TextElement();
+            for (int i = random.nextInt(200); i > 0; i--) {
+                int start = random.nextInt(100);
+                textElement.addAnnotation(annotation(start, start + random.nextInt(30), "T" + i));
+            }
+            textElement.addAnnotation(null);
+
+            AnnotationIndex index = textElement.getAnnotationIndex();
+            List<Annotation> sorted = new ArrayList<Annotation>(index.getAnnotations());
+            assertEquals(textElement.getAnnotations().size() - 1, index.size());
+
+            for (int query = 0; query < 50; query++) {
+                int start = random.nextInt(130);
+                int end = start + random.nextInt(20);
+
+                List<Annotation> overlapping = new ArrayList<Annotation>();
+                List<Annotation> covering = new ArrayList<Annotation>();
+                List<Annotation> contained = new ArrayList<Annotation>();
+                List<Annotation> atStart = new ArrayList<Annotation>();
+                for (Annotation annotation : sorted) {
+                    if (annotation.getStartOffset() < end && annotation.getEndOffset() > start) {
+                        overlapping.add(annotation);
+                    }
+                    if (annotation.getStartOffset() <= start && annotation.getEndOffset() >= end) {
+                        covering.add(annotation);
+                    }
+                    if (annotation.getStartOffset() >= start && annotation.getStartOffset() < end
+                        && annotation.getEndOffset() <= end) {
+                        contained.add(annotation);
+                    }
+                    if (annotation.getStartOffset() <= start && annotation.getEndOffset() > start) {
+                        atStart.add(annotation);
+                    }
+                }
+
+                assertEquals(overlapping, index.getOverlapping(start, end));
+                assertEquals(covering, index.getCovering(start, end));
+                assertEquals(contained, index.getContained(start, end));
+                assertEquals(atStart, index.getCovering(start));
+            }
+        }
+    }
+
+    @Test
+    public void testRebuiltAfterChange() {
+        TextElement textElement = new TextElement();
+        assertEquals(0, textElement.getAnnotationIndex().size());
+
+        textElement.addAnnotation(annotation(0, 4, "GENE"));
+        AnnotationIndex index = textElement.getAnnotationIndex();
+        assertSame(index, textElement.getAnnotationIndex());
+        assertEquals(1, index.getCovering(2).size());
+
+        textElement.addAnnotation(annotation(2, 6, "DRUG"));
+        assertNotSame(index, textElement.getAnnotationIndex());
+        assertEquals(2, textElement.getAnnotationIndex().getCovering(3).size());
+    }
+
+    private static Annotation annotation(int start, int end, String type) {
+        Annotation annotation = new Annotation();
+        annotation.setStartOffset(start);
+        annotation.setEndOffset(end);
+        annotation.setAnnotationType(type);
+        return annotation;
+    }
+}
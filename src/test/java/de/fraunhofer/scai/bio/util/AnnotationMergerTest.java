@@ -2,9 +2,16 @@ package de.fraunhofer.scai.bio.util;
 
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertSame;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Set;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -12,6 +19,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Test;
 
 import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.Provenance;
+import de.fraunhofer.scai.bio.types.text.doc.container.Section;
 import de.fraunhofer.scai.bio.types.text.doc.meta.Annotation;
 
 public class AnnotationMergerTest {
@@ -36,4 +45,110 @@ public class AnnotationMergerTest {
 
 
     }
+
+    @Test
+    public void testMergeAll() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        File json0 = new File(getClass().getResource("/a.json").getPath());
+        File json1 = new File(getClass().getResource("/b.json").getPath());
+
+        Document pairwise = mapper.readValue(json0.getAbsoluteFile(), Document.class);
+        Document merged = mapper.readValue(json0.getAbsoluteFile(), Document.class);
+        List<Document> layers = new ArrayList<Document>();
+        for (int i = 0; i < 4; i++) {
+            Document layer = mapper.readValue(json1.getAbsoluteFile(), Document.class);
+            Annotation extra = annotation("layer" + i, "annotator" + i);
+            layer.getDocumentElement().getFrontMatter().getTitleText().addAnnotation(extra);
+            layers.add(layer);
+            AnnotationMerger.mergeAnnotations(pairwise, mapper.readValue(mapper.writeValueAsBytes(layer), Document.class));
+        }
+        Document layer0 = mapper.readValue(mapper.writeValueAsBytes(layers.get(0)), Document.class);
+
+        assertSame(merged, AnnotationMerger.mergeAll(merged, layers));
+        assertEquals(pairwise, merged);
+        assertEquals(26, merged.getDocumentElement().getFrontMatter().getTitleText().getAnnotations().size());
+        // layers stay untouched
+        assertEquals(layer0, layers.get(0));
+    }
+
+    /**
+     * mergeAnnotations leaves base elements with the same uuid sharing the set of the extension, mergeAll must not
+     * add to it from several threads
+     */
+    @Test
+    public void testMergeAllAfterMergeAnnotations() {
+        DocumentBuilder builder = new DocumentBuilder();
+        Document base = new Document();
+        for (int i = 0; i < 64; i++) {
+            builder.getBodyMatter(base).addSection(builder.createSection("Results"));
+        }
+        Document extension = new Document();
+        Section section = builder.createSection("Results");
+        section.getTitle().addAnnotation(annotation("extension", "annotator"));
+        builder.getBodyMatter(extension).addSection(section);
+
+        AnnotationMerger.mergeAnnotations(base, extension);
+        List<Section> sections = base.getDocumentElement().getBodyMatter().getSections();
+        assertSame(sections.get(0).getTitle().getAnnotations(), sections.get(63).getTitle().getAnnotations());
+
+        List<Document> layers = new ArrayList<Document>();
+        for (int i = 0; i < 4; i++) {
+            Document layer = new Document();
+            Section layerSection = builder.createSection("Results");
+            for (int j = 0; j < 100; j++) {
+                layerSection.getTitle().addAnnotation(annotation("layer" + i + "-" + j, "annotator" + i));
+            }
+            builder.getBodyMatter(layer).addSection(layerSection);
+            layers.add(layer);
+        }
+        AnnotationMerger.mergeAll(base, layers);
+
+        Set<Set<Annotation>> sets = Collections.newSetFromMap(new IdentityHashMap<Set<Annotation>, Boolean>());
+        for (Section merged : sections) {
+            assertEquals(401, merged.getTitle().getAnnotations().size());
+            sets.add(merged.getTitle().getAnnotations());
+        }
+        assertEquals(64, sets.size());
+    }
+
+    @Test
+    public void testAnnotationIdentity() {
+        Annotation a = annotation("HGNC:1100", "Kekule");
+        Annotation b = annotation("HGNC:1100", "Kekule");
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertNotSame(a.getProvenance(), b.getProvenance());
+
+        AnnotationInterner interner = new AnnotationInterner();
+        interner.intern(a);
+        interner.intern(b);
+        assertSame(a.getProvenance(), b.getProvenance());
+        assertEquals(1, interner.size());
+
+        // provenance isn't hashed, but still part of equality
+        Annotation c = annotation("HGNC:1100", "Other");
+        assertEquals(a.hashCode(), c.hashCode());
+        assertFalse(a.equals(c));
+
+        // the fingerprint follows changes
+        long fingerprint = c.getFingerprint();
+        c.setEndOffset(12);
+        assertFalse(fingerprint == c.getFingerprint());
+        c.setEndOffset(5);
+        assertEquals(fingerprint, c.getFingerprint());
+    }
+
+    private static Annotation annotation(String text, String source) {
+        Provenance provenance = new Provenance();
+        provenance.setSource(source);
+        provenance.addComment("dictionary tagging");
+
+        Annotation annotation = new Annotation();
+        annotation.setStartOffset(0);
+        annotation.setEndOffset(5);
+        annotation.setAnnotationType("GENE");
+        annotation.setAnnotationText(text);
+        annotation.setProvenance(provenance);
+        return annotation;
+    }
 }
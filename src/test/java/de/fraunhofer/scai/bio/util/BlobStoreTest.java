@@ -0,0 +1,144 @@
+package de.fraunhofer.scai.bio.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.types.text.doc.container.Paragraph;
+import de.fraunhofer.scai.bio.types.text.doc.container.Section;
+import de.fraunhofer.scai.bio.types.text.doc.container.StructureElement;
+import de.fraunhofer.scai.bio.types.text.doc.structure.Figure;
+import de.fraunhofer.scai.bio.types.text.doc.structure.ImageContent;
+
+public class BlobStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final DocumentBuilder builder = new DocumentBuilder();
+
+    private static ImageContent image(byte[] content) {
+        ImageContent image = new ImageContent();
+        image.setEncoding("png");
+        image.setWidth(2);
+        image.setContent(content);
+        return image;
+    }
+
+    private Document document(byte[] figure, byte[] image) {
+        Document document = new Document();
+        builder.setTitle(document, "Figures", null);
+        Section section = builder.createSection("Results");
+        Paragraph paragraph = builder.createParagraph("See figure 1.", true);
+
+        StructureElement figureElement = new StructureElement();
+        figureElement.setFigure(builder.createFigure("figure", "Figure 1", null, image(figure)));
+        paragraph.addStructureElement(figureElement);
+        StructureElement imageElement = new StructureElement();
+        imageElement.setImageContent(image(image));
+        paragraph.addStructureElement(imageElement);
+
+        section.addParagraph(paragraph);
+        builder.getBodyMatter(document).addSection(section);
+        return document;
+    }
+
+    private static Figure figure(Document document) {
+        for (StructureElement se : document.getDocumentElement().getBodyMatter().getSections().get(0)
+            .getParagraphs().get(0).getStructureElements()) {
+            if (se.getFigure() != null) {
+                return se.getFigure();
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void testPutGet() throws IOException {
+        BlobStore store = new BlobStore(folder.newFolder("blobs"));
+        byte[] content = "image".getBytes(StandardCharsets.US_ASCII);
+
+        String digest = store.put(content);
+        assertEquals("6105d6cc76af400325e94d588ce511be5bfdbb73b437dc51eca43917d7a43e3d", digest);
+        assertEquals(digest, store.put(content.clone()));
+        assertTrue(store.contains(digest));
+        assertArrayEquals(content, store.get(digest));
+
+        String missing = BlobStore.digest(new byte[0]);
+        assertFalse(store.contains(missing));
+        assertNull(store.get(missing));
+    }
+
+    @Test
+    public void testExternalize() throws IOException {
+        BlobStore store = new BlobStore(folder.newFolder("blobs"));
+        byte[] png = { 1, 2, 3 };
+        Document document = document(png, png.clone());
+
+        assertEquals(2, store.externalize(document));
+        ImageContent image = figure(document).getImage();
+        assertNull(image.getContent());
+        assertEquals(BlobStore.digest(png), image.getDigest());
+        assertArrayEquals(png, image.loadContent());
+        assertEquals(0, store.externalize(document));
+
+        ObjectMapper mapper = new ObjectMapper();
+        String json = mapper.writeValueAsString(document);
+        assertTrue(json, json.contains(image.getDigest()));
+        Document read = mapper.readValue(json, Document.class);
+        assertEquals(document, read);
+        assertNull(figure(read).getImage().loadContent());
+
+        store.attach(read);
+        assertArrayEquals(png, figure(read).getImage().loadContent());
+
+        Document decoded = DocumentCodec.decode(DocumentCodec.encode(document));
+        assertEquals(document, decoded);
+
+        store.inline(decoded);
+        assertArrayEquals(png, figure(decoded).getImage().getContent());
+    }
+
+    @Test
+    public void testBackMatterFigure() throws IOException {
+        BlobStore store = new BlobStore(folder.newFolder("blobs"));
+        byte[] png = { 4, 5, 6 };
+        Document document = document(new byte[] { 1 }, new byte[] { 2 });
+
+        Section section = builder.createSection("Supplementary material");
+        Paragraph paragraph = builder.createParagraph("Figure S1.");
+        StructureElement figureElement = new StructureElement();
+        figureElement.setFigure(builder.createFigure("figure", "Figure S1", null, image(png)));
+        paragraph.addStructureElement(figureElement);
+        section.addParagraph(paragraph);
+        builder.getBackMatter(document).addSection(section);
+
+        assertEquals(3, store.externalize(document));
+        ImageContent image = figureElement.getFigure().getImage();
+        assertNull(image.getContent());
+        assertEquals(BlobStore.digest(png), image.getDigest());
+        assertArrayEquals(png, image.loadContent());
+
+        store.inline(document);
+        assertArrayEquals(png, image.getContent());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidDigest() throws IOException {
+        new BlobStore(folder.newFolder("blobs")).get("../../etc/passwd");
+    }
+
+}
@@ -0,0 +1,123 @@
+package de.fraunhofer.scai.bio.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import de.fraunhofer.scai.bio.types.text.doc.structure.Cell;
+import de.fraunhofer.scai.bio.types.text.doc.structure.CellType;
+import de.fraunhofer.scai.bio.types.text.doc.structure.ColumnarTable;
+import de.fraunhofer.scai.bio.types.text.doc.structure.PMCTable;
+import de.fraunhofer.scai.bio.types.text.doc.structure.Table;
+import de.fraunhofer.scai.bio.types.text.doc.structure.TextElement;
+
+public class ColumnarTableTest {
+
+    private final DocumentBuilder builder = new DocumentBuilder();
+
+    private static Cell cell(int rowStart, int colStart, int rowEnd, int colEnd, CellType type, String text) {
+        Cell cell = new Cell();
+        cell.setRowStart(rowStart);
+        cell.setColStart(colStart);
+        cell.setRowEnd(rowEnd);
+        cell.setColEnd(colEnd);
+        cell.setType(type);
+        if (text != null) {
+            TextElement content = new TextElement();
+            content.setText(text);
+            cell.setContent(content);
+        }
+        return cell;
+    }
+
+    /**
+     * <pre>
+     * | gene (2 columns) | score |
+     * | BRCA1 | 1        | 0.5   |
+     * | TP53  | 1        |       |
+     * </pre>
+     */
+    private PMCTable pmcTable() {
+        PMCTable table = new PMCTable();
+        table.setCaption(builder.createTextElement("Genes"));
+        table.setCells(Arrays.asList(cell(0, 0, 1, 2, CellType.HEADER, "gene"),
+            cell(0, 2, 1, 3, CellType.HEADER, "score"),
+            cell(1, 0, 2, 1, CellType.BODY, "BRCA1"),
+            cell(1, 1, 2, 1, CellType.BODY, "1"),
+            cell(1, 2, 2, 3, CellType.BODY, "0.5"),
+            cell(2, 0, 3, 1, CellType.BODY, "TP53"),
+            cell(2, 1, 3, 2, null, "1")));
+        return table;
+    }
+
+    @Test
+    public void testPMCTable() {
+        PMCTable pmcTable = pmcTable();
+        ColumnarTable table = ColumnarTable.of(pmcTable);
+
+        assertEquals(7, table.size());
+        assertEquals(6, table.getPoolSize());
+        assertEquals(3, table.getRowCount());
+        assertEquals(3, table.getColumnCount());
+        assertEquals(0, table.cellAt(0, 1));
+        assertEquals("gene", table.getText(0, 1));
+        assertEquals(-1, table.cellAt(2, 2));
+        assertNull(table.getText(2, 2));
+        assertEquals(-1, table.cellAt(3, 0));
+        assertEquals(Arrays.asList("score", "0.5", null), table.getColumn(2));
+        assertEquals(Arrays.asList("TP53", "1", null), table.getRow(2));
+        assertNull(table.getType(6));
+
+        assertEquals(pmcTable, table.toPMCTable());
+        assertEquals(table, ColumnarTable.of(table.toPMCTable()));
+    }
+
+    @Test
+    public void testTable() {
+        List<Map<String, String>> rows = new ArrayList<Map<String, String>>();
+        for (String[] values : new String[][] { { "BRCA1", "0.5" }, { "TP53", null } }) {
+            Map<String, String> row = new LinkedHashMap<String, String>();
+            row.put("gene", values[0]);
+            row.put("score", values[1]);
+            rows.add(row);
+        }
+        Map<String, String> extra = new LinkedHashMap<String, String>();
+        extra.put("note", "x");
+        rows.add(extra);
+        Table table = new Table();
+        table.setRows(rows);
+
+        ColumnarTable columnar = ColumnarTable.of(table);
+        assertEquals(4, columnar.getRowCount());
+        assertEquals(3, columnar.getColumnCount());
+        assertEquals(Arrays.asList("gene", "score", "note"), columnar.getRow(0));
+        assertEquals(CellType.HEADER, columnar.getCell(0, 2).getType());
+        assertEquals("TP53", columnar.getText(2, 0));
+        assertNull(columnar.getCell(3, 0));
+
+        assertEquals(rows, columnar.toTable().getRows());
+    }
+
+    @Test
+    public void testLargeTable() {
+        ColumnarTable.Builder large = new ColumnarTable.Builder();
+        for (int r = 0; r < 1000; r++) {
+            for (int c = 0; c < 100; c++) {
+                large.addCell(r, c, r + 1, c + 1, r == 0 ? CellType.HEADER : CellType.BODY, Integer.toString(c % 7));
+            }
+        }
+        ColumnarTable table = large.build();
+        assertEquals(100000, table.size());
+        assertEquals(7, table.getPoolSize());
+        assertEquals("5", table.getText(999, 12));
+        assertEquals(1000, table.getColumn(99).size());
+    }
+
+}
@@ -0,0 +1,143 @@
+package de.fraunhofer.scai.bio.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.types.text.doc.structure.TextElement;
+
+public class CorpusAnnotationMergerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private Document read(String name, String id) throws IOException {
+        File json = new File(getClass().getResource(name).getPath());
+        Document document = mapper.readValue(json.getAbsoluteFile(), Document.class);
+        document.getDocumentElement().getMetaElement().getConcept().getIdentifier().setText(id);
+        return document;
+    }
+
+    private File write(List<Document> documents, String name) throws IOException {
+        File file = new File(folder.getRoot(), name);
+        try (DocumentCorpusWriter writer = new DocumentCorpusWriter(file)) {
+            for (Document document : documents) {
+                writer.write(document);
+            }
+        }
+        return file;
+    }
+
+    @Test
+    public void testMergeUnorderedCorpora() throws IOException {
+        List<Document> base = new ArrayList<Document>();
+        List<Document> layer = new ArrayList<Document>();
+        for (int i = 0; i < 7; i++) {
+            base.add(read("/a.json", "doc" + i));
+            // layer in reverse order, doc0 missing and an extra document without base
+            if (i > 0) {
+                layer.add(0, read("/b.json", "doc" + i));
+            }
+        }
+        layer.add(3, read("/b.json", "extra"));
+
+        Document expected = AnnotationMerger.mergeAnnotations(read("/a.json", "doc1"), read("/b.json", "doc1"));
+
+        File out = new File(folder.getRoot(), "merged.jsonl.gz");
+        File spill = folder.newFolder("runs");
+        CorpusAnnotationMerger merger =
+            new CorpusAnnotationMerger(CorpusAnnotationMerger::getDocumentId, 2, spill);
+        assertEquals(7, merger.merge(write(base, "base.jsonl"), write(layer, "layer.jsonl.gz"), out));
+        assertEquals(6, merger.getMergedCount());
+        assertEquals(1, merger.getUnmatchedBaseCount());
+        assertEquals(1, merger.getUnmatchedLayerCount());
+        assertEquals(0, spill.list().length);
+
+        try (DocumentCorpusReader reader = new DocumentCorpusReader(out)) {
+            assertEquals(base.get(0), reader.read());
+            for (int i = 1; i < 7; i++) {
+                Document merged = reader.read();
+                assertEquals("doc" + i, CorpusAnnotationMerger.getDocumentId(merged));
+                expected.getDocumentElement().getMetaElement().getConcept().getIdentifier().setText("doc" + i);
+                assertEquals(expected, merged);
+            }
+            assertNull(reader.read());
+        }
+    }
+
+    @Test
+    public void testMoreRunsThanFanIn() throws IOException {
+        Document template = read("/a.json", "doc");
+        byte[] encoded = DocumentCodec.encode(template);
+        int count = CorpusAnnotationMerger.MERGE_FAN_IN + 10;
+        List<Document> base = new ArrayList<Document>();
+        List<Document> layer = new ArrayList<Document>();
+        for (int i = count - 1; i >= 0; i--) {
+            Document document = DocumentCodec.decode(encoded);
+            document.getDocumentElement().getMetaElement().getConcept().getIdentifier()
+                .setText(String.format("doc%03d", i));
+            base.add(document);
+            layer.add(0, read("/b.json", String.format("doc%03d", i)));
+        }
+
+        File out = new File(folder.getRoot(), "merged.jsonl");
+        File spill = folder.newFolder("runs");
+        CorpusAnnotationMerger merger = new CorpusAnnotationMerger(CorpusAnnotationMerger::getDocumentId, 1, spill);
+        assertEquals(count, merger.merge(write(base, "base.jsonl"), write(layer, "layer.jsonl"), out));
+        assertEquals(count, merger.getMergedCount());
+        assertEquals(0, spill.list().length);
+
+        try (DocumentCorpusReader reader = new DocumentCorpusReader(out)) {
+            for (int i = 0; i < count; i++) {
+                assertEquals(String.format("doc%03d", i), CorpusAnnotationMerger.getDocumentId(reader.read()));
+            }
+            assertNull(reader.read());
+        }
+    }
+
+    @Test
+    public void testSpilledRunsKeepAllFields() throws IOException {
+        DocumentBuilder builder = new DocumentBuilder();
+        List<Document> base = new ArrayList<Document>();
+        List<Document> layer = new ArrayList<Document>();
+        for (int i = 5; i >= 0; i--) {
+            Document document = read("/a.json", "doc" + i);
+            document.getDocumentElement().getMetaElement().getConcept().setIdentifierWithSource(
+                new TextElement[] { builder.createTextElement("PMID:doc" + i) });
+            base.add(document);
+            layer.add(0, read("/b.json", "doc" + i));
+        }
+
+        List<Document> merged = new ArrayList<Document>();
+        for (int runSize : new int[] { 2, 100 }) {
+            File out = new File(folder.getRoot(), "merged" + runSize + ".jsonl");
+            CorpusAnnotationMerger merger = new CorpusAnnotationMerger(CorpusAnnotationMerger::getDocumentId, runSize,
+                folder.newFolder("runs" + runSize));
+            assertEquals(6, merger.merge(write(base, "base.jsonl"), write(layer, "layer.jsonl"), out));
+            try (DocumentCorpusReader reader = new DocumentCorpusReader(out)) {
+                for (Document document = reader.read(); document != null; document = reader.read()) {
+                    merged.add(document);
+                }
+            }
+        }
+
+        assertEquals(12, merged.size());
+        assertEquals(merged.subList(0, 6), merged.subList(6, 12));
+        TextElement[] identifiers =
+            merged.get(0).getDocumentElement().getMetaElement().getConcept().getIdentifierWithSource();
+        assertEquals("PMID:doc0", identifiers[0].getText());
+    }
+}
@@ -0,0 +1,110 @@
+package de.fraunhofer.scai.bio.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.types.text.doc.container.Paragraph;
+import de.fraunhofer.scai.bio.types.text.doc.container.Section;
+import de.fraunhofer.scai.bio.types.text.doc.structure.TextElement;
+
+public class DocumentBuilderTest {
+
+    @Test
+    public void testLabelsShareTextAndId() {
+        DocumentBuilder builder = new DocumentBuilder();
+        TextElement first = builder.createLabel(new String("Abstract"));
+        TextElement second = builder.createLabel(new String("Abstract"));
+
+        assertNotSame(first, second);
+        assertSame(first.getText(), second.getText());
+        assertSame(first.getUuid(), second.getUuid());
+        assertEquals(builder.createTextElement("Abstract"), first);
+
+        Document a = new Document();
+        Document b = new Document();
+        builder.setLanguage(a, "en");
+        builder.setLanguage(b, "en");
+        TextElement languageA = a.getDocumentElement().getMetaElement().getBibliographic().getLanguage();
+        TextElement languageB = b.getDocumentElement().getMetaElement().getBibliographic().getLanguage();
+        assertNotSame(languageA, languageB);
+        assertSame(languageA.getUuid(), languageB.getUuid());
+    }
+
+    @Test
+    public void testFreeTextIsNotCached() {
+        DocumentBuilder builder = new DocumentBuilder();
+        Section first = builder.createSection("intro", "Introduction");
+        Section second = builder.createSection("intro", "Introduction");
+        assertSame(first.getRhetorical().getUuid(), second.getRhetorical().getUuid());
+        assertNotSame(first.getTitle().getUuid(), second.getTitle().getUuid());
+
+        Document a = new Document();
+        Document b = new Document();
+        builder.setSource(a, "Nature. 2020;579(7798):270-273");
+        builder.setSource(b, "Nature. 2020;579(7798):270-273");
+        assertNotSame(a.getDocumentElement().getMetaElement().getBibliographic().getSource().getUuid(),
+            b.getDocumentElement().getMetaElement().getBibliographic().getSource().getUuid());
+    }
+
+    @Test
+    public void testLabelCacheSize() {
+        DocumentBuilder builder = new DocumentBuilder();
+        builder.setLabelCacheSize(1);
+        TextElement en = builder.createLabel(new String("en"));
+        builder.createLabel("de");
+        assertNotSame(en.getText(), builder.createLabel(new String("en")).getText());
+
+        builder.setLabelCacheSize(0);
+        TextElement uncached = builder.createLabel(new String("en"));
+        assertNotSame(uncached.getUuid(), builder.createLabel(new String("en")).getUuid());
+        assertEquals(uncached, builder.createLabel("en"));
+
+        builder.setLabelCacheSize(8);
+        builder.setTextElementIdStrategy(TextElementIdStrategy.MURMUR3);
+        assertEquals(TextElementIdStrategy.MURMUR3.createId("en"), builder.createLabel("en").getUuid());
+    }
+
+    @Test
+    public void testSharedBetweenThreads() throws Exception {
+        List<String> texts = new ArrayList<String>();
+        for (int i = 0; i < 200; i++) {
+            texts.add("Receptor " + i + " binds nicotine. It was found in " + i + " samples! Why? Nobody knows: "
+                + "Further work is needed.\n\nShort line\n\nLast part " + i);
+        }
+
+        DocumentBuilder shared = new DocumentBuilder();
+        shared.setLabelCacheSize(16);
+        List<Paragraph> expected = new ArrayList<Paragraph>();
+        for (String text : texts) {
+            expected.add(new DocumentBuilder().createParagraph(text, true));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Paragraph>> paragraphs = new ArrayList<Future<Paragraph>>();
+            for (int round = 0; round < 10; round++) {
+                for (String text : texts) {
+                    paragraphs.add(pool.submit(() -> {
+                        shared.createLabel("label " + text.length() % 40);
+                        return shared.createParagraph(text, true);
+                    }));
+                }
+            }
+            for (int i = 0; i < paragraphs.size(); i++) {
+                assertEquals(expected.get(i % texts.size()), paragraphs.get(i).get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package de.fraunhofer.scai.bio.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Test;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.types.text.doc.container.Paragraph;
+import de.fraunhofer.scai.bio.types.text.doc.container.Section;
+import de.fraunhofer.scai.bio.types.text.doc.container.StructureElement;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Annotation;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Concept;
+import de.fraunhofer.scai.bio.types.text.doc.structure.Cell;
+import de.fraunhofer.scai.bio.types.text.doc.structure.CellType;
+import de.fraunhofer.scai.bio.types.text.doc.structure.ImageContent;
+import de.fraunhofer.scai.bio.types.text.doc.structure.PMCTable;
+import de.fraunhofer.scai.bio.types.text.doc.structure.Table;
+import de.fraunhofer.scai.bio.types.text.doc.structure.TextElement;
+
+public class DocumentCodecTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private Document read(String name) throws IOException {
+        File json = new File(getClass().getResource(name).getPath());
+        return mapper.readValue(json.getAbsoluteFile(), Document.class);
+    }
+
+    @Test
+    public void testRoundTripTestResources() throws IOException {
+        for (String name : TestDocuments.RESOURCES) {
+            Document document = TestDocuments.read(name);
+            byte[] encoded = DocumentCodec.encode(document);
+
+            assertEquals(name, document, DocumentCodec.decode(encoded));
+            assertArrayEquals(name, encoded, DocumentCodec.encode(DocumentCodec.decode(encoded)));
+        }
+    }
+
+    @Test
+    public void testSmallerThanJson() throws IOException {
+        Document document = read("/a.json");
+        byte[] json = mapper.writeValueAsBytes(document);
+        byte[] encoded = DocumentCodec.encode(document);
+
+        assertTrue(json.length + " / " + encoded.length, encoded.length * 5 < json.length);
+    }
+
+    @Test
+    public void testRoundTripStructures() {
+        DocumentBuilder builder = new DocumentBuilder();
+        Document document = new Document();
+        builder.setTitle(document, "Title with \u00e4 and \ud83d\ude00 and a lone \ud800 surrogate", null);
+
+        Section section = builder.createSection("Tables");
+        Paragraph paragraph = builder.createParagraph("First sentence here. Second sentence there.", true);
+
+        PMCTable pmcTable = new PMCTable();
+        Cell cell = new Cell();
+        cell.setRowEnd(1);
+        cell.setColEnd(2);
+        cell.setType(CellType.HEADER);
+        cell.setContent(builder.createTextElement("header"));
+        pmcTable.setCells(Arrays.asList(cell, null));
+        StructureElement pmc = new StructureElement();
+        pmc.setPmcTable(pmcTable);
+        paragraph.addStructureElement(pmc);
+
+        Table table = new Table();
+        Map<String, String> row = new LinkedHashMap<String, String>();
+        row.put("gene", "BRCA1");
+        row.put("score", null);
+        List<Map<String, String>> rows = new ArrayList<Map<String, String>>();
+        rows.add(row);
+        rows.add(null);
+        table.setRows(rows);
+        table.setColumns(Arrays.asList(Arrays.asList(builder.createTextElement("c1")), null));
+        StructureElement tableElement = new StructureElement();
+        tableElement.setTable(table);
+        paragraph.addStructureElement(tableElement);
+
+        ImageContent image = new ImageContent();
+        image.setContent(new byte[] { 1, 2, 3 });
+        image.setCompressionLevel(0.7f);
+        image.setEncoding("png");
+        StructureElement imageElement = new StructureElement();
+        imageElement.setImageContent(image);
+        paragraph.addStructureElement(imageElement);
+
+        section.addParagraph(paragraph);
+        builder.getBodyMatter(document).addSection(section);
+
+        TextElement title = section.getTitle();
+        Annotation annotation = new Annotation();
+        annotation.setStartOffset(7);
+        annotation.setEndOffset(3);
+        annotation.setAnnotationType("GENE");
+        title.addAnnotation(annotation);
+        title.addAnnotation(new Annotation());
+
+        Document decoded = DocumentCodec.decode(ByteBuffer.wrap(DocumentCodec.encode(document)));
+        assertEquals(document, decoded);
+    }
+
+    @Test
+    public void testRoundTripConceptIdentifierWithSource() {
+        DocumentBuilder builder = new DocumentBuilder();
+        Document document = new Document();
+        Concept concept = builder.setDocumentId(document, MedlineCitationReader.PUBMED_SOURCE, "32187464", null);
+        concept.setIdentifierWithSource(new TextElement[] { builder.createTextElement("PMID:32187464"), null,
+            builder.createTextElement("DOI:10.1000/x") });
+
+        Document decoded = DocumentCodec.decode(DocumentCodec.encode(document));
+        assertEquals(3, decoded.getDocumentElement().getMetaElement().getConcept().getIdentifierWithSource().length);
+        assertEquals(document, decoded);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsJson() throws IOException {
+        DocumentCodec.decode(mapper.writeValueAsBytes(new Document()));
+    }
+}
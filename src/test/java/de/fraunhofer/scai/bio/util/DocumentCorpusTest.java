@@ -0,0 +1,75 @@
+package de.fraunhofer.scai.bio.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Test;
+
+import de.fraunhofer.scai.bio.Document;
+
+public class DocumentCorpusTest {
+
+    private List<Document> readTestDocuments() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        List<Document> documents = new ArrayList<>();
+        for (String name : new String[] { "/a.json", "/b.json", "/positiveIn/testDocumentNewDateFormat.json" }) {
+            File json = new File(getClass().getResource(name).getPath());
+            documents.add(mapper.readValue(json.getAbsoluteFile(), Document.class));
+        }
+        return documents;
+    }
+
+    private byte[] write(List<Document> documents, boolean gzip) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DocumentCorpusWriter writer = new DocumentCorpusWriter(out, gzip)) {
+            for (Document document : documents) {
+                writer.write(document);
+            }
+            assertEquals(documents.size(), writer.getCount());
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        List<Document> documents = readTestDocuments();
+
+        byte[] plain = write(documents, false);
+        String[] lines = new String(plain, StandardCharsets.UTF_8).split("\n");
+        assertEquals(documents.size(), lines.length);
+
+        try (DocumentCorpusReader reader = new DocumentCorpusReader(new ByteArrayInputStream(plain))) {
+            for (Document document : documents) {
+                assertEquals(document, reader.read());
+            }
+            assertNull(reader.read());
+        }
+    }
+
+    @Test
+    public void testGzipParallelStream() throws IOException {
+        List<Document> documents = readTestDocuments();
+        List<Document> corpus = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            corpus.addAll(documents);
+        }
+
+        byte[] gzip = write(corpus, true);
+
+        try (DocumentCorpusReader reader = new DocumentCorpusReader(new ByteArrayInputStream(gzip))) {
+            List<Document> read = reader.stream().parallel().collect(Collectors.toList());
+            assertEquals(corpus, read);
+        }
+    }
+}
@@ -16,10 +16,20 @@
 
 package de.fraunhofer.scai.bio.util;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.regex.Pattern;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -29,6 +39,8 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Annotation;
+import de.fraunhofer.scai.bio.types.text.doc.structure.TextElement;
 
 /**
  * Renders a {@link Document} to a HTML document
@@ -37,6 +49,9 @@ import de.fraunhofer.scai.bio.Document;
  */
 public class DocumentHTMLRendererTest {
 
+    private static final Pattern UUID_PATTERN = Pattern
+        .compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
     @Rule
     public ExpectedException thrown = ExpectedException.none();
     private Document document;
@@ -68,4 +83,108 @@ public class DocumentHTMLRendererTest {
         assertTrue(!html.isEmpty());
     }
 
+    /**
+     * Test method for {@link DocumentHTMLRenderer#renderHTML(Document, Appendable)}.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void renderHTMLStreamTest() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        for (String name : new String[] { "/a.json", "/b.json" }) {
+            Document document = mapper.readValue(new File(getClass().getResource(name).getPath()), Document.class);
+
+            StringWriter out = new StringWriter();
+            DocumentHTMLRenderer.renderHTML(document, out);
+
+            assertEquals(name, withoutIds(DocumentHTMLRenderer.renderHTML(document)), withoutIds(out.toString()));
+        }
+    }
+
+    /**
+     * the body of a.json renders to a.html whatever the iteration order of the annotation sets, which decides the
+     * nesting of spans at the same offset
+     *
+     * @throws Exception
+     */
+    @Test
+    public void renderHTMLFixtureTest() throws Exception {
+        Document document = new ObjectMapper().readValue(new File(getClass().getResource("/a.json").getPath()),
+            Document.class);
+        String expected = new String(Files.readAllBytes(Paths.get(getClass().getResource("/a.html").toURI())),
+            StandardCharsets.UTF_8);
+
+        assertEquals(expected, body(DocumentHTMLRenderer.renderHTML(document)));
+
+        DocumentWalker.walk(document, (textElement, role, depth) -> {
+            if (textElement.getAnnotations() != null) {
+                List<Annotation> reversed = new ArrayList<Annotation>(textElement.getAnnotations());
+                Collections.reverse(reversed);
+                textElement.setAnnotations(new LinkedHashSet<Annotation>(reversed));
+            }
+        });
+        assertEquals(expected, body(DocumentHTMLRenderer.renderHTML(document)));
+    }
+
+    /**
+     * Test method for {@link DocumentHTMLRenderer#escapeHTML(TextElement, List)}.
+     */
+    @Test
+    public void escapeHTMLTest() {
+        TextElement textElement = new TextElement();
+        textElement.setText("  BRCA1 <b>  &\r\n\"caf\u00e9\"\tbinds \u2206 ");
+        textElement.addAnnotation(annotation(2, 7, "GENE", "HGNC:1100"));
+
+        List<Annotation> annotations = new ArrayList<Annotation>();
+        assertEquals("<span data-id=\"HGNC:1100\" class=\"GENE\">BRCA1</span> <sup><a href=\"#anno1\" "
+            + "title=\"GENE:HGNC:1100\">[1]</a></sup> &lt;b&gt; &amp;<br>&quot;caf&eacute;&quot; binds &#8710;",
+            DocumentHTMLRenderer.escapeHTML(textElement, annotations));
+        assertEquals(1, annotations.size());
+    }
+
+    /**
+     * many annotations at the same offset keep their order, offsets behind the text are clamped
+     */
+    @Test
+    public void escapeHTMLManyAnnotationsTest() {
+        TextElement textElement = new TextElement();
+        textElement.setText("gene");
+        for (int i = 0; i < 2000; i++) {
+            textElement.addAnnotation(annotation(0, 10, "GENE", "g" + i));
+        }
+
+        List<Annotation> annotations = new ArrayList<Annotation>();
+        String html = DocumentHTMLRenderer.escapeHTML(textElement, annotations);
+        assertEquals(2000, annotations.size());
+
+        int last = -1;
+        for (int i = 0; i < annotations.size(); i++) {
+            int start = html.indexOf("data-id=\"" + annotations.get(i).getAnnotationText() + "\"");
+            assertTrue(start > last && start < html.indexOf("gene"));
+            last = start;
+        }
+        assertTrue(html.indexOf("gene</span> <sup><a href=\"#anno1\"") > 0);
+        assertTrue(html.endsWith("[2000]</a></sup>"));
+    }
+
+    private static Annotation annotation(int start, int end, String type, String text) {
+        Annotation annotation = new Annotation();
+        annotation.setStartOffset(start);
+        annotation.setEndOffset(end);
+        annotation.setAnnotationType(type);
+        annotation.setAnnotationText(text);
+        return annotation;
+    }
+
+    /**
+     * the head is left out, it holds the publication date in the default locale
+     */
+    private static String body(String html) {
+        return withoutIds(html.substring(html.indexOf("<body>")));
+    }
+
+    private static String withoutIds(String html) {
+        return UUID_PATTERN.matcher(html).replaceAll("uuid");
+    }
+
 }
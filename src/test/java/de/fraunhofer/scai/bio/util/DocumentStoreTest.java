@@ -0,0 +1,109 @@
+package de.fraunhofer.scai.bio.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.fraunhofer.scai.bio.Document;
+
+public class DocumentStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final DocumentBuilder builder = new DocumentBuilder();
+
+    private Document read(String name) throws IOException {
+        return new ObjectMapper().readValue(new File(getClass().getResource(name).getPath()), Document.class);
+    }
+
+    private Document document(int i) {
+        Document document = new Document();
+        builder.setDocumentId(document, MedlineCitationReader.PUBMED_SOURCE, "id" + i, null);
+        builder.setTitle(document, "Document number " + i, null);
+        return document;
+    }
+
+    @Test
+    public void testPutGet() throws IOException {
+        File directory = folder.newFolder("store");
+        Document a = read("/a.json");
+        Document b = read("/b.json");
+
+        try (DocumentStore store = new DocumentStore(directory)) {
+            assertEquals("32187464", store.put(a));
+            store.put("b", b);
+            assertEquals(2, store.size());
+            assertEquals(a, store.get("32187464"));
+            assertEquals(b, store.get("b"));
+            assertNull(store.get("c"));
+            assertFalse(store.contains("c"));
+
+            ByteBuffer encoded = store.getEncoded("b");
+            assertTrue(encoded.isDirect());
+            assertTrue(encoded.isReadOnly());
+            assertEquals(b, DocumentCodec.decode(encoded));
+            assertEquals("32187464", store.getView("32187464").getConceptIdentifier());
+            assertNull(store.getView("c"));
+
+            // replaced
+            store.put("b", a);
+            assertEquals(2, store.size());
+            assertEquals(a, store.get("b"));
+        }
+
+        try (DocumentStore store = new DocumentStore(directory)) {
+            assertEquals(2, store.size());
+            assertEquals(a, store.get("b"));
+            store.put("c", b);
+            assertEquals(b, store.get("c"));
+        }
+    }
+
+    @Test
+    public void testSegmentsAndGrowth() throws IOException {
+        File directory = folder.newFolder("store");
+        int count = 10000;
+
+        try (DocumentStore store = new DocumentStore(directory, 64 * 1024)) {
+            for (int i = 0; i < count; i++) {
+                store.put(document(i));
+            }
+            assertEquals(count, store.size());
+        }
+        assertTrue(new File(directory, "segment-00001").exists());
+
+        try (DocumentStore store = new DocumentStore(directory, 64 * 1024)) {
+            assertEquals(count, store.size());
+            for (int i = 0; i < count; i++) {
+                assertEquals(document(i), store.get("id" + i));
+            }
+            assertNull(store.get("id" + count));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooLarge() throws IOException {
+        try (DocumentStore store = new DocumentStore(folder.newFolder("store"), 1024)) {
+            store.put(read("/a.json"));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClosed() throws IOException {
+        DocumentStore store = new DocumentStore(folder.newFolder("store"));
+        store.close();
+        store.get("a");
+    }
+}
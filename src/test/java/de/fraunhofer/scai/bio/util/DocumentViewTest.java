@@ -0,0 +1,175 @@
+package de.fraunhofer.scai.bio.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Test;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.types.text.doc.DocumentElement;
+import de.fraunhofer.scai.bio.types.text.doc.container.BackMatter;
+import de.fraunhofer.scai.bio.types.text.doc.container.BodyMatter;
+import de.fraunhofer.scai.bio.types.text.doc.container.Chapter;
+import de.fraunhofer.scai.bio.types.text.doc.container.FrontMatter;
+import de.fraunhofer.scai.bio.types.text.doc.container.Section;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Annotation;
+import de.fraunhofer.scai.bio.types.text.doc.structure.TextElement;
+
+public class DocumentViewTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * test resource with a chapter and annotated sections added to its body matter
+     */
+    private Document read(String name) throws IOException {
+        File json = new File(getClass().getResource(name).getPath());
+        Document document = mapper.readValue(json.getAbsoluteFile(), Document.class);
+
+        DocumentBuilder builder = new DocumentBuilder();
+        BodyMatter bodyMatter = builder.getBodyMatter(document);
+        Chapter chapter = new Chapter();
+        chapter.addSection(builder.createSection("Chapter section"));
+        bodyMatter.addChapter(chapter);
+        for (int i = 0; i < 3; i++) {
+            Section section = builder.createSection("Section " + i);
+            section.addParagraph(builder.createParagraph("BRCA1 is a gene. It is section " + i + ".", true));
+            Annotation annotation = new Annotation();
+            annotation.setStartOffset(0);
+            annotation.setEndOffset(7);
+            annotation.setAnnotationType("SECTION");
+            section.getTitle().addAnnotation(annotation);
+            bodyMatter.addSection(section);
+        }
+        return document;
+    }
+
+    /**
+     * restores the deferred annotations of the text elements decoded by the view
+     */
+    private static DocumentVisitor restore(final DocumentView view) {
+        return (textElement, role, depth) -> textElement.setAnnotations(view.getAnnotations(textElement));
+    }
+
+    @Test
+    public void testBranches() throws IOException {
+        for (String name : new String[] { "/a.json", "/b.json" }) {
+            Document document = DocumentCodec.decode(DocumentCodec.encode(read(name)));
+            DocumentElement element = document.getDocumentElement();
+            DocumentView view = new DocumentView(DocumentCodec.encode(document));
+
+            assertEquals(name, document.getDocType(), view.getDocType());
+            assertEquals(name, document.getOriginalMimeType(), view.getOriginalMimeType());
+            assertEquals(name, document.getProvenance(), view.getProvenance());
+            assertEquals(name, DocumentBuilder.getConceptIdentifier(document), view.getConceptIdentifier());
+            assertEquals(name, element.getMetaElement(), view.getMetaElement());
+
+            FrontMatter frontMatter = view.getFrontMatter();
+            DocumentWalker.walkFrontMatter(frontMatter, restore(view));
+            assertEquals(name, element.getFrontMatter(), frontMatter);
+
+            BodyMatter bodyMatter = view.getBodyMatter();
+            DocumentWalker.walkBodyMatter(bodyMatter, restore(view));
+            assertEquals(name, element.getBodyMatter(), bodyMatter);
+
+            BackMatter backMatter = view.getBackMatter();
+            if (backMatter != null) {
+                DocumentWalker.walkBackMatter(backMatter, restore(view));
+            }
+            assertEquals(name, element.getBackMatter(), backMatter);
+
+            assertEquals(name, element.getBodyMatter().getSections().size(), view.getSectionCount());
+            for (int i = view.getSectionCount() - 1; i >= 0; i--) {
+                Section section = view.getSection(i);
+                DocumentWalker.walkSections(Collections.singletonList(section), restore(view));
+                assertEquals(name + " " + i, element.getBodyMatter().getSections().get(i), section);
+            }
+            assertEquals(name, document, view.toDocument());
+        }
+    }
+
+    @Test
+    public void testAnnotationsDeferred() throws IOException {
+        Document document = read("/a.json");
+        DocumentView view = new DocumentView(DocumentCodec.encode(document));
+
+        Section section = view.getSection(0);
+        Section original = document.getDocumentElement().getBodyMatter().getSections().get(0);
+        assertNull(section.getTitle().getAnnotations());
+        assertNotNull(original.getTitle().getAnnotations());
+        assertEquals(original.getTitle().getAnnotations(), view.getAnnotations(section.getTitle()));
+        assertNull(view.getAnnotations(section.getParagraphs().get(0).getStructureElements().get(0).getSentence()
+            .getText()));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAnnotationsOfOtherElement() throws IOException {
+        Document document = read("/a.json");
+        DocumentView view = new DocumentView(DocumentCodec.encode(document));
+        view.getSection(0);
+        view.getAnnotations(document.getDocumentElement().getBodyMatter().getSections().get(0).getTitle());
+    }
+
+    @Test
+    public void testAnnotationsOfLastBranch() throws IOException {
+        Document document = read("/a.json");
+        DocumentView view = new DocumentView(DocumentCodec.encode(document));
+        Section original = document.getDocumentElement().getBodyMatter().getSections().get(1);
+
+        Section first = view.getSection(0);
+        Section second = view.getSection(1);
+        assertStale(view, first.getTitle());
+        assertEquals(original.getTitle().getAnnotations(), view.getAnnotations(second.getTitle()));
+
+        view.getMetaElement();
+        assertStale(view, second.getTitle());
+        assertEquals(original.getTitle().getAnnotations(), view.getAnnotations(view.getSection(1).getTitle()));
+    }
+
+    private static void assertStale(DocumentView view, TextElement textElement) {
+        try {
+            view.getAnnotations(textElement);
+            fail("annotations of an earlier branch");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testBufferPosition() throws IOException {
+        byte[] encoded = DocumentCodec.encode(read("/b.json"));
+        ByteBuffer buffer = ByteBuffer.allocate(encoded.length + 10);
+        buffer.position(7);
+        buffer.put(encoded).flip().position(7);
+
+        DocumentView view = new DocumentView(buffer);
+        assertEquals(7, buffer.position());
+        assertEquals(DocumentCodec.decode(encoded), view.toDocument());
+        assertTrue(view.hasDocumentElement());
+    }
+
+    @Test
+    public void testEmpty() {
+        DocumentView view = new DocumentView(DocumentCodec.encode(new Document()));
+        assertNull(view.getMetaElement());
+        assertNull(view.getBodyMatter());
+        assertNull(view.getConceptIdentifier());
+        assertEquals(0, view.getSectionCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalid() {
+        new DocumentView(new byte[] { 'J', 'S', 'O', 'N', 1 });
+    }
+
+}
@@ -0,0 +1,77 @@
+package de.fraunhofer.scai.bio.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Test;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.types.text.doc.container.Chapter;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Abstract;
+import de.fraunhofer.scai.bio.types.text.doc.structure.TextElement;
+
+public class DocumentWalkerTest {
+
+    @Test
+    public void testWalkMatchesTextElementMap() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        File json = new File(getClass().getResource("/a.json").getPath());
+        Document document = mapper.readValue(json.getAbsoluteFile(), Document.class);
+
+        Map<TextElement, Boolean> visited = new IdentityHashMap<>();
+        List<TextElementRole> roles = new ArrayList<>();
+        DocumentWalker.walk(document, (te, role, depth) -> {
+            visited.put(te, Boolean.TRUE);
+            roles.add(role);
+        });
+
+        Map<String, TextElement> elements = DocumentRenderer.getDocumentTextElements(document);
+        assertTrue(!elements.isEmpty());
+        for (Map.Entry<String, TextElement> entry : elements.entrySet()) {
+            assertTrue(entry.getKey(), visited.containsKey(entry.getValue()));
+        }
+        assertEquals(TextElementRole.FRONT_MATTER_TITLE, roles.get(0));
+    }
+
+    @Test
+    public void testForEachSection() {
+        DocumentBuilder builder = new DocumentBuilder();
+        Document document = new Document();
+        builder.setAbstract(document, "Front abstract");
+        Abstract bodyAbstract = new Abstract();
+        bodyAbstract.addAbstractSection(builder.createSection("Body abstract"));
+        builder.getBodyMatter(document).setDocAbstract(bodyAbstract);
+        Chapter chapter = new Chapter();
+        chapter.addSection(builder.createSection("Chapter"));
+        builder.getBodyMatter(document).addChapter(chapter);
+        builder.getBodyMatter(document).addSection(builder.createSection("Body"));
+        builder.getBackMatter(document).addSection(builder.createSection("Back"));
+
+        List<String> titles = new ArrayList<>();
+        DocumentWalker.forEachSection(document, section -> titles.add(section.getTitle().getText()));
+        assertEquals(Arrays.asList("Abstract", "Body abstract", "Chapter", "Body", "Back"), titles);
+    }
+
+    @Test
+    public void testSectionTitleKey() {
+        DocumentBuilder builder = new DocumentBuilder();
+        Document document = new Document();
+        builder.setTitle(document, "A title", null);
+        builder.getBodyMatter(document).addSection(builder.createSection("Results"));
+
+        Map<String, TextElement> elements = DocumentRenderer.getBodyMatterTextElements(document);
+        assertEquals(1, elements.size());
+        TextElement title = elements.values().iterator().next();
+        assertEquals(title.getUuid() + "\t*SECTIONTITLE0*", elements.keySet().iterator().next());
+    }
+}
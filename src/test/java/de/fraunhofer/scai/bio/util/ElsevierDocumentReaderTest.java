@@ -0,0 +1,130 @@
+package de.fraunhofer.scai.bio.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.types.text.doc.container.Paragraph;
+import de.fraunhofer.scai.bio.types.text.doc.container.Section;
+import de.fraunhofer.scai.bio.types.text.doc.container.StructureElement;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Author;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Reference;
+import de.fraunhofer.scai.bio.types.text.doc.structure.Table;
+
+public class ElsevierDocumentReaderTest {
+
+    private final DocumentBuilder builder = new DocumentBuilder();
+
+    @Test
+    public void testRead() throws IOException {
+        File file = new File(getClass().getResource("/elsevier.xml").getPath());
+        Document document = new ElsevierDocumentReader(builder).read(file);
+
+        assertEquals(Document.ELSEVIER_FULLTEXT, document.getDocType());
+        assertEquals(file.toURI().toString(), document.getProvenance().getSource());
+        assertEquals("10.1016/j.ijcard.2017.02.078", builder.getConcept(document).getIdentifier().getText());
+        assertTrue(builder.getBibliographic(document).getTitle().getTitleText().getText()
+            .startsWith("Serially measured circulating miR-22-3p is a biomarker"));
+        assertEquals(2017, builder.getBibliographic(document).getPubDate().getYear());
+        assertEquals("0167-5273", builder.getBibliographic(document).getIssns().get(0).getText());
+        assertEquals("en", builder.getBibliographic(document).getLanguage().getText());
+
+        List<Author> authors = builder.getBibliographic(document).getAuthors();
+        assertEquals(15, authors.size());
+        assertEquals("van Boven", authors.get(0).getAuthor().getSurname().getText());
+        assertNotNull(authors.get(0).getOrganization());
+
+        List<Section> abstractSections = builder.getBibliographic(document).getDocumentAbstract().getAbstractSections();
+        assertEquals(3, abstractSections.size());
+        assertEquals("Background", abstractSections.get(0).getTitle().getText());
+        assertEquals(5, builder.getMetaElement(document).getKeywords().get(0).getKeywordList().size());
+
+        List<Section> sections = builder.getBodyMatter(document).getSections();
+        assertEquals("1 Introduction", sections.get(0).getTitle().getText());
+        assertEquals("2.1 Patients", sections.get(2).getTitle().getText());
+        assertEquals(1, sections.get(2).getDepth());
+        assertEquals("Acknowledgements", builder.getBackMatter(document).getSections().get(0).getTitle().getText());
+
+        // the compact view isn't duplicated, every float sits behind its anchor
+        List<Table> tables = new ArrayList<Table>();
+        int figures = 0;
+        for (Section section : sections) {
+            for (Paragraph paragraph : section.getParagraphs() != null ? section.getParagraphs()
+                : new ArrayList<Paragraph>()) {
+                for (StructureElement element : paragraph.getStructureElements()) {
+                    if (element.getFigure() != null) {
+                        figures++;
+                    } else if (element.getTable() != null) {
+                        tables.add(element.getTable());
+                    }
+                }
+            }
+        }
+        assertEquals(3, figures);
+        assertEquals(4, tables.size());
+        assertEquals("t0005", tables.get(0).getTableId());
+        assertEquals(tables.get(0).getHeaders().size(), tables.get(0).getRows().get(0).size());
+
+        assertEquals(44, builder.getBibliography(document).getReferences().size());
+        Reference reference = builder.getBibliography(document).getReferences().values().iterator().next();
+        assertEquals("Ponikowski", reference.getAuthors().get(0).getAuthor().getSurname().getText());
+        assertTrue(reference.getDate().getYear() > 0);
+    }
+
+    @Test
+    public void testFallbacks() throws IOException {
+        String xml = "<full-text-retrieval-response><coredata>"
+            + "<dc:title>A  title</dc:title><prism:doi>10.1/x</prism:doi>"
+            + "<dc:creator>Doe, Jane</dc:creator><dc:description>Plain abstract.</dc:description>"
+            + "</coredata></full-text-retrieval-response>";
+        Document document = new ElsevierDocumentReader(builder).read(new StringReader(xml));
+
+        assertEquals("A title", builder.getBibliographic(document).getTitle().getTitleText().getText());
+        assertEquals("Doe", builder.getBibliographic(document).getAuthors().get(0).getAuthor().getSurname().getText());
+        assertEquals("Jane", builder.getBibliographic(document).getAuthors().get(0).getAuthor().getForename().getText());
+        assertNotNull(builder.getBibliographic(document).getDocumentAbstract());
+    }
+
+    @Test
+    public void testTableGroups() throws IOException {
+        String xml = "<full-text-retrieval-response><coredata><dc:title>Tables</dc:title></coredata>"
+            + "<ce:floats><ce:table id=\"t1\"><ce:label>Table 1</ce:label>"
+            + "<tgroup cols=\"2\"><colspec colname=\"col1\"/><colspec colname=\"col2\"/>"
+            + "<thead><row><entry colname=\"col1\">Name</entry><entry colname=\"col2\">Value</entry></row></thead>"
+            + "<tbody><row><entry colname=\"col1\">a</entry><entry colname=\"col2\">1</entry></row></tbody>"
+            + "</tgroup><tgroup cols=\"1\"><colspec colname=\"col1\"/>"
+            + "<thead><row><entry colname=\"col1\">Note</entry></row></thead>"
+            + "<tbody><row><entry colname=\"col1\">b</entry></row></tbody>"
+            + "</tgroup></ce:table></ce:floats></full-text-retrieval-response>";
+        Document document = new ElsevierDocumentReader(builder).read(new StringReader(xml));
+
+        List<Section> sections = builder.getBodyMatter(document).getSections();
+        Table table = sections.get(sections.size() - 1).getParagraphs().get(0).getStructureElements().get(0)
+            .getTable();
+        assertEquals(3, table.getHeaders().size());
+        assertEquals("Note", table.getHeaders().get(2).getText());
+        assertEquals(2, table.getRows().size());
+        assertEquals("1", table.getRows().get(0).get("Value"));
+        assertEquals("", table.getRows().get(0).get("Note"));
+        assertEquals("b", table.getRows().get(1).get("Note"));
+        assertEquals("", table.getRows().get(1).get("Name"));
+        for (Map<String, String> row : table.getRows()) {
+            assertEquals(table.getHeaders().size(), row.size());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalid() throws IOException {
+        new ElsevierDocumentReader(builder).read(new StringReader("<coredata><dc:title>open"));
+    }
+}
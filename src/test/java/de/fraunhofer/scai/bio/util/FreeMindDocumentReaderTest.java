@@ -0,0 +1,79 @@
+package de.fraunhofer.scai.bio.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.types.text.doc.container.Section;
+import de.fraunhofer.scai.bio.types.text.doc.container.StructureElement;
+
+public class FreeMindDocumentReaderTest {
+
+    private final DocumentBuilder builder = new DocumentBuilder();
+
+    @Test
+    public void testRead() throws IOException {
+        File file = new File(getClass().getResource("/freemind/nAChR_Mind-map_110419.mm").getPath());
+        Document document = new FreeMindDocumentReader(builder).read(file);
+
+        assertEquals(Document.FREEMIND_MAP, document.getDocType());
+        assertEquals("Nicotinic Acetylcholine Receptors", builder.getFrontMatter(document).getTitleText().getText());
+
+        List<Section> sections = builder.getBodyMatter(document).getSections();
+        assertEquals("Nicotinic Acetylcholine Receptors", sections.get(0).getTitle().getText());
+        assertEquals(0, sections.get(0).getDepth());
+        assertEquals("Clinical", sections.get(1).getTitle().getText());
+        assertEquals(1, sections.get(1).getDepth());
+        assertEquals("Diseases Category", sections.get(2).getTitle().getText());
+        assertEquals(2, sections.get(2).getDepth());
+        // the note of the section comes first
+        assertTrue(sections.get(2).getParagraphs().get(0).getStructureElements().get(0).getSentence().getText()
+            .getText().startsWith("Reviews:"));
+
+        // every node is either a section or a list item
+        int nodes = 0;
+        for (Section section : sections) {
+            nodes++;
+            if (section.getParagraphs() != null) {
+                for (StructureElement element : section.getParagraphs().get(section.getParagraphs().size() - 1)
+                    .getStructureElements()) {
+                    if (element.getList() != null) {
+                        nodes += element.getList().getItems().size();
+                    }
+                }
+            }
+        }
+        assertTrue(String.valueOf(nodes), nodes > 700 && nodes <= 794);
+    }
+
+    @Test
+    public void testDeepMap() throws IOException {
+        int depth = 50000;
+        StringBuilder map = new StringBuilder("<map version=\"1.0.1\">");
+        for (int i = 0; i < depth; i++) {
+            map.append("<node TEXT=\"level ").append(i).append("\">");
+        }
+        map.append("<node TEXT=\"leaf\"/>");
+        for (int i = 0; i < depth; i++) {
+            map.append("</node>");
+        }
+        map.append("</map>");
+
+        Document document = new FreeMindDocumentReader(builder).read(new StringReader(map.toString()));
+        List<Section> sections = builder.getBodyMatter(document).getSections();
+        assertEquals(depth, sections.size());
+        Section last = sections.get(depth - 1);
+        assertEquals(depth - 1, last.getDepth());
+        assertNotNull(last.getParagraphs().get(0).getStructureElements().get(0).getList());
+        assertEquals("leaf", last.getParagraphs().get(0).getStructureElements().get(0).getList().getItems().get(0)
+            .getText());
+    }
+}
@@ -0,0 +1,35 @@
+package de.fraunhofer.scai.bio.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+public class LenientXMLReaderTest {
+
+    private static String read(String xml, int chunk) throws IOException {
+        StringBuilder out = new StringBuilder();
+        try (Reader reader = new LenientXMLReader(new StringReader(xml))) {
+            char[] buffer = new char[chunk];
+            for (int n = reader.read(buffer); n >= 0; n = reader.read(buffer)) {
+                out.append(buffer, 0, n);
+            }
+        }
+        return out.toString();
+    }
+
+    @Test
+    public void testEscapes() throws IOException {
+        for (int chunk : new int[] { 1, 3, 4096 }) {
+            assertEquals("<p>( &lt; 5%) Chapman &amp; Hall &amp;&lt;</p>",
+                read("<p>( < 5%) Chapman & Hall &<</p>", chunk));
+            assertEquals("<p a=\"1\">&lt;&#945;&#x3b1;&amp;&gt;<br/></p>",
+                read("<p a=\"1\">&lt;&#945;&#x3b1;&amp;&gt;<br/></p>", chunk));
+            assertEquals("<?xml version=\"1.0\"?><!-- a < b & c --><p><![CDATA[x < y & z]]></p>",
+                read("<?xml version=\"1.0\"?><!-- a < b & c --><p><![CDATA[x < y & z]]></p>", chunk));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package de.fraunhofer.scai.bio.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Author;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Bibliographic;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Keywords;
+
+public class MedlineCitationReaderTest {
+
+    private final DocumentBuilder builder = new DocumentBuilder();
+
+    private File sample() {
+        return new File(getClass().getResource("/pubmed-sample.xml").getPath());
+    }
+
+    @Test
+    public void testRead() throws IOException {
+        try (MedlineCitationReader reader = new MedlineCitationReader(sample())) {
+            Document document = reader.read();
+
+            assertEquals(Document.PUBMED_ABSTRACT, document.getDocType());
+            assertEquals(sample().toURI().toString(), document.getProvenance().getSource());
+            assertEquals("32187464", builder.getConcept(document).getIdentifier().getText());
+            assertEquals("DOI:10.1056/NEJMoa2001282", builder.getConcept(document).getAltLabels().get(0).getText());
+            assertEquals("PMC:PMC7121492", builder.getConcept(document).getAltLabels().get(1).getText());
+
+            Bibliographic bibliographic = builder.getBibliographic(document);
+            assertEquals("A Trial of Lopinavir-Ritonavir in Adults Hospitalized with Severe Covid-19.",
+                bibliographic.getTitle().getTitleText().getText());
+            assertEquals("The New England journal of medicine. 2020; 382(19):1787-1799. doi: 10.1056/NEJMoa2001282",
+                bibliographic.getSource().getText());
+            assertEquals("eng", bibliographic.getLanguage().getText());
+            assertEquals("1533-4406", bibliographic.getIssns().get(0).getText());
+            assertEquals(7, bibliographic.getPubDate().getDay());
+            assertEquals(5, bibliographic.getPubDate().getMonth());
+            assertEquals(2020, bibliographic.getPubDate().getYear());
+            assertEquals("D016449", bibliographic.getPublicationTypes().get(1).getIdentifier().getText());
+            assertEquals("Copyright \u00a9 2020 Massachusetts Medical Society.",
+                bibliographic.getLicenses().get(0).getLicenseName().getText());
+
+            List<Author> authors = bibliographic.getAuthors();
+            assertEquals(3, authors.size());
+            assertEquals("Cao", authors.get(0).getAuthor().getSurname().getText());
+            assertEquals(1, authors.get(0).getAuthor().getAffiliation().getAffiliationInfos().size());
+            assertNull(authors.get(1).getAuthor().getAffiliation());
+            assertEquals("LOTUS China Trial Group", authors.get(2).getOrganization().getOrganization().getText());
+
+            assertEquals(3, bibliographic.getDocumentAbstract().getAbstractSections().size());
+            assertEquals("METHODS", bibliographic.getDocumentAbstract().getAbstractSections().get(1).getTitle().getText());
+            assertEquals(2, bibliographic.getDocumentAbstract().getAbstractSections().get(1).getParagraphs().get(0)
+                .getStructureElements().size());
+
+            List<Keywords> keywords = builder.getMetaElement(document).getKeywords();
+            assertEquals("MeSH Terms", keywords.get(0).getRhetorical().getText());
+            assertEquals("D000998/Q000627", keywords.get(0).getKeywordList().get(3).getText());
+            assertEquals("Substances", keywords.get(1).getRhetorical().getText());
+            assertEquals("COVID-19", keywords.get(2).getKeywordList().get(0).getText());
+
+            Document second = reader.read();
+            assertEquals("10048512", builder.getConcept(second).getIdentifier().getText());
+            assertEquals("M\u00fcller", builder.getBibliographic(second).getAuthors().get(0).getAuthor().getSurname()
+                .getText());
+            assertEquals(1998, builder.getBibliographic(second).getPubDate().getYear());
+            assertNull(builder.getBibliographic(second).getDocumentAbstract());
+
+            // the deleted citation is skipped
+            assertNull(reader.read());
+        }
+    }
+
+    @Test
+    public void testGzipStream() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(Files.readAllBytes(sample().toPath()));
+        }
+
+        try (MedlineCitationReader reader = new MedlineCitationReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            List<String> ids = reader.stream()
+                .map(document -> builder.getConcept(document).getIdentifier().getText())
+                .collect(Collectors.toList());
+            assertEquals(2, ids.size());
+            assertEquals("10048512", ids.get(1));
+        }
+    }
+
+    @Test
+    public void testParseMonth() {
+        assertEquals(5, MedlineCitationReader.parseMonth("May"));
+        assertEquals(12, MedlineCitationReader.parseMonth("12"));
+        assertEquals(0, MedlineCitationReader.parseMonth("Spring"));
+    }
+}
@@ -0,0 +1,109 @@
+package de.fraunhofer.scai.bio.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Test;
+
+import de.fraunhofer.scai.bio.types.text.doc.structure.Cell;
+import de.fraunhofer.scai.bio.types.text.doc.structure.CellType;
+import de.fraunhofer.scai.bio.types.text.doc.structure.PMCTable;
+
+public class PMCTableTest {
+
+    private static Cell cell(int rowStart, int colStart, int rowEnd, int colEnd, CellType type) {
+        Cell cell = new Cell();
+        cell.setRowStart(rowStart);
+        cell.setColStart(colStart);
+        cell.setRowEnd(rowEnd);
+        cell.setColEnd(colEnd);
+        cell.setType(type);
+        return cell;
+    }
+
+    @Test
+    public void testGrid() {
+        Cell header = cell(0, 0, 1, 3, CellType.HEADER);
+        Cell spanning = cell(1, 0, 3, 1, CellType.BODY);
+        Cell single = cell(1, 1, 1, 1, CellType.BODY);
+        Cell last = cell(2, 2, 3, 3, CellType.BODY);
+        PMCTable table = new PMCTable();
+        table.setCells(Arrays.asList(header, spanning, null, single, last));
+
+        assertEquals(3, table.getRowCount());
+        assertEquals(3, table.getColumnCount());
+        assertSame(header, table.getCell(0, 2));
+        assertSame(spanning, table.getCell(2, 0));
+        assertSame(single, table.getCell(1, 1));
+        assertNull(table.getCell(1, 2));
+        assertNull(table.getCell(3, 0));
+        assertTrue(table.isHeaderRow(0));
+        assertFalse(table.isHeaderRow(1));
+        assertFalse(table.isHeaderRow(5));
+
+        Iterator<List<Cell>> rows = table.rowIterator();
+        assertEquals(Arrays.asList(header, header, header), rows.next());
+        assertEquals(Arrays.asList(spanning, single, null), rows.next());
+        assertEquals(Arrays.asList(spanning, null, last), rows.next());
+        assertFalse(rows.hasNext());
+
+        table.getCells().set(2, cell(1, 2, 2, 3, CellType.BODY));
+        assertNull(table.getCell(1, 2));
+        table.invalidateGrid();
+        assertEquals(CellType.BODY, table.getCell(1, 2).getType());
+    }
+
+    @Test
+    public void testEmpty() {
+        PMCTable table = new PMCTable();
+        assertEquals(0, table.getRowCount());
+        assertNull(table.getCell(0, 0));
+        assertFalse(table.rowIterator().hasNext());
+    }
+
+    @Test
+    public void testJson() throws IOException {
+        PMCTable table = new PMCTable();
+        table.setCells(new ArrayList<Cell>(Arrays.asList(cell(0, 0, 1, 1, CellType.HEADER))));
+        table.getCell(0, 0);
+
+        ObjectMapper mapper = new ObjectMapper();
+        String json = mapper.writeValueAsString(table);
+        assertFalse(json, json.contains("rowCount"));
+        assertEquals(table, mapper.readValue(json, PMCTable.class));
+    }
+
+    @Test
+    public void testLargeTable() {
+        List<Cell> cells = new ArrayList<Cell>();
+        for (int r = 0; r < 1000; r++) {
+            for (int c = 0; c < 100; c++) {
+                cells.add(cell(r, c, r + 1, c + 1, r == 0 ? CellType.HEADER : CellType.BODY));
+            }
+        }
+        PMCTable table = new PMCTable();
+        table.setCells(cells);
+
+        int covered = 0;
+        for (Iterator<List<Cell>> rows = table.rowIterator(); rows.hasNext();) {
+            for (Cell cell : rows.next()) {
+                covered += cell != null ? 1 : 0;
+            }
+        }
+        assertEquals(100000, covered);
+        assertTrue(table.isHeaderRow(0));
+        assertSame(cells.get(99999), table.getCell(999, 99));
+    }
+
+}
@@ -0,0 +1,97 @@
+package de.fraunhofer.scai.bio.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class SentenceDetectorTest {
+
+    @Test
+    public void testDefaultPatterns() {
+        SentenceDetector detector = new SentenceDetector(0);
+        assertEquals(SentenceDetector.Engine.SCANNER, detector.getEngine());
+
+        String text = "First sentence. second part. Third: Fourth one!";
+        assertEquals(Arrays.asList(28, 35, text.length()), detector.findSentencesEndPositions(text));
+    }
+
+    @Test
+    public void testCustomPatternsUseRegex() {
+        Map<String, String> patterns = new HashMap<String, String>();
+        patterns.put("semicolon [$1]", "(;)(\\s)");
+        SentenceDetector detector = new SentenceDetector(0, patterns);
+        assertEquals(SentenceDetector.Engine.REGEX, detector.getEngine());
+
+        assertEquals(Arrays.asList(2, 5), detector.findSentencesEndPositions("a; b."));
+    }
+
+    @Test
+    public void testPackedOffsetsMatchTuples() {
+        SentenceDetector detector = new SentenceDetector(40);
+        String text = "  First sentence. Ok. Third one\nshort\n\nNext paragraph starts here: Here it goes.  ";
+
+        List<SentenceDetector.Tuple> tuples =
+            detector.getSentencesOffsets(detector.findSentencesEndPositions(text), text, 5);
+        int[] offsets = detector.findSentenceOffsets(text, 5);
+
+        assertEquals(tuples.size() * 2, offsets.length);
+        for (int i = 0; i < tuples.size(); i++) {
+            assertEquals(tuples.get(i).getBegin(), offsets[2 * i]);
+            assertEquals(tuples.get(i).getEnd(), offsets[2 * i + 1]);
+        }
+
+        IntList ends = new IntList();
+        IntList reused = new IntList();
+        detector.findSentenceOffsets("Something else entirely. Yes.", 5, ends, reused);
+        assertEquals(tuples.size(), detector.findSentenceOffsets(text, 5, ends, reused));
+        assertArrayEquals(offsets, reused.toArray());
+    }
+
+    @Test
+    public void testScannerMatchesRegex() {
+        Random random = new Random(4711);
+        String alphabet = "aA1 \n\r\t.:!?xZ\u2028\u0085\f";
+
+        for (int shortLine : new int[] { 0, 3, 50 }) {
+            SentenceDetector scanner = new SentenceDetector(shortLine, SentenceDetector.Engine.SCANNER);
+            SentenceDetector regex = new SentenceDetector(shortLine, SentenceDetector.Engine.REGEX);
+
+            for (int i = 0; i < 20000; i++) {
+                StringBuilder sb = new StringBuilder();
+                int len = 1 + random.nextInt(i % 10 == 0 ? 200 : 25);
+                for (int k = 0; k < len; k++) {
+                    sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+                String text = sb.toString();
+
+                List<Integer> expected = regex.findSentencesEndPositions(text);
+                assertArrayEquals(text, expected.stream().mapToInt(Integer::intValue).toArray(),
+                    scanner.findSentenceEndOffsets(text));
+            }
+        }
+    }
+
+    @Test
+    public void testSharedBetweenThreads() {
+        SentenceDetector detector = new SentenceDetector(3, SentenceDetector.Engine.REGEX);
+        List<String> texts = IntStream.range(0, 2000)
+            .mapToObj(i -> "Text " + i + ". More text: Again" + (i % 7 == 0 ? "\n\n\n" : " ") + "end " + i + "! x")
+            .collect(Collectors.toList());
+        List<int[]> expected = texts.stream().map(detector::findSentenceEndOffsets).collect(Collectors.toList());
+
+        List<int[]> parallel =
+            texts.parallelStream().map(detector::findSentenceEndOffsets).collect(Collectors.toList());
+        for (int i = 0; i < texts.size(); i++) {
+            assertArrayEquals(texts.get(i), expected.get(i), parallel.get(i));
+        }
+    }
+}
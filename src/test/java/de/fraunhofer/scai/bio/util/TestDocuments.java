@@ -0,0 +1,75 @@
+package de.fraunhofer.scai.bio.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Date;
+
+/**
+ * reads the JSON test resources, including the older ones which store dates as epoch milliseconds
+ */
+final class TestDocuments {
+
+    /** all documents in the test resources */
+    static final String[] RESOURCES = { "/a.json", "/b.json", "/positiveIn/testDocument.json",
+        "/positiveIn/testAnnotatedDocument.json", "/positiveIn/testDocumentNewDateFormat.json" };
+
+    private static final ObjectMapper MAPPER = createMapper();
+
+    private TestDocuments() {
+    }
+
+    static Document read(String resource) throws IOException {
+        try (InputStream in = TestDocuments.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("no test document " + resource);
+            }
+            return MAPPER.readValue(in, Document.class);
+        }
+    }
+
+    private static ObjectMapper createMapper() {
+        SimpleModule legacyDates = new SimpleModule("legacy-dates");
+        legacyDates.addDeserializer(Date.class, new LegacyDateDeserializer());
+
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(legacyDates);
+        mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        return mapper;
+    }
+
+    private static final class LegacyDateDeserializer extends StdDeserializer<Date> {
+
+        private static final long serialVersionUID = 1L;
+
+        LegacyDateDeserializer() {
+            super(Date.class);
+        }
+
+        @Override
+        public Date deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            Date date = new Date();
+            if (p.getCurrentToken().isNumeric()) {
+                LocalDate day = Instant.ofEpochMilli(p.getLongValue()).atZone(ZoneOffset.UTC).toLocalDate();
+                date.setDate(day.getDayOfMonth(), day.getMonthValue(), day.getYear());
+            } else {
+                JsonNode node = p.readValueAsTree();
+                date.setDate(node.path("day").asInt(), node.path("month").asInt(), node.path("year").asInt());
+            }
+            return date;
+        }
+    }
+
+}
@@ -0,0 +1,33 @@
+package de.fraunhofer.scai.bio.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.UUID;
+
+import org.junit.Test;
+
+public class TextElementIdStrategyTest {
+
+    @Test
+    public void testMd5StaysCompatible() {
+        String text = "Nicotinic acetylcholine receptors";
+        assertEquals(UUID.nameUUIDFromBytes(text.getBytes()), TextElementIdStrategy.MD5.createId(text));
+        assertEquals(TextElementIdStrategy.MD5.createId(text), new DocumentBuilder().createTextElement(text).getUuid());
+    }
+
+    @Test
+    public void testMurmur3() {
+        // MurmurHash3_x64_128 of the UTF-16LE bytes with version and variant set
+        assertEquals(UUID.fromString("4c972e87-f344-8f47-8929-0c03dc4a9f7c"),
+            TextElementIdStrategy.MURMUR3.createId("protein kinase"));
+
+        UUID id = TextElementIdStrategy.MURMUR3.createId("protein kinase C");
+        assertEquals(8, id.version());
+        assertEquals(2, id.variant());
+        assertFalse(id.equals(TextElementIdStrategy.MURMUR3.createId("protein kinase D")));
+
+        DocumentBuilder builder = new DocumentBuilder(TextElementIdStrategy.MURMUR3);
+        assertEquals(id, builder.createTextElement("protein kinase C").getUuid());
+    }
+}
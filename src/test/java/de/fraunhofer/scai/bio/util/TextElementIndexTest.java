@@ -0,0 +1,73 @@
+package de.fraunhofer.scai.bio.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Test;
+
+import de.fraunhofer.scai.bio.Document;
+import de.fraunhofer.scai.bio.types.text.doc.container.BodyMatter;
+import de.fraunhofer.scai.bio.types.text.doc.container.Section;
+import de.fraunhofer.scai.bio.types.text.doc.meta.Annotation;
+import de.fraunhofer.scai.bio.types.text.doc.structure.TextElement;
+
+public class TextElementIndexTest {
+
+    @Test
+    public void testIndex() {
+        DocumentBuilder builder = new DocumentBuilder();
+        Document document = new Document();
+        builder.setTitle(document, "A title", null);
+        Section section = builder.createSection("Results");
+        section.addParagraph(builder.createParagraph("First sentence here. Second sentence there.", true));
+        builder.getBodyMatter(document).addSection(section);
+
+        TextElementIndex index = new TextElementIndex(document);
+        assertEquals(4, index.getTextElements().size());
+        assertEquals(1, index.getTextElements(TextElementRole.SECTION_TITLE).size());
+        assertEquals(2, index.getTextElements(TextElementRole.SENTENCE).size());
+
+        TextElement title = section.getTitle();
+        assertSame(title, index.get(title.getUuid()));
+    }
+
+    @Test
+    public void testChangesAfterIndexing() {
+        DocumentBuilder builder = new DocumentBuilder();
+        Document document = new Document();
+        BodyMatter bodyMatter = builder.getBodyMatter(document);
+        TextElementIndex index = new TextElementIndex(document);
+        assertEquals(0, index.getTextElements().size());
+
+        Section section = builder.createSection("intro", "Introduction");
+        bodyMatter.addSection(section);
+        section.addParagraph(builder.createParagraph("Added after indexing.", true));
+        Annotation annotation = new Annotation();
+        annotation.setAnnotationText("intro");
+        section.getTitle().addAnnotation(annotation);
+
+        // the index is a snapshot, the renderer and merger APIs see the current document
+        assertEquals(0, index.getTextElements().size());
+        assertEquals(2, new TextElementIndex(document).getTextElements().size());
+        assertEquals(1, DocumentRenderer.getAllAnnotations(document).size());
+        assertTrue(DocumentRenderer.renderTextContents(document).contains("Added after indexing"));
+    }
+
+    @Test
+    public void testAnnotationCount() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        File json = new File(getClass().getResource("/a.json").getPath());
+        Document document = mapper.readValue(json.getAbsoluteFile(), Document.class);
+
+        TextElementIndex index = new TextElementIndex(document);
+        assertEquals(DocumentRenderer.getAllAnnotations(document).size(), index.getAnnotationCount());
+        assertFalse(mapper.writeValueAsString(document).contains("textElementIndex"));
+    }
+}